@@ -0,0 +1,142 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.async.AsyncJsonReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ *
+ * 多数の接続からリクエストボディが少しずつ届く場合の、1回の受信（チャンク）を処理する時間の分布です。
+ * NIOのイベントループのように、1つのスレッドがconnections個の接続のチャンクを順番に処理します。
+ * 1つのチャンクの処理が長いほど、同じスレッドの他の接続の処理が遅れます。
+ *
+ * asyncFeed       : AsyncJsonReader#feed（要素が完成したところで変換）
+ * bufferThenParse : 接続ごとにByteArrayOutputStreamへ溜め、最後のチャンクでInputStreamReader経由で変換
+ *
+ * Mode.SampleTimeのため、p0.50 / p0.99 / p0.999等のパーセンタイルが出力されます。
+ * イベントループのスレッドを増やす場合は「-t 4」のように指定します（スレッドごとにconnections個の接続を持ちます）。
+ *
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AsyncFeedBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS" })
+	public String encoding;
+
+	@Param({ "64KB" })
+	public String size;
+
+	@Param({ "16", "1024" })
+	public int connections;
+
+	@Param({ "1460" })
+	public int chunkSize;
+
+	ObjectMapper mapper;
+
+	ObjectReader reader;
+
+	Charset charset;
+
+	byte[] body;
+
+	int chunks;
+
+	/**
+	 * 接続ごとの、次に届くチャンクの番号
+	 */
+	int[] nextChunk;
+
+	AsyncJsonReader<Payloads.Bean>[] asyncReaders;
+
+	ByteArrayOutputStream[] buffers;
+
+	int connection;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		mapper = new ObjectMapper();
+		reader = mapper.readerFor(Payloads.Bean.class);
+		charset = Charset.forName(encoding);
+		body = Payloads.document(size).getBytes(charset);
+		chunks = (body.length + chunkSize - 1) / chunkSize;
+		nextChunk = new int[connections];
+		asyncReaders = new AsyncJsonReader[connections];
+		buffers = new ByteArrayOutputStream[connections];
+		for (int i = 0; i < connections; i++) {
+			asyncReaders[i] = AsyncJsonReader.forArrayElements(reader, charset);
+			buffers[i] = new ByteArrayOutputStream();
+			// 接続ごとに途中まで届いている状態から始め、完成するタイミングをずらします
+			nextChunk[i] = i % chunks;
+			for (int chunk = 0; chunk < nextChunk[i]; chunk++) {
+				int off = chunk * chunkSize;
+				asyncReaders[i].feed(body, off, chunkSize);
+				buffers[i].write(body, off, chunkSize);
+			}
+		}
+	}
+
+	private int nextConnection() {
+		int c = connection;
+		connection = (c + 1 == connections) ? 0 : c + 1;
+		return c;
+	}
+
+	@Benchmark
+	public Object asyncFeed() throws Exception {
+		int c = nextConnection();
+		int chunk = nextChunk[c];
+		int off = chunk * chunkSize;
+		Object values = asyncReaders[c].feed(body, off, Math.min(chunkSize, body.length - off));
+		if (chunk + 1 == chunks) {
+			values = asyncReaders[c].endOfInput();
+			asyncReaders[c] = AsyncJsonReader.forArrayElements(reader, charset);
+			nextChunk[c] = 0;
+		} else {
+			nextChunk[c] = chunk + 1;
+		}
+		return values;
+	}
+
+	@Benchmark
+	public Object bufferThenParse() throws Exception {
+		int c = nextConnection();
+		int chunk = nextChunk[c];
+		int off = chunk * chunkSize;
+		ByteArrayOutputStream buffer = buffers[c];
+		buffer.write(body, off, Math.min(chunkSize, body.length - off));
+		if (chunk + 1 == chunks) {
+			nextChunk[c] = 0;
+			Object values = mapper.readValue(
+					new InputStreamReader(new ByteArrayInputStream(buffer.toByteArray()), charset), Payloads.Bean[].class);
+			buffer.reset();
+			return values;
+		}
+		nextChunk[c] = chunk + 1;
+		return null;
+	}
+}
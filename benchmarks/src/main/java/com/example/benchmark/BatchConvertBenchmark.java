@@ -0,0 +1,117 @@
+package com.example.benchmark;
+
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.batch.BatchConverter;
+import com.example.batch.BatchProgress;
+import com.example.batch.BatchResult;
+import com.example.format.MediaFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * Shift_JISのJSONファイル（200個、各約16KB）をUTF-8に変換する場合の比較です（1秒あたりのディレクトリ全体の変換回数）。
+ *
+ * readTreeEachFile : 1ファイルずつ、InputStreamReaderでreadTreeしてwriteValueする（スレッド数によらず1スレッド）
+ * batch            : BatchConverterで、threadsのForkJoinPoolを使用して変換する
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchConvertBenchmark {
+
+	static final int FILES = 200;
+
+	@Param({ "1", "2", "4" })
+	public int threads;
+
+	Charset sjis = Charset.forName("Shift_JIS");
+
+	Path dir;
+
+	List<Path> sources;
+
+	ObjectMapper mapper;
+
+	ForkJoinPool pool;
+
+	BatchConverter converter;
+
+	@Setup
+	public void setup() throws Exception {
+		dir = Files.createTempDirectory("batch-convert");
+		byte[] body = Payloads.document("16KB").getBytes(sjis);
+		for (int i = 0; i < FILES; i++) {
+			Path file = dir.resolve("in").resolve("d" + (i % 10)).resolve("f" + i + ".json");
+			Files.createDirectories(file.getParent());
+			Files.write(file, body);
+		}
+		try (Stream<Path> files = Files.walk(dir.resolve("in"))) {
+			sources = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+		mapper = new ObjectMapper();
+		pool = new ForkJoinPool(threads);
+		converter = BatchConverter.create(MediaFormat.json(sjis), MediaFormat.JSON_UTF8, pool);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		pool.shutdown();
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path p : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(p);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object readTreeEachFile() throws Exception {
+		Path out = dir.resolve("tree");
+		for (Path source : sources) {
+			Path target = out.resolve(dir.resolve("in").relativize(source));
+			Files.createDirectories(target.getParent());
+			JsonNode tree;
+			try (Reader in = new InputStreamReader(Files.newInputStream(source), sjis)) {
+				tree = mapper.readTree(in);
+			}
+			try (OutputStream os = Files.newOutputStream(target)) {
+				mapper.writeValue(os, tree);
+			}
+		}
+		return out;
+	}
+
+	@Benchmark
+	public BatchResult batch() throws Exception {
+		return converter.convertDirectory(dir.resolve("in"), "*.json", dir.resolve("batch"), new BatchProgress());
+	}
+}
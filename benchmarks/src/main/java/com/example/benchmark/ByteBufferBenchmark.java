@@ -0,0 +1,115 @@
+package com.example.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.buffer.ByteBufferCodec;
+import com.example.format.FormatNegotiator;
+import com.example.format.MediaFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * byte[]とByteBuffer（ダイレクトバッファ）の「read」「write」の比較です。
+ * 「-prof gc」で1回あたりの割り当て量（gc.alloc.rate.norm）も比較できます。
+ *
+ * writeValueAsBytes   : FormatNegotiator#writeValueAsBytes
+ * writeDirect         : 用意しておいたダイレクトバッファへ書き出す（ByteBufferCodec#writeValue）
+ * writeDirectBuffers  : ダイレクトバッファを割り当てて書き出す（ByteBufferCodec#writeValueAsBuffers）
+ * readBytes           : FormatNegotiator#read(byte[], ...)
+ * readDirect          : ダイレクトバッファから読み込む（ByteBufferCodec#readValue）
+ * readDirectSplit     : 2つに分かれたダイレクトバッファから読み込む
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ByteBufferBenchmark {
+
+	@Param({ "UTF-8", "UTF-16LE", "Shift_JIS", "ISO-2022-JP" })
+	public String encoding;
+
+	@Param({ "bean", "64KB" })
+	public String size;
+
+	FormatNegotiator formats;
+
+	ByteBufferCodec codec;
+
+	MediaFormat format;
+
+	Object value;
+
+	Class<?> type;
+
+	byte[] body;
+
+	ByteBuffer directBody;
+
+	ByteBuffer[] splitBody;
+
+	ByteBuffer target;
+
+	@Setup
+	public void setup() throws Exception {
+		formats = new FormatNegotiator(new ObjectMapper());
+		codec = new ByteBufferCodec(formats, ByteBufferCodec.DEFAULT_CHUNK_SIZE, true);
+		format = MediaFormat.json(Charset.forName(encoding));
+		value = Payloads.value(size);
+		type = Payloads.type(size);
+		body = Payloads.document(size).getBytes(encoding);
+		directBody = ByteBuffer.allocateDirect(body.length);
+		directBody.put(body).flip();
+		int half = body.length / 2;
+		splitBody = new ByteBuffer[] { directBody.duplicate().limit(half), directBody.duplicate().position(half) };
+		target = ByteBuffer.allocateDirect(formats.writeValueAsBytes(format, value).length);
+	}
+
+	@Benchmark
+	public Object writeValueAsBytes() throws Exception {
+		return formats.writeValueAsBytes(format, value);
+	}
+
+	@Benchmark
+	public Object writeDirect() throws Exception {
+		target.clear();
+		codec.writeValue(target, format, value);
+		return target;
+	}
+
+	@Benchmark
+	public Object writeDirectBuffers() throws Exception {
+		return codec.writeValueAsBuffers(format, value);
+	}
+
+	@Benchmark
+	public Object readBytes() throws Exception {
+		return formats.read(body, format, type);
+	}
+
+	@Benchmark
+	public Object readDirect() throws Exception {
+		return codec.readValue(directBody, format, type);
+	}
+
+	@Benchmark
+	public Object readDirectSplit() throws Exception {
+		return codec.readValue(splitBody, format, type);
+	}
+}
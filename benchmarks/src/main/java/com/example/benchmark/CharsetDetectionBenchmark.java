@@ -0,0 +1,82 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.CharsetDetectingJsonFactory;
+import com.example.charset.CharsetDetector;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * エンコーディングの判定にかかる時間です。
+ *
+ * detect   : CharsetDetector#detectだけを実行する（本文の大きさに関係なく、先頭の一定範囲だけを見る）
+ * detected : CharsetDetectingJsonFactoryでreadする
+ * known    : エンコーディングが分かっている場合（Shift_JIS / EUC-JPはLegacyCharsetJsonFactory、UTF-8は標準のObjectMapper）
+ *
+ * detected - known が、判定を追加したことによるオーバーヘッドです。
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CharsetDetectionBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS", "EUC-JP" })
+	public String charset;
+
+	/**
+	 * 本文のおおよその大きさ（KB）
+	 */
+	@Param({ "1", "16", "256" })
+	public int kilobytes;
+
+	ObjectMapper detectingMapper;
+
+	ObjectMapper knownMapper;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		detectingMapper = new ObjectMapper(new CharsetDetectingJsonFactory());
+		LegacyCharset legacyCharset = LegacyCharset.forName(charset);
+		knownMapper = (legacyCharset == null) ? new ObjectMapper()
+				: new ObjectMapper(new LegacyCharsetJsonFactory(legacyCharset));
+		// 1件あたりおよそ40バイト
+		body = Payloads.beanArray(kilobytes * 1024 / 40).getBytes(charset);
+	}
+
+	@Benchmark
+	public Object detect() {
+		return CharsetDetector.detect(body);
+	}
+
+	@Benchmark
+	public Object detected() throws Exception {
+		return detectingMapper.readValue(new ByteArrayInputStream(body), Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object known() throws Exception {
+		return knownMapper.readValue(new ByteArrayInputStream(body), Payloads.Bean[].class);
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.registry.CodecRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * デプロイ直後の最初の要求（Shift_JISのBeanを1件read / write）にかかる時間です。
+ * 反復ごとに新しいObjectMapper / CodecRegistryを作成し、その最初の1回だけを測定します。
+ *
+ * adhoc      : ObjectMapperをInputStreamReader / OutputStreamWriterで使う（従来の方法）
+ * registry   : CodecRegistryから取得したReader / Writerを使う（warmUpなし）
+ * warmedUp   : CodecRegistry#warmUp()を実行済みの状態で使う
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(3)
+@State(Scope.Thread)
+public class CodecRegistryBenchmark {
+
+	static final Charset SJIS = Charset.forName("Shift_JIS");
+
+	byte[] body = "{\"message\":\"あいうえお\"}".getBytes(SJIS);
+
+	ObjectMapper mapper;
+
+	CodecRegistry registry;
+
+	CodecRegistry warmedRegistry;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		mapper = new ObjectMapper();
+		registry = new CodecRegistry(new ObjectMapper());
+		warmedRegistry = new CodecRegistry(new ObjectMapper()).register(Payloads.Bean.class, SJIS);
+		warmedRegistry.warmUp();
+	}
+
+	@Benchmark
+	public Object adhoc() throws Exception {
+		Payloads.Bean bean = mapper.readValue(new InputStreamReader(new ByteArrayInputStream(body), SJIS),
+				Payloads.Bean.class);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(out, SJIS)) {
+			mapper.writeValue(writer, bean);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public Object registry() throws Exception {
+		return readAndWrite(registry);
+	}
+
+	@Benchmark
+	public Object warmedUp() throws Exception {
+		return readAndWrite(warmedRegistry);
+	}
+
+	private Object readAndWrite(CodecRegistry r) throws Exception {
+		Payloads.Bean bean = r.reader(Payloads.Bean.class, SJIS).readValue(body);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		r.writer(Payloads.Bean.class, SJIS).writeValue(out, bean);
+		return out;
+	}
+}
@@ -0,0 +1,96 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.codec.CompiledCodecModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ *
+ * ネストしたBean（Person2 / PersonName）を1件読み書きする時間の比較です（1秒あたりの件数）。
+ *
+ * standard : 標準のBeanSerializer / BeanDeserializer
+ * compiled : CompiledCodecModuleを登録したObjectMapper
+ *
+ * Shift_JISはLegacyCharsetJsonFactoryを使用します。
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompiledCodecBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS" })
+	public String encoding;
+
+	ObjectReader standardReader;
+
+	ObjectWriter standardWriter;
+
+	ObjectReader compiledReader;
+
+	ObjectWriter compiledWriter;
+
+	Payloads.Person2 person;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		ObjectMapper standard = mapper();
+		ObjectMapper compiled = mapper()
+				.registerModule(new CompiledCodecModule(Payloads.Person2.class, Payloads.PersonName.class));
+		standardReader = standard.readerFor(Payloads.Person2.class);
+		standardWriter = standard.writerFor(Payloads.Person2.class);
+		compiledReader = compiled.readerFor(Payloads.Person2.class);
+		compiledWriter = compiled.writerFor(Payloads.Person2.class);
+		person = Payloads.person2();
+		body = standardWriter.writeValueAsBytes(person);
+	}
+
+	private ObjectMapper mapper() {
+		if ("UTF-8".equals(encoding)) {
+			return new ObjectMapper();
+		}
+		return new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.forName(encoding)));
+	}
+
+	@Benchmark
+	public Object readStandard() throws Exception {
+		return standardReader.readValue(body);
+	}
+
+	@Benchmark
+	public Object readCompiled() throws Exception {
+		return compiledReader.readValue(body);
+	}
+
+	@Benchmark
+	public byte[] writeStandard() throws Exception {
+		return standardWriter.writeValueAsBytes(person);
+	}
+
+	@Benchmark
+	public byte[] writeCompiled() throws Exception {
+		return compiledWriter.writeValueAsBytes(person);
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.pool.CodecContextPool;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * 1件のBeanの「read」「write」を、毎回準備する場合とCodecContextPoolで再利用する場合で比較します。
+ * 「-prof gc」で1回あたりの割り当て量、「-t 4」等で同時に実行した場合も比較できます。
+ *
+ * writeFresh  : ByteArrayOutputStream + OutputStreamWriter + createGenerator（BinaryToJSONSampleTestの方法）
+ * writePooled : CodecContextPool#writeValueAsBytes
+ * readFresh   : InputStreamReader + ObjectMapper#readValue
+ * readPooled  : CodecContextPool#readValue(byte[], ...)
+ *
+ * threadLocalRecycling=false は、JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLINGを無効にした場合です。
+ * 仮想スレッドのように、読み書きごとにスレッドが変わりThreadLocalのBufferRecyclerが再利用されない場合に相当します
+ * （CodecContextPoolはThreadLocalを使用しないため、影響を受けません）。
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContextPoolBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS", "ISO-2022-JP" })
+	public String encoding;
+
+	@Param({ "true", "false" })
+	public boolean threadLocalRecycling;
+
+	ObjectMapper mapper;
+
+	CodecContextPool pool;
+
+	Charset charset;
+
+	Payloads.Bean bean;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		JsonFactory factory = new JsonFactory();
+		factory.configure(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING, threadLocalRecycling);
+		mapper = new ObjectMapper(factory);
+		charset = Charset.forName(encoding);
+		pool = new CodecContextPool(new ObjectMapper(), charset);
+		bean = (Payloads.Bean) Payloads.value(Payloads.SINGLE_BEAN);
+		body = Payloads.document(Payloads.SINGLE_BEAN).getBytes(charset);
+	}
+
+	@Benchmark
+	public Object writeFresh() throws Exception {
+		ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(outputBytes, charset);
+		JsonGenerator jsonGenerator = mapper.getFactory().createGenerator(writer);
+		mapper.writeValue(jsonGenerator, bean);
+		jsonGenerator.close();
+		return outputBytes.toByteArray();
+	}
+
+	@Benchmark
+	public Object writePooled() throws Exception {
+		return pool.writeValueAsBytes(bean);
+	}
+
+	@Benchmark
+	public Object readFresh() throws Exception {
+		return mapper.readValue(new InputStreamReader(new ByteArrayInputStream(body), charset), Payloads.Bean.class);
+	}
+
+	@Benchmark
+	public Object readPooled() throws Exception {
+		return pool.readValue(body, Payloads.Bean.class);
+	}
+}
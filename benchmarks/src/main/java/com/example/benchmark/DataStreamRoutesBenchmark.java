@@ -0,0 +1,134 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.frame.FrameReader;
+import com.example.frame.FrameWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * BinaryToJSONSampleTestのDataInput / DataOutputを使用する方法の比較です。
+ * ObjectMapperのDataInput / DataOutputはUTF-8だけを扱うため、エンコーディングはUTF-8だけです。
+ *
+ * dataOutput / dataInput : ObjectMapper#writeValue(DataOutput, ...) / readValue(DataInput, ...)
+ * writeUTF / readUTF     : DataOutput#writeUTF / DataInput#readUTFで文字列として書き出し・読み込む方法。
+ *                          writeUTFは65535バイトまでしか書き出せないため、大きさは別に指定します
+ * frameOutput / frameInput : FrameWriter / FrameReaderで、長さ + JSONのフレームとして書き出し・読み込む方法
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class DataStreamRoutesBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Data {
+
+		@Param({ Payloads.SINGLE_BEAN, "1KB", "64KB", "4MB" })
+		public String size;
+
+		ObjectMapper mapper;
+
+		Class<?> type;
+
+		Object value;
+
+		byte[] body;
+
+		byte[] framed;
+
+		@Setup
+		public void setup() throws Exception {
+			mapper = new ObjectMapper();
+			type = Payloads.type(size);
+			value = Payloads.value(size);
+			body = Payloads.document(size).getBytes("UTF-8");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			FrameWriter.of(mapper, new DataOutputStream(out)).writeValue(value);
+			framed = out.toByteArray();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class ModifiedUtf8 {
+
+		@Param({ Payloads.SINGLE_BEAN, "1KB", "32KB" })
+		public String size;
+
+		ObjectMapper mapper;
+
+		Class<?> type;
+
+		Object value;
+
+		byte[] body;
+
+		@Setup
+		public void setup() throws Exception {
+			mapper = new ObjectMapper();
+			type = Payloads.type(size);
+			value = Payloads.value(size);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			new DataOutputStream(out).writeUTF(Payloads.document(size));
+			body = out.toByteArray();
+		}
+	}
+
+	@Benchmark
+	public Object dataOutput(Data data) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		data.mapper.writeValue((DataOutput) new DataOutputStream(out), data.value);
+		return out;
+	}
+
+	@Benchmark
+	public Object dataInput(Data data) throws Exception {
+		return data.mapper.readValue((DataInput) new DataInputStream(new ByteArrayInputStream(data.body)), data.type);
+	}
+
+	@Benchmark
+	public Object frameOutput(Data data) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FrameWriter.of(data.mapper, new DataOutputStream(out)).writeValue(data.value);
+		return out;
+	}
+
+	@Benchmark
+	public Object frameInput(Data data) throws Exception {
+		return FrameReader.of(data.mapper, new DataInputStream(new ByteArrayInputStream(data.framed)))
+				.readValue(data.type);
+	}
+
+	@Benchmark
+	public Object writeUTF(ModifiedUtf8 data) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DataOutputStream(out).writeUTF(data.mapper.writeValueAsString(data.value));
+		return out;
+	}
+
+	@Benchmark
+	public Object readUTF(ModifiedUtf8 data) throws Exception {
+		return data.mapper.readValue(new DataInputStream(new ByteArrayInputStream(data.body)).readUTF(), data.type);
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.charset.LegacyCharsetJsonParser;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * 日本語のフィールド名を多く含むJSONを「read」する場合の比較です。
+ *
+ * reader    : InputStreamReaderで文字に変換してから読み込む（従来の方法）
+ * decode    : LegacyCharsetJsonFactoryで読み込み、フィールド名は毎回デコードしてからCharsToNameCanonicalizerで正規化する
+ * canonical : LegacyCharsetJsonFactoryで読み込み、フィールド名はFieldNameCanonicalizerでバイト列のまま正規化する
+ *
+ * keys は1件のオブジェクトに含めるフィールドの数です（名前はすべて日本語）。
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldNameReadBenchmark {
+
+	@Param({ "Shift_JIS", "EUC-JP" })
+	public String charset;
+
+	@Param({ "8", "64" })
+	public int keys;
+
+	/**
+	 * 配列に含めるオブジェクトの数
+	 */
+	@Param({ "1000" })
+	public int records;
+
+	ObjectMapper readerMapper;
+
+	ObjectMapper decodeMapper;
+
+	ObjectMapper canonicalMapper;
+
+	byte[] body;
+
+	/**
+	 * FieldNameCanonicalizerを使用しないLegacyCharsetJsonFactory（比較用）
+	 */
+	static class DecodingFactory extends LegacyCharsetJsonFactory {
+
+		private static final long serialVersionUID = 1L;
+
+		DecodingFactory(LegacyCharset legacyCharset) {
+			super(legacyCharset);
+		}
+
+		@Override
+		protected JsonParser _createParser(byte[] data, int offset, int len, IOContext ctxt) throws IOException {
+			return new LegacyCharsetJsonParser(ctxt, _parserFeatures, null, _objectCodec,
+					_rootCharSymbols.makeChild(_factoryFeatures), _legacyCharset, data, offset, offset + len, false);
+		}
+	}
+
+	static String document(int records, int keys) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < records; i++) {
+			sb.append((i > 0) ? ",{" : "{");
+			for (int k = 0; k < keys; k++) {
+				if (k > 0) {
+					sb.append(',');
+				}
+				sb.append("\"項目").append((char) ('あ' + k)).append("名称\":").append(i);
+			}
+			sb.append('}');
+		}
+		return sb.append(']').toString();
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		LegacyCharset legacyCharset = LegacyCharset.forName(charset);
+		readerMapper = new ObjectMapper();
+		decodeMapper = new ObjectMapper(new DecodingFactory(legacyCharset));
+		canonicalMapper = new ObjectMapper(new LegacyCharsetJsonFactory(legacyCharset));
+		body = document(records, keys).getBytes(charset);
+	}
+
+	@Benchmark
+	public JsonNode reader() throws Exception {
+		return readerMapper.readTree(new InputStreamReader(new ByteArrayInputStream(body), charset));
+	}
+
+	@Benchmark
+	public JsonNode decode() throws Exception {
+		return decodeMapper.readTree(body);
+	}
+
+	@Benchmark
+	public JsonNode canonical() throws Exception {
+		return canonicalMapper.readTree(body);
+	}
+}
@@ -0,0 +1,118 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.metrics.InMemoryMetricsSink;
+import com.example.metrics.InstrumentedObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * InstrumentedObjectMapper（InMemoryMetricsSinkで集計）の計測によるオーバーヘッドを、ObjectMapperと比較します。
+ * 計測は1回の読み書きごとの固定の処理とトークンごとの委譲のため、小さなJSON（bean）で差が最も大きくなります。
+ * 「-t 4」等で、同時に実行した場合（Sinkの集計の競合）も比較できます。
+ *
+ * readBytes   : readValue(byte[])（UTF-8 / UTF-16等の自動判定）
+ * readReader  : readValue(InputStreamReader)
+ * writeBytes  : writeValueAsBytes
+ * writeTree   : createGenerator(OutputStreamWriter) + writeTree
+ *
+ * metrics=none は通常のObjectMapper、noopSink は何もしないMetricsSink、inMemory はInMemoryMetricsSinkを使用した
+ * InstrumentedObjectMapperです（noopSinkとの差がSinkでの集計の時間です）。
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationOverheadBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS" })
+	public String encoding;
+
+	@Param({ "bean", "64KB" })
+	public String size;
+
+	@Param({ "none", "noopSink", "inMemory" })
+	public String metrics;
+
+	ObjectMapper mapper;
+
+	Charset charset;
+
+	Object value;
+
+	Class<?> type;
+
+	JsonNode tree;
+
+	byte[] utf8;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		if ("noopSink".equals(metrics)) {
+			mapper = new InstrumentedObjectMapper(sample -> {
+			});
+		} else if ("inMemory".equals(metrics)) {
+			mapper = new InstrumentedObjectMapper(new InMemoryMetricsSink());
+		} else {
+			mapper = new ObjectMapper();
+		}
+		charset = Charset.forName(encoding);
+		value = Payloads.value(size);
+		type = Payloads.type(size);
+		String document = Payloads.document(size);
+		tree = mapper.readTree(document);
+		utf8 = document.getBytes("UTF-8");
+		body = document.getBytes(charset);
+	}
+
+	@Benchmark
+	public Object readBytes() throws Exception {
+		return mapper.readValue(utf8, type);
+	}
+
+	@Benchmark
+	public Object readReader() throws Exception {
+		return mapper.readValue(new InputStreamReader(new ByteArrayInputStream(body), charset), type);
+	}
+
+	@Benchmark
+	public Object writeBytes() throws Exception {
+		return mapper.writeValueAsBytes(value);
+	}
+
+	@Benchmark
+	public Object writeTree() throws Exception {
+		ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(outputBytes, charset);
+		JsonGenerator jsonGenerator = mapper.getFactory().createGenerator(writer);
+		mapper.writeTree(jsonGenerator, tree);
+		jsonGenerator.close();
+		return outputBytes.toByteArray();
+	}
+}
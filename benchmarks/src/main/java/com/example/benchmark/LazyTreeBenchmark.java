@@ -0,0 +1,91 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.tree.LazyTreeReader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * 大きなJSONから一部のノードだけを参照する場合の、readTreeとLazyTreeReaderの比較です。
+ * 「-prof gc」で1回あたりの割り当て量（gc.alloc.rate.norm）も比較できます。
+ *
+ * JSONは {"message":"あいうえお","records":[...]} の形で、recordsにsizeの大きさのBeanの配列を含みます。
+ *
+ * eagerMessage : ObjectMapper#readTreeで全体を読み込み、get("message")を参照する
+ * lazyMessage  : LazyTreeReaderで読み込み、get("message")を参照する（recordsは読み飛ばすだけ）
+ * eagerRecord  : ObjectMapper#readTreeで全体を読み込み、records[100].messageを参照する
+ * lazyRecord   : LazyTreeReaderで読み込み、records[100].messageを参照する（recordsの各要素は読み飛ばすだけ）
+ * lazyAll      : LazyTreeReaderで読み込み、すべてのノードを参照する（toString）。最も不利な場合です
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LazyTreeBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS" })
+	public String encoding;
+
+	@Param({ "64KB", "4MB" })
+	public String size;
+
+	ObjectMapper mapper;
+
+	LazyTreeReader trees;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		LegacyCharset legacyCharset = LegacyCharset.forName(encoding);
+		mapper = (legacyCharset == null) ? new ObjectMapper()
+				: new ObjectMapper(new LegacyCharsetJsonFactory(legacyCharset));
+		trees = new LazyTreeReader(mapper);
+		body = ("{\"message\":\"あいうえお\",\"records\":" + Payloads.document(size) + "}").getBytes(encoding);
+	}
+
+	@Benchmark
+	public String eagerMessage() throws Exception {
+		return mapper.readTree(body).get("message").asText();
+	}
+
+	@Benchmark
+	public String lazyMessage() throws Exception {
+		return trees.readTree(body).get("message").asText();
+	}
+
+	@Benchmark
+	public String eagerRecord() throws Exception {
+		return mapper.readTree(body).get("records").get(100).get("message").asText();
+	}
+
+	@Benchmark
+	public String lazyRecord() throws Exception {
+		return trees.readTree(body).get("records").get(100).get("message").asText();
+	}
+
+	@Benchmark
+	public String lazyAll() throws Exception {
+		JsonNode node = trees.readTree(body);
+		return node.toString();
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * レガシーエンコーディングのJSONを「read」する場合の比較です。
+ *
+ * reader : InputStreamReaderで文字に変換してからObjectMapper#readValue(Reader, ...)に渡す（従来の方法）
+ * direct : LegacyCharsetJsonFactoryでバイト列のまま字句解析する
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LegacyCharsetReadBenchmark {
+
+	@Param({ "Shift_JIS", "EUC-JP" })
+	public String charset;
+
+	/**
+	 * 配列に含めるBeanの数
+	 */
+	@Param({ "1", "1000" })
+	public int records;
+
+	ObjectMapper readerMapper;
+
+	ObjectMapper directMapper;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		readerMapper = new ObjectMapper();
+		directMapper = new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.forName(charset)));
+		body = Payloads.beanArray(records).getBytes(charset);
+	}
+
+	@Benchmark
+	public Object reader() throws Exception {
+		return readerMapper.readValue(new InputStreamReader(new ByteArrayInputStream(body), charset),
+				Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object direct() throws Exception {
+		return directMapper.readValue(new ByteArrayInputStream(body), Payloads.Bean[].class);
+	}
+}
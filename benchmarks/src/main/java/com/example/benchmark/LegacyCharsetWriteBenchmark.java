@@ -0,0 +1,85 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * レガシーエンコーディングのJSONを「write」する場合の比較です。
+ *
+ * writer : OutputStreamWriterで文字をエンコードしながらObjectMapper#writeValue(Writer, ...)で書き出す（従来の方法）
+ * direct : LegacyCharsetJsonFactoryでバイト列を直接書き出す
+ * utf8   : 参考として、UTF-8でObjectMapper#writeValue(OutputStream, ...)で書き出す
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LegacyCharsetWriteBenchmark {
+
+	@Param({ "Shift_JIS", "EUC-JP" })
+	public String charset;
+
+	/**
+	 * 配列に含めるBeanの数
+	 */
+	@Param({ "1", "1000" })
+	public int records;
+
+	ObjectMapper plainMapper;
+
+	ObjectMapper directMapper;
+
+	Payloads.Bean[] beans;
+
+	@Setup
+	public void setup() throws Exception {
+		plainMapper = new ObjectMapper();
+		directMapper = new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.forName(charset)));
+		beans = Payloads.beans(records);
+	}
+
+	@Benchmark
+	public Object writer() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(out, charset)) {
+			plainMapper.writeValue(writer, beans);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public Object direct() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		directMapper.writeValue(out, beans);
+		return out;
+	}
+
+	@Benchmark
+	public Object utf8() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		plainMapper.writeValue(out, beans);
+		return out;
+	}
+}
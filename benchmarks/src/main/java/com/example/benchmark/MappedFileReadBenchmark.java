@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.file.MappedJsonFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * ファイルからの「read」の比較です。
+ *
+ * file        : ObjectMapper#readValue(File, ...)
+ * url         : ObjectMapper#readValue(URL, ...)
+ * inputStream : ObjectMapper#readValue(new FileInputStream(file), ...)
+ * mapped      : 開いておいたMappedJsonFileから読み込む（参照用のファイルを繰り返し読み込む場合）
+ * mappedOpen  : 毎回MappedJsonFileを開いてから読み込む
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedFileReadBenchmark {
+
+	@Param({ "UTF-8", "UTF-16LE" })
+	public String encoding;
+
+	@Param({ "64KB", "4MB", "64MB" })
+	public String size;
+
+	ObjectMapper mapper;
+
+	File file;
+
+	URL url;
+
+	MappedJsonFile mapped;
+
+	@Setup
+	public void setup() throws Exception {
+		mapper = new ObjectMapper();
+		file = File.createTempFile("mapped-read", ".json");
+		Files.write(file.toPath(), Payloads.document(size).getBytes(encoding));
+		url = file.toURI().toURL();
+		mapped = MappedJsonFile.open(file.toPath());
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		mapped.close();
+		file.delete();
+	}
+
+	@Benchmark
+	public Object file() throws Exception {
+		return mapper.readValue(file, Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object url() throws Exception {
+		return mapper.readValue(url, Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object inputStream() throws Exception {
+		try (InputStream in = new FileInputStream(file)) {
+			return mapper.readValue(in, Payloads.Bean[].class);
+		}
+	}
+
+	@Benchmark
+	public Object mapped() throws Exception {
+		return mapped.readValue(mapper, Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object mappedOpen() throws Exception {
+		try (MappedJsonFile f = MappedJsonFile.open(file.toPath())) {
+			return f.readValue(mapper, Payloads.Bean[].class);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.parallel.ParallelArrayReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * 大きな配列の「read」を、1つのパーサーで読み込む場合とParallelArrayReaderで並列に読み込む場合で比較します。
+ *
+ * sequential : ObjectMapper#readValue(InputStream, Bean[].class)（threadsは使用しません）
+ * ordered    : ParallelArrayReader（入力の順）
+ * unordered  : ParallelArrayReader（変換の終わった順）
+ *
+ * threadsはForkJoinPoolのスレッド数です。実行するマシンのコア数を超えた分は速くなりません。
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelArrayReadBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS" })
+	public String encoding;
+
+	@Param({ "64MB" })
+	public String size;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	ObjectMapper mapper;
+
+	ForkJoinPool pool;
+
+	ParallelArrayReader<Payloads.Bean> ordered;
+
+	ParallelArrayReader<Payloads.Bean> unordered;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		LegacyCharset legacyCharset = LegacyCharset.forName(encoding);
+		mapper = (legacyCharset == null) ? new ObjectMapper() : new ObjectMapper(new LegacyCharsetJsonFactory(legacyCharset));
+		pool = new ForkJoinPool(threads);
+		ordered = ParallelArrayReader.create(new ObjectMapper(), Payloads.Bean.class, Charset.forName(encoding), pool);
+		unordered = ordered.withOrdered(false);
+		body = Payloads.document(size).getBytes(encoding);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Object sequential() throws Exception {
+		return mapper.readValue(new ByteArrayInputStream(body), Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object ordered() throws Exception {
+		return ordered.readAll(new ByteArrayInputStream(body));
+	}
+
+	@Benchmark
+	public Object unordered() throws Exception {
+		return unordered.readAll(new ByteArrayInputStream(body));
+	}
+}
@@ -0,0 +1,132 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.extract.FieldSlots;
+import com.example.extract.PathExtractor;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ *
+ * 大きなJSONから2つのフィールド（/personName/firstname と、最後にある /message）だけを取り出す方法の比較です。
+ * 「-prof gc」を指定すると、1回あたりの割り当て量（gc.alloc.rate.norm）も出力されます。
+ *
+ * streaming     : JsonParserのgetCurrentName() / getText()（BinaryToJSONSampleTest#jsonParserShouldReadJSONIncrementallyの方法）
+ * tree          : ObjectMapper#readTree と JsonNode#at
+ * databind      : 2つのフィールドのみのクラスへ変換（それ以外は無視）
+ * pathExtractor : PathExtractor / FieldSlots（JsonParserの作成による割り当てのみ）
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathExtractBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS" })
+	public String encoding;
+
+	@Param({ "1KB", "64KB" })
+	public String size;
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class HotFields {
+
+		public String message;
+
+		public PersonName personName;
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class PersonName {
+
+		public String firstname;
+	}
+
+	JsonFactory factory;
+
+	ObjectMapper mapper;
+
+	ObjectReader hotFieldsReader;
+
+	PathExtractor extractor;
+
+	FieldSlots slots;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		LegacyCharset legacyCharset = LegacyCharset.forName(encoding);
+		factory = (legacyCharset == null) ? new JsonFactory() : new LegacyCharsetJsonFactory(legacyCharset);
+		mapper = new ObjectMapper(factory);
+		hotFieldsReader = mapper.readerFor(HotFields.class);
+		extractor = PathExtractor.compile("/personName/firstname", "/message");
+		slots = extractor.newSlots();
+		String json = "{\"personName\":{\"firstname\":\"太郎\",\"lastname\":\"山田\"},\"age\":42,\"payload\":"
+				+ Payloads.beanArray(Payloads.records(size)) + ",\"message\":\"あいうえお\"}";
+		body = json.getBytes(encoding);
+	}
+
+	@Benchmark
+	public Object streaming() throws Exception {
+		String firstname = null;
+		String message = null;
+		try (JsonParser parser = factory.createParser(body)) {
+			String fieldName = null;
+			JsonToken t;
+			while ((t = parser.nextToken()) != null) {
+				if (t == JsonToken.FIELD_NAME) {
+					fieldName = parser.getCurrentName();
+				} else if (t == JsonToken.VALUE_STRING) {
+					if ("firstname".equals(fieldName)) {
+						firstname = parser.getText();
+					} else if ("message".equals(fieldName) && parser.getParsingContext().getParent().inRoot()) {
+						message = parser.getText();
+					}
+				}
+			}
+		}
+		return firstname.length() + message.length();
+	}
+
+	@Benchmark
+	public Object tree() throws Exception {
+		JsonNode root = mapper.readTree(body);
+		return root.at("/personName/firstname").textValue().length() + root.at("/message").textValue().length();
+	}
+
+	@Benchmark
+	public Object databind() throws Exception {
+		HotFields fields = hotFieldsReader.readValue(body);
+		return fields.personName.firstname.length() + fields.message.length();
+	}
+
+	@Benchmark
+	public int pathExtractor() throws Exception {
+		extractor.extract(factory, body, slots);
+		return slots.getTextLength(0) + slots.getTextLength(1);
+	}
+}
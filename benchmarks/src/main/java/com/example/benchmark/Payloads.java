@@ -0,0 +1,179 @@
+package com.example.benchmark;
+
+/**
+ *
+ * ベンチマークで使用するJSONとjavaのオブジェクトです。
+ * BinaryToJSONSampleTestのBeanと同じ形をしています。
+ *
+ */
+public final class Payloads {
+
+	private Payloads() {
+	}
+
+	public static class Bean {
+
+		private String message;
+
+		public Bean() {
+		}
+
+		public Bean(String message) {
+			this.message = message;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	/**
+	 * BinaryToJSONSampleTestのPerson2と同じ形です（PersonNameをネストします）
+	 */
+	public static class Person2 {
+
+		private int age;
+		private PersonName personName;
+		private char kanaCode;
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public PersonName getPersonName() {
+			return personName;
+		}
+
+		public void setPersonName(PersonName personName) {
+			this.personName = personName;
+		}
+
+		public char getKanaCode() {
+			return kanaCode;
+		}
+
+		public void setKanaCode(char kanaCode) {
+			this.kanaCode = kanaCode;
+		}
+	}
+
+	public static class PersonName {
+
+		private String firstname;
+		private String lastname;
+
+		public String getFirstname() {
+			return firstname;
+		}
+
+		public void setFirstname(String firstname) {
+			this.firstname = firstname;
+		}
+
+		public String getLastname() {
+			return lastname;
+		}
+
+		public void setLastname(String lastname) {
+			this.lastname = lastname;
+		}
+	}
+
+	/**
+	 * BinaryToJSONSampleTestと同じ値のPerson2を返します
+	 */
+	public static Person2 person2() {
+		PersonName personName = new PersonName();
+		personName.setFirstname("𠮷太郎");
+		personName.setLastname("山田");
+		Person2 person = new Person2();
+		person.setAge(55);
+		person.setPersonName(personName);
+		person.setKanaCode('あ');
+		return person;
+	}
+
+	/**
+	 * 「{"message":"..."}」をrecords個含む配列のJSONを返します
+	 */
+	public static String beanArray(int records) {
+		StringBuilder sb = new StringBuilder(records * 48 + 2);
+		sb.append('[');
+		for (int i = 0; i < records; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"message\":\"あいうえお No.").append(i).append(" かきくけこ\"}");
+		}
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * ベンチマークのパラメータで指定するJSONの大きさ。
+	 * 「bean」は1件のBean、それ以外は「1KB」「64KB」「4MB」のようにおおよその大きさ（UTF-8の場合）を指定します
+	 */
+	public static final String SINGLE_BEAN = "bean";
+
+	/**
+	 * 1件あたりのおおよそのバイト数（UTF-8の場合）
+	 */
+	private static final int BYTES_PER_RECORD = 45;
+
+	public static int records(String size) {
+		if (SINGLE_BEAN.equals(size)) {
+			return 1;
+		}
+		int kilobytes;
+		if (size.endsWith("MB")) {
+			kilobytes = Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+		} else if (size.endsWith("KB")) {
+			kilobytes = Integer.parseInt(size.substring(0, size.length() - 2));
+		} else {
+			throw new IllegalArgumentException("Unknown size: " + size);
+		}
+		return Math.max(1, kilobytes * 1024 / BYTES_PER_RECORD);
+	}
+
+	/**
+	 * @return 「bean」の場合は1件のBeanのJSON、それ以外はBeanの配列のJSON
+	 */
+	public static String document(String size) {
+		if (SINGLE_BEAN.equals(size)) {
+			return "{\"message\":\"あいうえお\"}";
+		}
+		return beanArray(records(size));
+	}
+
+	/**
+	 * @return {@link #document(String)}に対応する、writeするjavaのオブジェクト
+	 */
+	public static Object value(String size) {
+		if (SINGLE_BEAN.equals(size)) {
+			return new Bean("かきくけこ");
+		}
+		return beans(records(size));
+	}
+
+	/**
+	 * @return {@link #document(String)}をreadする時の型
+	 */
+	public static Class<?> type(String size) {
+		return SINGLE_BEAN.equals(size) ? Bean.class : Bean[].class;
+	}
+
+	public static Bean[] beans(int records) {
+		Bean[] beans = new Bean[records];
+		for (int i = 0; i < records; i++) {
+			beans[i] = new Bean("かきくけこ No." + i + " あいうえお");
+		}
+		return beans;
+	}
+}
@@ -0,0 +1,133 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * BinaryToJSONSampleTestの「read」の方法ごとの比較です。
+ *
+ * bytes / inputStream / file / url / jsonParser / tree :
+ *   バイト列をそのままObjectMapperに渡す方法。UTF-8/16/32はJacksonの自動判定で、
+ *   Shift_JIS / EUC-JPはLegacyCharsetJsonFactoryで読み込みます
+ * reader / readerTree / readerJsonParser :
+ *   InputStreamReaderでエンコーディングを指定してから渡す方法
+ *
+ * 割り当てたメモリの量は、GCプロファイラ（-prof gc、またはRoutesMain）で確認できます。
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadRoutesBenchmark {
+
+	@Param({ "UTF-8", "UTF-16LE", "UTF-32BE", "Shift_JIS" })
+	public String encoding;
+
+	@Param({ Payloads.SINGLE_BEAN, "1KB", "64KB", "4MB" })
+	public String size;
+
+	ObjectMapper mapper;
+
+	ObjectMapper bytesMapper;
+
+	Class<?> type;
+
+	byte[] body;
+
+	File file;
+
+	URL url;
+
+	@Setup
+	public void setup() throws Exception {
+		mapper = new ObjectMapper();
+		LegacyCharset legacyCharset = LegacyCharset.forName(encoding);
+		bytesMapper = (legacyCharset == null) ? mapper : new ObjectMapper(new LegacyCharsetJsonFactory(legacyCharset));
+		type = Payloads.type(size);
+		body = Payloads.document(size).getBytes(encoding);
+		file = File.createTempFile("read-routes", ".json");
+		Files.write(file.toPath(), body);
+		url = file.toURI().toURL();
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public Object bytes() throws Exception {
+		return bytesMapper.readValue(body, type);
+	}
+
+	@Benchmark
+	public Object inputStream() throws Exception {
+		return bytesMapper.readValue(new ByteArrayInputStream(body), type);
+	}
+
+	@Benchmark
+	public Object file() throws Exception {
+		return bytesMapper.readValue(file, type);
+	}
+
+	@Benchmark
+	public Object url() throws Exception {
+		return bytesMapper.readValue(url, type);
+	}
+
+	@Benchmark
+	public Object jsonParser() throws Exception {
+		try (JsonParser parser = bytesMapper.getFactory().createParser(body)) {
+			return bytesMapper.readValue(parser, type);
+		}
+	}
+
+	@Benchmark
+	public Object tree() throws Exception {
+		return bytesMapper.readTree(body);
+	}
+
+	@Benchmark
+	public Object reader() throws Exception {
+		return mapper.readValue(new InputStreamReader(new ByteArrayInputStream(body), encoding), type);
+	}
+
+	@Benchmark
+	public Object readerJsonParser() throws Exception {
+		try (JsonParser parser = mapper.getFactory()
+				.createParser(new InputStreamReader(new ByteArrayInputStream(body), encoding))) {
+			return mapper.readValue(parser, type);
+		}
+	}
+
+	@Benchmark
+	public Object readerTree() throws Exception {
+		return mapper.readTree(new InputStreamReader(new ByteArrayInputStream(body), encoding));
+	}
+}
@@ -0,0 +1,149 @@
+package com.example.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.stream.FlushPolicy;
+import com.example.stream.RecordWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * 1件のBeanを、ファイルに1件ずつ書き出す場合の比較です（1秒あたりの件数）。
+ *
+ * writeValueFile : 1件ごとにObjectMapper#writeValue(File, ...)（BinaryToJSONSampleTestの方法。ファイルは上書きされます）
+ * appendStream   : 1件ごとに追加モードのFileOutputStream（UTF-8以外はOutputStreamWriter）を開いて書き出し、閉じる
+ * bufferOnly     : 開いておいたRecordWriterに追加する。バッファ（1MB）が一杯になった時だけ書き出す
+ * every1000      : 同じく、1000件ごとに書き出す
+ * every1000Sync  : 同じく、1000件ごとに書き出してfsyncする
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordWriterBenchmark {
+
+	@Param({ "UTF-8", "Shift_JIS" })
+	public String encoding;
+
+	ObjectMapper mapper;
+
+	/**
+	 * 改行を続けて書き出すため、writeValueでOutputStream / Writerを閉じないObjectMapper
+	 */
+	ObjectMapper appendMapper;
+
+	Charset charset;
+
+	Payloads.Bean bean;
+
+	File file;
+
+	RecordWriter<Payloads.Bean> bufferOnlyWriter;
+
+	RecordWriter<Payloads.Bean> every1000Writer;
+
+	RecordWriter<Payloads.Bean> every1000SyncWriter;
+
+	@Setup
+	public void setup() throws Exception {
+		mapper = new ObjectMapper();
+		appendMapper = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		charset = Charset.forName(encoding);
+		bean = new Payloads.Bean("かきくけこ No.1 あいうえお");
+	}
+
+	/**
+	 * ファイルが大きくなり続けないように、イテレーションごとに作り直します
+	 */
+	@Setup(Level.Iteration)
+	public void open() throws Exception {
+		file = File.createTempFile("record-writer", ".ndjson");
+		FlushPolicy noSync = FlushPolicy.DEFAULT.withSync(FlushPolicy.Sync.NEVER);
+		bufferOnlyWriter = open("buffer", noSync);
+		every1000Writer = open("every1000", noSync.withEveryRecords(1000));
+		every1000SyncWriter = open("every1000Sync", noSync.withEveryRecords(1000).withSync(FlushPolicy.Sync.ON_FLUSH));
+	}
+
+	private RecordWriter<Payloads.Bean> open(String name, FlushPolicy policy) throws Exception {
+		File target = new File(file.getPath() + "." + name);
+		target.deleteOnExit();
+		return RecordWriter.open(mapper, target.toPath(), charset, RecordWriter.Format.NDJSON, policy);
+	}
+
+	@TearDown(Level.Iteration)
+	public void close() throws Exception {
+		bufferOnlyWriter.close();
+		every1000Writer.close();
+		every1000SyncWriter.close();
+		for (String name : new String[] { "buffer", "every1000", "every1000Sync" }) {
+			Files.delete(new File(file.getPath() + "." + name).toPath());
+		}
+		Files.delete(file.toPath());
+	}
+
+	@Benchmark
+	public void writeValueFile() throws Exception {
+		if (!"UTF-8".equals(encoding)) {
+			try (Writer out = new OutputStreamWriter(new FileOutputStream(file), charset)) {
+				mapper.writeValue(out, bean);
+			}
+			return;
+		}
+		mapper.writeValue(file, bean);
+	}
+
+	@Benchmark
+	public void appendStream() throws Exception {
+		try (OutputStream out = new FileOutputStream(file, true)) {
+			if ("UTF-8".equals(encoding)) {
+				appendMapper.writeValue(out, bean);
+				out.write('\n');
+				return;
+			}
+			Writer writer = new OutputStreamWriter(out, charset);
+			appendMapper.writeValue(writer, bean);
+			writer.write('\n');
+			writer.flush();
+		}
+	}
+
+	@Benchmark
+	public void bufferOnly() throws Exception {
+		bufferOnlyWriter.append(bean);
+	}
+
+	@Benchmark
+	public void every1000() throws Exception {
+		every1000Writer.append(bean);
+	}
+
+	@Benchmark
+	public void every1000Sync() throws Exception {
+		every1000SyncWriter.append(bean);
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *
+ * 「read」「write」の方法ごとのベンチマーク（ReadRoutesBenchmark / WriteRoutesBenchmark / DataStreamRoutesBenchmark）を、
+ * GCプロファイラ付きで実行します。1回あたりの割り当て量は「gc.alloc.rate.norm」（B/op）に出力されます。
+ * 結果はroutes.csvにも書き出します。
+ *
+ * 実行方法:
+ * java -cp target/benchmarks.jar com.example.benchmark.RoutesMain [JMHのオプション（-p size=bean,1KB 等）]
+ *
+ */
+public final class RoutesMain {
+
+	private RoutesMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(ReadRoutesBenchmark.class.getSimpleName())
+				.include(WriteRoutesBenchmark.class.getSimpleName())
+				.include(DataStreamRoutesBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.CSV)
+				.result("routes.csv")
+				.build();
+		new Runner(options).run();
+	}
+}
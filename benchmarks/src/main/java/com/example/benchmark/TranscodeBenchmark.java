@@ -0,0 +1,99 @@
+package com.example.benchmark;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.UnicodeTranscoder;
+import com.example.charset.Utf8TranscodingJsonFactory;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * UTF-16 / UTF-32のJSONの読み込みにかかる時間です。
+ *
+ * standard   : 標準のObjectMapper（InputStreamReader / UTF32Readerと文字単位のパーサー）
+ * transcoded : Utf8TranscodingJsonFactory（UTF-8に変換しながらUTF8StreamJsonParser）
+ * transcode  : UnicodeTranscoderでUTF-8に変換するだけ
+ * jdk        : new String(bytes, charset).getBytes(UTF_8)（JDKのデコーダー・エンコーダーでの変換）
+ *
+ * ascii=trueは、ASCIIだけのJSON（8バイトずつまとめて変換する部分の効果）です。
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranscodeBenchmark {
+
+	@Param({ "UTF-16LE", "UTF-16BE", "UTF-32LE", "UTF-32BE" })
+	public String encoding;
+
+	@Param({ "64KB", "4MB" })
+	public String size;
+
+	@Param({ "false", "true" })
+	public boolean ascii;
+
+	ObjectMapper standardMapper;
+
+	ObjectMapper transcodingMapper;
+
+	JsonEncoding jsonEncoding;
+
+	Charset charset;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		standardMapper = new ObjectMapper();
+		transcodingMapper = new ObjectMapper(new Utf8TranscodingJsonFactory());
+		for (JsonEncoding e : JsonEncoding.values()) {
+			if (e.getJavaName().equals(encoding)) {
+				jsonEncoding = e;
+			}
+		}
+		charset = Charset.forName(encoding);
+		String document = Payloads.document(size);
+		if (ascii) {
+			document = document.replace("あいうえお", "aiueo").replace("かきくけこ", "kakikukeko");
+		}
+		body = document.getBytes(charset);
+	}
+
+	@Benchmark
+	public Object standard() throws Exception {
+		return standardMapper.readValue(body, Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object transcoded() throws Exception {
+		return transcodingMapper.readValue(body, Payloads.Bean[].class);
+	}
+
+	@Benchmark
+	public Object transcode() throws Exception {
+		return UnicodeTranscoder.toUtf8(jsonEncoding, body, 0, body.length);
+	}
+
+	@Benchmark
+	public Object jdk() {
+		return new String(body, charset).getBytes(StandardCharsets.UTF_8);
+	}
+}
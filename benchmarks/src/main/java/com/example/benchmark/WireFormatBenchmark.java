@@ -0,0 +1,75 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.format.FormatNegotiator;
+import com.example.format.MediaFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * FormatNegotiatorで選択できる形式ごとの、書き出し・読み込みの時間と大きさの比較です。
+ * format は Content-Type（JSONはcharsetパラメータ付き）で指定します。
+ *
+ * write : FormatNegotiator#writeValueAsBytes
+ * read  : FormatNegotiator#read(byte[], ...)
+ *
+ * 書き出した大きさ（バイト数）は、それぞれの実行の開始時に「# 形式 / 大きさ: nnn bytes」として出力されます。
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+	@Param({ "application/json; charset=UTF-8", "application/json; charset=Shift_JIS", "application/x-jackson-smile",
+			"application/cbor" })
+	public String format;
+
+	@Param({ Payloads.SINGLE_BEAN, "1KB", "64KB" })
+	public String size;
+
+	FormatNegotiator formats;
+
+	MediaFormat mediaFormat;
+
+	Object value;
+
+	Class<?> type;
+
+	byte[] body;
+
+	@Setup
+	public void setup() throws Exception {
+		formats = new FormatNegotiator(new ObjectMapper());
+		mediaFormat = MediaFormat.parse(format);
+		value = Payloads.value(size);
+		type = Payloads.type(size);
+		body = formats.writeValueAsBytes(mediaFormat, value);
+	}
+
+	@Benchmark
+	public Object write() throws Exception {
+		return formats.writeValueAsBytes(mediaFormat, value);
+	}
+
+	@Benchmark
+	public Object read() throws Exception {
+		return formats.read(body, mediaFormat, type);
+	}
+}
@@ -0,0 +1,177 @@
+package com.example.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * BinaryToJSONSampleTestの「write」の方法ごとの比較です。
+ *
+ * outputStream / file / jsonGenerator / bytes / tree :
+ *   OutputStreamに直接書き出す方法。UTF-8はJackson標準、Shift_JISはLegacyCharsetJsonFactoryで書き出します。
+ *   UTF-16 / UTF-32はwriteValue(OutputStream)で書き出せないため、createGenerator(OutputStream, JsonEncoding)で作成したJsonGeneratorを使用します
+ * writer / writerJsonGenerator / writerTree :
+ *   OutputStreamWriterでエンコーディングを指定してから渡す方法
+ *
+ * 割り当てたメモリの量は、GCプロファイラ（-prof gc、またはRoutesMain）で確認できます。
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteRoutesBenchmark {
+
+	@Param({ "UTF-8", "UTF-16LE", "Shift_JIS" })
+	public String encoding;
+
+	@Param({ Payloads.SINGLE_BEAN, "1KB", "64KB", "4MB" })
+	public String size;
+
+	ObjectMapper mapper;
+
+	ObjectMapper bytesMapper;
+
+	/**
+	 * UTF-16 / UTF-32の場合のみ設定されます
+	 */
+	JsonEncoding jsonEncoding;
+
+	Object value;
+
+	JsonNode tree;
+
+	File file;
+
+	@Setup
+	public void setup() throws Exception {
+		mapper = new ObjectMapper();
+		LegacyCharset legacyCharset = LegacyCharset.forName(encoding);
+		bytesMapper = (legacyCharset == null) ? mapper : new ObjectMapper(new LegacyCharsetJsonFactory(legacyCharset));
+		for (JsonEncoding e : JsonEncoding.values()) {
+			if (e != JsonEncoding.UTF8 && e.getJavaName().equals(encoding)) {
+				jsonEncoding = e;
+			}
+		}
+		value = Payloads.value(size);
+		tree = mapper.valueToTree(value);
+		file = File.createTempFile("write-routes", ".json");
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	private void writeBytes(OutputStream out, Object v) throws Exception {
+		if (jsonEncoding == null) {
+			bytesMapper.writeValue(out, v);
+		} else {
+			try (JsonGenerator gen = bytesMapper.getFactory().createGenerator(out, jsonEncoding)) {
+				bytesMapper.writeValue(gen, v);
+			}
+		}
+	}
+
+	private JsonGenerator generator(OutputStream out) throws Exception {
+		return (jsonEncoding == null) ? bytesMapper.getFactory().createGenerator(out)
+				: bytesMapper.getFactory().createGenerator(out, jsonEncoding);
+	}
+
+	@Benchmark
+	public Object outputStream() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeBytes(out, value);
+		return out;
+	}
+
+	@Benchmark
+	public Object file() throws Exception {
+		try (OutputStream out = new FileOutputStream(file)) {
+			writeBytes(out, value);
+		}
+		return file;
+	}
+
+	@Benchmark
+	public Object jsonGenerator() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator gen = generator(out)) {
+			bytesMapper.writeValue(gen, value);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public Object bytes() throws Exception {
+		if (jsonEncoding == null) {
+			return bytesMapper.writeValueAsBytes(value);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeBytes(out, value);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public Object tree() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator gen = generator(out)) {
+			bytesMapper.writeTree(gen, tree);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public Object writer() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(out, encoding)) {
+			mapper.writeValue(writer, value);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public Object writerJsonGenerator() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator gen = mapper.getFactory().createGenerator(new OutputStreamWriter(out, encoding))) {
+			mapper.writeValue(gen, value);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public Object writerTree() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator gen = mapper.getFactory().createGenerator(new OutputStreamWriter(out, encoding))) {
+			mapper.writeTree(gen, tree);
+		}
+		return out;
+	}
+}
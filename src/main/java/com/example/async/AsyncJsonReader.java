@@ -0,0 +1,241 @@
+package com.example.async;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ *
+ * リクエストボディを、届いた分ずつ（ブロックせずに）読み込み、値が完成したところでjavaのオブジェクトに変換します。
+ * JacksonのNonBlockingJsonParser（feeder）を使用します。
+ *
+ * 使用例（NIOのイベントループ等から）:
+ * AsyncJsonReader<Bean> reader = AsyncJsonReader.forArrayElements(mapper, Bean.class, Charset.forName("Shift_JIS"));
+ *
+ * // 受信するたびに
+ * for (Bean bean : reader.feed(buffer, 0, n)) {
+ *     // ...
+ * }
+ * // 受信が終わったら
+ * for (Bean bean : reader.endOfInput()) {
+ *     // ...
+ * }
+ *
+ * NonBlockingJsonParserはUTF-8のみ読み込めるため、UTF-8以外（UTF-16 / UTF-32 / Shift_JIS / EUC-JP / ISO-2022-JP等）は、
+ * 届いた分ずつUTF-8に変換してから渡します。区切りで分かれたマルチバイト文字は、続きが届いてから変換します。
+ *
+ * 値が完成するまでのトークンはTokenBufferに保持し、完成したところでObjectReaderで変換します。
+ * そのため、feedに渡した配列はfeedから戻った後に再利用できます。
+ *
+ * スレッドセーフではありません（1つの接続・リクエストで1つのインスタンスを使用します）
+ *
+ */
+public class AsyncJsonReader<T> {
+
+	private final ObjectReader reader;
+
+	private final JsonParser parser;
+
+	private final ByteArrayFeeder feeder;
+
+	/**
+	 * UTF-8の場合はnull
+	 */
+	private final Utf8Transcoder transcoder;
+
+	private final boolean unwrapArray;
+
+	private final Utf8Transcoder.Sink sink = this::feedUtf8;
+
+	private TokenBuffer tokens;
+
+	private int depth;
+
+	private boolean inRootArray;
+
+	private boolean ended;
+
+	private long count;
+
+	/**
+	 * 変換した値を、feed / endOfInputから戻すまで保持します
+	 */
+	private List<T> completed;
+
+	private AsyncJsonReader(ObjectReader reader, Charset charset, boolean unwrapArray) throws IOException {
+		Objects.requireNonNull(charset, "charset");
+		this.reader = reader;
+		this.parser = reader.getFactory().createNonBlockingByteArrayParser();
+		this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+		this.transcoder = StandardCharsets.UTF_8.equals(charset) ? null : new Utf8Transcoder(charset);
+		this.unwrapArray = unwrapArray;
+	}
+
+	/**
+	 * トップレベルの値（1つのオブジェクト、またはNDJSONのように空白で区切られた複数の値）を1件ずつ変換します
+	 */
+	public static <T> AsyncJsonReader<T> forValues(ObjectMapper mapper, Class<T> type, Charset charset)
+			throws IOException {
+		return new AsyncJsonReader<>(mapper.readerFor(type), charset, false);
+	}
+
+	/**
+	 * @param reader readerFor等で型を指定したObjectReader
+	 */
+	public static <T> AsyncJsonReader<T> forValues(ObjectReader reader, Charset charset) throws IOException {
+		return new AsyncJsonReader<>(reader, charset, false);
+	}
+
+	/**
+	 * トップレベルの配列の要素を1件ずつ変換します。配列の終わりを待たずに、要素が完成したところで返します。
+	 * トップレベルが配列でない値は、そのまま1件として変換します
+	 */
+	public static <T> AsyncJsonReader<T> forArrayElements(ObjectMapper mapper, Class<T> type, Charset charset)
+			throws IOException {
+		return new AsyncJsonReader<>(mapper.readerFor(type), charset, true);
+	}
+
+	/**
+	 * @param reader readerFor等で要素の型を指定したObjectReader
+	 */
+	public static <T> AsyncJsonReader<T> forArrayElements(ObjectReader reader, Charset charset) throws IOException {
+		return new AsyncJsonReader<>(reader, charset, true);
+	}
+
+	/**
+	 * 届いたバイト列を渡します
+	 *
+	 * @return このバイト列で完成した値（入力の順）。ない場合は空のリスト
+	 * @throws com.fasterxml.jackson.core.JsonParseException JSONとして不正な場合
+	 */
+	public List<T> feed(byte[] data, int off, int len) throws IOException {
+		if (ended) {
+			throw new IllegalStateException("endOfInput() has already been called");
+		}
+		if (transcoder == null) {
+			feedUtf8(data, off, off + len);
+		} else {
+			transcoder.transcode(data, off, len, false, sink);
+		}
+		return takeCompleted();
+	}
+
+	public List<T> feed(byte[] data) throws IOException {
+		return feed(data, 0, data.length);
+	}
+
+	/**
+	 * 届いたバイト列を渡します。bufferのpositionはlimitまで進みます
+	 */
+	public List<T> feed(ByteBuffer buffer) throws IOException {
+		int len = buffer.remaining();
+		if (buffer.hasArray()) {
+			List<T> values = feed(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+			buffer.position(buffer.limit());
+			return values;
+		}
+		byte[] copy = new byte[len];
+		buffer.get(copy);
+		return feed(copy, 0, len);
+	}
+
+	/**
+	 * 入力の終わりを通知します。2回目以降の呼び出しは空のリストを返します
+	 *
+	 * @return 残りの値（数値のみのトップレベルの値等、終わりが分かってから完成するもの）
+	 * @throws com.fasterxml.jackson.core.JsonParseException 値の途中で終わっている場合
+	 */
+	public List<T> endOfInput() throws IOException {
+		if (ended) {
+			return Collections.emptyList();
+		}
+		ended = true;
+		if (transcoder != null) {
+			transcoder.transcode(new byte[0], 0, 0, true, sink);
+		}
+		feeder.endOfInput();
+		drain();
+		parser.close();
+		return takeCompleted();
+	}
+
+	/**
+	 * @return これまでに変換した値の件数
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	private void feedUtf8(byte[] utf8, int length) throws IOException {
+		feedUtf8(utf8, 0, length);
+	}
+
+	private void feedUtf8(byte[] utf8, int start, int end) throws IOException {
+		if (start == end) {
+			return;
+		}
+		feeder.feedInput(utf8, start, end);
+		// パーサーは配列を参照したまま読み込むため、次の入力の前にすべて読み込みます
+		drain();
+	}
+
+	private void drain() throws IOException {
+		JsonToken t;
+		while ((t = parser.nextToken()) != null && t != JsonToken.NOT_AVAILABLE) {
+			handle(t);
+		}
+	}
+
+	private void handle(JsonToken t) throws IOException {
+		if (depth == 0) {
+			if (inRootArray && t == JsonToken.END_ARRAY) {
+				inRootArray = false;
+				return;
+			}
+			if (unwrapArray && !inRootArray && t == JsonToken.START_ARRAY) {
+				inRootArray = true;
+				return;
+			}
+			tokens = new TokenBuffer(parser);
+		}
+		tokens.copyCurrentEvent(parser);
+		if (t.isStructStart()) {
+			depth++;
+		} else if (t.isStructEnd()) {
+			depth--;
+		}
+		if (depth == 0) {
+			T value;
+			try (JsonParser p = tokens.asParser(parser)) {
+				value = reader.readValue(p);
+			}
+			tokens = null;
+			if (completed == null) {
+				completed = new ArrayList<>();
+			}
+			completed.add(value);
+			count++;
+		}
+	}
+
+	private List<T> takeCompleted() {
+		if (completed == null) {
+			return Collections.emptyList();
+		}
+		List<T> values = completed;
+		completed = null;
+		return values;
+	}
+}
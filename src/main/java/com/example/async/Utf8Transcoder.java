@@ -0,0 +1,123 @@
+package com.example.async;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * 任意のエンコーディングのバイト列を、届いた分ずつUTF-8に変換します（NonBlockingJsonParserはUTF-8のみ読み込めるため）。
+ *
+ * 区切りで分かれたマルチバイト文字（Shift_JISの2バイト目、UTF-16のサロゲートペア等）は次の入力まで保持し、
+ * 続きが届いてから変換します。ISO-2022-JPのエスケープシーケンスの状態もCharsetDecoderが保持します。
+ * 不正なバイト列・UTF-8で表現できない文字は、InputStreamReaderと同様にU+FFFDに置き換えます。
+ *
+ * スレッドセーフではありません（1つの接続・リクエストで1つのインスタンスを使用します）
+ *
+ */
+final class Utf8Transcoder {
+
+	/**
+	 * 変換したUTF-8のバイト列を受け取ります。配列はaccept()から戻った後に再利用されます
+	 */
+	interface Sink {
+
+		void accept(byte[] utf8, int length) throws IOException;
+	}
+
+	private static final int CHAR_BUFFER_SIZE = 4096;
+
+	private final CharsetDecoder decoder;
+
+	private final CharsetEncoder encoder;
+
+	private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+	/**
+	 * 1文字（char）はUTF-8で最大3バイトです（サロゲートペアは2文字で4バイト）
+	 */
+	private final ByteBuffer utf8 = ByteBuffer.allocate(CHAR_BUFFER_SIZE * 3);
+
+	/**
+	 * 前回の入力の最後の、変換できなかった（続きの届いていない）バイト
+	 */
+	private byte[] remainder = new byte[8];
+
+	private int remainderLength;
+
+	Utf8Transcoder(Charset charset) {
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.encoder = StandardCharsets.UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * @param endOfInput 最後の入力の場合はtrue（lenは0でも構いません）。保持しているバイトも変換します
+	 */
+	void transcode(byte[] data, int off, int len, boolean endOfInput, Sink sink) throws IOException {
+		ByteBuffer in;
+		if (remainderLength == 0) {
+			in = ByteBuffer.wrap(data, off, len);
+		} else {
+			byte[] joined = new byte[remainderLength + len];
+			System.arraycopy(remainder, 0, joined, 0, remainderLength);
+			System.arraycopy(data, off, joined, remainderLength, len);
+			in = ByteBuffer.wrap(joined);
+		}
+		for (;;) {
+			CoderResult result = decoder.decode(in, chars, endOfInput);
+			encode(false, sink);
+			if (result.isUnderflow()) {
+				break;
+			}
+		}
+		if (endOfInput) {
+			while (decoder.flush(chars).isOverflow()) {
+				encode(false, sink);
+			}
+			encode(true, sink);
+			while (encoder.flush(utf8).isOverflow()) {
+				emit(sink);
+			}
+			emit(sink);
+		}
+		keepRemainder(in);
+	}
+
+	private void encode(boolean endOfInput, Sink sink) throws IOException {
+		chars.flip();
+		for (;;) {
+			CoderResult result = encoder.encode(chars, utf8, endOfInput);
+			emit(sink);
+			if (result.isUnderflow()) {
+				break;
+			}
+		}
+		// 上位サロゲートのみ届いている場合は、次の変換まで残ります
+		chars.compact();
+	}
+
+	private void emit(Sink sink) throws IOException {
+		if (utf8.position() > 0) {
+			sink.accept(utf8.array(), utf8.position());
+			utf8.clear();
+		}
+	}
+
+	private void keepRemainder(ByteBuffer in) {
+		remainderLength = in.remaining();
+		if (remainderLength > remainder.length) {
+			remainder = new byte[remainderLength];
+		}
+		in.get(remainder, 0, remainderLength);
+	}
+}
@@ -0,0 +1,332 @@
+package com.example.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.example.charset.CharsetDetectingJsonFactory;
+import com.example.charset.CharsetDetector;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.charset.UnmappableCharacterEscapes;
+import com.example.format.MediaFormat;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ *
+ * 複数のファイルを、エンコーディング・形式を変えて並列に変換します。
+ *
+ * 使用例:
+ * ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors() * 2);
+ * BatchConverter converter = BatchConverter.create(MediaFormat.json(Charset.forName("Shift_JIS")),
+ *         MediaFormat.JSON_UTF8, pool);
+ * BatchResult result = converter.convertDirectory(Paths.get("in"), "*.json", Paths.get("out"), new BatchProgress());
+ * for (FileResult failure : result.getFailures()) {
+ *     log.warn("Conversion failed: " + failure.getSource(), failure.getFailure());
+ * }
+ *
+ * 1つのファイルは、JsonParserのトークンをそのままJsonGeneratorへコピーします（javaのオブジェクトにバインドしません）。
+ * 使用するメモリはファイルの大きさによらず、パーサー・ジェネレーターのバッファ分だけです。
+ * JSONからJSONへの変換では、数値は元の表記のまま書き出します（1.10が1.1になりません）。
+ * ルートに複数の値がある場合（NDJSON等）は、JSONでは値ごとに改行して書き出します。
+ *
+ * ファイルはForkJoinPoolで並列に変換し、同時に変換中にするファイルの数はスレッド数の2倍（{@link #withMaxInFlight(int)}）までです。
+ * 読み書きはブロッキングI/Oのため、スレッド数をCPU数より多くすると、I/Oを待つ間に別のファイルの変換を進められます。
+ *
+ * 失敗したファイルがあっても、他のファイルの変換は続けます。失敗は{@link BatchResult#getFailures()}で参照できます。
+ * 変換先は同じディレクトリの一時ファイルに書き出してから置き換えるため、失敗したファイルの変換先は作成・変更されません。
+ *
+ * 変換元のJSONのエンコーディングがnull（MediaFormat.json(null)）の場合は、ファイルごとに{@link CharsetDetector}で判定します。
+ * 変換先のJSONのエンコーディングがnullの場合はUTF-8で書き出します。
+ *
+ */
+public class BatchConverter {
+
+	private final MediaFormat source;
+
+	private final MediaFormat target;
+
+	private final ForkJoinPool pool;
+
+	private final int maxInFlight;
+
+	private final JsonFactory sourceFactory;
+
+	private final JsonFactory targetFactory;
+
+	protected BatchConverter(MediaFormat source, MediaFormat target, ForkJoinPool pool, int maxInFlight) {
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+		}
+		this.source = source;
+		this.target = target;
+		this.pool = pool;
+		this.maxInFlight = maxInFlight;
+		this.sourceFactory = createFactory(source, true);
+		this.targetFactory = createFactory(target, false);
+	}
+
+	public static BatchConverter create(MediaFormat source, MediaFormat target, ForkJoinPool pool) {
+		return new BatchConverter(source, target, pool, pool.getParallelism() * 2);
+	}
+
+	/**
+	 * @param maxInFlight 同時に変換中にするファイルの数の上限
+	 */
+	public BatchConverter withMaxInFlight(int maxInFlight) {
+		return new BatchConverter(source, target, pool, maxInFlight);
+	}
+
+	public MediaFormat getSource() {
+		return source;
+	}
+
+	public MediaFormat getTarget() {
+		return target;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	private static JsonFactory createFactory(MediaFormat format, boolean reading) {
+		JsonFactory factory;
+		if (format.getFormat().isBinary()) {
+			factory = format.getFormat().createBinaryFactory();
+		} else if (format.getCharset() == null && reading) {
+			factory = new CharsetDetectingJsonFactory(LegacyCharset.SHIFT_JIS, CharsetDetector.DEFAULT_SCAN_LIMIT,
+					null);
+		} else if (format.getCharset() != null && LegacyCharset.forCharset(format.getCharset()) != null) {
+			factory = new LegacyCharsetJsonFactory(LegacyCharset.forCharset(format.getCharset()));
+		} else {
+			factory = new JsonFactory();
+		}
+		return factory.setRootValueSeparator("\n");
+	}
+
+	/**
+	 * sourceDir以下（サブディレクトリを含みます）の、ファイル名がglobに一致するファイルを、targetDir以下の同じ相対パスに変換します。
+	 * 形式が変わる場合は、拡張子を変換先の形式のもの（.json / .smile / .cbor）にします
+	 *
+	 * @param glob ファイル名（ディレクトリを含まない）のパターン。「*.json」等
+	 * @throws IOException sourceDirを走査できなかった場合
+	 */
+	public BatchResult convertDirectory(Path sourceDir, String glob, Path targetDir, BatchProgress progress)
+			throws IOException {
+		PathMatcher matcher = sourceDir.getFileSystem().getPathMatcher("glob:" + glob);
+		List<Path> sources;
+		try (Stream<Path> files = Files.walk(sourceDir)) {
+			sources = files.filter(Files::isRegularFile).filter(p -> matcher.matches(p.getFileName())).sorted()
+					.collect(Collectors.toList());
+		}
+		return convert(sources, p -> targetDir.resolve(targetName(sourceDir.relativize(p).toString())), progress);
+	}
+
+	private String targetName(String relative) {
+		if (source.getFormat() == target.getFormat()) {
+			return relative;
+		}
+		int dot = relative.lastIndexOf('.');
+		int slash = Math.max(relative.lastIndexOf('/'), relative.lastIndexOf('\\'));
+		String base = (dot > slash) ? relative.substring(0, dot) : relative;
+		return base + "." + target.getFormat().name().toLowerCase(Locale.ROOT);
+	}
+
+	public BatchResult convert(Collection<Path> sources, Function<Path, Path> targets) throws IOException {
+		return convert(sources, targets, new BatchProgress());
+	}
+
+	/**
+	 * sourcesのファイルを並列に変換します。すべてのファイルの変換が終わるまで戻りません
+	 *
+	 * @param targets 変換元のパスから、変換先のパスを返します（ディレクトリがない場合は作成します）。変換元と同じパスは指定できません
+	 * @throws InterruptedIOException 呼び出したスレッドが割り込まれた場合（変換中でないファイルは変換しません）
+	 */
+	public BatchResult convert(Collection<Path> sources, Function<Path, Path> targets, BatchProgress progress)
+			throws IOException {
+		progress.start(sources.size());
+		long start = System.nanoTime();
+		CompletionService<FileResult> completion = new ExecutorCompletionService<>(pool);
+		// 変換中のファイルと、変換元の順での位置（失敗を変換元の順に並べるため）
+		Map<Future<FileResult>, Integer> inFlight = new HashMap<>();
+		TreeMap<Integer, FileResult> failures = new TreeMap<>();
+		try {
+			int index = 0;
+			for (Path path : sources) {
+				inFlight.put(completion.submit(() -> convertFile(path, targets)), index++);
+				while (inFlight.size() >= maxInFlight) {
+					collectNext(completion, inFlight, failures, progress);
+				}
+			}
+			while (!inFlight.isEmpty()) {
+				collectNext(completion, inFlight, failures, progress);
+			}
+		} finally {
+			for (Future<FileResult> f : inFlight.keySet()) {
+				f.cancel(false);
+			}
+		}
+		return new BatchResult(sources.size(), new ArrayList<>(failures.values()), progress.getBytesRead(),
+				progress.getBytesWritten(), progress.getTokens(), Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private static void collectNext(CompletionService<FileResult> completion, Map<Future<FileResult>, Integer> inFlight,
+			TreeMap<Integer, FileResult> failures, BatchProgress progress) throws IOException {
+		try {
+			Future<FileResult> next = completion.take();
+			int index = inFlight.remove(next);
+			FileResult result = next.get();
+			if (!result.isSuccess()) {
+				failures.put(index, result);
+			}
+			progress.record(result);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a file to be converted");
+		} catch (ExecutionException e) {
+			// convertFileは失敗をFileResultで返すため、ここに来るのはErrorだけです
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private FileResult convertFile(Path sourcePath, Function<Path, Path> targets) {
+		long start = System.nanoTime();
+		Path targetPath = null;
+		Path temp = null;
+		long[] tokens = new long[1];
+		try {
+			targetPath = targets.apply(sourcePath);
+			if (Files.exists(targetPath) && Files.isSameFile(sourcePath, targetPath)) {
+				throw new IOException("Target is the same file as source: " + targetPath);
+			}
+			Path dir = targetPath.toAbsolutePath().getParent();
+			Files.createDirectories(dir);
+			temp = Files.createTempFile(dir, targetPath.getFileName().toString(), ".tmp");
+			try (InputStream in = Files.newInputStream(sourcePath); OutputStream out = Files.newOutputStream(temp)) {
+				convert(in, out, tokens);
+			}
+			long bytesWritten = Files.size(temp);
+			move(temp, targetPath);
+			temp = null;
+			return new FileResult(sourcePath, targetPath, Files.size(sourcePath), bytesWritten, tokens[0],
+					System.nanoTime() - start, null);
+		} catch (IOException | RuntimeException e) {
+			return new FileResult(sourcePath, targetPath, 0, 0, tokens[0], System.nanoTime() - start, e);
+		} finally {
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException e) {
+					// 一時ファイルが残るだけのため、変換の結果は変えません
+				}
+			}
+		}
+	}
+
+	private static void move(Path temp, Path targetPath) throws IOException {
+		try {
+			Files.move(temp, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, targetPath, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * 1つの入力を変換します（呼び出したスレッドで実行します）
+	 *
+	 * @param in 閉じません
+	 * @param out 閉じません（flushします）
+	 * @return コピーしたトークンの数
+	 */
+	public long convert(InputStream in, OutputStream out) throws IOException {
+		long[] tokens = new long[1];
+		convert(in, out, tokens);
+		return tokens[0];
+	}
+
+	private void convert(InputStream in, OutputStream out, long[] tokens) throws IOException {
+		try (JsonParser p = createParser(in); JsonGenerator g = createGenerator(out)) {
+			p.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			// JSONどうしでは、数値を元の表記のまま書き出します
+			boolean numbersAsText = !source.getFormat().isBinary() && !target.getFormat().isBinary();
+			JsonToken t;
+			while ((t = p.nextToken()) != null) {
+				if (numbersAsText && (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT)) {
+					g.writeNumber(p.getText());
+				} else {
+					g.copyCurrentEvent(p);
+				}
+				tokens[0]++;
+			}
+		}
+	}
+
+	private JsonParser createParser(InputStream in) throws IOException {
+		Charset charset = source.getCharset();
+		if (source.getFormat().isBinary() || charset == null || isDirect(charset)) {
+			return sourceFactory.createParser(in);
+		}
+		return sourceFactory.createParser(new InputStreamReader(in, charset));
+	}
+
+	private JsonGenerator createGenerator(OutputStream out) throws IOException {
+		Charset charset = target.getCharset();
+		if (target.getFormat().isBinary() || charset == null || StandardCharsets.UTF_8.equals(charset)
+				|| LegacyCharset.forCharset(charset) != null) {
+			return targetFactory.createGenerator(out);
+		}
+		for (JsonEncoding e : JsonEncoding.values()) {
+			if (e.getJavaName().equals(charset.name())) {
+				return targetFactory.createGenerator(out, e);
+			}
+		}
+		// バイト順を指定しない「UTF-16」は、ファイルごとにBOMを付けて書き出します
+		JsonGenerator g = targetFactory.createGenerator(new OutputStreamWriter(out, charset));
+		g.setCharacterEscapes(new UnmappableCharacterEscapes(charset));
+		return g;
+	}
+
+	/**
+	 * @return JsonFactory（自動判定・LegacyCharsetJsonFactory）がバイト列を直接読み込めるエンコーディングの場合はtrue
+	 */
+	private static boolean isDirect(Charset charset) {
+		String name = charset.name();
+		return StandardCharsets.UTF_8.equals(charset) || name.startsWith("UTF-16") || name.startsWith("UTF-32")
+				|| LegacyCharset.forCharset(charset) != null;
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.batch;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ *
+ * {@link BatchConverter}の変換の進み具合です。
+ * 値は変換中に別のスレッド（進捗の表示・監視等）から参照できます。
+ *
+ * 使用例:
+ * BatchProgress progress = new BatchProgress(r -> {
+ *     if (!r.isSuccess()) {
+ *         log.warn("Conversion failed: " + r.getSource(), r.getFailure());
+ *     }
+ * });
+ * scheduler.scheduleAtFixedRate(() -> log.info(progress.toString()), 1, 1, TimeUnit.SECONDS);
+ * converter.convertDirectory(sourceDir, "*.json", targetDir, progress);
+ *
+ * 1つのインスタンスは、1回の変換だけに使用します。
+ *
+ */
+public class BatchProgress {
+
+	private final Consumer<? super FileResult> listener;
+
+	private volatile long totalFiles;
+
+	private volatile long startNanos;
+
+	private final LongAdder completedFiles = new LongAdder();
+
+	private final LongAdder failedFiles = new LongAdder();
+
+	private final LongAdder bytesRead = new LongAdder();
+
+	private final LongAdder bytesWritten = new LongAdder();
+
+	private final LongAdder tokens = new LongAdder();
+
+	public BatchProgress() {
+		this(r -> {
+		});
+	}
+
+	/**
+	 * @param listener 1つのファイルの変換が終わるごとに（失敗した場合も）呼び出します。BatchConverter#convertを呼び出したスレッドで実行されます
+	 */
+	public BatchProgress(Consumer<? super FileResult> listener) {
+		this.listener = listener;
+	}
+
+	void start(long totalFiles) {
+		this.totalFiles = totalFiles;
+		this.startNanos = System.nanoTime();
+	}
+
+	void record(FileResult result) {
+		bytesRead.add(result.getBytesRead());
+		bytesWritten.add(result.getBytesWritten());
+		tokens.add(result.getTokens());
+		if (!result.isSuccess()) {
+			failedFiles.increment();
+		}
+		completedFiles.increment();
+		listener.accept(result);
+	}
+
+	public long getTotalFiles() {
+		return totalFiles;
+	}
+
+	/**
+	 * @return 変換が終わったファイルの数（失敗したものを含みます）
+	 */
+	public long getCompletedFiles() {
+		return completedFiles.sum();
+	}
+
+	public long getFailedFiles() {
+		return failedFiles.sum();
+	}
+
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	public long getTokens() {
+		return tokens.sum();
+	}
+
+	/**
+	 * @return 開始してからの経過時間。開始していない場合は0
+	 */
+	public long getElapsedNanos() {
+		long start = startNanos;
+		return (start == 0) ? 0 : System.nanoTime() - start;
+	}
+
+	/**
+	 * @return 開始してからの、1秒あたりの変換元のバイト数
+	 */
+	public double getBytesReadPerSecond() {
+		long elapsed = getElapsedNanos();
+		return (elapsed == 0) ? 0 : getBytesRead() * 1e9 / elapsed;
+	}
+
+	/**
+	 * @return 開始してからの、1秒あたりのファイル数
+	 */
+	public double getFilesPerSecond() {
+		long elapsed = getElapsedNanos();
+		return (elapsed == 0) ? 0 : getCompletedFiles() * 1e9 / elapsed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d/%d files (%d failed), %.1f MB/s, %.1f files/s", getCompletedFiles(), totalFiles,
+				getFailedFiles(), getBytesReadPerSecond() / (1024 * 1024), getFilesPerSecond());
+	}
+}
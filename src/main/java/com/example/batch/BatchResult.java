@@ -0,0 +1,87 @@
+package com.example.batch;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *
+ * {@link BatchConverter}で複数のファイルを変換した結果の集計です。
+ * 失敗したファイルは{@link #getFailures()}で、変換元のファイルの順に参照できます。
+ *
+ */
+public final class BatchResult {
+
+	private final long files;
+
+	private final List<FileResult> failures;
+
+	private final long bytesRead;
+
+	private final long bytesWritten;
+
+	private final long tokens;
+
+	private final Duration elapsed;
+
+	BatchResult(long files, List<FileResult> failures, long bytesRead, long bytesWritten, long tokens,
+			Duration elapsed) {
+		this.files = files;
+		this.failures = Collections.unmodifiableList(failures);
+		this.bytesRead = bytesRead;
+		this.bytesWritten = bytesWritten;
+		this.tokens = tokens;
+		this.elapsed = elapsed;
+	}
+
+	public long getFiles() {
+		return files;
+	}
+
+	public long getSucceededFiles() {
+		return files - failures.size();
+	}
+
+	public List<FileResult> getFailures() {
+		return failures;
+	}
+
+	public boolean isAllSucceeded() {
+		return failures.isEmpty();
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public long getTokens() {
+		return tokens;
+	}
+
+	public Duration getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * @return 1秒あたりの変換元のバイト数
+	 */
+	public double getBytesReadPerSecond() {
+		long nanos = elapsed.toNanos();
+		return (nanos == 0) ? 0 : bytesRead * 1e9 / nanos;
+	}
+
+	public double getFilesPerSecond() {
+		long nanos = elapsed.toNanos();
+		return (nanos == 0) ? 0 : files * 1e9 / nanos;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult[files=" + files + ", failed=" + failures.size() + ", bytesRead=" + bytesRead
+				+ ", bytesWritten=" + bytesWritten + ", tokens=" + tokens + ", elapsed=" + elapsed + "]";
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.batch;
+
+import java.nio.file.Path;
+
+/**
+ *
+ * {@link BatchConverter}で1つのファイルを変換した結果です。
+ *
+ */
+public final class FileResult {
+
+	private final Path source;
+
+	private final Path target;
+
+	private final long bytesRead;
+
+	private final long bytesWritten;
+
+	private final long tokens;
+
+	private final long nanos;
+
+	private final Exception failure;
+
+	FileResult(Path source, Path target, long bytesRead, long bytesWritten, long tokens, long nanos,
+			Exception failure) {
+		this.source = source;
+		this.target = target;
+		this.bytesRead = bytesRead;
+		this.bytesWritten = bytesWritten;
+		this.tokens = tokens;
+		this.nanos = nanos;
+		this.failure = failure;
+	}
+
+	public Path getSource() {
+		return source;
+	}
+
+	/**
+	 * @return 変換先のパスを決められなかった場合はnull
+	 */
+	public Path getTarget() {
+		return target;
+	}
+
+	/**
+	 * @return 変換元のファイルの大きさ（失敗した場合は0）
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/**
+	 * @return 変換先のファイルの大きさ（失敗した場合は0）
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * @return コピーしたトークンの数（失敗した場合は、失敗するまでの数）
+	 */
+	public long getTokens() {
+		return tokens;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	public boolean isSuccess() {
+		return failure == null;
+	}
+
+	/**
+	 * @return 成功した場合はnull。読み書きの失敗はIOException（JSONの構文の誤りはJsonParseException）です
+	 */
+	public Exception getFailure() {
+		return failure;
+	}
+
+	@Override
+	public String toString() {
+		if (failure != null) {
+			return "FileResult[" + source + " failed: " + failure + "]";
+		}
+		return "FileResult[" + source + " -> " + target + ", bytesRead=" + bytesRead + ", bytesWritten="
+				+ bytesWritten + ", tokens=" + tokens + "]";
+	}
+}
@@ -0,0 +1,116 @@
+package com.example.buffer;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import com.example.format.FormatNegotiator;
+import com.example.format.MediaFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * ByteBuffer（ダイレクトバッファを含む）から読み込み、ByteBufferへ書き出します。
+ * ネットワーク層がByteBufferを保持している場合に、byte[]へのコピー（ByteArrayOutputStream#toByteArray等）をなくします。
+ *
+ * 使用例:
+ * ByteBufferCodec codec = new ByteBufferCodec(mapper);
+ * MediaFormat format = MediaFormat.json(Charset.forName("Shift_JIS"));
+ *
+ * Bean bean = codec.readValue(requestBuffers, format, Bean.class);
+ * ByteBuffer[] response = codec.writeValueAsBuffers(format, bean);
+ * channel.write(response);
+ *
+ * 形式・エンコーディングの扱いは{@link FormatNegotiator}と同じです（UTF-8/16/32、Shift_JIS / Windows-31J / EUC-JP、それ以外のjavaで扱えるエンコーディング、Smile / CBOR）。
+ *
+ * Jacksonのパーサー・ジェネレーターはbyte[]のバッファ（BufferRecyclerで再利用されるもの）を介して読み書きするため、
+ * ダイレクトバッファとそのバッファの間のコピーは残りますが、JSON全体のbyte[]は作成しません。
+ * 配列を持つ（ダイレクトでない）ByteBufferから読み込む場合は、その配列から直接読み込みます。
+ * InputStreamReaderが必要なエンコーディング（ISO-2022-JP等）を配列から読み込む場合は、FormatNegotiatorと同様にStringを作成します。
+ *
+ */
+public class ByteBufferCodec {
+
+	/**
+	 * {@link #writeValueAsBuffers(MediaFormat, Object)}で割り当てるByteBufferの既定の大きさ
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+	private final FormatNegotiator formats;
+
+	private final int chunkSize;
+
+	private final boolean direct;
+
+	/**
+	 * {@link #DEFAULT_CHUNK_SIZE}のダイレクトバッファに書き出します
+	 */
+	public ByteBufferCodec(ObjectMapper mapper) {
+		this(new FormatNegotiator(mapper), DEFAULT_CHUNK_SIZE, true);
+	}
+
+	/**
+	 * @param chunkSize {@link #writeValueAsBuffers(MediaFormat, Object)}で割り当てるByteBufferの大きさ
+	 * @param direct trueの場合、{@link #writeValueAsBuffers(MediaFormat, Object)}はダイレクトバッファに書き出します
+	 */
+	public ByteBufferCodec(FormatNegotiator formats, int chunkSize, boolean direct) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+		}
+		this.formats = formats;
+		this.chunkSize = chunkSize;
+		this.direct = direct;
+	}
+
+	public FormatNegotiator getFormats() {
+		return formats;
+	}
+
+	/**
+	 * srcのpositionからlimitまでを読み込みます。srcのpositionは変更しません
+	 */
+	public <T> T readValue(ByteBuffer src, MediaFormat format, Class<T> type) throws IOException {
+		if (src.hasArray()) {
+			return formats.read(src.array(), src.arrayOffset() + src.position(), src.remaining(), format, type);
+		}
+		return formats.read(new ByteBufferInputStream(src), format, type);
+	}
+
+	/**
+	 * 1つのJSONが複数のByteBufferに分かれている場合に、順につなげて読み込みます。各ByteBufferのpositionは変更しません
+	 */
+	public <T> T readValue(ByteBuffer[] srcs, MediaFormat format, Class<T> type) throws IOException {
+		if (srcs.length == 1) {
+			return readValue(srcs[0], format, type);
+		}
+		return formats.read(new ByteBufferInputStream(srcs), format, type);
+	}
+
+	/**
+	 * dstのpositionから書き出し、書き出した分だけpositionを進めます
+	 *
+	 * @return 書き出したバイト数
+	 * @throws BufferOverflowException dstの残りが足りない場合。dstのpositionは元に戻します（position以降の内容は不定です）
+	 */
+	public int writeValue(ByteBuffer dst, MediaFormat format, Object value) throws IOException {
+		final int start = dst.position();
+		try {
+			formats.write(new ByteBufferOutputStream(dst), format, value);
+		} catch (BufferOverflowException e) {
+			dst.position(start);
+			throw e;
+		}
+		return dst.position() - start;
+	}
+
+	/**
+	 * 必要な分だけByteBufferを割り当てて書き出します。大きさが分からない場合に使用します
+	 *
+	 * @return 書き出した内容。各ByteBufferは読み込める状態（positionが0、limitが書き出した位置）です
+	 */
+	public ByteBuffer[] writeValueAsBuffers(MediaFormat format, Object value) throws IOException {
+		ChunkedByteBufferOutputStream out = new ChunkedByteBufferOutputStream(chunkSize, direct);
+		formats.write(out, format, value);
+		return out.toBuffers();
+	}
+}
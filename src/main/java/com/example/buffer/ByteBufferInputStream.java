@@ -0,0 +1,83 @@
+package com.example.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ *
+ * ByteBuffer（の並び）のpositionからlimitまでを、順に読み込むInputStreamです。
+ * 渡したByteBufferのposition等は変更しません（duplicateしたものから読み込みます）。
+ *
+ * ダイレクトバッファの場合も、内容をbyte[]にまとめてコピーせず、読み込まれた分だけ呼び出し元の配列へコピーします。
+ *
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	private final ByteBuffer[] buffers;
+
+	private int index = -1;
+
+	private ByteBuffer current = ByteBuffer.allocate(0);
+
+	private long remaining;
+
+	public ByteBufferInputStream(ByteBuffer... buffers) {
+		this.buffers = buffers;
+		for (ByteBuffer buffer : buffers) {
+			remaining += buffer.remaining();
+		}
+	}
+
+	/**
+	 * @return 現在のByteBufferに残りがない場合は次に進み、それもない場合はfalse
+	 */
+	private boolean ensureRemaining() {
+		while (!current.hasRemaining()) {
+			if (index + 1 >= buffers.length) {
+				return false;
+			}
+			current = buffers[++index].duplicate();
+		}
+		return true;
+	}
+
+	@Override
+	public int read() {
+		if (!ensureRemaining()) {
+			return -1;
+		}
+		remaining--;
+		return current.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		if (!ensureRemaining()) {
+			return -1;
+		}
+		int n = Math.min(len, current.remaining());
+		current.get(b, off, n);
+		remaining -= n;
+		return n;
+	}
+
+	@Override
+	public long skip(long n) {
+		long skipped = 0;
+		while (skipped < n && ensureRemaining()) {
+			int step = (int) Math.min(n - skipped, current.remaining());
+			current.position(current.position() + step);
+			skipped += step;
+		}
+		remaining -= skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return (int) Math.min(Integer.MAX_VALUE, remaining);
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.buffer;
+
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ *
+ * 指定したByteBufferのpositionから書き込むOutputStreamです。書き込んだ分だけpositionが進みます。
+ * limitを超える場合は、書き込まずにBufferOverflowExceptionをスローします（ByteBuffer#putと同じです）。
+ *
+ */
+public class ByteBufferOutputStream extends OutputStream {
+
+	private final ByteBuffer target;
+
+	public ByteBufferOutputStream(ByteBuffer target) {
+		this.target = target;
+	}
+
+	@Override
+	public void write(int b) {
+		target.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		if (len > target.remaining()) {
+			throw new BufferOverflowException();
+		}
+		target.put(b, off, len);
+	}
+
+	public ByteBuffer getTarget() {
+		return target;
+	}
+}
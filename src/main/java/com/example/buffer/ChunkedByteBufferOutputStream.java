@@ -0,0 +1,105 @@
+package com.example.buffer;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * 一定の大きさのByteBuffer（チャンク）を必要な分だけ割り当てて書き込むOutputStreamです。
+ * ByteArrayOutputStreamと異なり、大きくなった時に配列を作り直してコピーしません。
+ * 結果は{@link #toBuffers()}で、GatheringByteChannel#write等にそのまま渡せるByteBufferの並びとして取得します。
+ * {@link #reset()}で、割り当て済みのチャンクを使い回します。
+ *
+ */
+public class ChunkedByteBufferOutputStream extends OutputStream {
+
+	private final int chunkSize;
+
+	private final boolean direct;
+
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+
+	private ByteBuffer current;
+
+	/**
+	 * currentのchunksでの位置（何も書き込んでいない場合は-1）
+	 */
+	private int index = -1;
+
+	private long size;
+
+	/**
+	 * @param chunkSize 1つのByteBufferの大きさ
+	 * @param direct trueの場合はByteBuffer#allocateDirect、falseの場合はByteBuffer#allocateで割り当てます
+	 */
+	public ChunkedByteBufferOutputStream(int chunkSize, boolean direct) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		this.direct = direct;
+	}
+
+	@Override
+	public void write(int b) {
+		ensureRemaining();
+		current.put((byte) b);
+		size++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		while (len > 0) {
+			ensureRemaining();
+			int n = Math.min(len, current.remaining());
+			current.put(b, off, n);
+			off += n;
+			len -= n;
+			size += n;
+		}
+	}
+
+	private void ensureRemaining() {
+		if (current == null || !current.hasRemaining()) {
+			index++;
+			if (index < chunks.size()) {
+				current = chunks.get(index);
+			} else {
+				current = direct ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+				chunks.add(current);
+			}
+		}
+	}
+
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return 書き込んだ内容。各ByteBufferは読み込める状態（positionが0、limitが書き込んだ位置）です。何も書き込んでいない場合は空の配列
+	 */
+	public ByteBuffer[] toBuffers() {
+		ByteBuffer[] buffers = new ByteBuffer[index + 1];
+		for (int i = 0; i < buffers.length; i++) {
+			ByteBuffer chunk = chunks.get(i).duplicate();
+			chunk.flip();
+			buffers[i] = chunk;
+		}
+		return buffers;
+	}
+
+	/**
+	 * 書き込んだ内容を破棄します。チャンクは解放せずに、次の書き込みで先頭から使い回します
+	 * （{@link #toBuffers()}で取得したByteBufferの内容も上書きされます）
+	 */
+	public void reset() {
+		for (int i = 0; i <= index; i++) {
+			chunks.get(i).clear();
+		}
+		current = null;
+		index = -1;
+		size = 0;
+	}
+}
@@ -0,0 +1,186 @@
+package com.example.charset;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.io.MergedStream;
+import com.fasterxml.jackson.core.io.UTF32Reader;
+import com.fasterxml.jackson.core.json.UTF8StreamJsonParser;
+
+/**
+ *
+ * バイト列（byte[], InputStream, File, URL）のエンコーディングを{@link CharsetDetector}で判定してから読み込むJsonFactoryです。
+ * Content-Typeのcharsetが信頼できないリクエストボディ等に使用します。
+ *
+ * 使用例:
+ * ObjectMapper mapper = new ObjectMapper(new CharsetDetectingJsonFactory());
+ * Bean bean = mapper.readValue(request.getInputStream(), Bean.class);
+ *
+ * 判定後のバイト列はコピーせずに、次のパーサーへそのまま渡します。
+ *
+ * UTF-8 / UTF-16 / UTF-32 : Jackson標準のパーサー
+ * Shift_JIS / EUC-JP : {@link LegacyCharsetJsonParser}
+ * ISO-2022-JP : InputStreamReader（状態を持つエンコーディングのため、Readerを介して読み込みます）
+ *
+ * Shift_JIS / EUC-JPのフィールド名は、エンコーディングごとの{@link FieldNameCanonicalizer}でバイト列のまま正規化します。
+ *
+ * InputStreamの場合は、判定に使用する先頭部分だけを読み込み用のバッファに読み込み、そのバッファを続けて使用します。
+ * 書き出しはUTF-8で行います。
+ *
+ */
+public class CharsetDetectingJsonFactory extends JsonFactory {
+
+	private static final long serialVersionUID = 1L;
+
+	protected final LegacyCharset _shiftJisCharset;
+
+	protected final int _scanLimit;
+
+	protected final transient FieldNameCanonicalizer _shiftJisNames = new FieldNameCanonicalizer();
+
+	protected final transient FieldNameCanonicalizer _eucJpNames = new FieldNameCanonicalizer();
+
+	/**
+	 * Shift_JIS系と判定した場合はShift_JISとして、先頭の{@link CharsetDetector#DEFAULT_SCAN_LIMIT}バイトで判定します
+	 */
+	public CharsetDetectingJsonFactory() {
+		this(LegacyCharset.SHIFT_JIS, CharsetDetector.DEFAULT_SCAN_LIMIT, null);
+	}
+
+	/**
+	 * @param shiftJisCharset Shift_JIS系と判定した場合に使用するエンコーディング（SHIFT_JIS または WINDOWS_31J）
+	 * @param scanLimit 判定に使用する最大のバイト数
+	 */
+	public CharsetDetectingJsonFactory(LegacyCharset shiftJisCharset, int scanLimit, ObjectCodec codec) {
+		super(codec);
+		if (shiftJisCharset == LegacyCharset.EUC_JP) {
+			throw new IllegalArgumentException("Not a Shift_JIS variant: " + shiftJisCharset);
+		}
+		if (scanLimit <= 0) {
+			throw new IllegalArgumentException("scanLimit must be positive: " + scanLimit);
+		}
+		_shiftJisCharset = shiftJisCharset;
+		_scanLimit = scanLimit;
+	}
+
+	protected CharsetDetectingJsonFactory(CharsetDetectingJsonFactory src, ObjectCodec codec) {
+		super(src, codec);
+		_shiftJisCharset = src._shiftJisCharset;
+		_scanLimit = src._scanLimit;
+	}
+
+	@Override
+	public JsonFactory copy() {
+		_checkInvalidCopy(CharsetDetectingJsonFactory.class);
+		return new CharsetDetectingJsonFactory(this, null);
+	}
+
+	@Override
+	protected Object readResolve() {
+		return new CharsetDetectingJsonFactory(this, _objectCodec);
+	}
+
+	@Override
+	public String getFormatName() {
+		return FORMAT_NAME_JSON;
+	}
+
+	@Override
+	protected JsonParser _createParser(byte[] data, int offset, int len, IOContext ctxt) throws IOException {
+		DetectedEncoding encoding = CharsetDetector.detect(data, offset, len, _scanLimit);
+		switch (encoding) {
+		case SHIFT_JIS:
+		case EUC_JP:
+			return new LegacyCharsetJsonParser(ctxt, _parserFeatures, null, _objectCodec,
+					_rootCharSymbols.makeChild(_factoryFeatures), _rawNamesOf(encoding), _legacyCharsetOf(encoding),
+					data, offset, offset + len, false);
+		case ISO_2022_JP:
+			return _createParser(new InputStreamReader(new ByteArrayInputStream(data, offset, len), "ISO-2022-JP"),
+					ctxt);
+		default:
+			// UTF-8/16/32の判定はJacksonと同じ結果になるので、標準の処理に任せます
+			return super._createParser(data, offset, len, ctxt);
+		}
+	}
+
+	@Override
+	protected JsonParser _createParser(InputStream in, IOContext ctxt) throws IOException {
+		final byte[] buf = ctxt.allocReadIOBuffer();
+		final int limit = Math.min(_scanLimit, buf.length);
+		int end = 0;
+		while (end < limit) {
+			int count = in.read(buf, end, limit - end);
+			if (count < 0) {
+				break;
+			}
+			if (count == 0) {
+				throw new IOException("InputStream.read() returned 0 characters when trying to read "
+						+ (limit - end) + " bytes");
+			}
+			end += count;
+		}
+
+		DetectedEncoding encoding = CharsetDetector.detect(buf, 0, end, limit);
+		switch (encoding) {
+		case SHIFT_JIS:
+		case EUC_JP:
+			return new LegacyCharsetJsonParser(ctxt, _parserFeatures, in, _objectCodec,
+					_rootCharSymbols.makeChild(_factoryFeatures), _rawNamesOf(encoding), _legacyCharsetOf(encoding),
+					buf, 0, end, true);
+		case ISO_2022_JP:
+			return _createParser(new InputStreamReader(new MergedStream(ctxt, in, buf, 0, end), "ISO-2022-JP"),
+					ctxt);
+		default:
+			return _createUnicodeParser(encoding.jsonEncoding(), in, buf, end, ctxt);
+		}
+	}
+
+	/**
+	 * 読み込み済みのバッファと残りのInputStreamから、Jackson標準のパーサーを作成します
+	 * （ByteSourceJsonBootstrapperは残りのInputStreamを続けて読み込めないため、同じ処理をここで行います）
+	 */
+	private JsonParser _createUnicodeParser(JsonEncoding encoding, InputStream in, byte[] buf, int end,
+			IOContext ctxt) throws IOException {
+		ctxt.setEncoding(encoding);
+		final int start = UnicodeTranscoder.bomLength(encoding, buf, 0, end);
+
+		if (encoding == JsonEncoding.UTF8 && Feature.CANONICALIZE_FIELD_NAMES.enabledIn(_factoryFeatures)) {
+			return new UTF8StreamJsonParser(ctxt, _parserFeatures, in, _objectCodec,
+					_byteSymbolCanonicalizer.makeChild(_factoryFeatures), buf, start, end, true);
+		}
+		Reader reader;
+		if (encoding.bits() == 32) {
+			reader = new UTF32Reader(ctxt, in, buf, start, end, encoding.isBigEndian());
+		} else {
+			reader = new InputStreamReader(new MergedStream(ctxt, in, buf, start, end), encoding.getJavaName());
+		}
+		return _createParser(reader, ctxt);
+	}
+
+	/**
+	 * @param charset SHIFT_JIS / WINDOWS_31J（Shift_JIS系と判定した場合）またはEUC_JP
+	 * @return 読み込んだフィールド名のキャッシュ。ヒット率等の確認に使用します
+	 */
+	public FieldNameCanonicalizer getFieldNameCanonicalizer(LegacyCharset charset) {
+		return (charset == LegacyCharset.EUC_JP) ? _eucJpNames : _shiftJisNames;
+	}
+
+	private FieldNameCanonicalizer _rawNamesOf(DetectedEncoding encoding) {
+		if (!Feature.CANONICALIZE_FIELD_NAMES.enabledIn(_factoryFeatures)) {
+			return null;
+		}
+		return (encoding == DetectedEncoding.EUC_JP) ? _eucJpNames : _shiftJisNames;
+	}
+
+	private LegacyCharset _legacyCharsetOf(DetectedEncoding encoding) {
+		return (encoding == DetectedEncoding.EUC_JP) ? LegacyCharset.EUC_JP : _shiftJisCharset;
+	}
+}
@@ -0,0 +1,272 @@
+package com.example.charset;
+
+/**
+ *
+ * JSONのバイト列の先頭部分から、エンコーディングを判定します。
+ *
+ * 判定に使用するのは先頭の最大{@link #DEFAULT_SCAN_LIMIT}バイト（または指定したバイト数）だけなので、
+ * 本文の大きさに関係なく判定のコストは一定です。
+ *
+ * 判定の手順:
+ * 1. BOM、または先頭の0x00の並び（JSONの先頭はASCIIの文字になるため）から、UTF-16 / UTF-32を判定します
+ * 2. ASCII以外のバイトが現れるまで読み飛ばします。その間にISO-2022-JPのエスケープシーケンスがあればISO-2022-JPとします
+ *    （JSONでは文字列中でも制御文字はエスケープされるため、ESC(0x1B)がそのまま現れることはありません）
+ * 3. ASCII以外のバイトが現れた位置から、UTF-8 / EUC-JP / Shift_JISの順に解釈し、不正なバイト列を含まないものを選びます。
+ *    Shift_JISとEUC-JPの両方として正しい場合は、ひらがな・カタカナ（Shift_JISは0x82/0x83、EUC-JPは0xA4/0xA5で始まる）が多い方を選びます。
+ *    どれも不正なバイト列を含む場合は、最も後ろまで正しく解釈できたものを選びます
+ * 4. 範囲内にASCIIしかない場合はUTF-8とします
+ *
+ */
+public final class CharsetDetector {
+
+	public static final int DEFAULT_SCAN_LIMIT = 4096;
+
+	private static final int ESC = 0x1B;
+
+	/**
+	 * 不正なバイト列を含まずにこの数のマルチバイト文字（ひらがな・カタカナは2つ分）が続いた場合は、
+	 * 範囲の残りを見ずに判定します
+	 */
+	static final int CONFIDENT_SCORE = 64;
+
+	private CharsetDetector() {
+	}
+
+	public static DetectedEncoding detect(byte[] data) {
+		return detect(data, 0, data.length, DEFAULT_SCAN_LIMIT);
+	}
+
+	public static DetectedEncoding detect(byte[] data, int offset, int len) {
+		return detect(data, offset, len, DEFAULT_SCAN_LIMIT);
+	}
+
+	/**
+	 * @param scanLimit 判定に使用する最大のバイト数
+	 */
+	public static DetectedEncoding detect(byte[] data, int offset, int len, int scanLimit) {
+		final int end = offset + Math.min(len, scanLimit);
+
+		DetectedEncoding unicode = detectUnicode(data, offset, end);
+		if (unicode != null) {
+			return unicode;
+		}
+
+		int ptr = offset;
+		while (ptr < end) {
+			int b = data[ptr];
+			if (b < 0) {
+				break;
+			}
+			if (b == ESC && isIso2022Designation(data, ptr + 1, end)) {
+				return DetectedEncoding.ISO_2022_JP;
+			}
+			++ptr;
+		}
+		if (ptr >= end) {
+			return DetectedEncoding.UTF8;
+		}
+
+		long utf8 = scanUtf8(data, ptr, end);
+		if (isValid(utf8)) {
+			return DetectedEncoding.UTF8;
+		}
+		long euc = scanEucJp(data, ptr, end);
+		if (isValid(euc) && score(euc) >= CONFIDENT_SCORE) {
+			return DetectedEncoding.EUC_JP;
+		}
+		long sjis = scanShiftJis(data, ptr, end);
+		if (isValid(sjis)) {
+			return (isValid(euc) && score(euc) > score(sjis)) ? DetectedEncoding.EUC_JP : DetectedEncoding.SHIFT_JIS;
+		}
+		if (isValid(euc)) {
+			return DetectedEncoding.EUC_JP;
+		}
+		// どれも不正なバイト列を含む場合は、最も後ろまで正しく解釈できたものを選びます
+		if (errorAt(utf8) >= errorAt(sjis) && errorAt(utf8) >= errorAt(euc)) {
+			return DetectedEncoding.UTF8;
+		}
+		return (errorAt(sjis) >= errorAt(euc)) ? DetectedEncoding.SHIFT_JIS : DetectedEncoding.EUC_JP;
+	}
+
+	private static boolean isValid(long result) {
+		return errorAt(result) == Integer.MAX_VALUE;
+	}
+
+	private static int errorAt(long result) {
+		return (int) (result >>> 32);
+	}
+
+	private static int score(long result) {
+		return (int) result;
+	}
+
+	private static long result(int errorAt, int score) {
+		return ((long) errorAt << 32) | score;
+	}
+
+	/**
+	 * Jacksonの{@code ByteSourceJsonBootstrapper}と同じく、BOMと0x00の位置からUTF-16 / UTF-32を判定します
+	 *
+	 * @return UTF-16 / UTF-32 / BOM付きのUTF-8でない場合はnull
+	 */
+	static DetectedEncoding detectUnicode(byte[] data, int offset, int end) {
+		final int len = end - offset;
+		if (len >= 4) {
+			int quad = ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+					| ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+			if (quad == 0x0000FEFF) {
+				return DetectedEncoding.UTF32_BE;
+			}
+			if (quad == 0xFFFE0000) {
+				return DetectedEncoding.UTF32_LE;
+			}
+			if ((quad >>> 8) == 0) {
+				return DetectedEncoding.UTF32_BE;
+			}
+			if ((quad & 0x00FFFFFF) == 0) {
+				return DetectedEncoding.UTF32_LE;
+			}
+		}
+		if (len >= 3 && (data[offset] & 0xFF) == 0xEF && (data[offset + 1] & 0xFF) == 0xBB
+				&& (data[offset + 2] & 0xFF) == 0xBF) {
+			return DetectedEncoding.UTF8;
+		}
+		if (len >= 2) {
+			int b0 = data[offset] & 0xFF;
+			int b1 = data[offset + 1] & 0xFF;
+			if ((b0 == 0xFE && b1 == 0xFF) || (b0 == 0 && b1 != 0)) {
+				return DetectedEncoding.UTF16_BE;
+			}
+			if ((b0 == 0xFF && b1 == 0xFE) || (b0 != 0 && b1 == 0)) {
+				return DetectedEncoding.UTF16_LE;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * ESC $ @ / ESC $ B / ESC $ ( D / ESC ( B / ESC ( J / ESC ( I
+	 */
+	private static boolean isIso2022Designation(byte[] data, int ptr, int end) {
+		if (ptr + 1 >= end) {
+			return false;
+		}
+		int b1 = data[ptr];
+		int b2 = data[ptr + 1];
+		if (b1 == '$') {
+			return b2 == '@' || b2 == 'B' || (b2 == '(' && ptr + 2 < end && data[ptr + 2] == 'D');
+		}
+		if (b1 == '(') {
+			return b2 == 'B' || b2 == 'J' || b2 == 'I';
+		}
+		return false;
+	}
+
+	/*
+	 * 以下のメソッドは、最初の不正なバイト列の位置（ない場合はInteger.MAX_VALUE）とスコアを返します。
+	 * 範囲の末尾で途切れたバイト列は不正として扱いません
+	 */
+
+	private static long scanUtf8(byte[] data, int ptr, int end) {
+		int score = 0;
+		while (ptr < end && score < CONFIDENT_SCORE) {
+			final int seqStart = ptr;
+			int c = data[ptr++] & 0xFF;
+			if (c < 0x80) {
+				continue;
+			}
+			int needed;
+			if (c >= 0xC2 && c <= 0xDF) {
+				needed = 1;
+			} else if (c >= 0xE0 && c <= 0xEF) {
+				needed = 2;
+			} else if (c >= 0xF0 && c <= 0xF4) {
+				needed = 3;
+			} else {
+				return result(seqStart, score);
+			}
+			int i = 0;
+			for (; i < needed && ptr < end; i++, ptr++) {
+				if ((data[ptr] & 0xC0) != 0x80) {
+					break;
+				}
+			}
+			if (i == needed) {
+				++score;
+			} else if (ptr < end) {
+				return result(seqStart, score);
+			}
+		}
+		return result(Integer.MAX_VALUE, score);
+	}
+
+	private static long scanShiftJis(byte[] data, int ptr, int end) {
+		int score = 0;
+		while (ptr < end && score < CONFIDENT_SCORE) {
+			final int seqStart = ptr;
+			int c = data[ptr++] & 0xFF;
+			if (c < 0x80 || (c >= 0xA1 && c <= 0xDF)) {
+				continue;
+			}
+			if ((c >= 0x81 && c <= 0x9F) || (c >= 0xE0 && c <= 0xFC)) {
+				if (ptr >= end) {
+					break;
+				}
+				int t = data[ptr] & 0xFF;
+				if ((t >= 0x40 && t <= 0x7E) || (t >= 0x80 && t <= 0xFC)) {
+					++ptr;
+					score += (c == 0x82 || c == 0x83) ? 2 : 1;
+				} else {
+					return result(seqStart, score);
+				}
+				continue;
+			}
+			return result(seqStart, score);
+		}
+		return result(Integer.MAX_VALUE, score);
+	}
+
+	private static long scanEucJp(byte[] data, int ptr, int end) {
+		int score = 0;
+		while (ptr < end && score < CONFIDENT_SCORE) {
+			final int seqStart = ptr;
+			int c = data[ptr++] & 0xFF;
+			if (c < 0x80) {
+				continue;
+			}
+			int needed;
+			int minTrail;
+			int maxTrail;
+			if (c >= 0xA1 && c <= 0xFE) {
+				needed = 1;
+				minTrail = 0xA1;
+				maxTrail = 0xFE;
+			} else if (c == 0x8E) {
+				// 半角カナ
+				needed = 1;
+				minTrail = 0xA1;
+				maxTrail = 0xDF;
+			} else if (c == 0x8F) {
+				// JIS X 0212
+				needed = 2;
+				minTrail = 0xA1;
+				maxTrail = 0xFE;
+			} else {
+				return result(seqStart, score);
+			}
+			int i = 0;
+			for (; i < needed && ptr < end; i++, ptr++) {
+				int t = data[ptr] & 0xFF;
+				if (t < minTrail || t > maxTrail) {
+					break;
+				}
+			}
+			if (i == needed) {
+				score += (c == 0xA4 || c == 0xA5) ? 2 : 1;
+			} else if (ptr < end) {
+				return result(seqStart, score);
+			}
+		}
+		return result(Integer.MAX_VALUE, score);
+	}
+}
@@ -0,0 +1,47 @@
+package com.example.charset;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+
+/**
+ *
+ * {@link CharsetDetector}で判定したエンコーディングです。
+ *
+ */
+public enum DetectedEncoding {
+
+	UTF8(JsonEncoding.UTF8),
+
+	UTF16_BE(JsonEncoding.UTF16_BE),
+
+	UTF16_LE(JsonEncoding.UTF16_LE),
+
+	UTF32_BE(JsonEncoding.UTF32_BE),
+
+	UTF32_LE(JsonEncoding.UTF32_LE),
+
+	/**
+	 * Shift_JIS系（Shift_JIS / Windows-31J）。どちらでデコードするかは呼び出し側で選択します
+	 */
+	SHIFT_JIS(null),
+
+	EUC_JP(null),
+
+	ISO_2022_JP(null);
+
+	private final JsonEncoding jsonEncoding;
+
+	private DetectedEncoding(JsonEncoding jsonEncoding) {
+		this.jsonEncoding = jsonEncoding;
+	}
+
+	/**
+	 * @return Jacksonが標準で扱えるエンコーディング（UTF-8/16/32）の場合はそのJsonEncoding、それ以外はnull
+	 */
+	public JsonEncoding jsonEncoding() {
+		return jsonEncoding;
+	}
+
+	public boolean isUnicode() {
+		return jsonEncoding != null;
+	}
+}
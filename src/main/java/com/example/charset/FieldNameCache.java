@@ -0,0 +1,58 @@
+package com.example.charset;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * フィールド名を、「"」で囲んでエンコードしたバイト列に対応付けるキャッシュです。
+ * JsonFactoryごとに1つ作成し、そのファクトリで生成したJsonGeneratorの間で共有します。
+ *
+ * BeanのフィールドのようにJSONに何度も現れる名前は、2回目以降エンコードを行わずにバイト列をコピーするだけになります。
+ * 任意のMapのキー等で際限なく増えないよう、登録数には上限があります。上限に達した後は登録を行いません。
+ *
+ */
+public class FieldNameCache {
+
+	/**
+	 * この長さを超える名前はキャッシュしません
+	 */
+	public static final int MAX_NAME_LENGTH = 64;
+
+	public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+	private final ConcurrentHashMap<String, byte[]> entries = new ConcurrentHashMap<>();
+
+	private final int maxEntries;
+
+	public FieldNameCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public FieldNameCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @return 登録されていない場合はnull
+	 */
+	public byte[] get(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * 上限に達していなければ登録します。
+	 *
+	 * @return 書き出しに使用するバイト列（他のスレッドが先に登録した場合はそのバイト列）
+	 */
+	public byte[] put(String name, byte[] quoted) {
+		if (entries.size() >= maxEntries) {
+			return quoted;
+		}
+		byte[] existing = entries.putIfAbsent(name, quoted);
+		return (existing != null) ? existing : quoted;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+}
@@ -0,0 +1,165 @@
+package com.example.charset;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * 読み込んだフィールド名のバイト列（レガシーエンコーディングのまま、「"」を含まない）を、正規化したStringに対応付けるキャッシュです。
+ * {@link FieldNameCache}の逆方向で、1つのエンコーディングのJsonFactoryごとに1つ作成し、そのファクトリで生成したJsonParserの間で共有します。
+ *
+ * 日本語のフィールド名のように非ASCIIのバイトを含む名前は、2回目以降デコードを行わず、バイト列の比較だけでStringを返します。
+ * ASCIIのみの名前はデコードの必要がないため、これまでどおりCharsToNameCanonicalizerで正規化します。
+ *
+ * 登録数には上限があり、上限に達した後は登録を行いません（登録済みの名前は引き続き使用します）。
+ * 表はロックを使用せず、登録した内容（イミュータブル）を配列に書き込むだけです。
+ * 同時に登録した場合に片方が失われることがありますが、次の読み込みで再び登録されます。
+ *
+ * 使用例:
+ * LegacyCharsetJsonFactory factory = new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS);
+ * FieldNameCanonicalizer names = factory.getFieldNameCanonicalizer();
+ * metrics.gauge("json.field_names.hit_rate", names.getHitRate());
+ *
+ */
+public class FieldNameCanonicalizer {
+
+	/**
+	 * このバイト数を超える名前はキャッシュしません
+	 */
+	public static final int MAX_NAME_BYTES = 128;
+
+	public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+	private final Entry[] table;
+
+	private final int mask;
+
+	private final int maxEntries;
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	public FieldNameCanonicalizer() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries 登録数の上限
+	 */
+	public FieldNameCanonicalizer(int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+		}
+		// 空きが半分以上残るようにして、探索が長くならないようにします
+		int capacity = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+		this.table = new Entry[capacity];
+		this.mask = capacity - 1;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * JsonParserがバイトを読みながら計算するハッシュ値と同じ値を計算します
+	 */
+	public static int hash(byte[] buf, int off, int len) {
+		int hash = 0;
+		for (int i = off, end = off + len; i < end; i++) {
+			hash = hash * 31 + (buf[i] & 0xFF);
+		}
+		return hash;
+	}
+
+	/**
+	 * @param hash {@link #hash(byte[], int, int)}の値
+	 * @return 登録されていない場合はnull
+	 */
+	public String find(byte[] buf, int off, int len, int hash) {
+		final Entry[] table = this.table;
+		for (int index = spread(hash) & mask;; index = (index + 1) & mask) {
+			Entry entry = table[index];
+			if (entry == null) {
+				misses.increment();
+				return null;
+			}
+			if (entry.hash == hash && entry.matches(buf, off, len)) {
+				hits.increment();
+				return entry.name;
+			}
+		}
+	}
+
+	/**
+	 * 上限に達していなければ、バイト列（コピーして保持します）とデコードした名前を登録します
+	 */
+	public void put(byte[] buf, int off, int len, int hash, String name) {
+		if (len > MAX_NAME_BYTES || size.get() >= maxEntries) {
+			return;
+		}
+		final Entry[] table = this.table;
+		for (int index = spread(hash) & mask;; index = (index + 1) & mask) {
+			Entry entry = table[index];
+			if (entry == null) {
+				table[index] = new Entry(Arrays.copyOfRange(buf, off, off + len), hash, name);
+				size.incrementAndGet();
+				return;
+			}
+			if (entry.hash == hash && entry.matches(buf, off, len)) {
+				return;
+			}
+		}
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return 非ASCIIを含む名前で、登録されていなかった（デコードした）回数
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return 探した回数のうち、登録されていた割合
+	 */
+	public double getHitRate() {
+		long hit = hits.sum();
+		long total = hit + misses.sum();
+		return (total == 0) ? 0 : (double) hit / total;
+	}
+
+	private static final class Entry {
+
+		final byte[] bytes;
+
+		final int hash;
+
+		final String name;
+
+		Entry(byte[] bytes, int hash, String name) {
+			this.bytes = bytes;
+			this.hash = hash;
+			this.name = name;
+		}
+
+		boolean matches(byte[] buf, int off, int len) {
+			return bytes.length == len && Arrays.equals(bytes, 0, len, buf, off, off + len);
+		}
+	}
+}
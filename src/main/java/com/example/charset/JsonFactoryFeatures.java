@@ -0,0 +1,41 @@
+package com.example.charset;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ *
+ * ObjectMapperのJsonFactoryに設定されたFeatureを、エンコーディングごとに作成したJsonFactoryへ引き継ぎます。
+ *
+ * 使用例:
+ * LegacyCharsetJsonFactory factory = JsonFactoryFeatures.copy(mapper.getFactory(),
+ *         new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS, mapper));
+ *
+ * 作成したJsonFactoryはフィールド名のシンボルテーブル（CANONICALIZE_FIELD_NAMES）を保持するため、
+ * 読み込みごとに作成せず、ObjectMapper・エンコーディングごとに1つ作成して使い回してください。
+ *
+ */
+public final class JsonFactoryFeatures {
+
+	private JsonFactoryFeatures() {
+	}
+
+	/**
+	 * baseのJsonFactory.Feature / JsonParser.Feature / JsonGenerator.Featureを、factoryに設定します
+	 *
+	 * @return factory
+	 */
+	public static <F extends JsonFactory> F copy(JsonFactory base, F factory) {
+		for (JsonFactory.Feature f : JsonFactory.Feature.values()) {
+			factory.configure(f, base.isEnabled(f));
+		}
+		for (JsonParser.Feature f : JsonParser.Feature.values()) {
+			factory.configure(f, base.isEnabled(f));
+		}
+		for (JsonGenerator.Feature f : JsonGenerator.Feature.values()) {
+			factory.configure(f, base.isEnabled(f));
+		}
+		return factory;
+	}
+}
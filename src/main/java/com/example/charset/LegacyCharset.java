@@ -0,0 +1,272 @@
+package com.example.charset;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ *
+ * JSONの構造文字（{ } [ ] : , " \ 等）がすべて1バイトのASCIIとして現れる、
+ * 日本語のマルチバイトエンコーディングを表します。
+ *
+ * 文字列値以外はASCIIのまま扱えるため、Readerで全体をcharに変換せずに
+ * バイト列のまま字句解析するための情報（先頭バイトごとのバイト長、デコード表、エンコード表）を保持します。
+ *
+ * 表はJDKのCharsetDecoder / CharsetEncoderから生成するため、
+ * InputStreamReader / OutputStreamWriterと同じ対応付けになります。
+ * 表は最初に使用されたときに一度だけ生成されます。
+ *
+ */
+public enum LegacyCharset {
+
+	SHIFT_JIS("Shift_JIS"),
+
+	WINDOWS_31J("windows-31j"),
+
+	EUC_JP("EUC-JP");
+
+	/**
+	 * デコード表で「2バイト目（3バイト目）が不正なため、そのバイトから読み直す」ことを表す値
+	 */
+	static final char REPROCESS = '\u0000';
+
+	static final char REPLACEMENT = '\uFFFD';
+
+	/**
+	 * エンコード表で「この文字は対応するバイト列がない」ことを表す値
+	 */
+	static final int UNMAPPABLE = 0;
+
+	private final Charset charset;
+
+	private final byte[] sequenceLengths;
+
+	private volatile DecodeTables decodeTables;
+
+	private volatile int[] encodeTable;
+
+	LegacyCharset(String charsetName) {
+		this.charset = Charset.forName(charsetName);
+		this.sequenceLengths = new byte[256];
+		for (int b = 0; b < 0x80; b++) {
+			sequenceLengths[b] = 1;
+		}
+		if ("EUC-JP".equals(charsetName)) {
+			sequenceLengths[0x8E] = 2; // SS2 + 半角カナ
+			sequenceLengths[0x8F] = 3; // SS3 + JIS X 0212
+			for (int b = 0xA1; b <= 0xFE; b++) {
+				sequenceLengths[b] = 2;
+			}
+		} else {
+			for (int b = 0x81; b <= 0x9F; b++) {
+				sequenceLengths[b] = 2;
+			}
+			for (int b = 0xA1; b <= 0xDF; b++) {
+				sequenceLengths[b] = 1; // 半角カナ
+			}
+			for (int b = 0xE0; b <= 0xFC; b++) {
+				sequenceLengths[b] = 2;
+			}
+		}
+	}
+
+	public Charset charset() {
+		return charset;
+	}
+
+	/**
+	 * 対応するLegacyCharsetを返します。別名（「MS932」「SJIS」等）も受け付けます。
+	 *
+	 * @return 対応していないエンコーディングの場合はnull
+	 */
+	public static LegacyCharset forCharset(Charset charset) {
+		for (LegacyCharset c : values()) {
+			if (c.charset.equals(charset)) {
+				return c;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return 対応していないエンコーディングの場合はnull
+	 */
+	public static LegacyCharset forName(String charsetName) {
+		try {
+			return forCharset(Charset.forName(charsetName));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 先頭バイトから、その文字が何バイトで構成されるかを返します。
+	 *
+	 * @return 1～3。先頭バイトとして不正な場合は0
+	 */
+	public int sequenceLength(int leadByte) {
+		return sequenceLengths[leadByte & 0xFF];
+	}
+
+	/**
+	 * デコード表とエンコード表を作成します。
+	 * 表は最初に使用した時に作成されるため、起動時に呼び出しておくと最初の要求で作成のコストがかかりません。
+	 */
+	public void preload() {
+		decodeTables();
+		encodeTable();
+	}
+
+	byte[] sequenceLengths() {
+		return sequenceLengths;
+	}
+
+	DecodeTables decodeTables() {
+		DecodeTables t = decodeTables;
+		if (t == null) {
+			synchronized (this) {
+				t = decodeTables;
+				if (t == null) {
+					t = new DecodeTables(this);
+					decodeTables = t;
+				}
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * charの値を添字として、エンコード結果を「(バイト長 << 24) | バイト列」の形で保持する表を返します。
+	 * 対応するバイト列がない文字、および非ASCII文字がASCIIのバイトに写される（「¥」→ 0x5C 等）文字は
+	 * {@link #UNMAPPABLE}になります。後者をそのまま出力するとJSONの構造文字と区別がつかなくなるためです。
+	 */
+	int[] encodeTable() {
+		int[] t = encodeTable;
+		if (t == null) {
+			synchronized (this) {
+				t = encodeTable;
+				if (t == null) {
+					t = buildEncodeTable();
+					encodeTable = t;
+				}
+			}
+		}
+		return t;
+	}
+
+	private int[] buildEncodeTable() {
+		CharsetEncoder encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		int[] table = new int[0x10000];
+		CharBuffer in = CharBuffer.allocate(1);
+		ByteBuffer out = ByteBuffer.allocate(8);
+		for (int c = 0; c < 0x10000; c++) {
+			if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+				continue;
+			}
+			in.clear();
+			in.put((char) c).flip();
+			out.clear();
+			encoder.reset();
+			CoderResult result = encoder.encode(in, out, true);
+			if (result.isError() || encoder.flush(out).isError()) {
+				continue;
+			}
+			int len = out.position();
+			if (len < 1 || len > 3 || (c >= 0x80 && len == 1 && out.get(0) >= 0)) {
+				continue;
+			}
+			int packed = len << 24;
+			for (int i = 0; i < len; i++) {
+				packed |= (out.get(i) & 0xFF) << (8 * (len - 1 - i));
+			}
+			table[c] = packed;
+		}
+		return table;
+	}
+
+	/**
+	 * バイト列から文字へのデコード表
+	 */
+	static final class DecodeTables {
+
+		/**
+		 * 1バイト文字。添字はバイト値
+		 */
+		final char[] single = new char[256];
+
+		/**
+		 * 2バイト文字。添字は「(1バイト目 << 8) | 2バイト目」
+		 */
+		final char[] pair = new char[0x10000];
+
+		/**
+		 * 3バイト文字（EUC-JPのSS3のみ）。添字は「(2バイト目 << 8) | 3バイト目」
+		 */
+		final char[] triple;
+
+		DecodeTables(LegacyCharset cs) {
+			CharsetDecoder decoder = cs.charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT);
+			ByteBuffer in = ByteBuffer.allocate(3);
+			CharBuffer out = CharBuffer.allocate(4);
+			boolean hasTriple = false;
+			for (int lead = 0; lead < 256; lead++) {
+				switch (cs.sequenceLengths[lead]) {
+				case 1:
+					single[lead] = decode(decoder, in, out, lead, -1, -1);
+					break;
+				case 2:
+					for (int trail = 0; trail < 256; trail++) {
+						pair[(lead << 8) | trail] = decode(decoder, in, out, lead, trail, -1);
+					}
+					break;
+				case 3:
+					hasTriple = true;
+					break;
+				default:
+					single[lead] = REPLACEMENT;
+				}
+			}
+			if (hasTriple) {
+				triple = new char[0x10000];
+				for (int second = 0; second < 256; second++) {
+					for (int third = 0; third < 256; third++) {
+						triple[(second << 8) | third] = decode(decoder, in, out, 0x8F, second, third);
+					}
+				}
+			} else {
+				triple = null;
+			}
+		}
+
+		private static char decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out, int b1, int b2, int b3) {
+			in.clear();
+			in.put((byte) b1);
+			if (b2 >= 0) {
+				in.put((byte) b2);
+			}
+			if (b3 >= 0) {
+				in.put((byte) b3);
+			}
+			in.flip();
+			int expected = in.remaining();
+			out.clear();
+			decoder.reset();
+			CoderResult result = decoder.decode(in, out, true);
+			if (result.isError()) {
+				// 2バイト目以降が範囲外の場合、InputStreamReaderは先頭バイトだけを置換文字にして
+				// 次のバイトから読み直すため、それに合わせます
+				return (result.length() < expected) ? REPROCESS : REPLACEMENT;
+			}
+			if (in.position() != expected || out.position() != 1) {
+				return (expected == 1) ? REPLACEMENT : REPROCESS;
+			}
+			return out.get(0);
+		}
+	}
+}
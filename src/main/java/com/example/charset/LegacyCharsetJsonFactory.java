@@ -0,0 +1,176 @@
+package com.example.charset;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+/**
+ *
+ * バイト列（byte[], InputStream, File, URL, DataInput）を、指定したレガシーエンコーディングのJSONとして
+ * {@link LegacyCharsetJsonParser}で読み込み、
+ * OutputStream（File, DataOutput, writeValueAsBytes等を含む）へは{@link LegacyCharsetJsonGenerator}で書き出すJsonFactoryです。
+ *
+ * 使用例:
+ * ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS));
+ * Bean bean = mapper.readValue(request.getInputStream(), Bean.class);
+ * mapper.writeValue(response.getOutputStream(), bean);
+ *
+ * 読み込みでは、日本語等のフィールド名をバイト列のまま{@link FieldNameCanonicalizer}で正規化し、同じ名前のデコードを省きます
+ * （JsonFactory.Feature.CANONICALIZE_FIELD_NAMESを無効にした場合は使用しません）。
+ *
+ * DataInputからは、ObjectMapper#readValue(DataInput, ...)の標準の動作と同じく1バイトずつ読み込み、
+ * オブジェクト・配列の後ろのデータは読み込みません（DataOutputで前後に書き出した値と交互に読み込めます）。
+ *
+ * Reader / Writerを渡した場合は、通常のJsonFactoryと同じ動作になります。
+ * また、createGeneratorにJsonEncoding.UTF16_BE等を指定した場合は、指定したエンコーディングで書き出します。
+ *
+ */
+public class LegacyCharsetJsonFactory extends JsonFactory {
+
+	private static final long serialVersionUID = 1L;
+
+	protected final LegacyCharset _legacyCharset;
+
+	protected final transient FieldNameCache _fieldNameCache = new FieldNameCache();
+
+	protected final transient FieldNameCanonicalizer _fieldNameCanonicalizer = new FieldNameCanonicalizer();
+
+	public LegacyCharsetJsonFactory(LegacyCharset legacyCharset) {
+		this(legacyCharset, null);
+	}
+
+	public LegacyCharsetJsonFactory(LegacyCharset legacyCharset, ObjectCodec codec) {
+		super(codec);
+		_legacyCharset = legacyCharset;
+	}
+
+	protected LegacyCharsetJsonFactory(LegacyCharsetJsonFactory src, ObjectCodec codec) {
+		super(src, codec);
+		_legacyCharset = src._legacyCharset;
+	}
+
+	/**
+	 * @throws IllegalArgumentException 対応していないエンコーディングの場合
+	 */
+	public static LegacyCharsetJsonFactory forCharset(Charset charset) {
+		LegacyCharset legacyCharset = LegacyCharset.forCharset(charset);
+		if (legacyCharset == null) {
+			throw new IllegalArgumentException("Unsupported charset: " + charset);
+		}
+		return new LegacyCharsetJsonFactory(legacyCharset);
+	}
+
+	public LegacyCharset getLegacyCharset() {
+		return _legacyCharset;
+	}
+
+	/**
+	 * 読み込んだフィールド名のキャッシュ。ヒット率等の確認に使用します
+	 */
+	public FieldNameCanonicalizer getFieldNameCanonicalizer() {
+		return _fieldNameCanonicalizer;
+	}
+
+	@Override
+	public JsonFactory copy() {
+		_checkInvalidCopy(LegacyCharsetJsonFactory.class);
+		return new LegacyCharsetJsonFactory(this, null);
+	}
+
+	@Override
+	protected Object readResolve() {
+		return new LegacyCharsetJsonFactory(this, _objectCodec);
+	}
+
+	@Override
+	public String getFormatName() {
+		return FORMAT_NAME_JSON;
+	}
+
+	@Override
+	protected JsonParser _createParser(InputStream in, IOContext ctxt) throws IOException {
+		return new LegacyCharsetJsonParser(ctxt, _parserFeatures, in, _objectCodec,
+				_rootCharSymbols.makeChild(_factoryFeatures), _rawNames(), _legacyCharset, ctxt.allocReadIOBuffer(), 0,
+				0, true);
+	}
+
+	@Override
+	protected JsonParser _createParser(byte[] data, int offset, int len, IOContext ctxt) throws IOException {
+		return new LegacyCharsetJsonParser(ctxt, _parserFeatures, null, _objectCodec,
+				_rootCharSymbols.makeChild(_factoryFeatures), _rawNames(), _legacyCharset, data, offset, offset + len,
+				false);
+	}
+
+	/**
+	 * DataInputは終わりを判定できず、読み戻しもできないため、1バイトずつ読み込むInputStreamとして扱います
+	 */
+	@Override
+	protected JsonParser _createParser(DataInput input, IOContext ctxt) throws IOException {
+		return new LegacyCharsetJsonParser(ctxt, _parserFeatures, new DataInputStreamAdapter(input), _objectCodec,
+				_rootCharSymbols.makeChild(_factoryFeatures), _rawNames(), _legacyCharset, ctxt.allocReadIOBuffer(), 0,
+				0, true);
+	}
+
+	private FieldNameCanonicalizer _rawNames() {
+		return Feature.CANONICALIZE_FIELD_NAMES.enabledIn(_factoryFeatures) ? _fieldNameCanonicalizer : null;
+	}
+
+	@Override
+	protected JsonGenerator _createUTF8Generator(OutputStream out, IOContext ctxt) throws IOException {
+		LegacyCharsetJsonGenerator gen = new LegacyCharsetJsonGenerator(ctxt, _generatorFeatures, _objectCodec, out,
+				_legacyCharset, _fieldNameCache);
+		if (_characterEscapes != null) {
+			gen.setCharacterEscapes(_characterEscapes);
+		}
+		SerializableString rootSep = _rootValueSeparator;
+		if (rootSep != DefaultPrettyPrinter.DEFAULT_ROOT_VALUE_SEPARATOR) {
+			gen.setRootValueSeparator(rootSep);
+		}
+		return gen;
+	}
+
+	/**
+	 * DataInputを、1回に1バイトだけ返すInputStreamにします。closeではDataInputを閉じません
+	 */
+	private static final class DataInputStreamAdapter extends InputStream {
+
+		private final DataInput input;
+
+		DataInputStreamAdapter(DataInput input) {
+			this.input = input;
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				return input.readUnsignedByte();
+			} catch (EOFException e) {
+				return -1;
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			int c = read();
+			if (c < 0) {
+				return -1;
+			}
+			b[off] = (byte) c;
+			return 1;
+		}
+	}
+}
@@ -0,0 +1,749 @@
+package com.example.charset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharTypes;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.io.NumberOutput;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+
+/**
+ *
+ * Shift_JIS / Windows-31J / EUC-JPのバイト列を、Writerを介さずに直接書き出すJsonGeneratorです。
+ *
+ * 構造文字・数値・ASCIIの文字はそのまま1バイトで書き出し、
+ * 非ASCIIの文字だけを{@link LegacyCharset}のエンコード表でバイト列に変換します。
+ * フィールド名は、エンコード済みのバイト列を{@link FieldNameCache}から取得します（{@link PreEncodedName}の場合は名前が保持しています）。
+ *
+ * OutputStreamWriterを使用した場合との違いは、エンコーディングで表現できない文字（「𠮷」等）の扱いです。
+ * OutputStreamWriterでは「?」に置き換えられますが、このクラスでは「\\uD842\\uDFB7」のようにエスケープして書き出すため、
+ * readした時に元の文字に戻ります。
+ *
+ */
+public class LegacyCharsetJsonGenerator extends JsonGeneratorImpl {
+
+	private final static byte BYTE_QUOTE = '"';
+
+	private final static byte BYTE_BACKSLASH = '\\';
+
+	private final static byte BYTE_COMMA = ',';
+
+	private final static byte BYTE_COLON = ':';
+
+	private final static byte[] HEX_CHARS = CharTypes.copyHexBytes();
+
+	private final static byte[] NULL_BYTES = { 'n', 'u', 'l', 'l' };
+
+	private final static byte[] TRUE_BYTES = { 't', 'r', 'u', 'e' };
+
+	private final static byte[] FALSE_BYTES = { 'f', 'a', 'l', 's', 'e' };
+
+	/**
+	 * 1文字を書き出すのに必要な最大のバイト数（サロゲートペアを「\\uXXXX\\uXXXX」と書き出す場合）
+	 */
+	private final static int MAX_BYTES_PER_CHAR = 12;
+
+	private final LegacyCharset _charset;
+
+	private final int[] _encodeTable;
+
+	private final byte[] _replacement;
+
+	private final FieldNameCache _fieldNames;
+
+	protected OutputStream _outputStream;
+
+	protected byte[] _outputBuffer;
+
+	protected int _outputTail;
+
+	protected final int _outputEnd;
+
+	protected boolean _bufferRecyclable;
+
+	public LegacyCharsetJsonGenerator(IOContext ctxt, int features, ObjectCodec codec, OutputStream out,
+			LegacyCharset charset, FieldNameCache fieldNames) {
+		this(ctxt, features, codec, out, charset, fieldNames, ctxt.allocWriteEncodingBuffer(), 0, true);
+	}
+
+	public LegacyCharsetJsonGenerator(IOContext ctxt, int features, ObjectCodec codec, OutputStream out,
+			LegacyCharset charset, FieldNameCache fieldNames, byte[] outputBuffer, int outputOffset,
+			boolean bufferRecyclable) {
+		super(ctxt, features, codec);
+		_outputStream = out;
+		_charset = charset;
+		_encodeTable = charset.encodeTable();
+		_replacement = charset.charset().newEncoder().replacement();
+		_fieldNames = fieldNames;
+		_outputBuffer = outputBuffer;
+		_outputTail = outputOffset;
+		_outputEnd = outputBuffer.length;
+		_bufferRecyclable = bufferRecyclable;
+	}
+
+	public LegacyCharset getLegacyCharset() {
+		return _charset;
+	}
+
+	@Override
+	public Object getOutputTarget() {
+		return _outputStream;
+	}
+
+	@Override
+	public int getOutputBuffered() {
+		return _outputTail;
+	}
+
+	/*
+	 * 構造
+	 */
+
+	@Override
+	public void writeStartArray() throws IOException {
+		_verifyValueWrite("start an array");
+		_writeContext = _writeContext.createChildArrayContext();
+		if (_cfgPrettyPrinter != null) {
+			_cfgPrettyPrinter.writeStartArray(this);
+		} else {
+			_writeByte((byte) '[');
+		}
+	}
+
+	@Override
+	public void writeEndArray() throws IOException {
+		if (!_writeContext.inArray()) {
+			_reportError("Current context not Array but " + _writeContext.typeDesc());
+		}
+		if (_cfgPrettyPrinter != null) {
+			_cfgPrettyPrinter.writeEndArray(this, _writeContext.getEntryCount());
+		} else {
+			_writeByte((byte) ']');
+		}
+		_writeContext = _writeContext.clearAndGetParent();
+	}
+
+	@Override
+	public void writeStartObject() throws IOException {
+		_verifyValueWrite("start an object");
+		_writeContext = _writeContext.createChildObjectContext();
+		if (_cfgPrettyPrinter != null) {
+			_cfgPrettyPrinter.writeStartObject(this);
+		} else {
+			_writeByte((byte) '{');
+		}
+	}
+
+	@Override
+	public void writeStartObject(Object forValue) throws IOException {
+		writeStartObject();
+		if (forValue != null) {
+			_writeContext.setCurrentValue(forValue);
+		}
+	}
+
+	@Override
+	public void writeEndObject() throws IOException {
+		if (!_writeContext.inObject()) {
+			_reportError("Current context not Object but " + _writeContext.typeDesc());
+		}
+		if (_cfgPrettyPrinter != null) {
+			_cfgPrettyPrinter.writeEndObject(this, _writeContext.getEntryCount());
+		} else {
+			_writeByte((byte) '}');
+		}
+		_writeContext = _writeContext.clearAndGetParent();
+	}
+
+	/*
+	 * フィールド名
+	 */
+
+	@Override
+	public void writeFieldName(String name) throws IOException {
+		_writeFieldNameSeparator(name);
+		if (_cfgUnqNames) {
+			_writeStringContents(name, 0, name.length());
+			return;
+		}
+		if (_fieldNames != null && _characterEscapes == null && _maximumNonEscapedChar == 0
+				&& name.length() <= FieldNameCache.MAX_NAME_LENGTH) {
+			byte[] quoted = _fieldNames.get(name);
+			if (quoted == null) {
+				quoted = _fieldNames.put(name, _encodeQuoted(name));
+			}
+			_writeBytes(quoted, 0, quoted.length);
+			return;
+		}
+		_writeByte(BYTE_QUOTE);
+		_writeStringContents(name, 0, name.length());
+		_writeByte(BYTE_QUOTE);
+	}
+
+	/**
+	 * {@link PreEncodedName}の場合は、名前が保持しているこのエンコーディングのバイト列を書き出します
+	 * （{@link FieldNameCache#MAX_NAME_LENGTH}文字を超える名前は、毎回エンコードします）
+	 */
+	@Override
+	public void writeFieldName(SerializableString name) throws IOException {
+		if (!(name instanceof PreEncodedName) || _cfgUnqNames || _characterEscapes != null
+				|| _maximumNonEscapedChar != 0 || name.getValue().length() > FieldNameCache.MAX_NAME_LENGTH) {
+			writeFieldName(name.getValue());
+			return;
+		}
+		_writeFieldNameSeparator(name.getValue());
+		PreEncodedName encoded = (PreEncodedName) name;
+		byte[] quoted = encoded.legacyQuoted(_charset);
+		if (quoted == null) {
+			quoted = _encodeQuoted(name.getValue());
+			encoded.setLegacyQuoted(_charset, quoted);
+		}
+		_writeBytes(quoted, 0, quoted.length);
+	}
+
+	/**
+	 * フィールド名の前の「,」（またはPrettyPrinterの区切り）を書き出します
+	 */
+	private void _writeFieldNameSeparator(String name) throws IOException {
+		final int status = _writeContext.writeFieldName(name);
+		if (status == JsonWriteContext.STATUS_EXPECT_VALUE) {
+			_reportError("Can not write a field name, expecting a value");
+		}
+		if (_cfgPrettyPrinter != null) {
+			if (status == JsonWriteContext.STATUS_OK_AFTER_COMMA) {
+				_cfgPrettyPrinter.writeObjectEntrySeparator(this);
+			} else {
+				_cfgPrettyPrinter.beforeObjectEntries(this);
+			}
+		} else if (status == JsonWriteContext.STATUS_OK_AFTER_COMMA) {
+			_writeByte(BYTE_COMMA);
+		}
+	}
+
+	/**
+	 * 「"」で囲み、エスケープとエンコードを行ったバイト列を返します（FieldNameCacheに登録する値）。
+	 * 名前は出力バッファに収まる長さ（{@link FieldNameCache#MAX_NAME_LENGTH}文字以下）であることが前提です
+	 */
+	private byte[] _encodeQuoted(String name) throws IOException {
+		if (_outputTail + name.length() * MAX_BYTES_PER_CHAR + 2 > _outputEnd) {
+			_flushBuffer();
+		}
+		// 出力バッファの空き領域を作業領域として使い、書き出した分は取り消します
+		final int start = _outputTail;
+		_outputBuffer[_outputTail++] = BYTE_QUOTE;
+		_writeStringContents(name, 0, name.length());
+		_outputBuffer[_outputTail++] = BYTE_QUOTE;
+		byte[] quoted = new byte[_outputTail - start];
+		System.arraycopy(_outputBuffer, start, quoted, 0, quoted.length);
+		_outputTail = start;
+		return quoted;
+	}
+
+	/*
+	 * 文字列
+	 */
+
+	@Override
+	public void writeString(String text) throws IOException {
+		_verifyValueWrite(WRITE_STRING);
+		if (text == null) {
+			_writeNull();
+			return;
+		}
+		_writeByte(BYTE_QUOTE);
+		_writeStringContents(text, 0, text.length());
+		_writeByte(BYTE_QUOTE);
+	}
+
+	@Override
+	public void writeString(char[] text, int offset, int len) throws IOException {
+		_verifyValueWrite(WRITE_STRING);
+		_writeByte(BYTE_QUOTE);
+		_writeStringContents(new CharArraySequence(text), offset, offset + len);
+		_writeByte(BYTE_QUOTE);
+	}
+
+	@Override
+	public void writeString(SerializableString text) throws IOException {
+		writeString(text.getValue());
+	}
+
+	@Override
+	public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+		// UTF-8のバイト列をそのまま書き出すとエンコーディングが混在するため、文字に戻してから書き出します
+		_verifyValueWrite(WRITE_STRING);
+		_writeByte(BYTE_QUOTE);
+		writeRaw(new String(text, offset, length, "UTF-8"));
+		_writeByte(BYTE_QUOTE);
+	}
+
+	@Override
+	public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+		writeString(new String(text, offset, length, "UTF-8"));
+	}
+
+	/**
+	 * 文字列の中身（「"」の内側）をエスケープ・エンコードして書き出します
+	 */
+	private void _writeStringContents(CharSequence text, int offset, int end) throws IOException {
+		final int[] escCodes = _outputEscapes;
+		final int[] encodeTable = _encodeTable;
+		final int maxNonEscaped = (_maximumNonEscapedChar == 0) ? Character.MAX_VALUE : _maximumNonEscapedChar;
+		final boolean customEscapes = (_characterEscapes != null);
+
+		while (offset < end) {
+			if (_outputTail + MAX_BYTES_PER_CHAR > _outputEnd) {
+				_flushBuffer();
+			}
+			// エスケープが不要な文字が続く間は、バッファに収まる分をまとめて書き出します（1文字あたり最大3バイト）
+			final byte[] outBuf = _outputBuffer;
+			int outPtr = _outputTail;
+			int max = Math.min(end, offset + (_outputEnd - outPtr - MAX_BYTES_PER_CHAR) / 3);
+			while (offset < max) {
+				char c = text.charAt(offset);
+				if (c <= 0x7F) {
+					if (escCodes[c] != 0) {
+						break;
+					}
+					outBuf[outPtr++] = (byte) c;
+				} else {
+					if (customEscapes || c > maxNonEscaped) {
+						break;
+					}
+					int packed = encodeTable[c];
+					int len = packed >>> 24;
+					if (len == 2) {
+						outBuf[outPtr++] = (byte) (packed >> 8);
+						outBuf[outPtr++] = (byte) packed;
+					} else if (len == 1) {
+						outBuf[outPtr++] = (byte) packed;
+					} else if (len == 3) {
+						outBuf[outPtr++] = (byte) (packed >> 16);
+						outBuf[outPtr++] = (byte) (packed >> 8);
+						outBuf[outPtr++] = (byte) packed;
+					} else {
+						// UNMAPPABLE
+						break;
+					}
+				}
+				++offset;
+			}
+			_outputTail = outPtr;
+			if (offset >= end) {
+				break;
+			}
+
+			// 途切れた場合でも、1文字分（最大MAX_BYTES_PER_CHAR）の空きは残っています
+			char c = text.charAt(offset++);
+			if (c <= 0x7F) {
+				int code = escCodes[c];
+				if (code == 0) {
+					outBuf[_outputTail++] = (byte) c;
+				} else if (code == CharacterEscapes.ESCAPE_CUSTOM) {
+					_writeCustomEscape(c);
+				} else if (code > 0) {
+					outBuf[_outputTail++] = BYTE_BACKSLASH;
+					outBuf[_outputTail++] = (byte) code;
+				} else {
+					_writeGenericEscape(c);
+				}
+				continue;
+			}
+			if (_characterEscapes != null && _characterEscapes.getEscapeSequence(c) != null) {
+				_writeCustomEscape(c);
+				continue;
+			}
+			if (c > maxNonEscaped) {
+				_writeGenericEscape(c);
+				continue;
+			}
+			int packed = encodeTable[c];
+			if (packed == LegacyCharset.UNMAPPABLE) {
+				// サロゲートペアを含め、表現できない文字は「\\uXXXX」で書き出します
+				_writeGenericEscape(c);
+				continue;
+			}
+			_writeEncoded(packed);
+		}
+	}
+
+	private void _writeEncoded(int packed) {
+		final byte[] outBuf = _outputBuffer;
+		switch (packed >>> 24) {
+		case 3:
+			outBuf[_outputTail++] = (byte) (packed >> 16);
+			// fall through
+		case 2:
+			outBuf[_outputTail++] = (byte) (packed >> 8);
+			// fall through
+		default:
+			outBuf[_outputTail++] = (byte) packed;
+		}
+	}
+
+	private void _writeGenericEscape(int c) {
+		final byte[] outBuf = _outputBuffer;
+		outBuf[_outputTail++] = BYTE_BACKSLASH;
+		outBuf[_outputTail++] = 'u';
+		outBuf[_outputTail++] = HEX_CHARS[(c >> 12) & 0xF];
+		outBuf[_outputTail++] = HEX_CHARS[(c >> 8) & 0xF];
+		outBuf[_outputTail++] = HEX_CHARS[(c >> 4) & 0xF];
+		outBuf[_outputTail++] = HEX_CHARS[c & 0xF];
+	}
+
+	private void _writeCustomEscape(char c) throws IOException {
+		SerializableString esc = _characterEscapes.getEscapeSequence(c);
+		if (esc == null) {
+			_reportError(String.format("Invalid custom escape definitions; custom escape not found for character code 0x%s, although was supposed to have one",
+					Integer.toHexString(c)));
+		}
+		_writeRawContents(esc.getValue(), 0, esc.getValue().length());
+	}
+
+	/*
+	 * Raw
+	 */
+
+	@Override
+	public void writeRaw(String text) throws IOException {
+		_writeRawContents(text, 0, text.length());
+	}
+
+	@Override
+	public void writeRaw(String text, int offset, int len) throws IOException {
+		_writeRawContents(text, offset, offset + len);
+	}
+
+	@Override
+	public void writeRaw(SerializableString text) throws IOException {
+		writeRaw(text.getValue());
+	}
+
+	@Override
+	public void writeRaw(char[] text, int offset, int len) throws IOException {
+		_writeRawContents(new CharArraySequence(text), offset, offset + len);
+	}
+
+	@Override
+	public void writeRaw(char c) throws IOException {
+		if (c <= 0x7F) {
+			_writeByte((byte) c);
+		} else {
+			_writeRawContents(String.valueOf(c), 0, 1);
+		}
+	}
+
+	/**
+	 * エスケープせずに書き出します。表現できない文字は、OutputStreamWriterと同じく置換バイト列（「?」）になります
+	 */
+	private void _writeRawContents(CharSequence text, int offset, int end) throws IOException {
+		final int[] encodeTable = _encodeTable;
+		while (offset < end) {
+			if (_outputTail + MAX_BYTES_PER_CHAR > _outputEnd) {
+				_flushBuffer();
+			}
+			char c = text.charAt(offset++);
+			if (c <= 0x7F) {
+				_outputBuffer[_outputTail++] = (byte) c;
+				continue;
+			}
+			int packed = encodeTable[c];
+			if (packed == LegacyCharset.UNMAPPABLE) {
+				if (Character.isHighSurrogate(c) && offset < end && Character.isLowSurrogate(text.charAt(offset))) {
+					++offset;
+				}
+				for (byte b : _replacement) {
+					_outputBuffer[_outputTail++] = b;
+				}
+				continue;
+			}
+			_writeEncoded(packed);
+		}
+	}
+
+	/*
+	 * Binary
+	 */
+
+	@Override
+	public void writeBinary(Base64Variant b64variant, byte[] data, int offset, int len) throws IOException {
+		_verifyValueWrite(WRITE_BINARY);
+		_writeByte(BYTE_QUOTE);
+		byte[] encoded = b64variant.encode(sliceOf(data, offset, len), false).getBytes("US-ASCII");
+		_writeBytes(encoded, 0, encoded.length);
+		_writeByte(BYTE_QUOTE);
+	}
+
+	@Override
+	public int writeBinary(Base64Variant b64variant, InputStream data, int dataLength) throws IOException {
+		byte[] bytes = (dataLength < 0) ? data.readAllBytes() : data.readNBytes(dataLength);
+		if (dataLength >= 0 && bytes.length < dataLength) {
+			_reportError("Too few bytes available: missing " + (dataLength - bytes.length) + " bytes (out of "
+					+ dataLength + ")");
+		}
+		writeBinary(b64variant, bytes, 0, bytes.length);
+		return bytes.length;
+	}
+
+	private static byte[] sliceOf(byte[] data, int offset, int len) {
+		if (offset == 0 && len == data.length) {
+			return data;
+		}
+		byte[] slice = new byte[len];
+		System.arraycopy(data, offset, slice, 0, len);
+		return slice;
+	}
+
+	/*
+	 * 数値・真偽値・null
+	 */
+
+	@Override
+	public void writeNumber(short s) throws IOException {
+		writeNumber((int) s);
+	}
+
+	@Override
+	public void writeNumber(int i) throws IOException {
+		_verifyValueWrite(WRITE_NUMBER);
+		if (_outputTail + 13 >= _outputEnd) {
+			_flushBuffer();
+		}
+		if (_cfgNumbersAsStrings) {
+			_outputBuffer[_outputTail++] = BYTE_QUOTE;
+			_outputTail = NumberOutput.outputInt(i, _outputBuffer, _outputTail);
+			_outputBuffer[_outputTail++] = BYTE_QUOTE;
+		} else {
+			_outputTail = NumberOutput.outputInt(i, _outputBuffer, _outputTail);
+		}
+	}
+
+	@Override
+	public void writeNumber(long l) throws IOException {
+		_verifyValueWrite(WRITE_NUMBER);
+		if (_outputTail + 23 >= _outputEnd) {
+			_flushBuffer();
+		}
+		if (_cfgNumbersAsStrings) {
+			_outputBuffer[_outputTail++] = BYTE_QUOTE;
+			_outputTail = NumberOutput.outputLong(l, _outputBuffer, _outputTail);
+			_outputBuffer[_outputTail++] = BYTE_QUOTE;
+		} else {
+			_outputTail = NumberOutput.outputLong(l, _outputBuffer, _outputTail);
+		}
+	}
+
+	@Override
+	public void writeNumber(BigInteger value) throws IOException {
+		_verifyValueWrite(WRITE_NUMBER);
+		if (value == null) {
+			_writeNull();
+		} else {
+			_writeNumberText(value.toString());
+		}
+	}
+
+	@Override
+	public void writeNumber(double d) throws IOException {
+		if (_cfgNumbersAsStrings || ((Double.isNaN(d) || Double.isInfinite(d))
+				&& Feature.QUOTE_NON_NUMERIC_NUMBERS.enabledIn(_features))) {
+			writeString(String.valueOf(d));
+			return;
+		}
+		_verifyValueWrite(WRITE_NUMBER);
+		writeRaw(String.valueOf(d));
+	}
+
+	@Override
+	public void writeNumber(float f) throws IOException {
+		if (_cfgNumbersAsStrings || ((Float.isNaN(f) || Float.isInfinite(f))
+				&& Feature.QUOTE_NON_NUMERIC_NUMBERS.enabledIn(_features))) {
+			writeString(String.valueOf(f));
+			return;
+		}
+		_verifyValueWrite(WRITE_NUMBER);
+		writeRaw(String.valueOf(f));
+	}
+
+	@Override
+	public void writeNumber(BigDecimal value) throws IOException {
+		_verifyValueWrite(WRITE_NUMBER);
+		if (value == null) {
+			_writeNull();
+		} else {
+			_writeNumberText(_asString(value));
+		}
+	}
+
+	@Override
+	public void writeNumber(String encodedValue) throws IOException {
+		_verifyValueWrite(WRITE_NUMBER);
+		_writeNumberText(encodedValue);
+	}
+
+	private void _writeNumberText(String text) throws IOException {
+		if (_cfgNumbersAsStrings) {
+			_writeByte(BYTE_QUOTE);
+			writeRaw(text);
+			_writeByte(BYTE_QUOTE);
+		} else {
+			writeRaw(text);
+		}
+	}
+
+	@Override
+	public void writeBoolean(boolean state) throws IOException {
+		_verifyValueWrite(WRITE_BOOLEAN);
+		byte[] keyword = state ? TRUE_BYTES : FALSE_BYTES;
+		_writeBytes(keyword, 0, keyword.length);
+	}
+
+	@Override
+	public void writeNull() throws IOException {
+		_verifyValueWrite(WRITE_NULL);
+		_writeNull();
+	}
+
+	private void _writeNull() throws IOException {
+		_writeBytes(NULL_BYTES, 0, NULL_BYTES.length);
+	}
+
+	/*
+	 * 出力の管理
+	 */
+
+	@Override
+	protected final void _verifyValueWrite(String typeMsg) throws IOException {
+		final int status = _writeContext.writeValue();
+		if (_cfgPrettyPrinter != null) {
+			_verifyPrettyValueWrite(typeMsg, status);
+			return;
+		}
+		switch (status) {
+		case JsonWriteContext.STATUS_OK_AFTER_COMMA:
+			_writeByte(BYTE_COMMA);
+			return;
+		case JsonWriteContext.STATUS_OK_AFTER_COLON:
+			_writeByte(BYTE_COLON);
+			return;
+		case JsonWriteContext.STATUS_OK_AFTER_SPACE:
+			if (_rootValueSeparator != null) {
+				writeRaw(_rootValueSeparator.getValue());
+			}
+			return;
+		case JsonWriteContext.STATUS_EXPECT_NAME:
+			_reportCantWriteValueExpectName(typeMsg);
+			return;
+		default:
+			return;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		_flushBuffer();
+		if (_outputStream != null && isEnabled(Feature.FLUSH_PASSED_TO_STREAM)) {
+			_outputStream.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if (_outputBuffer != null && isEnabled(Feature.AUTO_CLOSE_JSON_CONTENT)) {
+			while (true) {
+				JsonStreamContext ctxt = getOutputContext();
+				if (ctxt.inArray()) {
+					writeEndArray();
+				} else if (ctxt.inObject()) {
+					writeEndObject();
+				} else {
+					break;
+				}
+			}
+		}
+		_flushBuffer();
+		_outputTail = 0;
+		if (_outputStream != null) {
+			if (_ioContext.isResourceManaged() || isEnabled(Feature.AUTO_CLOSE_TARGET)) {
+				_outputStream.close();
+			} else if (isEnabled(Feature.FLUSH_PASSED_TO_STREAM)) {
+				_outputStream.flush();
+			}
+		}
+		_releaseBuffers();
+	}
+
+	@Override
+	protected void _releaseBuffers() {
+		byte[] buf = _outputBuffer;
+		if (buf != null && _bufferRecyclable) {
+			_outputBuffer = null;
+			_ioContext.releaseWriteEncodingBuffer(buf);
+		}
+	}
+
+	private void _writeByte(byte b) throws IOException {
+		if (_outputTail >= _outputEnd) {
+			_flushBuffer();
+		}
+		_outputBuffer[_outputTail++] = b;
+	}
+
+	private void _writeBytes(byte[] bytes, int offset, int len) throws IOException {
+		if (_outputTail + len > _outputEnd) {
+			_flushBuffer();
+			if (len > _outputEnd) {
+				_outputStream.write(bytes, offset, len);
+				return;
+			}
+		}
+		System.arraycopy(bytes, offset, _outputBuffer, _outputTail, len);
+		_outputTail += len;
+	}
+
+	protected final void _flushBuffer() throws IOException {
+		int len = _outputTail;
+		if (len > 0) {
+			_outputTail = 0;
+			_outputStream.write(_outputBuffer, 0, len);
+		}
+	}
+
+	/**
+	 * char[]をコピーせずにCharSequenceとして扱うためのラッパー
+	 */
+	private static final class CharArraySequence implements CharSequence {
+
+		private final char[] chars;
+
+		CharArraySequence(char[] chars) {
+			this.chars = chars;
+		}
+
+		@Override
+		public int length() {
+			return chars.length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return chars[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(chars, start, end - start);
+		}
+	}
+}
@@ -0,0 +1,1024 @@
+package com.example.charset;
+
+import static com.fasterxml.jackson.core.JsonTokenId.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.base.ParserBase;
+import com.fasterxml.jackson.core.io.CharTypes;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.sym.CharsToNameCanonicalizer;
+
+/**
+ *
+ * Shift_JIS / Windows-31J / EUC-JPのバイト列を、Readerを介さずに直接字句解析するJsonParserです。
+ *
+ * JSONの構造文字・数値・true/false/nullはすべてASCIIのため、バイトのまま処理し、
+ * 文字列（フィールド名と文字列値）の中身だけを{@link LegacyCharset}のデコード表で文字に変換します。
+ * Shift_JISの2バイト目には「\」(0x5C)が現れることがありますが、
+ * 先頭バイトから文字のバイト長を判定して読み進めるため、エスケープと誤認することはありません。
+ *
+ * 非ASCIIのバイトを含むフィールド名は、{@link FieldNameCanonicalizer}を渡した場合、
+ * デコードする前にバイト列のまま探し、登録されていればデコードを行いません。
+ *
+ * 対応しているのは標準的なJSONのみです。
+ * コメントやシングルクォート等の非標準の書式（JsonParser.Featureで許可するもの）は、
+ * 末尾のカンマ（ALLOW_TRAILING_COMMA）を除きエラーになります。
+ *
+ */
+public class LegacyCharsetJsonParser extends ParserBase {
+
+	private final static int FEAT_MASK_TRAILING_COMMA = Feature.ALLOW_TRAILING_COMMA.getMask();
+
+	/**
+	 * 文字列中でそのままコピーできないASCII文字（制御文字、「"」、「\」）に0以外が設定された表
+	 */
+	private final static int[] _icLatin1 = CharTypes.getInputCodeLatin1();
+
+	private final LegacyCharset _charset;
+
+	private final byte[] _sequenceLengths;
+
+	private final LegacyCharset.DecodeTables _decodeTables;
+
+	protected InputStream _inputStream;
+
+	protected byte[] _inputBuffer;
+
+	/**
+	 * _inputBufferがIOContextから借りたものであればtrue（呼び出し元から渡されたbyte[]の場合はfalse）
+	 */
+	protected boolean _bufferRecyclable;
+
+	protected ObjectCodec _objectCodec;
+
+	protected final CharsToNameCanonicalizer _symbols;
+
+	/**
+	 * 使用しない場合はnull
+	 */
+	protected final FieldNameCanonicalizer _rawNames;
+
+	/**
+	 * 現在のトークンが文字列値で、まだ中身をデコードしていない場合はtrue
+	 */
+	protected boolean _tokenIncomplete;
+
+	protected char[] _nameBuffer = new char[64];
+
+	protected long _nameStartOffset;
+
+	protected int _nameStartRow;
+
+	protected int _nameStartCol;
+
+	public LegacyCharsetJsonParser(IOContext ctxt, int features, InputStream in, ObjectCodec codec,
+			CharsToNameCanonicalizer symbols, LegacyCharset charset) {
+		this(ctxt, features, in, codec, symbols, null, charset, ctxt.allocReadIOBuffer(), 0, 0, true);
+	}
+
+	public LegacyCharsetJsonParser(IOContext ctxt, int features, InputStream in, ObjectCodec codec,
+			CharsToNameCanonicalizer symbols, LegacyCharset charset, byte[] inputBuffer, int start, int end,
+			boolean bufferRecyclable) {
+		this(ctxt, features, in, codec, symbols, null, charset, inputBuffer, start, end, bufferRecyclable);
+	}
+
+	/**
+	 * @param rawNames フィールド名のバイト列のキャッシュ（charsetのバイト列を登録するもの）。使用しない場合はnull
+	 */
+	public LegacyCharsetJsonParser(IOContext ctxt, int features, InputStream in, ObjectCodec codec,
+			CharsToNameCanonicalizer symbols, FieldNameCanonicalizer rawNames, LegacyCharset charset,
+			byte[] inputBuffer, int start, int end, boolean bufferRecyclable) {
+		super(ctxt, features);
+		_inputStream = in;
+		_objectCodec = codec;
+		_symbols = symbols;
+		_rawNames = rawNames;
+		_charset = charset;
+		_sequenceLengths = charset.sequenceLengths();
+		_decodeTables = charset.decodeTables();
+		_inputBuffer = inputBuffer;
+		_inputPtr = start;
+		_inputEnd = end;
+		_currInputRowStart = start;
+		_currInputProcessed = -start;
+		_bufferRecyclable = bufferRecyclable;
+	}
+
+	public LegacyCharset getLegacyCharset() {
+		return _charset;
+	}
+
+	@Override
+	public ObjectCodec getCodec() {
+		return _objectCodec;
+	}
+
+	@Override
+	public void setCodec(ObjectCodec c) {
+		_objectCodec = c;
+	}
+
+	@Override
+	public int releaseBuffered(OutputStream out) throws IOException {
+		int count = _inputEnd - _inputPtr;
+		if (count < 1) {
+			return 0;
+		}
+		out.write(_inputBuffer, _inputPtr, count);
+		return count;
+	}
+
+	@Override
+	public Object getInputSource() {
+		return _inputStream;
+	}
+
+	/*
+	 * 入力バッファの管理
+	 */
+
+	protected final boolean _loadMore() throws IOException {
+		final int bufSize = _inputEnd;
+		_currInputProcessed += bufSize;
+		_currInputRowStart -= bufSize;
+		_nameStartOffset -= bufSize;
+
+		if (_inputStream != null) {
+			int space = _inputBuffer.length;
+			if (space == 0) {
+				return false;
+			}
+			int count = _inputStream.read(_inputBuffer, 0, space);
+			if (count > 0) {
+				_inputPtr = 0;
+				_inputEnd = count;
+				return true;
+			}
+			_closeInput();
+			if (count == 0) {
+				throw new IOException("InputStream.read() returned 0 characters when trying to read "
+						+ _inputBuffer.length + " bytes");
+			}
+		}
+		// 呼び出し元から渡されたbyte[]の場合、次のバッファはない
+		_inputPtr = _inputEnd = 0;
+		return false;
+	}
+
+	protected final void _loadMoreGuaranteed() throws IOException {
+		if (!_loadMore()) {
+			_reportInvalidEOF();
+		}
+	}
+
+	private int _nextByte(JsonToken forToken) throws IOException {
+		if (_inputPtr >= _inputEnd) {
+			if (!_loadMore()) {
+				_reportInvalidEOF(" in " + forToken, forToken);
+			}
+		}
+		return _inputBuffer[_inputPtr++] & 0xFF;
+	}
+
+	@Override
+	protected void _closeInput() throws IOException {
+		if (_inputStream != null) {
+			if (_ioContext.isResourceManaged() || isEnabled(Feature.AUTO_CLOSE_SOURCE)) {
+				_inputStream.close();
+			}
+			_inputStream = null;
+		}
+	}
+
+	@Override
+	protected void _releaseBuffers() throws IOException {
+		super._releaseBuffers();
+		_symbols.release();
+		if (_bufferRecyclable) {
+			byte[] buf = _inputBuffer;
+			if (buf != null) {
+				// 以降のloadMore()で読み込みが行われないよう、空の配列にしておきます
+				_inputBuffer = new byte[0];
+				_ioContext.releaseReadIOBuffer(buf);
+			}
+		}
+	}
+
+	/*
+	 * テキストへのアクセス
+	 */
+
+	@Override
+	public String getText() throws IOException {
+		JsonToken t = _currToken;
+		if (t == JsonToken.VALUE_STRING) {
+			finishToken();
+			return _textBuffer.contentsAsString();
+		}
+		if (t == null) {
+			return null;
+		}
+		switch (t.id()) {
+		case ID_FIELD_NAME:
+			return _parsingContext.getCurrentName();
+		case ID_NUMBER_INT:
+		case ID_NUMBER_FLOAT:
+			return _textBuffer.contentsAsString();
+		default:
+			return t.asString();
+		}
+	}
+
+	@Override
+	public String getValueAsString() throws IOException {
+		if (_currToken == JsonToken.VALUE_STRING) {
+			finishToken();
+			return _textBuffer.contentsAsString();
+		}
+		if (_currToken == JsonToken.FIELD_NAME) {
+			return getCurrentName();
+		}
+		return super.getValueAsString(null);
+	}
+
+	@Override
+	public String getValueAsString(String defValue) throws IOException {
+		if (_currToken == JsonToken.VALUE_STRING) {
+			finishToken();
+			return _textBuffer.contentsAsString();
+		}
+		if (_currToken == JsonToken.FIELD_NAME) {
+			return getCurrentName();
+		}
+		return super.getValueAsString(defValue);
+	}
+
+	@Override
+	public char[] getTextCharacters() throws IOException {
+		if (_currToken == null) {
+			return null;
+		}
+		switch (_currToken.id()) {
+		case ID_FIELD_NAME:
+			if (!_nameCopied) {
+				String name = _parsingContext.getCurrentName();
+				int nameLen = name.length();
+				if (_nameCopyBuffer == null) {
+					_nameCopyBuffer = _ioContext.allocNameCopyBuffer(nameLen);
+				} else if (_nameCopyBuffer.length < nameLen) {
+					_nameCopyBuffer = new char[nameLen];
+				}
+				name.getChars(0, nameLen, _nameCopyBuffer, 0);
+				_nameCopied = true;
+			}
+			return _nameCopyBuffer;
+		case ID_STRING:
+			finishToken();
+			// fall through
+		case ID_NUMBER_INT:
+		case ID_NUMBER_FLOAT:
+			return _textBuffer.getTextBuffer();
+		default:
+			return _currToken.asCharArray();
+		}
+	}
+
+	@Override
+	public int getTextLength() throws IOException {
+		if (_currToken == null) {
+			return 0;
+		}
+		switch (_currToken.id()) {
+		case ID_FIELD_NAME:
+			return _parsingContext.getCurrentName().length();
+		case ID_STRING:
+			finishToken();
+			// fall through
+		case ID_NUMBER_INT:
+		case ID_NUMBER_FLOAT:
+			return _textBuffer.size();
+		default:
+			return _currToken.asCharArray().length;
+		}
+	}
+
+	@Override
+	public int getTextOffset() throws IOException {
+		if (_currToken == null) {
+			return 0;
+		}
+		switch (_currToken.id()) {
+		case ID_STRING:
+			finishToken();
+			// fall through
+		case ID_NUMBER_INT:
+		case ID_NUMBER_FLOAT:
+			return _textBuffer.getTextOffset();
+		default:
+			return 0;
+		}
+	}
+
+	@Override
+	public void finishToken() throws IOException {
+		if (_tokenIncomplete) {
+			_tokenIncomplete = false;
+			_finishString();
+		}
+	}
+
+	/*
+	 * トークンの読み進め
+	 */
+
+	@Override
+	public JsonToken nextToken() throws IOException {
+		if (_currToken == JsonToken.FIELD_NAME) {
+			return _nextAfterName();
+		}
+		_numTypesValid = NR_UNKNOWN;
+		if (_tokenIncomplete) {
+			_skipString();
+		}
+		int i = _skipWSOrEnd();
+		if (i < 0) {
+			close();
+			return (_currToken = null);
+		}
+		_binaryValue = null;
+
+		if (i == INT_RBRACKET || i == INT_RCURLY) {
+			_closeScope(i);
+			return _currToken;
+		}
+		if (_parsingContext.expectComma()) {
+			if (i != INT_COMMA) {
+				_reportUnexpectedChar(i, "was expecting comma to separate " + _parsingContext.typeDesc() + " entries");
+			}
+			i = _skipWS();
+			if ((_features & FEAT_MASK_TRAILING_COMMA) != 0) {
+				if (i == INT_RBRACKET || i == INT_RCURLY) {
+					_closeScope(i);
+					return _currToken;
+				}
+			}
+		}
+
+		boolean inObject = _parsingContext.inObject();
+		if (inObject) {
+			_updateNameLocation();
+			if (i != INT_QUOTE) {
+				_reportUnexpectedChar(i, "was expecting double-quote to start field name");
+			}
+			_parsingContext.setCurrentName(_parseName());
+			_currToken = JsonToken.FIELD_NAME;
+			i = _skipWS();
+			if (i != INT_COLON) {
+				_reportUnexpectedChar(i, "was expecting a colon to separate field name and value");
+			}
+			i = _skipWS();
+		}
+		_updateLocation();
+
+		JsonToken t;
+		switch (i) {
+		case '"':
+			_tokenIncomplete = true;
+			t = JsonToken.VALUE_STRING;
+			break;
+		case '[':
+			if (!inObject) {
+				_parsingContext = _parsingContext.createChildArrayContext(_tokenInputRow, _tokenInputCol);
+			}
+			t = JsonToken.START_ARRAY;
+			break;
+		case '{':
+			if (!inObject) {
+				_parsingContext = _parsingContext.createChildObjectContext(_tokenInputRow, _tokenInputCol);
+			}
+			t = JsonToken.START_OBJECT;
+			break;
+		case 't':
+			_matchToken("true");
+			t = JsonToken.VALUE_TRUE;
+			break;
+		case 'f':
+			_matchToken("false");
+			t = JsonToken.VALUE_FALSE;
+			break;
+		case 'n':
+			_matchToken("null");
+			t = JsonToken.VALUE_NULL;
+			break;
+		case '-':
+		case '0':
+		case '1':
+		case '2':
+		case '3':
+		case '4':
+		case '5':
+		case '6':
+		case '7':
+		case '8':
+		case '9':
+			t = _parseNumber(i);
+			break;
+		default:
+			_reportUnexpectedChar(i, "expected a valid value (number, String, array, object, 'true', 'false' or 'null')");
+			return null;
+		}
+
+		if (inObject) {
+			_nextToken = t;
+			return _currToken;
+		}
+		_currToken = t;
+		return t;
+	}
+
+	private JsonToken _nextAfterName() {
+		_nameCopied = false;
+		JsonToken t = _nextToken;
+		_nextToken = null;
+		if (t == JsonToken.START_ARRAY) {
+			_parsingContext = _parsingContext.createChildArrayContext(_tokenInputRow, _tokenInputCol);
+		} else if (t == JsonToken.START_OBJECT) {
+			_parsingContext = _parsingContext.createChildObjectContext(_tokenInputRow, _tokenInputCol);
+		}
+		return (_currToken = t);
+	}
+
+	private void _closeScope(int i) throws IOException {
+		_updateLocation();
+		if (i == INT_RBRACKET) {
+			if (!_parsingContext.inArray()) {
+				_reportMismatchedEndMarker(i, '}');
+			}
+			_parsingContext = _parsingContext.clearAndGetParent();
+			_currToken = JsonToken.END_ARRAY;
+		} else {
+			if (!_parsingContext.inObject()) {
+				_reportMismatchedEndMarker(i, ']');
+			}
+			_parsingContext = _parsingContext.clearAndGetParent();
+			_currToken = JsonToken.END_OBJECT;
+		}
+	}
+
+	/*
+	 * 空白の読み飛ばし
+	 */
+
+	private int _skipWSOrEnd() throws IOException {
+		while (true) {
+			if (_inputPtr >= _inputEnd) {
+				if (!_loadMore()) {
+					return _eofAsNextChar();
+				}
+			}
+			int i = _inputBuffer[_inputPtr++] & 0xFF;
+			if (i > INT_SPACE) {
+				return i;
+			}
+			_skipSpace(i);
+		}
+	}
+
+	private int _skipWS() throws IOException {
+		while (true) {
+			if (_inputPtr >= _inputEnd) {
+				if (!_loadMore()) {
+					throw _constructError(
+							"Unexpected end-of-input within/between " + _parsingContext.typeDesc() + " entries");
+				}
+			}
+			int i = _inputBuffer[_inputPtr++] & 0xFF;
+			if (i > INT_SPACE) {
+				return i;
+			}
+			_skipSpace(i);
+		}
+	}
+
+	private void _skipSpace(int i) throws IOException {
+		if (i == INT_SPACE || i == INT_TAB) {
+			return;
+		}
+		if (i == INT_LF) {
+			++_currInputRow;
+			_currInputRowStart = _inputPtr;
+		} else if (i == INT_CR) {
+			if (_inputPtr < _inputEnd || _loadMore()) {
+				if (_inputBuffer[_inputPtr] == INT_LF) {
+					++_inputPtr;
+				}
+			}
+			++_currInputRow;
+			_currInputRowStart = _inputPtr;
+		} else {
+			_throwInvalidSpace(i);
+		}
+	}
+
+	/*
+	 * 文字列
+	 */
+
+	/**
+	 * フィールド名を読み込み、CharsToNameCanonicalizerで正規化したStringを返します
+	 */
+	protected String _parseName() throws IOException {
+		// よくある「バッファ内に収まっていて、エスケープを含まないASCIIのみの名前」は、
+		// 入力バッファから直接ハッシュ値を計算して正規化します
+		final int[] codes = _icLatin1;
+		final byte[] inBuf = _inputBuffer;
+		char[] outBuf = _nameBuffer;
+		int ptr = _inputPtr;
+		int outPtr = 0;
+		int hash = _symbols.hashSeed();
+		while (ptr < _inputEnd && outPtr < outBuf.length) {
+			int c = inBuf[ptr];
+			if (c < 0 || codes[c] != 0) {
+				if (c == INT_QUOTE) {
+					_inputPtr = ptr + 1;
+					return _symbols.findSymbol(outBuf, 0, outPtr, (hash == 0) ? 1 : hash);
+				}
+				if (c < 0 && _rawNames != null) {
+					return _parseRawName();
+				}
+				break;
+			}
+			outBuf[outPtr++] = (char) c;
+			hash = (hash * CharsToNameCanonicalizer.HASH_MULT) + c;
+			++ptr;
+		}
+		return _parseName2();
+	}
+
+	/**
+	 * 非ASCIIを含む名前を、デコードする前にバイト列のまま{@link FieldNameCanonicalizer}から探します。
+	 * 登録されていなければデコードして登録します。
+	 * 名前がバッファ内に収まっていない、またはエスケープを含む場合は、キャッシュを使用せずにデコードします
+	 */
+	private String _parseRawName() throws IOException {
+		final int[] codes = _icLatin1;
+		final byte[] lengths = _sequenceLengths;
+		final char[] pair = _decodeTables.pair;
+		final byte[] inBuf = _inputBuffer;
+		final int start = _inputPtr;
+		final int end = Math.min(_inputEnd, start + FieldNameCanonicalizer.MAX_NAME_BYTES);
+		int ptr = start;
+		int hash = 0;
+		while (ptr < end) {
+			int c = inBuf[ptr] & 0xFF;
+			if (c < 0x80) {
+				if (codes[c] != 0) {
+					if (c == INT_QUOTE) {
+						break;
+					}
+					return _parseName2();
+				}
+				hash = hash * 31 + c;
+				++ptr;
+				continue;
+			}
+			// デコード時と同じ区切りで読み進めます。置換文字になるバイト列はキャッシュを使用しません
+			switch (lengths[c]) {
+			case 2: {
+				if (ptr + 1 >= end) {
+					return _parseName2();
+				}
+				int trail = inBuf[ptr + 1] & 0xFF;
+				if (pair[(c << 8) | trail] == LegacyCharset.REPROCESS) {
+					return _parseName2();
+				}
+				hash = (hash * 31 + c) * 31 + trail;
+				ptr += 2;
+				break;
+			}
+			case 3: {
+				if (ptr + 2 >= end) {
+					return _parseName2();
+				}
+				int second = inBuf[ptr + 1] & 0xFF;
+				int third = inBuf[ptr + 2] & 0xFF;
+				if (second < 0xA1 || second > 0xFE || third < 0xA1 || third > 0xFE) {
+					return _parseName2();
+				}
+				hash = ((hash * 31 + c) * 31 + second) * 31 + third;
+				ptr += 3;
+				break;
+			}
+			default:
+				hash = hash * 31 + c;
+				++ptr;
+			}
+		}
+		if (ptr >= end) {
+			return _parseName2();
+		}
+		final int len = ptr - start;
+		String name = _rawNames.find(inBuf, start, len, hash);
+		if (name != null) {
+			_inputPtr = ptr + 1;
+			return name;
+		}
+		// 終わりの「"」までバッファ内にあるため、デコード中にバッファは読み直されません
+		name = _parseName2();
+		_rawNames.put(inBuf, start, len, hash, name);
+		return name;
+	}
+
+	private String _parseName2() throws IOException {
+		char[] outBuf = _nameBuffer;
+		int outPtr = 0;
+		final int[] codes = _icLatin1;
+		while (true) {
+			if (_inputPtr >= _inputEnd) {
+				_loadMoreGuaranteed();
+			}
+			int c = _inputBuffer[_inputPtr++] & 0xFF;
+			if (c < 0x80) {
+				if (codes[c] != 0) {
+					if (c == INT_QUOTE) {
+						break;
+					}
+					if (c == INT_BACKSLASH) {
+						c = _decodeEscaped();
+					} else {
+						_throwUnquotedSpace(c, "name");
+					}
+				}
+			} else {
+				c = _decodeMultiByte(c, JsonToken.FIELD_NAME);
+			}
+			if (outPtr >= outBuf.length) {
+				_nameBuffer = outBuf = Arrays.copyOf(outBuf, outBuf.length * 2);
+			}
+			outBuf[outPtr++] = (char) c;
+		}
+		return _symbols.findSymbol(outBuf, 0, outPtr, _symbols.calcHash(outBuf, 0, outPtr));
+	}
+
+	@Override
+	protected void _finishString() throws IOException {
+		char[] outBuf = _textBuffer.emptyAndGetCurrentSegment();
+		int outPtr = 0;
+		final int[] codes = _icLatin1;
+		final byte[] lengths = _sequenceLengths;
+		final char[] single = _decodeTables.single;
+		final char[] pair = _decodeTables.pair;
+
+		while (true) {
+			// バッファ内に収まっている文字は、境界やエスケープの判定をまとめて行いながらコピーします
+			final byte[] inBuf = _inputBuffer;
+			final int end = _inputEnd;
+			final int outEnd = outBuf.length;
+			int ptr = _inputPtr;
+			while (ptr < end && outPtr < outEnd) {
+				int c = inBuf[ptr] & 0xFF;
+				if (c < 0x80) {
+					if (codes[c] != 0) {
+						break;
+					}
+					outBuf[outPtr++] = (char) c;
+					++ptr;
+				} else if (lengths[c] == 2 && ptr + 1 < end) {
+					char ch = pair[(c << 8) | (inBuf[ptr + 1] & 0xFF)];
+					if (ch == LegacyCharset.REPROCESS) {
+						outBuf[outPtr++] = LegacyCharset.REPLACEMENT;
+						++ptr;
+					} else {
+						outBuf[outPtr++] = ch;
+						ptr += 2;
+					}
+				} else if (lengths[c] == 1) {
+					outBuf[outPtr++] = single[c];
+					++ptr;
+				} else {
+					break;
+				}
+			}
+			_inputPtr = ptr;
+			if (outPtr >= outEnd) {
+				outBuf = _textBuffer.finishCurrentSegment();
+				outPtr = 0;
+				continue;
+			}
+			if (_inputPtr >= _inputEnd) {
+				_loadMoreGuaranteed();
+				continue;
+			}
+			// 以下は、エスケープ・文字列の終わり・バッファの境界をまたぐ文字の場合
+			int c = _inputBuffer[_inputPtr++] & 0xFF;
+			if (c < 0x80) {
+				if (c == INT_QUOTE) {
+					break;
+				}
+				if (c == INT_BACKSLASH) {
+					c = _decodeEscaped();
+				} else {
+					_throwUnquotedSpace(c, "string value");
+				}
+			} else {
+				c = _decodeMultiByte(c, JsonToken.VALUE_STRING);
+			}
+			outBuf[outPtr++] = (char) c;
+		}
+		_textBuffer.setCurrentLength(outPtr);
+	}
+
+	protected void _skipString() throws IOException {
+		_tokenIncomplete = false;
+		while (true) {
+			if (_inputPtr >= _inputEnd) {
+				_loadMoreGuaranteed();
+			}
+			int c = _inputBuffer[_inputPtr++] & 0xFF;
+			if (c < 0x80) {
+				if (c == INT_QUOTE) {
+					return;
+				}
+				if (c == INT_BACKSLASH) {
+					_decodeEscaped();
+				} else if (c < INT_SPACE) {
+					_throwUnquotedSpace(c, "string value");
+				}
+			} else {
+				_decodeMultiByte(c, JsonToken.VALUE_STRING);
+			}
+		}
+	}
+
+	/**
+	 * 非ASCIIの先頭バイトに続くバイトを読み込み、1文字にデコードします。
+	 * 不正なバイト列はInputStreamReaderと同様に置換文字（U+FFFD）になります。
+	 */
+	private int _decodeMultiByte(int lead, JsonToken forToken) throws IOException {
+		switch (_sequenceLengths[lead]) {
+		case 1:
+			return _decodeTables.single[lead];
+		case 2: {
+			int trail = _nextByte(forToken);
+			char c = _decodeTables.pair[(lead << 8) | trail];
+			if (c == LegacyCharset.REPROCESS) {
+				--_inputPtr;
+				return LegacyCharset.REPLACEMENT;
+			}
+			return c;
+		}
+		case 3: {
+			int second = _nextByte(forToken);
+			if (second < 0xA1 || second > 0xFE) {
+				--_inputPtr;
+				return LegacyCharset.REPLACEMENT;
+			}
+			int third = _nextByte(forToken);
+			if (third < 0xA1 || third > 0xFE) {
+				--_inputPtr;
+				return LegacyCharset.REPLACEMENT;
+			}
+			char c = _decodeTables.triple[(second << 8) | third];
+			return (c == LegacyCharset.REPROCESS) ? LegacyCharset.REPLACEMENT : c;
+		}
+		default:
+			return LegacyCharset.REPLACEMENT;
+		}
+	}
+
+	@Override
+	protected char _decodeEscaped() throws IOException {
+		int c = _nextByte(JsonToken.VALUE_STRING);
+		switch (c) {
+		case 'b':
+			return '\b';
+		case 't':
+			return '\t';
+		case 'n':
+			return '\n';
+		case 'f':
+			return '\f';
+		case 'r':
+			return '\r';
+		case '"':
+		case '/':
+		case '\\':
+			return (char) c;
+		case 'u':
+			break;
+		default:
+			return _handleUnrecognizedCharacterEscape((char) c);
+		}
+		int value = 0;
+		for (int i = 0; i < 4; ++i) {
+			int ch = _nextByte(JsonToken.VALUE_STRING);
+			int digit = CharTypes.charToHex(ch);
+			if (digit < 0) {
+				_reportUnexpectedChar(ch, "expected a hex-digit for character escape sequence");
+			}
+			value = (value << 4) | digit;
+		}
+		return (char) value;
+	}
+
+	/*
+	 * 数値・リテラル
+	 */
+
+	private JsonToken _parseNumber(int c) throws IOException {
+		char[] outBuf = _textBuffer.emptyAndGetCurrentSegment();
+		int outPtr = 0;
+		boolean negative = (c == '-');
+		if (negative) {
+			outBuf[outPtr++] = '-';
+			c = _nextByte(JsonToken.VALUE_NUMBER_INT);
+			if (c < '0' || c > '9') {
+				reportUnexpectedNumberChar(c, "expected digit (0-9) to follow minus sign, for valid numeric value");
+			}
+		}
+		boolean eof = false;
+
+		int intLen = 0;
+		while (true) {
+			++intLen;
+			if (outPtr >= outBuf.length) {
+				outBuf = _textBuffer.finishCurrentSegment();
+				outPtr = 0;
+			}
+			outBuf[outPtr++] = (char) c;
+			if (_inputPtr >= _inputEnd && !_loadMore()) {
+				eof = true;
+				break;
+			}
+			int next = _inputBuffer[_inputPtr++] & 0xFF;
+			if (next < '0' || next > '9') {
+				c = next;
+				break;
+			}
+			if (intLen == 1 && outBuf[outPtr - 1] == '0' && !isEnabled(Feature.ALLOW_NUMERIC_LEADING_ZEROS)) {
+				reportInvalidNumber("Leading zeroes not allowed");
+			}
+			c = next;
+		}
+
+		int fractLen = 0;
+		if (!eof && c == '.') {
+			if (outPtr >= outBuf.length) {
+				outBuf = _textBuffer.finishCurrentSegment();
+				outPtr = 0;
+			}
+			outBuf[outPtr++] = '.';
+			while (true) {
+				if (_inputPtr >= _inputEnd && !_loadMore()) {
+					eof = true;
+					break;
+				}
+				c = _inputBuffer[_inputPtr++] & 0xFF;
+				if (c < '0' || c > '9') {
+					break;
+				}
+				++fractLen;
+				if (outPtr >= outBuf.length) {
+					outBuf = _textBuffer.finishCurrentSegment();
+					outPtr = 0;
+				}
+				outBuf[outPtr++] = (char) c;
+			}
+			if (fractLen == 0) {
+				reportUnexpectedNumberChar(c, "Decimal point not followed by a digit");
+			}
+		}
+
+		int expLen = 0;
+		if (!eof && (c == 'e' || c == 'E')) {
+			if (outPtr >= outBuf.length) {
+				outBuf = _textBuffer.finishCurrentSegment();
+				outPtr = 0;
+			}
+			outBuf[outPtr++] = (char) c;
+			c = _nextByte(JsonToken.VALUE_NUMBER_FLOAT);
+			if (c == '-' || c == '+') {
+				if (outPtr >= outBuf.length) {
+					outBuf = _textBuffer.finishCurrentSegment();
+					outPtr = 0;
+				}
+				outBuf[outPtr++] = (char) c;
+				c = _nextByte(JsonToken.VALUE_NUMBER_FLOAT);
+			}
+			while (c >= '0' && c <= '9') {
+				++expLen;
+				if (outPtr >= outBuf.length) {
+					outBuf = _textBuffer.finishCurrentSegment();
+					outPtr = 0;
+				}
+				outBuf[outPtr++] = (char) c;
+				if (_inputPtr >= _inputEnd && !_loadMore()) {
+					eof = true;
+					break;
+				}
+				c = _inputBuffer[_inputPtr++] & 0xFF;
+			}
+			if (expLen == 0) {
+				reportUnexpectedNumberChar(c, "Exponent indicator not followed by a digit");
+			}
+		}
+
+		if (!eof) {
+			// 数値の直後の文字は次のトークンの一部なので戻します
+			--_inputPtr;
+			if (_parsingContext.inRoot()) {
+				_verifyRootSpace(c);
+			}
+		}
+		_textBuffer.setCurrentLength(outPtr);
+		return reset(negative, intLen, fractLen, expLen);
+	}
+
+	private void _verifyRootSpace(int ch) throws IOException {
+		++_inputPtr;
+		switch (ch) {
+		case ' ':
+		case '\t':
+			return;
+		case '\r':
+		case '\n':
+			_skipSpace(ch);
+			return;
+		}
+		_reportMissingRootWS(ch);
+	}
+
+	private void _matchToken(String matchStr) throws IOException {
+		final int len = matchStr.length();
+		for (int i = 1; i < len; ++i) {
+			if ((_inputPtr >= _inputEnd && !_loadMore()) || _inputBuffer[_inputPtr] != matchStr.charAt(i)) {
+				_reportInvalidToken(matchStr.substring(0, i));
+			}
+			++_inputPtr;
+		}
+		if (_inputPtr >= _inputEnd && !_loadMore()) {
+			return;
+		}
+		int ch = _inputBuffer[_inputPtr] & 0xFF;
+		if (ch >= '0' && ch != ']' && ch != '}' && ch < 0x80 && Character.isJavaIdentifierPart((char) ch)) {
+			_reportInvalidToken(matchStr);
+		}
+	}
+
+	private void _reportInvalidToken(String matchedPart) throws IOException {
+		StringBuilder sb = new StringBuilder(matchedPart);
+		while (_inputPtr < _inputEnd || _loadMore()) {
+			int c = _inputBuffer[_inputPtr] & 0xFF;
+			if (c >= 0x80 || !Character.isJavaIdentifierPart((char) c)) {
+				break;
+			}
+			++_inputPtr;
+			sb.append((char) c);
+			if (sb.length() >= MAX_ERROR_TOKEN_LENGTH) {
+				sb.append("...");
+				break;
+			}
+		}
+		_reportError("Unrecognized token '%s': was expecting %s", sb, "'null', 'true' or 'false'");
+	}
+
+	/*
+	 * 位置情報（バイト単位）
+	 */
+
+	@Override
+	public JsonLocation getTokenLocation() {
+		if (_currToken == JsonToken.FIELD_NAME) {
+			long total = _currInputProcessed + (_nameStartOffset - 1);
+			return new JsonLocation(_getSourceReference(), total, -1L, _nameStartRow, _nameStartCol);
+		}
+		return new JsonLocation(_getSourceReference(), _tokenInputTotal - 1, -1L, _tokenInputRow, _tokenInputCol);
+	}
+
+	@Override
+	public JsonLocation getCurrentLocation() {
+		int col = _inputPtr - _currInputRowStart + 1;
+		return new JsonLocation(_getSourceReference(), _currInputProcessed + _inputPtr, -1L, _currInputRow, col);
+	}
+
+	private void _updateLocation() {
+		int ptr = _inputPtr;
+		_tokenInputTotal = _currInputProcessed + ptr;
+		_tokenInputRow = _currInputRow;
+		_tokenInputCol = ptr - _currInputRowStart;
+	}
+
+	private void _updateNameLocation() {
+		int ptr = _inputPtr;
+		_nameStartOffset = ptr;
+		_nameStartRow = _currInputRow;
+		_nameStartCol = ptr - _currInputRowStart;
+	}
+}
@@ -0,0 +1,42 @@
+package com.example.charset;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ *
+ * エンコード済みのバイト列を保持するフィールド名です。
+ * SerializedStringと同じくUTF-8（UTF8JsonGenerator）・char[]（WriterBasedJsonGenerator）の結果を保持し、
+ * さらに{@link LegacyCharsetJsonGenerator}で書き出した時の「"」で囲んだバイト列を、LegacyCharsetごとに保持します。
+ *
+ * 使用例:
+ * static final PreEncodedName NAME = new PreEncodedName("name");
+ * gen.writeFieldName(NAME);
+ *
+ * 名前ごとに1つ作成し、定数等で共有します（スレッドセーフです）。
+ * FieldNameCacheと異なり、書き出すたびの検索を行いません。
+ *
+ */
+public class PreEncodedName extends SerializedString {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient AtomicReferenceArray<byte[]> legacyQuoted = new AtomicReferenceArray<>(
+			LegacyCharset.values().length);
+
+	public PreEncodedName(String name) {
+		super(name);
+	}
+
+	/**
+	 * @return まだエンコードしていない場合はnull
+	 */
+	byte[] legacyQuoted(LegacyCharset charset) {
+		return legacyQuoted.get(charset.ordinal());
+	}
+
+	void setLegacyQuoted(LegacyCharset charset, byte[] quoted) {
+		legacyQuoted.set(charset.ordinal(), quoted);
+	}
+}
@@ -0,0 +1,282 @@
+package com.example.charset;
+
+import java.io.CharConversionException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+
+/**
+ *
+ * UTF-16 / UTF-32のバイト列を、まとめてUTF-8に変換します。
+ * UTF-16 / UTF-32のJSONを、文字単位のパーサー（ReaderBasedJsonParser）ではなく、バイト単位のUTF8StreamJsonParserで読み込むために使用します。
+ *
+ * 使用例:
+ * byte[] utf8 = UnicodeTranscoder.toUtf8(JsonEncoding.UTF16_LE, body, 0, body.length);
+ *
+ * ASCIIの部分は8バイトずつlongとして読み込み、すべてASCIIであればまとめて書き出します（SWAR）。
+ * それ以外の文字は1文字ずつ変換します。サロゲートペアはUTF-8の4バイトになります。
+ *
+ * 不正なバイト列は、Jacksonの標準の読み込みと同じ結果になるように扱います。
+ * UTF-16（InputStreamReader）: 対になっていないサロゲート・末尾の1バイトはU+FFFDにします
+ *   （上位サロゲートの後に下位サロゲート以外が続いた場合は、その2単位で1つのU+FFFDです）
+ * UTF-32（UTF32Reader）: 0x10FFFFを超える値・末尾の不完全な文字はCharConversionExceptionをスローします
+ *
+ * 1つのインスタンスは、1つの入力の変換に使用します（スレッドセーフではありません）。
+ *
+ */
+public final class UnicodeTranscoder {
+
+	private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * 1文字の最大のバイト数。書き出し先の残りがこれより少なくなると止まります
+	 */
+	public static final int MAX_CHAR_BYTES = 4;
+
+	private final JsonEncoding encoding;
+
+	private final boolean bigEndian;
+
+	private int srcPosition;
+
+	private int dstPosition;
+
+	/**
+	 * これまでの呼び出しで読み込んだバイト数（エラーメッセージの位置に使用します）
+	 */
+	private long processed;
+
+	/**
+	 * @param encoding UTF16_BE / UTF16_LE / UTF32_BE / UTF32_LE
+	 */
+	public UnicodeTranscoder(JsonEncoding encoding) {
+		if (encoding == JsonEncoding.UTF8) {
+			throw new IllegalArgumentException("Not a UTF-16 / UTF-32 encoding: " + encoding);
+		}
+		this.encoding = encoding;
+		this.bigEndian = encoding.isBigEndian();
+	}
+
+	public JsonEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * @return 変換後のUTF-8の最大のバイト数（UTF-16は1単位（2バイト）が最大3バイト、UTF-32は4バイトが最大4バイト）
+	 */
+	public static int maxUtf8Length(JsonEncoding encoding, int len) {
+		return (encoding.bits() == 16) ? (len / 2 + 1) * 3 : len;
+	}
+
+	/**
+	 * 全体をUTF-8に変換します
+	 */
+	public static byte[] toUtf8(JsonEncoding encoding, byte[] src, int off, int len) throws CharConversionException {
+		byte[] dst = new byte[maxUtf8Length(encoding, len)];
+		UnicodeTranscoder transcoder = new UnicodeTranscoder(encoding);
+		transcoder.transcode(src, off, off + len, dst, 0, dst.length, true);
+		return Arrays.copyOf(dst, transcoder.dstPosition());
+	}
+
+	/**
+	 * @return 先頭のBOMのバイト数（BOMがない場合は0）
+	 */
+	public static int bomLength(JsonEncoding encoding, byte[] buf, int off, int len) {
+		switch (encoding) {
+		case UTF8:
+			return (len >= 3 && (buf[off] & 0xFF) == 0xEF && (buf[off + 1] & 0xFF) == 0xBB
+					&& (buf[off + 2] & 0xFF) == 0xBF) ? 3 : 0;
+		case UTF16_BE:
+			return (len >= 2 && (buf[off] & 0xFF) == 0xFE && (buf[off + 1] & 0xFF) == 0xFF) ? 2 : 0;
+		case UTF16_LE:
+			return (len >= 2 && (buf[off] & 0xFF) == 0xFF && (buf[off + 1] & 0xFF) == 0xFE) ? 2 : 0;
+		case UTF32_BE:
+			return (len >= 4 && buf[off] == 0 && buf[off + 1] == 0 && (buf[off + 2] & 0xFF) == 0xFE
+					&& (buf[off + 3] & 0xFF) == 0xFF) ? 4 : 0;
+		case UTF32_LE:
+			return (len >= 4 && (buf[off] & 0xFF) == 0xFF && (buf[off + 1] & 0xFF) == 0xFE && buf[off + 2] == 0
+					&& buf[off + 3] == 0) ? 4 : 0;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * src[srcPos, srcEnd)を変換し、dst[dstPos, dstEnd)に書き出します。
+	 * srcの残りが1文字分に満たなくなるか、dstの残りが{@link #MAX_CHAR_BYTES}未満になった所で止まります。
+	 * 止まった位置は{@link #srcPosition()} / {@link #dstPosition()}で取得します。
+	 *
+	 * @param endOfInput srcEndが入力の終わりの場合はtrue。falseの場合、末尾の不完全な文字・上位サロゲートは読み込まずに残します
+	 */
+	public void transcode(byte[] src, int srcPos, int srcEnd, byte[] dst, int dstPos, int dstEnd,
+			boolean endOfInput) throws CharConversionException {
+		if (encoding.bits() == 16) {
+			transcode16(src, srcPos, srcEnd, dst, dstPos, dstEnd, endOfInput);
+		} else {
+			transcode32(src, srcPos, srcEnd, dst, dstPos, dstEnd, endOfInput);
+		}
+		processed += srcPosition - srcPos;
+	}
+
+	/**
+	 * @return 次に読み込むsrcの位置
+	 */
+	public int srcPosition() {
+		return srcPosition;
+	}
+
+	/**
+	 * @return 次に書き出すdstの位置
+	 */
+	public int dstPosition() {
+		return dstPosition;
+	}
+
+	private void transcode16(byte[] src, int sp, int se, byte[] dst, int dp, int de, boolean endOfInput) {
+		// 8バイト（4文字）をリトルエンディアンのlongとして読み込んだ場合に、ASCII以外なら0でなくなるビット
+		final long nonAscii = bigEndian ? 0x80FF80FF80FF80FFL : 0xFF80FF80FF80FF80L;
+		final int shift = bigEndian ? 8 : 0;
+		while (true) {
+			while (sp + 8 <= se && dp + 4 <= de) {
+				long w = (long) LONG_LE.get(src, sp);
+				if ((w & nonAscii) != 0) {
+					break;
+				}
+				w >>>= shift;
+				INT_LE.set(dst, dp, (int) ((w & 0xFF) | ((w >>> 8) & 0xFF00) | ((w >>> 16) & 0xFF0000)
+						| ((w >>> 24) & 0xFF000000L)));
+				sp += 8;
+				dp += 4;
+			}
+			if (sp + 2 > se || dp + MAX_CHAR_BYTES > de) {
+				break;
+			}
+			int c = unit16(src, sp);
+			if (c < 0x80) {
+				dst[dp++] = (byte) c;
+				sp += 2;
+			} else if (c < 0x800) {
+				dst[dp++] = (byte) (0xC0 | (c >> 6));
+				dst[dp++] = (byte) (0x80 | (c & 0x3F));
+				sp += 2;
+			} else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+				dp = put3(dst, dp, c);
+				sp += 2;
+			} else if (c <= Character.MAX_HIGH_SURROGATE) {
+				if (sp + 4 > se) {
+					if (!endOfInput) {
+						// 下位サロゲートは次の入力にあります
+						break;
+					}
+					dp = put3(dst, dp, 0xFFFD);
+					sp += 2;
+					continue;
+				}
+				int d = unit16(src, sp + 2);
+				if (d >= Character.MIN_LOW_SURROGATE && d <= Character.MAX_LOW_SURROGATE) {
+					int cp = Character.toCodePoint((char) c, (char) d);
+					dst[dp++] = (byte) (0xF0 | (cp >> 18));
+					dst[dp++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+					dst[dp++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+					dst[dp++] = (byte) (0x80 | (cp & 0x3F));
+					sp += 4;
+				} else {
+					// InputStreamReader（JDKのデコーダー）と同じく、続く1単位と合わせて1つのU+FFFDにします
+					dp = put3(dst, dp, 0xFFFD);
+					sp += 4;
+				}
+			} else {
+				// 対になっていない下位サロゲート
+				dp = put3(dst, dp, 0xFFFD);
+				sp += 2;
+			}
+		}
+		if (endOfInput && se - sp == 1 && dp + 3 <= de) {
+			dp = put3(dst, dp, 0xFFFD);
+			sp = se;
+		}
+		srcPosition = sp;
+		dstPosition = dp;
+	}
+
+	private void transcode32(byte[] src, int sp, int se, byte[] dst, int dp, int de, boolean endOfInput)
+			throws CharConversionException {
+		final int start = sp;
+		// 8バイト（2文字）をリトルエンディアンのlongとして読み込んだ場合に、ASCII以外なら0でなくなるビット
+		final long nonAscii = bigEndian ? 0x80FFFFFF80FFFFFFL : 0xFFFFFF80FFFFFF80L;
+		final int shift = bigEndian ? 24 : 0;
+		while (true) {
+			while (sp + 16 <= se && dp + 4 <= de) {
+				long w0 = (long) LONG_LE.get(src, sp);
+				long w1 = (long) LONG_LE.get(src, sp + 8);
+				if (((w0 | w1) & nonAscii) != 0) {
+					break;
+				}
+				w0 >>>= shift;
+				w1 >>>= shift;
+				INT_LE.set(dst, dp, (int) ((w0 & 0xFF) | ((w0 >>> 24) & 0xFF00) | ((w1 & 0xFF) << 16)
+						| ((w1 >>> 8) & 0xFF000000L)));
+				sp += 16;
+				dp += 4;
+			}
+			if (sp + 4 > se || dp + MAX_CHAR_BYTES > de) {
+				break;
+			}
+			int cp = bigEndian
+					? ((src[sp] & 0xFF) << 24) | ((src[sp + 1] & 0xFF) << 16) | ((src[sp + 2] & 0xFF) << 8)
+							| (src[sp + 3] & 0xFF)
+					: (src[sp] & 0xFF) | ((src[sp + 1] & 0xFF) << 8) | ((src[sp + 2] & 0xFF) << 16)
+							| ((src[sp + 3] & 0xFF) << 24);
+			if (cp < 0x80) {
+				if (cp < 0) {
+					throw invalid32(cp, processed + sp - start);
+				}
+				dst[dp++] = (byte) cp;
+			} else if (cp < 0x800) {
+				dst[dp++] = (byte) (0xC0 | (cp >> 6));
+				dst[dp++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (cp < 0x10000) {
+				// サロゲートの範囲の値も、UTF32Readerと同じくそのままの文字にします
+				dp = put3(dst, dp, cp);
+			} else if (cp <= Character.MAX_CODE_POINT) {
+				dst[dp++] = (byte) (0xF0 | (cp >> 18));
+				dst[dp++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				dst[dp++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				dst[dp++] = (byte) (0x80 | (cp & 0x3F));
+			} else {
+				throw invalid32(cp, processed + sp - start);
+			}
+			sp += 4;
+		}
+		srcPosition = sp;
+		dstPosition = dp;
+		if (endOfInput && sp < se && se - sp < 4) {
+			throw new CharConversionException("Unexpected EOF in the middle of a 4-byte UTF-32 char: got "
+					+ (se - sp) + ", needed 4, at byte #" + (processed + sp - start));
+		}
+	}
+
+	private static CharConversionException invalid32(int cp, long position) {
+		return new CharConversionException("Invalid UTF-32 character 0x" + Integer.toHexString(cp)
+				+ " (above 0x0010ffff) at byte #" + position);
+	}
+
+	private int unit16(byte[] src, int sp) {
+		return bigEndian ? ((src[sp] & 0xFF) << 8) | (src[sp + 1] & 0xFF)
+				: (src[sp] & 0xFF) | ((src[sp + 1] & 0xFF) << 8);
+	}
+
+	private static int put3(byte[] dst, int dp, int c) {
+		dst[dp] = (byte) (0xE0 | (c >> 12));
+		dst[dp + 1] = (byte) (0x80 | ((c >> 6) & 0x3F));
+		dst[dp + 2] = (byte) (0x80 | (c & 0x3F));
+		return dp + 3;
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.charset;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ *
+ * OutputStreamWriter等で「?」に置き換えられる文字（エンコーディングで表現できない文字）を、\\uXXXXでエスケープします。
+ * Writerへ書き出すJsonGeneratorに設定します（JsonFactory#setCharacterEscapes、ObjectWriter#with）。
+ *
+ * CharsetEncoderはスレッドセーフでないため、同時に使用しないでください（書き出しごとに作成するか、プールして使用します）
+ *
+ */
+public final class UnmappableCharacterEscapes extends CharacterEscapes {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient CharsetEncoder encoder;
+
+	public UnmappableCharacterEscapes(Charset charset) {
+		this.encoder = charset.newEncoder();
+	}
+
+	@Override
+	public int[] getEscapeCodesForAscii() {
+		return standardAsciiEscapesForJSON();
+	}
+
+	@Override
+	public SerializableString getEscapeSequence(int ch) {
+		return encoder.canEncode((char) ch) ? null : new SerializedString(String.format("\\u%04X", ch));
+	}
+}
@@ -0,0 +1,145 @@
+package com.example.charset;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+
+/**
+ *
+ * UTF-16 / UTF-32のバイト列（byte[] または InputStream）を、UTF-8として読み込むInputStreamです。
+ * {@link UnicodeTranscoder}で、読み込み先のバッファ（JsonParserの読み込み用バッファ等）へ直接変換します。
+ *
+ * 使用例:
+ * InputStream utf8 = new Utf8TranscodingInputStream(JsonEncoding.UTF16_LE, request.getInputStream());
+ *
+ * byte[]の場合はコピーせずにそのまま変換し、InputStreamの場合は{@link #DEFAULT_BLOCK_SIZE}ずつ読み込んでから変換します。
+ * BOMはそのままU+FEFF（UTF-8のBOM）になります。取り除く場合は、{@link UnicodeTranscoder#bomLength}の分を除いて渡します。
+ *
+ */
+public class Utf8TranscodingInputStream extends InputStream {
+
+	public static final int DEFAULT_BLOCK_SIZE = 16 * 1024;
+
+	private final UnicodeTranscoder transcoder;
+
+	private final InputStream in;
+
+	private byte[] src;
+
+	private int srcPos;
+
+	private int srcEnd;
+
+	private boolean eof;
+
+	/**
+	 * 4バイト未満の読み込み（read()等）に使用します
+	 */
+	private byte[] pending;
+
+	private int pendingPos;
+
+	private int pendingEnd;
+
+	public Utf8TranscodingInputStream(JsonEncoding encoding, byte[] data, int off, int len) {
+		this.transcoder = new UnicodeTranscoder(encoding);
+		this.in = null;
+		this.src = data;
+		this.srcPos = off;
+		this.srcEnd = off + len;
+		this.eof = true;
+	}
+
+	public Utf8TranscodingInputStream(JsonEncoding encoding, InputStream in) {
+		this(encoding, in, null, 0, 0, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param head inから既に読み込んだ先頭部分（コピーするため、この後は別の用途に使用できます）
+	 */
+	public Utf8TranscodingInputStream(JsonEncoding encoding, InputStream in, byte[] head, int headOff, int headLen) {
+		this(encoding, in, head, headOff, headLen, DEFAULT_BLOCK_SIZE);
+	}
+
+	Utf8TranscodingInputStream(JsonEncoding encoding, InputStream in, byte[] head, int headOff, int headLen,
+			int blockSize) {
+		this.transcoder = new UnicodeTranscoder(encoding);
+		this.in = in;
+		this.src = new byte[Math.max(blockSize, headLen + 4)];
+		if (headLen > 0) {
+			System.arraycopy(head, headOff, src, 0, headLen);
+		}
+		this.srcPos = 0;
+		this.srcEnd = headLen;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] one = new byte[1];
+		return (read(one, 0, 1) < 0) ? -1 : one[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (pendingPos < pendingEnd) {
+			int n = Math.min(len, pendingEnd - pendingPos);
+			System.arraycopy(pending, pendingPos, b, off, n);
+			pendingPos += n;
+			return n;
+		}
+		if (len < UnicodeTranscoder.MAX_CHAR_BYTES) {
+			// 1文字分の空きがないため、一旦別のバッファに変換します
+			if (pending == null) {
+				pending = new byte[UnicodeTranscoder.MAX_CHAR_BYTES];
+			}
+			pendingPos = pendingEnd = 0;
+			pendingEnd = Math.max(0, read(pending, 0, pending.length));
+			return (pendingEnd == 0) ? -1 : read(b, off, len);
+		}
+		while (true) {
+			transcoder.transcode(src, srcPos, srcEnd, b, off, off + len, eof);
+			srcPos = transcoder.srcPosition();
+			int n = transcoder.dstPosition() - off;
+			if (n > 0) {
+				return n;
+			}
+			if (eof) {
+				return -1;
+			}
+			fill();
+		}
+	}
+
+	/**
+	 * 残り（1文字に満たない部分）を先頭に移動して、続きを読み込みます
+	 */
+	private void fill() throws IOException {
+		int remaining = srcEnd - srcPos;
+		System.arraycopy(src, srcPos, src, 0, remaining);
+		srcPos = 0;
+		srcEnd = remaining;
+		while (srcEnd < src.length) {
+			int count = in.read(src, srcEnd, src.length - srcEnd);
+			if (count < 0) {
+				eof = true;
+				return;
+			}
+			srcEnd += count;
+			if (count > 0) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		src = null;
+		if (in != null) {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.example.charset;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.io.MergedStream;
+import com.fasterxml.jackson.core.json.UTF8StreamJsonParser;
+
+/**
+ *
+ * UTF-16 / UTF-32のバイト列（byte[], InputStream, File, URL）を、{@link Utf8TranscodingInputStream}でUTF-8に変換しながら、
+ * バイト単位のUTF8StreamJsonParserで読み込むJsonFactoryです。
+ *
+ * 使用例:
+ * ObjectMapper mapper = new ObjectMapper(new Utf8TranscodingJsonFactory());
+ * Bean bean = mapper.readValue(utf16leBody, Bean.class);
+ *
+ * Jackson標準のJsonFactoryは、UTF-16はInputStreamReader、UTF-32はUTF32Readerを介して、文字単位のパーサーで読み込みます。
+ * エンコーディングの判定はJacksonと同じ（BOMと0x00の位置）で、UTF-8の場合は標準の処理と同じです。
+ *
+ * ASCIIが大部分のJSON（英数字のキー・値）で効果があります。日本語が大部分の場合は、UTF-8への変換とUTF-8からのデコードの
+ * 両方を行うことになるため、標準の処理より遅くなります（TranscodeBenchmarkで確認してから使用してください）。
+ *
+ * JsonParser#getTokenLocation等のバイト位置は、変換後のUTF-8での位置になります（行・列は元の文字の位置と同じです）。
+ * JsonFactory.Feature.CANONICALIZE_FIELD_NAMESを無効にした場合は、標準の処理と同じです
+ * （Jacksonは、この場合はUTF8StreamJsonParserを使用しないため）。
+ *
+ */
+public class Utf8TranscodingJsonFactory extends JsonFactory {
+
+	private static final long serialVersionUID = 1L;
+
+	public Utf8TranscodingJsonFactory() {
+		this((ObjectCodec) null);
+	}
+
+	public Utf8TranscodingJsonFactory(ObjectCodec codec) {
+		super(codec);
+	}
+
+	protected Utf8TranscodingJsonFactory(Utf8TranscodingJsonFactory src, ObjectCodec codec) {
+		super(src, codec);
+	}
+
+	@Override
+	public JsonFactory copy() {
+		_checkInvalidCopy(Utf8TranscodingJsonFactory.class);
+		return new Utf8TranscodingJsonFactory(this, null);
+	}
+
+	@Override
+	protected Object readResolve() {
+		return new Utf8TranscodingJsonFactory(this, _objectCodec);
+	}
+
+	@Override
+	public String getFormatName() {
+		return FORMAT_NAME_JSON;
+	}
+
+	@Override
+	protected JsonParser _createParser(byte[] data, int offset, int len, IOContext ctxt) throws IOException {
+		JsonEncoding encoding = _transcodedEncoding(data, offset, len);
+		if (encoding == null) {
+			return super._createParser(data, offset, len, ctxt);
+		}
+		int bom = UnicodeTranscoder.bomLength(encoding, data, offset, len);
+		return _createTranscodingParser(
+				new Utf8TranscodingInputStream(encoding, data, offset + bom, len - bom), encoding, ctxt);
+	}
+
+	@Override
+	protected JsonParser _createParser(InputStream in, IOContext ctxt) throws IOException {
+		// 判定に使用する先頭部分（読み込み用のバッファは、標準の処理に任せる場合にJacksonが確保するため使用しません）
+		byte[] head = new byte[4];
+		int end = 0;
+		while (end < head.length) {
+			int count = in.read(head, end, head.length - end);
+			if (count < 0) {
+				break;
+			}
+			if (count == 0) {
+				throw new IOException("InputStream.read() returned 0 characters when trying to read "
+						+ (head.length - end) + " bytes");
+			}
+			end += count;
+		}
+		JsonEncoding encoding = _transcodedEncoding(head, 0, end);
+		if (encoding == null) {
+			return super._createParser(new MergedStream(null, in, head, 0, end), ctxt);
+		}
+		int bom = UnicodeTranscoder.bomLength(encoding, head, 0, end);
+		return _createTranscodingParser(new Utf8TranscodingInputStream(encoding, in, head, bom, end - bom),
+				encoding, ctxt);
+	}
+
+	/**
+	 * @return UTF-8に変換して読み込む場合はUTF-16 / UTF-32のエンコーディング、それ以外はnull
+	 */
+	private JsonEncoding _transcodedEncoding(byte[] data, int offset, int len) {
+		if (!Feature.CANONICALIZE_FIELD_NAMES.enabledIn(_factoryFeatures)) {
+			return null;
+		}
+		DetectedEncoding detected = CharsetDetector.detectUnicode(data, offset, offset + len);
+		return (detected == null || detected == DetectedEncoding.UTF8) ? null : detected.jsonEncoding();
+	}
+
+	/**
+	 * @param in BOMを除いた変換後のUTF-8
+	 */
+	private JsonParser _createTranscodingParser(Utf8TranscodingInputStream in, JsonEncoding encoding,
+			IOContext ctxt) {
+		ctxt.setEncoding(encoding);
+		return new UTF8StreamJsonParser(ctxt, _parserFeatures, in, _objectCodec,
+				_byteSymbolCanonicalizer.makeChild(_factoryFeatures), ctxt.allocReadIOBuffer(), 0, 0, true);
+	}
+}
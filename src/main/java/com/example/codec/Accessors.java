@@ -0,0 +1,117 @@
+package com.example.codec;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ *
+ * コンストラクタ・getter・setterを、LambdaMetafactoryで生成したクラス（ラムダ式と同じもの）から直接呼び出します。
+ * リフレクション（Method#invoke）と異なり、呼び出し側のクラスごとにインライン展開できます。
+ *
+ * 生成したインスタンスの型は、PropertyKindごとに次のとおりです。
+ * INT    : ToIntFunction / ObjIntConsumer
+ * LONG   : ToLongFunction / ObjLongConsumer
+ * DOUBLE : ToDoubleFunction / ObjDoubleConsumer
+ * それ以外: Function / BiConsumer（プリミティブ型はボクシングします）
+ *
+ */
+final class Accessors {
+
+	private Accessors() {
+	}
+
+	/**
+	 * @throws IllegalAccessException Beanのクラスにアクセスできない場合（別のモジュールで公開されていない場合等）
+	 */
+	static MethodHandles.Lookup lookup(Class<?> beanClass) throws IllegalAccessException {
+		return MethodHandles.privateLookupIn(beanClass, MethodHandles.lookup());
+	}
+
+	@SuppressWarnings("unchecked")
+	static Supplier<Object> constructor(MethodHandles.Lookup lookup, Constructor<?> ctor)
+			throws ReflectiveOperationException {
+		MethodHandle impl = lookup.unreflectConstructor(ctor);
+		return (Supplier<Object>) spin(lookup, Supplier.class, "get", MethodType.methodType(Object.class), impl,
+				MethodType.methodType(ctor.getDeclaringClass()));
+	}
+
+	static Object getter(MethodHandles.Lookup lookup, Method getter, PropertyKind kind)
+			throws ReflectiveOperationException {
+		MethodHandle impl = lookup.unreflect(getter);
+		Class<?> bean = getter.getDeclaringClass();
+		Class<?> type = getter.getReturnType();
+		switch (kind) {
+		case INT:
+			return spin(lookup, ToIntFunction.class, "applyAsInt", MethodType.methodType(int.class, Object.class), impl,
+					MethodType.methodType(int.class, bean));
+		case LONG:
+			return spin(lookup, ToLongFunction.class, "applyAsLong", MethodType.methodType(long.class, Object.class),
+					impl, MethodType.methodType(long.class, bean));
+		case DOUBLE:
+			return spin(lookup, ToDoubleFunction.class, "applyAsDouble",
+					MethodType.methodType(double.class, Object.class), impl, MethodType.methodType(double.class, bean));
+		default:
+			return spin(lookup, Function.class, "apply", MethodType.methodType(Object.class, Object.class), impl,
+					MethodType.methodType(boxed(type), bean));
+		}
+	}
+
+	static Object setter(MethodHandles.Lookup lookup, Method setter, PropertyKind kind)
+			throws ReflectiveOperationException {
+		MethodHandle impl = lookup.unreflect(setter);
+		Class<?> bean = setter.getDeclaringClass();
+		Class<?> type = setter.getParameterTypes()[0];
+		switch (kind) {
+		case INT:
+			return spin(lookup, ObjIntConsumer.class, "accept",
+					MethodType.methodType(void.class, Object.class, int.class), impl,
+					MethodType.methodType(void.class, bean, int.class));
+		case LONG:
+			return spin(lookup, ObjLongConsumer.class, "accept",
+					MethodType.methodType(void.class, Object.class, long.class), impl,
+					MethodType.methodType(void.class, bean, long.class));
+		case DOUBLE:
+			return spin(lookup, ObjDoubleConsumer.class, "accept",
+					MethodType.methodType(void.class, Object.class, double.class), impl,
+					MethodType.methodType(void.class, bean, double.class));
+		default:
+			return spin(lookup, BiConsumer.class, "accept",
+					MethodType.methodType(void.class, Object.class, Object.class), impl,
+					MethodType.methodType(void.class, bean, boxed(type)));
+		}
+	}
+
+	private static Class<?> boxed(Class<?> type) {
+		return MethodType.methodType(type).wrap().returnType();
+	}
+
+	private static Object spin(MethodHandles.Lookup lookup, Class<?> functionalInterface, String name,
+			MethodType erased, MethodHandle impl, MethodType instantiated) throws ReflectiveOperationException {
+		try {
+			CallSite site = LambdaMetafactory.metafactory(lookup, name, MethodType.methodType(functionalInterface),
+					erased, impl, instantiated);
+			return site.getTarget().invoke();
+		} catch (LambdaConversionException e) {
+			throw (IllegalAccessException) new IllegalAccessException(e.getMessage()).initCause(e);
+		} catch (Error | RuntimeException | ReflectiveOperationException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
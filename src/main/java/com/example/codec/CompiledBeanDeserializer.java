@@ -0,0 +1,357 @@
+package com.example.codec;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import com.example.charset.PreEncodedName;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerFactory;
+import com.fasterxml.jackson.databind.deser.DeserializerFactory;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.IgnoredPropertyException;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+/**
+ *
+ * {@link SchemaCompiler}でプロパティの一覧を確定したBeanのJsonDeserializerです。
+ *
+ * フィールド名は、まず次のプロパティの名前をJsonParser#nextFieldName(SerializableString)で比較します
+ * （UTF8StreamJsonParserはエンコード済みのバイト列を直接比較するため、文字列を作成しません）。
+ * 一致しない場合（順序が異なる場合）だけ、フィールド名の文字列でプロパティを探します。
+ * 値はトークンの種類が想定どおりであればJsonParserから直接取得し、それ以外（null・文字列の数値等）は
+ * ObjectMapperのJsonDeserializerに任せるため、結果は標準のBeanDeserializerと同じです。
+ *
+ * JSONのオブジェクト以外（配列・文字列等）は、標準のBeanDeserializerで読み込みます。
+ *
+ */
+final class CompiledBeanDeserializer<T> extends StdDeserializer<T> implements ResolvableDeserializer {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient BeanDescription beanDesc;
+
+	private final transient Supplier<Object> constructor;
+
+	private final Property[] properties;
+
+	/**
+	 * JsonIgnoreProperties / JsonIgnoreで無視するフィールド名
+	 */
+	private final Set<String> ignorable;
+
+	private final boolean ignoreAllUnknown;
+
+	/**
+	 * JSONのオブジェクト以外の場合に使用する、標準のBeanDeserializer（必要になった時に作成します）
+	 */
+	private transient volatile JsonDeserializer<Object> standard;
+
+	CompiledBeanDeserializer(BeanDescription beanDesc, Supplier<Object> constructor, Property[] properties,
+			Set<String> ignorable, boolean ignoreAllUnknown) {
+		super(beanDesc.getType());
+		this.beanDesc = beanDesc;
+		this.constructor = constructor;
+		this.properties = properties;
+		this.ignorable = ignorable;
+		this.ignoreAllUnknown = ignoreAllUnknown;
+	}
+
+	/**
+	 * 値のJsonDeserializerを取得します。
+	 * INT等の型でも、ObjectMapperに標準以外のJsonDeserializerが登録されている場合はOTHERとして扱います
+	 */
+	@Override
+	public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+		for (Property prop : properties) {
+			prop.deserializer = ctxt.findContextualValueDeserializer(prop.type, null);
+			prop.typeDeserializer = ctxt.getFactory().findTypeDeserializer(ctxt.getConfig(), prop.type);
+			if (!ClassUtil.isJacksonStdImpl(prop.deserializer) || prop.typeDeserializer != null) {
+				prop.kind = PropertyKind.OTHER;
+			}
+		}
+	}
+
+	@Override
+	public boolean isCachable() {
+		return true;
+	}
+
+	@Override
+	public Boolean supportsUpdate(DeserializationConfig config) {
+		return Boolean.TRUE;
+	}
+
+	@Override
+	public Collection<Object> getKnownPropertyNames() {
+		List<Object> names = new ArrayList<>(properties.length);
+		for (Property prop : properties) {
+			names.add(prop.name.getValue());
+		}
+		return names;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+		boolean started = p.isExpectedStartObjectToken();
+		if (!started && !p.hasToken(JsonToken.FIELD_NAME) && !p.hasToken(JsonToken.END_OBJECT)) {
+			JsonDeserializer<Object> deser = standard(ctxt);
+			if (deser == null) {
+				return (T) ctxt.handleUnexpectedToken(handledType(), p);
+			}
+			return (T) deser.deserialize(p, ctxt);
+		}
+		Object bean;
+		try {
+			bean = constructor.get();
+		} catch (Exception e) {
+			return (T) ctxt.handleInstantiationProblem(handledType(), null, e);
+		}
+		p.setCurrentValue(bean);
+		deserializeFields(p, ctxt, bean, started);
+		return (T) bean;
+	}
+
+	@Override
+	public T deserialize(JsonParser p, DeserializationContext ctxt, T intoValue) throws IOException {
+		p.setCurrentValue(intoValue);
+		deserializeFields(p, ctxt, intoValue, p.isExpectedStartObjectToken());
+		return intoValue;
+	}
+
+	@Override
+	public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer)
+			throws IOException {
+		return typeDeserializer.deserializeTypedFromObject(p, ctxt);
+	}
+
+	/**
+	 * @param advance 現在のトークンがSTART_OBJECTの場合はtrue、FIELD_NAME（またはEND_OBJECT）の場合はfalse
+	 */
+	private void deserializeFields(JsonParser p, DeserializationContext ctxt, Object bean, boolean advance)
+			throws IOException {
+		final Property[] props = properties;
+		int next = 0;
+		for (;; advance = true) {
+			Property prop;
+			if (advance && next < props.length && p.nextFieldName(props[next].name)) {
+				prop = props[next];
+			} else {
+				// nextFieldNameがfalseの場合は、すでに次のトークンに進んでいます
+				JsonToken t = (advance && next >= props.length) ? p.nextToken() : p.currentToken();
+				if (t != JsonToken.FIELD_NAME) {
+					return;
+				}
+				String name = p.getCurrentName();
+				prop = find(name);
+				if (prop == null) {
+					p.nextToken();
+					handleUnknown(p, ctxt, bean, name);
+					continue;
+				}
+			}
+			p.nextToken();
+			try {
+				prop.deserialize(p, ctxt, bean);
+			} catch (Exception e) {
+				wrapAndThrow(e, bean, prop.name.getValue(), ctxt);
+			}
+			next = prop.index + 1;
+		}
+	}
+
+	/**
+	 * JsonParserのフィールド名はインターンされている（JsonFactory.Feature.INTERN_FIELD_NAMES）ため、先に参照で比較します
+	 */
+	private Property find(String name) {
+		for (Property prop : properties) {
+			if (prop.name.getValue() == name) {
+				return prop;
+			}
+		}
+		for (Property prop : properties) {
+			if (prop.name.getValue().equals(name)) {
+				return prop;
+			}
+		}
+		return null;
+	}
+
+	private void handleUnknown(JsonParser p, DeserializationContext ctxt, Object bean, String name)
+			throws IOException {
+		if (ignoreAllUnknown) {
+			p.skipChildren();
+			return;
+		}
+		if (ignorable.contains(name)) {
+			if (ctxt.isEnabled(DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES)) {
+				throw IgnoredPropertyException.from(p, bean, name, getKnownPropertyNames());
+			}
+			p.skipChildren();
+			return;
+		}
+		handleUnknownProperty(p, ctxt, bean, name);
+	}
+
+	private JsonDeserializer<Object> standard(DeserializationContext ctxt) throws JsonMappingException {
+		JsonDeserializer<Object> deser = standard;
+		if (deser == null) {
+			DeserializerFactory factory = ctxt.getFactory();
+			if (!(factory instanceof BeanDeserializerFactory)) {
+				return null;
+			}
+			deser = ((BeanDeserializerFactory) factory).buildBeanDeserializer(ctxt, beanDesc.getType(), beanDesc);
+			if (deser instanceof ResolvableDeserializer) {
+				((ResolvableDeserializer) deser).resolve(ctxt);
+			}
+			standard = deser;
+		}
+		return deser;
+	}
+
+	/**
+	 * BeanDeserializerと同じく、DeserializationFeature.WRAP_EXCEPTIONSに従ってプロパティの位置を付けた例外にします
+	 */
+	private static void wrapAndThrow(Throwable t, Object bean, String name, DeserializationContext ctxt)
+			throws IOException {
+		while (t instanceof InvocationTargetException && t.getCause() != null) {
+			t = t.getCause();
+		}
+		ClassUtil.throwIfError(t);
+		boolean wrap = ctxt.isEnabled(DeserializationFeature.WRAP_EXCEPTIONS);
+		if (t instanceof IOException) {
+			if (!wrap || !(t instanceof JsonProcessingException)) {
+				throw (IOException) t;
+			}
+		} else if (!wrap) {
+			ClassUtil.throwIfRTE(t);
+		}
+		throw JsonMappingException.wrapWithPath(t, bean, name);
+	}
+
+	/**
+	 * 1つのプロパティです。setterはPropertyKindに応じたいずれか1つだけを設定します
+	 */
+	static final class Property {
+
+		final int index;
+
+		/**
+		 * インターンした名前
+		 */
+		final PreEncodedName name;
+
+		final JavaType type;
+
+		PropertyKind kind;
+
+		final ObjIntConsumer<Object> intSetter;
+
+		final ObjLongConsumer<Object> longSetter;
+
+		final ObjDoubleConsumer<Object> doubleSetter;
+
+		final BiConsumer<Object, Object> setter;
+
+		JsonDeserializer<Object> deserializer;
+
+		TypeDeserializer typeDeserializer;
+
+		@SuppressWarnings("unchecked")
+		Property(int index, PreEncodedName name, JavaType type, PropertyKind kind, Object setter) {
+			this.index = index;
+			this.name = name;
+			this.type = type;
+			this.kind = kind;
+			this.intSetter = (kind == PropertyKind.INT) ? (ObjIntConsumer<Object>) setter : null;
+			this.longSetter = (kind == PropertyKind.LONG) ? (ObjLongConsumer<Object>) setter : null;
+			this.doubleSetter = (kind == PropertyKind.DOUBLE) ? (ObjDoubleConsumer<Object>) setter : null;
+			this.setter = (setter instanceof BiConsumer) ? (BiConsumer<Object, Object>) setter : null;
+		}
+
+		void deserialize(JsonParser p, DeserializationContext ctxt, Object bean) throws IOException {
+			JsonToken t = p.currentToken();
+			switch (kind) {
+			case INT:
+				if (t == JsonToken.VALUE_NUMBER_INT) {
+					intSetter.accept(bean, p.getIntValue());
+					return;
+				}
+				break;
+			case LONG:
+				if (t == JsonToken.VALUE_NUMBER_INT) {
+					longSetter.accept(bean, p.getLongValue());
+					return;
+				}
+				break;
+			case DOUBLE:
+				if (t == JsonToken.VALUE_NUMBER_FLOAT || t == JsonToken.VALUE_NUMBER_INT) {
+					doubleSetter.accept(bean, p.getDoubleValue());
+					return;
+				}
+				break;
+			case BOOLEAN:
+				if (t == JsonToken.VALUE_TRUE || t == JsonToken.VALUE_FALSE) {
+					setter.accept(bean, (t == JsonToken.VALUE_TRUE) ? Boolean.TRUE : Boolean.FALSE);
+					return;
+				}
+				break;
+			case CHAR:
+				if (t == JsonToken.VALUE_STRING && p.getTextLength() == 1) {
+					setter.accept(bean, p.getTextCharacters()[p.getTextOffset()]);
+					return;
+				}
+				break;
+			case STRING:
+				if (t == JsonToken.VALUE_STRING) {
+					setter.accept(bean, p.getText());
+					return;
+				}
+				break;
+			default:
+				break;
+			}
+			Object value;
+			if (t == JsonToken.VALUE_NULL) {
+				value = deserializer.getNullValue(ctxt);
+			} else if (typeDeserializer != null) {
+				value = deserializer.deserializeWithType(p, ctxt, typeDeserializer);
+			} else {
+				value = deserializer.deserialize(p, ctxt);
+			}
+			set(bean, value);
+		}
+
+		private void set(Object bean, Object value) {
+			if (intSetter != null) {
+				intSetter.accept(bean, (Integer) value);
+			} else if (longSetter != null) {
+				longSetter.accept(bean, (Long) value);
+			} else if (doubleSetter != null) {
+				doubleSetter.accept(bean, (Double) value);
+			} else {
+				setter.accept(bean, value);
+			}
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.example.codec;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import com.example.charset.PreEncodedName;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.impl.PropertySerializerMap;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+/**
+ *
+ * {@link SchemaCompiler}でプロパティの一覧を確定したBeanのJsonSerializerです。
+ * プロパティの順に、エンコード済みのフィールド名と、getterの値を型ごとのメソッドで書き出します。
+ * 出力は標準のBeanSerializerと同じです。
+ *
+ */
+final class CompiledBeanSerializer<T> extends StdSerializer<T> implements ResolvableSerializer {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Property[] properties;
+
+	CompiledBeanSerializer(Class<T> beanClass, Property[] properties) {
+		super(beanClass);
+		this.properties = properties;
+	}
+
+	/**
+	 * 値のJsonSerializerを取得します。
+	 * INT等の型でも、ObjectMapperに標準以外のJsonSerializerが登録されている場合はOTHERとして扱います
+	 */
+	@Override
+	public void resolve(SerializerProvider provider) throws JsonMappingException {
+		for (Property prop : properties) {
+			prop.nullSerializer = provider.findNullValueSerializer(null);
+			if (prop.kind != PropertyKind.OTHER) {
+				JsonSerializer<Object> ser = provider.findValueSerializer(prop.type);
+				if (ClassUtil.isJacksonStdImpl(ser)) {
+					continue;
+				}
+				prop.kind = PropertyKind.OTHER;
+			}
+			prop.typeSerializer = provider.findTypeSerializer(prop.type);
+			if (prop.type.isFinal()) {
+				prop.serializer = provider.findValueSerializer(prop.type);
+			}
+		}
+	}
+
+	@Override
+	public void serialize(T bean, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		gen.writeStartObject(bean);
+		serializeFields(bean, gen, provider);
+		gen.writeEndObject();
+	}
+
+	@Override
+	public void serializeWithType(T bean, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+			throws IOException {
+		gen.setCurrentValue(bean);
+		WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(bean, JsonToken.START_OBJECT));
+		serializeFields(bean, gen, provider);
+		typeSer.writeTypeSuffix(gen, typeId);
+	}
+
+	private void serializeFields(T bean, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		Property prop = null;
+		try {
+			for (Property p : properties) {
+				prop = p;
+				p.serialize(bean, gen, provider);
+			}
+		} catch (Exception e) {
+			wrapAndThrow(provider, e, bean, prop.name.getValue());
+		} catch (StackOverflowError e) {
+			JsonMappingException mapping = new JsonMappingException(gen, "Infinite recursion (StackOverflowError)", e);
+			mapping.prependPath(new JsonMappingException.Reference(bean, prop.name.getValue()));
+			throw mapping;
+		}
+	}
+
+	/**
+	 * 1つのプロパティです。getterはPropertyKindに応じたいずれか1つだけを設定します
+	 */
+	static final class Property {
+
+		final PreEncodedName name;
+
+		final JavaType type;
+
+		PropertyKind kind;
+
+		final ToIntFunction<Object> intGetter;
+
+		final ToLongFunction<Object> longGetter;
+
+		final ToDoubleFunction<Object> doubleGetter;
+
+		final Function<Object, Object> getter;
+
+		JsonSerializer<Object> nullSerializer;
+
+		TypeSerializer typeSerializer;
+
+		/**
+		 * 値の型がfinalの場合のJsonSerializer
+		 */
+		JsonSerializer<Object> serializer;
+
+		/**
+		 * 値の型がfinalでない場合に、値のクラスごとのJsonSerializerを保持します（BeanPropertyWriterと同じ方法）
+		 */
+		PropertySerializerMap dynamicSerializers = PropertySerializerMap.emptyForProperties();
+
+		@SuppressWarnings("unchecked")
+		Property(PreEncodedName name, JavaType type, PropertyKind kind, Object getter) {
+			this.name = name;
+			this.type = type;
+			this.kind = kind;
+			this.intGetter = (kind == PropertyKind.INT) ? (ToIntFunction<Object>) getter : null;
+			this.longGetter = (kind == PropertyKind.LONG) ? (ToLongFunction<Object>) getter : null;
+			this.doubleGetter = (kind == PropertyKind.DOUBLE) ? (ToDoubleFunction<Object>) getter : null;
+			this.getter = (getter instanceof Function) ? (Function<Object, Object>) getter : null;
+		}
+
+		void serialize(Object bean, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			switch (kind) {
+			case INT:
+				gen.writeFieldName(name);
+				gen.writeNumber(intGetter.applyAsInt(bean));
+				return;
+			case LONG:
+				gen.writeFieldName(name);
+				gen.writeNumber(longGetter.applyAsLong(bean));
+				return;
+			case DOUBLE:
+				gen.writeFieldName(name);
+				gen.writeNumber(doubleGetter.applyAsDouble(bean));
+				return;
+			case BOOLEAN:
+				gen.writeFieldName(name);
+				gen.writeBoolean((Boolean) getter.apply(bean));
+				return;
+			case CHAR:
+				gen.writeFieldName(name);
+				gen.writeString(String.valueOf((char) (Character) getter.apply(bean)));
+				return;
+			case STRING: {
+				Object value = getter.apply(bean);
+				gen.writeFieldName(name);
+				if (value == null) {
+					nullSerializer.serialize(null, gen, provider);
+				} else {
+					gen.writeString((String) value);
+				}
+				return;
+			}
+			default:
+				serializeOther(bean, gen, provider);
+			}
+		}
+
+		/**
+		 * INT等の型の値を、OTHERとして書き出す場合もあります（getterはFunctionのため、プリミティブ型はボクシングします）
+		 */
+		private void serializeOther(Object bean, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			Object value;
+			if (getter != null) {
+				value = getter.apply(bean);
+			} else if (intGetter != null) {
+				value = intGetter.applyAsInt(bean);
+			} else if (longGetter != null) {
+				value = longGetter.applyAsLong(bean);
+			} else {
+				value = doubleGetter.applyAsDouble(bean);
+			}
+			gen.writeFieldName(name);
+			if (value == null) {
+				nullSerializer.serialize(null, gen, provider);
+				return;
+			}
+			JsonSerializer<Object> ser = serializer;
+			if (ser == null) {
+				Class<?> cls = value.getClass();
+				PropertySerializerMap map = dynamicSerializers;
+				ser = map.serializerFor(cls);
+				if (ser == null) {
+					PropertySerializerMap.SerializerAndMapResult result = map.findAndAddSecondarySerializer(cls,
+							provider, null);
+					dynamicSerializers = result.map;
+					ser = result.serializer;
+				}
+			}
+			if (value == bean && provider.isEnabled(SerializationFeature.FAIL_ON_SELF_REFERENCES)
+					&& ser instanceof CompiledBeanSerializer) {
+				provider.reportBadDefinition(type, "Direct self-reference leading to cycle");
+			}
+			if (typeSerializer == null) {
+				ser.serialize(value, gen, provider);
+			} else {
+				ser.serializeWithType(value, gen, provider, typeSerializer);
+			}
+		}
+	}
+}
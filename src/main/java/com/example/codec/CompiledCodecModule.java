@@ -0,0 +1,91 @@
+package com.example.codec;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.Serializers;
+
+/**
+ *
+ * 指定したBeanのクラスを、プロパティの一覧から作成した専用のJsonSerializer / JsonDeserializerで読み書きするモジュールです。
+ *
+ * 使用例:
+ * ObjectMapper mapper = new ObjectMapper()
+ *         .registerModule(new CompiledCodecModule(Person.class, Person2.class, PersonName.class));
+ *
+ * 標準のBeanSerializer / BeanDeserializerは、プロパティごとにBeanPropertyWriter / SettableBeanPropertyを経由して
+ * リフレクション（Method#invoke）でgetter / setterを呼び出し、フィールド名はハッシュ表で探します。
+ * このモジュールのものは、次のように処理します。
+ * ・getter / setter / コンストラクタは、LambdaMetafactoryで生成したクラスから直接呼び出します
+ * ・int / long / double / boolean / char / Stringのプロパティは、JsonParser / JsonGeneratorのメソッドを直接呼び出します
+ * ・フィールド名は{@link com.example.charset.PreEncodedName}で書き出します。UTF-8とLegacyCharsetJsonFactoryの
+ *   エンコーディングでは、エンコード済みのバイト列をそのままコピーします
+ * ・読み込みでは、フィールド名を次のプロパティの名前から順に比較します（書き出した順であれば探しません）
+ *
+ * 読み書きの結果（プロパティの順序・nullの扱い・未知のプロパティ・エラー）は標準のものと同じです。
+ * 標準のものと同じ結果にならない設定のクラス（アノテーションでの変換等）は、登録しても標準のものを使用します
+ * （条件は{@link SchemaCompiler}を参照してください）。
+ * プロパティの一覧は、ObjectMapperがクラスを最初に読み書きする時に作成します。
+ *
+ */
+public class CompiledCodecModule extends SimpleModule {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Set<Class<?>> beanClasses;
+
+	private final transient SchemaCompiler compiler = new SchemaCompiler();
+
+	/**
+	 * @param beanClasses 対象のBeanのクラス。サブクラスは対象になりません
+	 */
+	public CompiledCodecModule(Class<?>... beanClasses) {
+		super("CompiledCodecModule", Version.unknownVersion());
+		this.beanClasses = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(beanClasses)));
+	}
+
+	public Set<Class<?>> getBeanClasses() {
+		return beanClasses;
+	}
+
+	@Override
+	public void setupModule(SetupContext context) {
+		super.setupModule(context);
+		context.addSerializers(new CompiledSerializers());
+		context.addDeserializers(new CompiledDeserializers());
+	}
+
+	private final class CompiledSerializers extends Serializers.Base {
+
+		@Override
+		public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+			if (!beanClasses.contains(type.getRawClass())) {
+				return null;
+			}
+			return compiler.compileSerializer(config, beanDesc);
+		}
+	}
+
+	private final class CompiledDeserializers extends Deserializers.Base {
+
+		@Override
+		public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config,
+				BeanDescription beanDesc) {
+			if (!beanClasses.contains(type.getRawClass())) {
+				return null;
+			}
+			return compiler.compileDeserializer(config, beanDesc);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.codec;
+
+/**
+ *
+ * プロパティの型による、読み書きの方法の分類です。
+ * OTHER以外は、JsonParser / JsonGeneratorのメソッドを直接呼び出します（ボクシングしないのはINT / LONG / DOUBLEです）。
+ *
+ */
+enum PropertyKind {
+
+	INT, LONG, DOUBLE, BOOLEAN, CHAR, STRING,
+
+	/**
+	 * ObjectMapperから取得したJsonSerializer / JsonDeserializerに任せます
+	 */
+	OTHER;
+
+	static PropertyKind of(Class<?> type) {
+		if (type == int.class) {
+			return INT;
+		}
+		if (type == long.class) {
+			return LONG;
+		}
+		if (type == double.class) {
+			return DOUBLE;
+		}
+		if (type == boolean.class) {
+			return BOOLEAN;
+		}
+		if (type == char.class) {
+			return CHAR;
+		}
+		if (type == String.class) {
+			return STRING;
+		}
+		return OTHER;
+	}
+}
@@ -0,0 +1,213 @@
+package com.example.codec;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.example.charset.PreEncodedName;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedConstructor;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.AnnotationMap;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+/**
+ *
+ * BeanDescription（ObjectMapperがイントロスペクトしたプロパティの一覧）から、
+ * {@link CompiledBeanSerializer} / {@link CompiledBeanDeserializer}を作成します。
+ *
+ * 対象は、デフォルトコンストラクタとpublicなgetter / setterだけで読み書きする、型パラメータのないBeanです。
+ * 次の場合は標準のBeanSerializer / BeanDeserializerと同じ結果にならないため、作成せずにnullを返します
+ * （{@link CompiledCodecModule}は標準のものを使用します）。
+ * ・JsonProperty / JsonPropertyOrder / JsonIgnoreProperties / JsonIgnore / JsonAutoDetect以外のJacksonのアノテーション
+ *   （ミックスインを含みます）
+ * ・フィールドだけのプロパティ、getterだけ（読み込み）・setterだけ（書き出し）のプロパティ、デフォルトコンストラクタがない
+ * ・JsonInclude.Include.ALWAYS以外のデフォルトのInclude、ObjectMapper#configOverrideでの型ごとの設定
+ * ・MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIESが有効、MapperFeature.DEFAULT_VIEW_INCLUSIONが無効
+ * ・Beanのクラスにアクセスできない（別のモジュールで公開されていない等）
+ *
+ */
+final class SchemaCompiler {
+
+	private static final Set<Class<? extends Annotation>> PLAIN_ANNOTATIONS = new HashSet<>(Arrays.asList(
+			JsonProperty.class, JsonPropertyOrder.class, JsonIgnoreProperties.class, JsonIgnore.class,
+			JsonAutoDetect.class));
+
+	/**
+	 * 同じ名前のPreEncodedNameを、型・ObjectMapperの間で共有します（エンコード済みのバイト列を保持しているため）
+	 */
+	private final ConcurrentHashMap<String, PreEncodedName> names = new ConcurrentHashMap<>();
+
+	CompiledBeanSerializer<?> compileSerializer(SerializationConfig config, BeanDescription beanDesc) {
+		if (!isSupported(config, beanDesc)) {
+			return null;
+		}
+		Class<?> beanClass = beanDesc.getBeanClass();
+		JsonInclude.Value inclusion = config.getDefaultPropertyInclusion(beanClass);
+		if (!isAlways(inclusion.getValueInclusion()) || !isAlways(inclusion.getContentInclusion())
+				|| !config.isEnabled(MapperFeature.DEFAULT_VIEW_INCLUSION)) {
+			return null;
+		}
+		Set<String> ignored = config.getDefaultPropertyIgnorals(beanClass, beanDesc.getClassInfo())
+				.findIgnoredForSerialization();
+		try {
+			MethodHandles.Lookup lookup = Accessors.lookup(beanClass);
+			List<CompiledBeanSerializer.Property> props = new ArrayList<>();
+			for (BeanPropertyDefinition def : beanDesc.findProperties()) {
+				if (def.getAccessor() == null || ignored.contains(def.getName())) {
+					continue;
+				}
+				AnnotatedMethod getter = def.getGetter();
+				if (getter == null || !isPlain(config, def) || !isAlways(def.findInclusion().getValueInclusion())) {
+					return null;
+				}
+				PropertyKind kind = PropertyKind.of(getter.getRawReturnType());
+				props.add(new CompiledBeanSerializer.Property(name(def.getName()), def.getPrimaryType(), kind,
+						Accessors.getter(lookup, getter.getAnnotated(), kind)));
+			}
+			if (props.isEmpty()) {
+				// SerializationFeature.FAIL_ON_EMPTY_BEANSの処理は標準のものに任せます
+				return null;
+			}
+			return newSerializer(beanClass, props.toArray(new CompiledBeanSerializer.Property[0]));
+		} catch (ReflectiveOperationException | IllegalAccessError e) {
+			return null;
+		}
+	}
+
+	private static <T> CompiledBeanSerializer<T> newSerializer(Class<T> beanClass,
+			CompiledBeanSerializer.Property[] props) {
+		return new CompiledBeanSerializer<>(beanClass, props);
+	}
+
+	CompiledBeanDeserializer<?> compileDeserializer(DeserializationConfig config, BeanDescription beanDesc) {
+		if (!isSupported(config, beanDesc) || config.isEnabled(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+				|| !config.isEnabled(MapperFeature.DEFAULT_VIEW_INCLUSION)) {
+			return null;
+		}
+		JsonSetter.Value setterInfo = config.getDefaultSetterInfo();
+		if (setterInfo.nonDefaultValueNulls() != null || setterInfo.nonDefaultContentNulls() != null) {
+			return null;
+		}
+		AnnotatedConstructor ctor = beanDesc.findDefaultConstructor();
+		if (ctor == null || beanDesc.findInjectables() != null || beanDesc.findBackReferences() != null) {
+			return null;
+		}
+		Class<?> beanClass = beanDesc.getBeanClass();
+		JsonIgnoreProperties.Value ignorals = config.getDefaultPropertyIgnorals(beanClass, beanDesc.getClassInfo());
+		Set<String> ignorable = new HashSet<>(ignorals.findIgnoredForDeserialization());
+		ignorable.addAll(beanDesc.getIgnoredPropertyNames());
+		try {
+			MethodHandles.Lookup lookup = Accessors.lookup(beanClass);
+			Supplier<Object> constructor = Accessors.constructor(lookup, ctor.getAnnotated());
+			List<CompiledBeanDeserializer.Property> props = new ArrayList<>();
+			for (BeanPropertyDefinition def : beanDesc.findProperties()) {
+				if (ignorable.contains(def.getName())) {
+					continue;
+				}
+				AnnotatedMethod setter = def.getSetter();
+				if (setter == null || def.hasConstructorParameter() || !isPlain(config, def)) {
+					return null;
+				}
+				PropertyKind kind = PropertyKind.of(setter.getRawParameterType(0));
+				props.add(new CompiledBeanDeserializer.Property(props.size(), name(def.getName()),
+						setter.getParameterType(0), kind, Accessors.setter(lookup, setter.getAnnotated(), kind)));
+			}
+			if (props.isEmpty()) {
+				return null;
+			}
+			return new CompiledBeanDeserializer<>(beanDesc, constructor,
+					props.toArray(new CompiledBeanDeserializer.Property[0]), ignorable, ignorals.getIgnoreUnknown());
+		} catch (ReflectiveOperationException | IllegalAccessError e) {
+			return null;
+		}
+	}
+
+	private PreEncodedName name(String name) {
+		return names.computeIfAbsent(name, n -> new PreEncodedName(n.intern()));
+	}
+
+	private static boolean isSupported(MapperConfig<?> config, BeanDescription beanDesc) {
+		Class<?> beanClass = beanDesc.getBeanClass();
+		if (beanClass.isInterface() || beanClass.isEnum() || beanClass.isArray() || beanClass.isPrimitive()
+				|| Modifier.isAbstract(beanClass.getModifiers()) || ClassUtil.isNonStaticInnerClass(beanClass)
+				|| beanClass.getTypeParameters().length > 0 || config.findConfigOverride(beanClass) != null) {
+			return false;
+		}
+		for (Class<?> c = beanClass; c != Object.class; c = c.getSuperclass()) {
+			if (!isPlain(config, c)) {
+				return false;
+			}
+			for (Class<?> i : c.getInterfaces()) {
+				if (!isPlain(config, i)) {
+					return false;
+				}
+			}
+		}
+		return beanDesc.findJsonValueAccessor() == null
+				&& beanDesc.findAnyGetter() == null && beanDesc.findAnySetterAccessor() == null
+				&& beanDesc.getObjectIdInfo() == null && beanDesc.findPOJOBuilder() == null;
+	}
+
+	private static boolean isPlain(MapperConfig<?> config, BeanPropertyDefinition def) {
+		if (config.findConfigOverride(def.getRawPrimaryType()) != null) {
+			return false;
+		}
+		return isPlain(def.getGetter()) && isPlain(def.getSetter()) && isPlain(def.getField());
+	}
+
+	/**
+	 * クラスのアノテーション（ミックスインを指定したクラスは対象外にします）
+	 */
+	private static boolean isPlain(MapperConfig<?> config, Class<?> type) {
+		if (config.findMixInClassFor(type) != null) {
+			return false;
+		}
+		return isPlain(Arrays.asList(type.getDeclaredAnnotations()));
+	}
+
+	/**
+	 * getter / setter / フィールドのアノテーション（ミックスインのものを含みます）
+	 */
+	private static boolean isPlain(AnnotatedMember member) {
+		if (member == null) {
+			return true;
+		}
+		AnnotationMap annotations = member.getAllAnnotations();
+		return (annotations == null) || isPlain(annotations.annotations());
+	}
+
+	private static boolean isPlain(Iterable<Annotation> annotations) {
+		for (Annotation annotation : annotations) {
+			Class<? extends Annotation> type = annotation.annotationType();
+			if (type.getName().startsWith("com.fasterxml.jackson.") && !PLAIN_ANNOTATIONS.contains(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isAlways(JsonInclude.Include include) {
+		return include == JsonInclude.Include.ALWAYS || include == JsonInclude.Include.USE_DEFAULTS;
+	}
+}
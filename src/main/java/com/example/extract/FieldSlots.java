@@ -0,0 +1,242 @@
+package com.example.extract;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ *
+ * {@link PathExtractor}で取り出した値を、パスごとに保持します。
+ * 文字列はchar[]に、整数・真偽値はプリミティブの値として保持し、Stringを作成しません。
+ * 次のextractまで再利用するため、スレッドごと（リクエストの処理ごと）に1つ作成して使い回します。
+ *
+ * {@link #getText(int)}のCharSequenceも再利用されるため、次のextractの後は内容が変わります。
+ * 保持する場合は{@link #getChars(int, char[], int)}でコピーするか、toString()を使用します。
+ *
+ * スレッドセーフではありません
+ *
+ */
+public final class FieldSlots {
+
+	static final int DEFAULT_CAPACITY = 64;
+
+	private final JsonToken[] tokens;
+
+	private final char[][] chars;
+
+	private final int[] lengths;
+
+	private final long[] longs;
+
+	/**
+	 * longsの値が有効な場合はtrue（VALUE_NUMBER_INTでlongの範囲内の場合）
+	 */
+	private final boolean[] hasLong;
+
+	private final Text[] texts;
+
+	private int found;
+
+	/**
+	 * @param size パスの数（{@link PathExtractor#size()}）
+	 * @param initialCapacity 文字列の初期容量。超えた場合は拡張し、以後はその容量を使用します
+	 */
+	public FieldSlots(int size, int initialCapacity) {
+		tokens = new JsonToken[size];
+		chars = new char[size][];
+		lengths = new int[size];
+		longs = new long[size];
+		hasLong = new boolean[size];
+		texts = new Text[size];
+		for (int i = 0; i < size; i++) {
+			chars[i] = new char[initialCapacity];
+			texts[i] = new Text(i);
+		}
+	}
+
+	public int size() {
+		return tokens.length;
+	}
+
+	/**
+	 * @return 前回のextractで見つかったパスの数
+	 */
+	public int getFoundCount() {
+		return found;
+	}
+
+	void clear() {
+		Arrays.fill(tokens, null);
+		found = 0;
+	}
+
+	/**
+	 * parserの現在のトークンを保持します。オブジェクト・配列の場合はトークンのみを保持します
+	 */
+	void set(int index, JsonParser p) throws IOException {
+		JsonToken t = p.currentToken();
+		tokens[index] = t;
+		found++;
+		hasLong[index] = false;
+		lengths[index] = 0;
+		if (t.isStructStart()) {
+			return;
+		}
+		if (t == JsonToken.VALUE_NUMBER_INT) {
+			NumberType type = p.getNumberType();
+			if (type == NumberType.INT || type == NumberType.LONG) {
+				longs[index] = p.getLongValue();
+				hasLong[index] = true;
+			}
+		}
+		int length = p.getTextLength();
+		if (length > chars[index].length) {
+			chars[index] = new char[Math.max(length, chars[index].length * 2)];
+		}
+		System.arraycopy(p.getTextCharacters(), p.getTextOffset(), chars[index], 0, length);
+		lengths[index] = length;
+	}
+
+	/**
+	 * @return パスが見つかった場合はtrue（値がnullの場合もtrue）
+	 */
+	public boolean isPresent(int index) {
+		return tokens[index] != null;
+	}
+
+	/**
+	 * @return 値のトークン（VALUE_STRING、VALUE_NUMBER_INT、START_OBJECT等）。見つからなかった場合はnull
+	 */
+	public JsonToken getToken(int index) {
+		return tokens[index];
+	}
+
+	public boolean isNull(int index) {
+		return tokens[index] == JsonToken.VALUE_NULL;
+	}
+
+	/**
+	 * @return 値の文字列（数値・真偽値・nullはJSONの表記）。見つからなかった場合、オブジェクト・配列の場合は長さ0。
+	 *         次のextractまで有効です
+	 */
+	public CharSequence getText(int index) {
+		return texts[index];
+	}
+
+	public int getTextLength(int index) {
+		return lengths[index];
+	}
+
+	/**
+	 * 値の文字列をdstにコピーします
+	 *
+	 * @return コピーした文字数
+	 * @throws IndexOutOfBoundsException dstの容量が足りない場合
+	 */
+	public int getChars(int index, char[] dst, int dstOffset) {
+		System.arraycopy(chars[index], 0, dst, dstOffset, lengths[index]);
+		return lengths[index];
+	}
+
+	/**
+	 * @return 値の文字列がsと等しい場合はtrue。見つからなかった場合はfalse
+	 */
+	public boolean textEquals(int index, CharSequence s) {
+		if (tokens[index] == null || lengths[index] != s.length()) {
+			return false;
+		}
+		char[] c = chars[index];
+		for (int i = 0; i < lengths[index]; i++) {
+			if (c[i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @throws IllegalStateException 値がlongの範囲内の整数でない場合
+	 */
+	public long getLong(int index) {
+		if (!hasLong[index]) {
+			throw new IllegalStateException("Not a long value at slot " + index + ": " + tokens[index]);
+		}
+		return longs[index];
+	}
+
+	/**
+	 * @throws IllegalStateException 値がintの範囲内の整数でない場合
+	 */
+	public int getInt(int index) {
+		long value = getLong(index);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Not an int value at slot " + index + ": " + value);
+		}
+		return (int) value;
+	}
+
+	/**
+	 * 整数以外の数値は文字列から変換するため、Stringを作成します
+	 *
+	 * @throws IllegalStateException 値が数値でない場合
+	 */
+	public double getDouble(int index) {
+		if (hasLong[index]) {
+			return longs[index];
+		}
+		JsonToken t = tokens[index];
+		if (t != JsonToken.VALUE_NUMBER_INT && t != JsonToken.VALUE_NUMBER_FLOAT) {
+			throw new IllegalStateException("Not a number at slot " + index + ": " + t);
+		}
+		return Double.parseDouble(texts[index].toString());
+	}
+
+	/**
+	 * @throws IllegalStateException 値がtrue / falseでない場合
+	 */
+	public boolean getBoolean(int index) {
+		JsonToken t = tokens[index];
+		if (t != JsonToken.VALUE_TRUE && t != JsonToken.VALUE_FALSE) {
+			throw new IllegalStateException("Not a boolean at slot " + index + ": " + t);
+		}
+		return t == JsonToken.VALUE_TRUE;
+	}
+
+	/**
+	 * 1つの値の文字列を、コピーせずにCharSequenceとして参照します
+	 */
+	private final class Text implements CharSequence {
+
+		private final int index;
+
+		Text(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int length() {
+			return lengths[index];
+		}
+
+		@Override
+		public char charAt(int i) {
+			if (i < 0 || i >= lengths[index]) {
+				throw new IndexOutOfBoundsException(String.valueOf(i));
+			}
+			return chars[index][i];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars[index], 0, lengths[index]);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package com.example.extract;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ *
+ * 大きなJSONから、指定したパス（JSON Pointer）の値だけを取り出します。
+ * Stringやjavaのオブジェクトを作成せずに、呼び出し側の{@link FieldSlots}（char[]・数値）へ書き込みます。
+ *
+ * 使用例:
+ * // 起動時に1回だけ
+ * PathExtractor extractor = PathExtractor.compile("/message", "/personName/firstname", "/age");
+ *
+ * // スレッドごと（リクエストの処理ごとに再利用します）
+ * FieldSlots slots = extractor.newSlots();
+ *
+ * try (JsonParser parser = factory.createParser(body)) {
+ *     extractor.extract(parser, slots);
+ * }
+ * if (slots.textEquals(0, "あいうえお")) { ... }
+ * int age = slots.getInt(2);
+ *
+ * パスに含まれない部分は、skipChildren()で読み飛ばします（JsonParserは文字列の内容を必要になるまで変換しないため、
+ * 読み飛ばした部分の文字列は作成されません）。フィールド名はJsonParserのシンボルテーブルのものを比較するため、作成されません。
+ * すべてのパスの値が見つかった時点で読み込みを終了するため、それ以降の部分がJSONとして正しいかは確認しません。
+ * 同じフィールドが複数ある場合は、最初の値を取り出します。
+ *
+ * JsonParserの作成（JsonFactory#createParser）は、1回あたり一定量の割り当てを行います。
+ * 取り出し（extract）は、値がFieldSlotsの容量に収まっている間は割り当てを行いません。
+ *
+ * このクラスはスレッドセーフです。FieldSlotsはスレッドセーフではありません。
+ *
+ */
+public final class PathExtractor {
+
+	private final String[] paths;
+
+	private final Node root;
+
+	private PathExtractor(String[] paths, Node root) {
+		this.paths = paths;
+		this.root = root;
+	}
+
+	/**
+	 * @param paths JSON Pointer（RFC 6901）。「/personName/firstname」「/values/0」のように指定します。
+	 *            配列の要素は0から始まる番号で指定します（数字のみの部分は、オブジェクトのフィールド名としても一致します）
+	 * @throws IllegalArgumentException パスが「/」で始まらない場合、重複している場合、他のパスの途中までと同じ場合
+	 */
+	public static PathExtractor compile(String... paths) {
+		if (paths.length == 0) {
+			throw new IllegalArgumentException("No paths");
+		}
+		Node root = new Node();
+		for (int i = 0; i < paths.length; i++) {
+			Node node = root;
+			for (String segment : segments(paths[i])) {
+				if (node.slot >= 0) {
+					throw new IllegalArgumentException("Path is a prefix of another path: " + paths[node.slot]);
+				}
+				node = node.childFor(segment);
+			}
+			if (node.slot >= 0) {
+				throw new IllegalArgumentException("Duplicate path: " + paths[i]);
+			}
+			if (node.names.length > 0) {
+				throw new IllegalArgumentException("Path is a prefix of another path: " + paths[i]);
+			}
+			node.slot = i;
+		}
+		return new PathExtractor(paths.clone(), root);
+	}
+
+	private static List<String> segments(String path) {
+		if (!path.startsWith("/")) {
+			throw new IllegalArgumentException("Path must start with '/': " + path);
+		}
+		List<String> segments = new ArrayList<>();
+		for (String segment : path.substring(1).split("/", -1)) {
+			segments.add(segment.replace("~1", "/").replace("~0", "~"));
+		}
+		return segments;
+	}
+
+	/**
+	 * @return パスの数（FieldSlotsの番号は、compileに指定した順の0から始まる番号です）
+	 */
+	public int size() {
+		return paths.length;
+	}
+
+	public String getPath(int index) {
+		return paths[index];
+	}
+
+	/**
+	 * @return compileに指定したパスの番号。ない場合は-1
+	 */
+	public int indexOf(String path) {
+		return Arrays.asList(paths).indexOf(path);
+	}
+
+	/**
+	 * 文字列の容量が64文字（足りない場合は拡張します）のFieldSlotsを作成します
+	 */
+	public FieldSlots newSlots() {
+		return new FieldSlots(paths.length, FieldSlots.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * parserの現在のトークン（まだ読み込んでいない場合は最初のトークン）から始まる値から取り出します。
+	 * parserは閉じません。すべてのパスが見つかった場合、parserは値の途中の位置になります
+	 *
+	 * @param slots 前回の内容は消去されます
+	 * @return 見つかったパスの数
+	 * @throws IllegalArgumentException slotsの数がパスの数と異なる場合
+	 */
+	public int extract(JsonParser parser, FieldSlots slots) throws IOException {
+		if (slots.size() != paths.length) {
+			throw new IllegalArgumentException("FieldSlots size " + slots.size() + " != " + paths.length);
+		}
+		slots.clear();
+		if (!parser.hasCurrentToken() && parser.nextToken() == null) {
+			return 0;
+		}
+		walk(parser, root, slots);
+		return slots.getFoundCount();
+	}
+
+	/**
+	 * dataからparserを作成して取り出します
+	 */
+	public int extract(JsonFactory factory, byte[] data, FieldSlots slots) throws IOException {
+		try (JsonParser parser = factory.createParser(data)) {
+			return extract(parser, slots);
+		}
+	}
+
+	/**
+	 * 現在のトークンから始まる値（nodeの位置）を読み込みます。戻った時、値の最後のトークンまで読み込んでいるか、
+	 * すべてのパスが見つかっています
+	 */
+	private void walk(JsonParser p, Node node, FieldSlots slots) throws IOException {
+		if (node.slot >= 0) {
+			// 同じフィールドが複数ある場合は、最初の値のままにします
+			if (!slots.isPresent(node.slot)) {
+				slots.set(node.slot, p);
+			}
+			p.skipChildren();
+			return;
+		}
+		JsonToken t = p.currentToken();
+		if (t == JsonToken.START_OBJECT) {
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				Node child = node.byName(p.getCurrentName());
+				p.nextToken();
+				if (child == null) {
+					p.skipChildren();
+					continue;
+				}
+				walk(p, child, slots);
+				if (slots.getFoundCount() == paths.length) {
+					return;
+				}
+			}
+		} else if (t == JsonToken.START_ARRAY) {
+			int index = 0;
+			while (p.nextToken() != JsonToken.END_ARRAY) {
+				Node child = node.byIndex(index++);
+				if (child == null) {
+					p.skipChildren();
+					continue;
+				}
+				walk(p, child, slots);
+				if (slots.getFoundCount() == paths.length) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * パスの木の1つの位置です。子の数は少ないため、配列を順に比較します
+	 */
+	private static final class Node {
+
+		String[] names = new String[0];
+
+		/**
+		 * namesを配列の番号として解釈した値。数字でない場合は-1
+		 */
+		int[] indexes = new int[0];
+
+		Node[] children = new Node[0];
+
+		/**
+		 * この位置がパスの終わりの場合は、その番号
+		 */
+		int slot = -1;
+
+		Node childFor(String name) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(name)) {
+					return children[i];
+				}
+			}
+			int n = names.length;
+			names = Arrays.copyOf(names, n + 1);
+			indexes = Arrays.copyOf(indexes, n + 1);
+			children = Arrays.copyOf(children, n + 1);
+			names[n] = name;
+			indexes[n] = index(name);
+			children[n] = new Node();
+			return children[n];
+		}
+
+		private static int index(String name) {
+			if (name.isEmpty() || name.length() > 9 || (name.length() > 1 && name.charAt(0) == '0')) {
+				return -1;
+			}
+			for (int i = 0; i < name.length(); i++) {
+				if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+					return -1;
+				}
+			}
+			return Integer.parseInt(name);
+		}
+
+		Node byName(String name) {
+			for (int i = 0; i < names.length; i++) {
+				// フィールド名は通常シンボルテーブルでinternされているため、先に参照を比較します
+				if (names[i] == name || names[i].equals(name)) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node byIndex(int index) {
+			for (int i = 0; i < indexes.length; i++) {
+				if (indexes[i] == index) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+	}
+}
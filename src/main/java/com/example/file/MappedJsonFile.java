@@ -0,0 +1,187 @@
+package com.example.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ *
+ * JSONのファイルをFileChannel#mapでメモリにマップし、そこから読み込みます。
+ * 何度も読み込む大きな参照用のファイルに使用します。マップは{@link #close()}するまで使い回します。
+ *
+ * 使用例:
+ * try (MappedJsonFile file = MappedJsonFile.open(Paths.get("master.json"))) {
+ *     Bean[] beans = file.readValue(mapper, Bean[].class);
+ * }
+ *
+ * 2GBを超えるファイルは、{@link #DEFAULT_WINDOW_SIZE}（または指定した大きさ）ごとに分けてマップします。
+ *
+ * Jacksonのパーサーはbyte[]のバッファから読み込むため、マップした領域からパーサーのバッファへのコピーは残ります。
+ * FileInputStreamと比べると、読み込みごとのシステムコール（read）とカーネルからのコピーがなくなります。
+ * ObjectMapperにはInputStreamとして渡すため、UTF-8/16/32の自動判定はそのまま使用できます
+ * （LegacyCharsetJsonFactory / CharsetDetectingJsonFactoryを使用したObjectMapperも同様です）。
+ *
+ */
+public class MappedJsonFile implements Closeable {
+
+	/**
+	 * 1つのMappedByteBufferの最大の大きさ（1GB）
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+	private final FileChannel channel;
+
+	private final MappedByteBuffer[] windows;
+
+	private final long size;
+
+	protected MappedJsonFile(FileChannel channel, MappedByteBuffer[] windows, long size) {
+		this.channel = channel;
+		this.windows = windows;
+		this.size = size;
+	}
+
+	public static MappedJsonFile open(Path path) throws IOException {
+		return open(path, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param windowSize 1つのMappedByteBufferの最大の大きさ。ファイルがこれより小さい場合は全体を1つにマップします
+	 */
+	public static MappedJsonFile open(Path path, int windowSize) throws IOException {
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			int count = (int) ((size + windowSize - 1) / windowSize);
+			MappedByteBuffer[] windows = new MappedByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				long position = (long) i * windowSize;
+				windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+			}
+			return new MappedJsonFile(channel, windows, size);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return マップの数（2GBを超えるファイル等で分けてマップした場合は2以上）
+	 */
+	public int getWindowCount() {
+		return windows.length;
+	}
+
+	/**
+	 * 先頭から読み込むInputStreamを返します。複数のスレッドから、それぞれのInputStreamで同時に読み込めます
+	 */
+	public InputStream newInputStream() {
+		return new MappedInputStream();
+	}
+
+	public JsonParser createParser(ObjectMapper mapper) throws IOException {
+		return mapper.getFactory().createParser(newInputStream());
+	}
+
+	public <T> T readValue(ObjectMapper mapper, Class<T> type) throws IOException {
+		return mapper.readValue(newInputStream(), type);
+	}
+
+	public <T> T readValue(ObjectReader reader) throws IOException {
+		return reader.readValue(newInputStream());
+	}
+
+	public JsonNode readTree(ObjectMapper mapper) throws IOException {
+		return mapper.readTree(newInputStream());
+	}
+
+	/**
+	 * FileChannelを閉じます。マップした領域は、MappedByteBufferがGCされた時に解放されます
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * マップした領域を順に読み込むInputStream。位置はインスタンスごとに独立しています
+	 */
+	private final class MappedInputStream extends InputStream {
+
+		private int windowIndex = -1;
+
+		private ByteBuffer current = ByteBuffer.allocate(0);
+
+		private long remaining = size;
+
+		/**
+		 * @return 現在のマップに残りがない場合は次のマップに進み、それもない場合はfalse
+		 */
+		private boolean ensureRemaining() {
+			while (!current.hasRemaining()) {
+				if (windowIndex + 1 >= windows.length) {
+					return false;
+				}
+				current = windows[++windowIndex].duplicate();
+			}
+			return true;
+		}
+
+		@Override
+		public int read() {
+			if (!ensureRemaining()) {
+				return -1;
+			}
+			remaining--;
+			return current.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!ensureRemaining()) {
+				return -1;
+			}
+			int n = Math.min(len, current.remaining());
+			current.get(b, off, n);
+			remaining -= n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			long skipped = 0;
+			while (skipped < n && ensureRemaining()) {
+				int step = (int) Math.min(n - skipped, current.remaining());
+				current.position(current.position() + step);
+				skipped += step;
+			}
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, remaining);
+		}
+	}
+}
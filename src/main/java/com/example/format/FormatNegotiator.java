@@ -0,0 +1,293 @@
+package com.example.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.UnmappableCharacterEscapes;
+import com.example.registry.CodecRegistry;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ *
+ * 同じObjectMapper・同じjavaのクラスのまま、JSON（任意のエンコーディング）/ Smile / CBORを切り替えて読み書きします。
+ *
+ * 使用例:
+ * FormatNegotiator formats = new FormatNegotiator(mapper);
+ *
+ * MediaFormat requestFormat = MediaFormat.parse(request.getContentType());
+ * Bean bean = formats.read(request.getInputStream(), requestFormat, Bean.class);
+ *
+ * MediaFormat responseFormat = formats.negotiate(request.getHeader("Accept"));
+ * if (responseFormat == null) {
+ *     response.sendError(406);
+ *     return;
+ * }
+ * response.setContentType(responseFormat.toContentType());
+ * formats.write(response.getOutputStream(), responseFormat, bean);
+ *
+ * JSONのUTF-8 / Shift_JIS / Windows-31J / EUC-JP、charsetの指定がないJSONの読み込み（エンコーディングの判定）は
+ * {@link CodecRegistry}のObjectReader / ObjectWriterを使用し、
+ * Smile / CBORはObjectReader / ObjectWriterのJsonFactoryを差し替えて使用します。
+ * いずれもObjectMapperの設定（DeserializationFeature、モジュール等）を引き継ぎます。
+ * それ以外のエンコーディングのJSONは、InputStreamReader / OutputStreamWriter（UTF-16 / UTF-32の書き出しはJsonEncoding）を使用します。
+ * OutputStreamWriterで書き出す場合も、エンコーディングで表現できない文字は「?」にせず\\uXXXXでエスケープします。
+ *
+ */
+public class FormatNegotiator {
+
+	private final ObjectMapper mapper;
+
+	private final CodecRegistry registry;
+
+	private final Map<WireFormat, JsonFactory> binaryFactories = new EnumMap<>(WireFormat.class);
+
+	private final ConcurrentHashMap<Key, ObjectReader> binaryReaders = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Key, ObjectWriter> binaryWriters = new ConcurrentHashMap<>();
+
+	/**
+	 * @param mapper 設定済みの、JSON（JsonFactory）のObjectMapper。このインスタンスの設定は、以後変更しないでください
+	 */
+	public FormatNegotiator(ObjectMapper mapper) {
+		this.mapper = mapper;
+		this.registry = new CodecRegistry(mapper);
+		for (WireFormat f : WireFormat.values()) {
+			JsonFactory factory = f.createBinaryFactory();
+			if (factory != null) {
+				factory.setCodec(mapper);
+				binaryFactories.put(f, factory);
+			}
+		}
+	}
+
+	/**
+	 * JSONのReader / Writerを保持しているCodecRegistry。起動時にregister / warmUpする場合に使用します
+	 */
+	public CodecRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Acceptヘッダから、レスポンスの形式を選択します。qの大きいものを選択し、同じ場合は先に書かれたものを選択します。
+	 * JSONはcharsetパラメータがあればそのエンコーディング、なければUTF-8です（「*&#47;*」「application/*」もUTF-8のJSONです）
+	 *
+	 * @param accept nullまたは空の場合はUTF-8のJSON
+	 * @return 受け付けられる形式がない場合はnull
+	 */
+	public MediaFormat negotiate(String accept) {
+		if (accept == null || accept.trim().isEmpty()) {
+			return MediaFormat.JSON_UTF8;
+		}
+		MediaFormat best = null;
+		double bestQuality = 0;
+		for (String range : accept.split(",")) {
+			String[] parts = range.split(";");
+			double quality = quality(MediaFormat.parameter(parts, "q"));
+			if (quality <= bestQuality) {
+				continue;
+			}
+			MediaFormat candidate = candidate(parts);
+			if (candidate != null) {
+				best = candidate;
+				bestQuality = quality;
+			}
+		}
+		return best;
+	}
+
+	private static double quality(String q) {
+		if (q == null) {
+			return 1;
+		}
+		try {
+			return Double.parseDouble(q);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return 対応していない形式・エンコーディングの場合はnull
+	 */
+	private static MediaFormat candidate(String[] parts) {
+		String type = parts[0].trim().toLowerCase(Locale.ROOT);
+		if ("*/*".equals(type) || "application/*".equals(type)) {
+			return MediaFormat.JSON_UTF8;
+		}
+		WireFormat format = WireFormat.forMediaType(type);
+		if (format == null) {
+			return null;
+		}
+		if (format.isBinary()) {
+			return MediaFormat.of(format);
+		}
+		String charsetName = MediaFormat.parameter(parts, "charset");
+		if (charsetName == null) {
+			return MediaFormat.JSON_UTF8;
+		}
+		try {
+			return Charset.isSupported(charsetName) ? MediaFormat.json(Charset.forName(charsetName)) : null;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * バイト列を直接読み込めるObjectReaderを返します
+	 *
+	 * @throws IllegalArgumentException InputStreamReaderが必要なエンコーディングの場合（{@link #read(InputStream, MediaFormat, Class)}を使用します）
+	 */
+	public ObjectReader reader(Class<?> type, MediaFormat format) {
+		JavaType javaType = mapper.constructType(type);
+		if (format.getFormat().isBinary()) {
+			return binaryReaders.computeIfAbsent(new Key(javaType, format.getFormat()),
+					k -> mapper.readerFor(k.type).with(binaryFactories.get(k.format)));
+		}
+		Charset charset = format.getCharset();
+		if (charset == null) {
+			return registry.detectingReader(javaType);
+		}
+		if (isUnicode(charset) && !StandardCharsets.UTF_8.equals(charset)) {
+			return mapper.readerFor(javaType);
+		}
+		return registry.reader(javaType, charset);
+	}
+
+	/**
+	 * バイト列を直接書き出せるObjectWriterを返します
+	 *
+	 * @throws IllegalArgumentException OutputStreamWriter等が必要なエンコーディングの場合（{@link #write(OutputStream, MediaFormat, Object)}を使用します）
+	 */
+	public ObjectWriter writer(Class<?> type, MediaFormat format) {
+		JavaType javaType = mapper.constructType(type);
+		if (format.getFormat().isBinary()) {
+			return binaryWriters.computeIfAbsent(new Key(javaType, format.getFormat()),
+					k -> mapper.writerFor(k.type).with(binaryFactories.get(k.format)));
+		}
+		Charset charset = format.getCharset();
+		return registry.writer(javaType, (charset == null) ? StandardCharsets.UTF_8 : charset);
+	}
+
+	public <T> T read(InputStream in, MediaFormat format, Class<T> type) throws IOException {
+		if (format.getFormat().isBinary() || !needsReader(format.getCharset())) {
+			return reader(type, format).readValue(in);
+		}
+		return mapper.readerFor(type).readValue(new InputStreamReader(in, format.getCharset()));
+	}
+
+	public <T> T read(byte[] data, MediaFormat format, Class<T> type) throws IOException {
+		return read(data, 0, data.length, format, type);
+	}
+
+	public <T> T read(byte[] data, int off, int len, MediaFormat format, Class<T> type) throws IOException {
+		if (format.getFormat().isBinary() || !needsReader(format.getCharset())) {
+			return reader(type, format).readValue(data, off, len);
+		}
+		return mapper.readerFor(type).readValue(new String(data, off, len, format.getCharset()));
+	}
+
+	public void write(OutputStream out, MediaFormat format, Object value) throws IOException {
+		Charset charset = format.getCharset();
+		if (format.getFormat().isBinary() || !needsWriter(charset)) {
+			writer(value.getClass(), format).writeValue(out, value);
+			return;
+		}
+		JsonEncoding encoding = jsonEncoding(charset);
+		if (encoding != null) {
+			try (JsonGenerator gen = mapper.getFactory().createGenerator(out, encoding)) {
+				mapper.writerFor(value.getClass()).writeValue(gen, value);
+			}
+			return;
+		}
+		try (Writer writer = new OutputStreamWriter(out, charset)) {
+			mapper.writerFor(value.getClass()).with(new UnmappableCharacterEscapes(charset)).writeValue(writer, value);
+		}
+	}
+
+	public byte[] writeValueAsBytes(MediaFormat format, Object value) throws IOException {
+		if (format.getFormat().isBinary() || !needsWriter(format.getCharset())) {
+			return writer(value.getClass(), format).writeValueAsBytes(value);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(out, format, value);
+		return out.toByteArray();
+	}
+
+	private static boolean isUnicode(Charset charset) {
+		String name = charset.name();
+		return StandardCharsets.UTF_8.equals(charset) || name.startsWith("UTF-16") || name.startsWith("UTF-32");
+	}
+
+	/**
+	 * @return バイト列を直接読み込めない（InputStreamReaderが必要な）場合はtrue
+	 */
+	private static boolean needsReader(Charset charset) {
+		return charset != null && !isUnicode(charset) && LegacyCharset.forCharset(charset) == null;
+	}
+
+	/**
+	 * @return CodecRegistryのObjectWriterで書き出せない場合はtrue
+	 */
+	private static boolean needsWriter(Charset charset) {
+		return charset != null && !StandardCharsets.UTF_8.equals(charset) && LegacyCharset.forCharset(charset) == null;
+	}
+
+	/**
+	 * @return JsonEncodingで書き出せるUTF-16 / UTF-32（バイト順の指定があるもの）の場合はそのJsonEncoding、それ以外はnull
+	 */
+	private static JsonEncoding jsonEncoding(Charset charset) {
+		for (JsonEncoding e : JsonEncoding.values()) {
+			if (e != JsonEncoding.UTF8 && e.getJavaName().equals(charset.name())) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	private static final class Key {
+
+		final JavaType type;
+
+		final WireFormat format;
+
+		Key(JavaType type, WireFormat format) {
+			this.type = type;
+			this.format = format;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return type.equals(other.type) && format == other.format;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + format.hashCode();
+		}
+	}
+}
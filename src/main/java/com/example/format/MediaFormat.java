@@ -0,0 +1,132 @@
+package com.example.format;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ *
+ * 形式とエンコーディング（JSONの場合のみ）の組み合わせです。Content-Typeとの変換を行います。
+ *
+ * 使用例:
+ * MediaFormat format = MediaFormat.parse("application/json; charset=Shift_JIS");
+ * format.getFormat();      // WireFormat.JSON
+ * format.getCharset();     // Shift_JIS
+ * format.toContentType();  // "application/json; charset=Shift_JIS"
+ *
+ */
+public final class MediaFormat {
+
+	public static final MediaFormat JSON_UTF8 = new MediaFormat(WireFormat.JSON, StandardCharsets.UTF_8);
+
+	public static final MediaFormat SMILE = new MediaFormat(WireFormat.SMILE, null);
+
+	public static final MediaFormat CBOR = new MediaFormat(WireFormat.CBOR, null);
+
+	private final WireFormat format;
+
+	private final Charset charset;
+
+	private MediaFormat(WireFormat format, Charset charset) {
+		this.format = format;
+		this.charset = charset;
+	}
+
+	/**
+	 * @param charset nullの場合、読み込む時は先頭部分から判定し、書き出す時はUTF-8で書き出します
+	 */
+	public static MediaFormat json(Charset charset) {
+		return new MediaFormat(WireFormat.JSON, charset);
+	}
+
+	/**
+	 * @return バイナリの形式の場合は、エンコーディングを持たないMediaFormat。JSONの場合はエンコーディングがnullのMediaFormat
+	 */
+	public static MediaFormat of(WireFormat format) {
+		switch (format) {
+		case SMILE:
+			return SMILE;
+		case CBOR:
+			return CBOR;
+		default:
+			return json(null);
+		}
+	}
+
+	/**
+	 * Content-Typeを解析します。JSON以外のcharsetパラメータは無視します
+	 *
+	 * @return 対応していない形式の場合はnull
+	 * @throws IllegalArgumentException charsetパラメータのエンコーディングが不正、またはjavaで扱えない場合
+	 */
+	public static MediaFormat parse(String contentType) {
+		String[] parts = contentType.split(";");
+		WireFormat format = WireFormat.forMediaType(parts[0]);
+		if (format == null) {
+			return null;
+		}
+		if (format.isBinary()) {
+			return of(format);
+		}
+		String charsetName = parameter(parts, "charset");
+		return json((charsetName == null) ? null : Charset.forName(charsetName));
+	}
+
+	/**
+	 * @return 「;」で区切った2つ目以降から、nameのパラメータの値（前後の空白と「"」を除く）。ない場合はnull
+	 */
+	static String parameter(String[] parts, String name) {
+		for (int i = 1; i < parts.length; i++) {
+			int eq = parts[i].indexOf('=');
+			if (eq > 0 && parts[i].substring(0, eq).trim().toLowerCase(Locale.ROOT).equals(name)) {
+				String value = parts[i].substring(eq + 1).trim();
+				if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+					value = value.substring(1, value.length() - 1);
+				}
+				return value;
+			}
+		}
+		return null;
+	}
+
+	public WireFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return JSONのエンコーディング。バイナリの形式、またはJSONで指定がない場合はnull
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * @return レスポンス等のContent-Type。JSONでエンコーディングを指定している場合はcharsetパラメータを付けます
+	 */
+	public String toContentType() {
+		return (charset == null) ? format.mediaType() : format.mediaType() + "; charset=" + charset.name();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof MediaFormat)) {
+			return false;
+		}
+		MediaFormat other = (MediaFormat) o;
+		return format == other.format && Objects.equals(charset, other.charset);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * format.hashCode() + Objects.hashCode(charset);
+	}
+
+	@Override
+	public String toString() {
+		return toContentType();
+	}
+}
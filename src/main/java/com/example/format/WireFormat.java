@@ -0,0 +1,72 @@
+package com.example.format;
+
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ *
+ * {@link FormatNegotiator}で選択できる形式です。
+ * JSONのエンコーディングは{@link MediaFormat}で指定します。
+ *
+ */
+public enum WireFormat {
+
+	JSON("application/json"),
+
+	/**
+	 * JacksonのバイナリのJSON（<a href="https://github.com/FasterXML/smile-format-specification">Smile</a>）
+	 */
+	SMILE("application/x-jackson-smile"),
+
+	/**
+	 * RFC 7049
+	 */
+	CBOR("application/cbor");
+
+	private final String mediaType;
+
+	private WireFormat(String mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	public String mediaType() {
+		return mediaType;
+	}
+
+	public boolean isBinary() {
+		return this != JSON;
+	}
+
+	/**
+	 * バイナリの形式の場合に、読み書きに使用するJsonFactoryを作成します
+	 *
+	 * @return JSONの場合はnull（ObjectMapperのJsonFactory、またはエンコーディングに応じたJsonFactoryを使用します）
+	 */
+	public JsonFactory createBinaryFactory() {
+		switch (this) {
+		case SMILE:
+			return new SmileFactory();
+		case CBOR:
+			return new CBORFactory();
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @param mediaType 「application/json」等（パラメータを含まない）。大文字・小文字は区別しません
+	 * @return 対応していない場合はnull
+	 */
+	public static WireFormat forMediaType(String mediaType) {
+		String normalized = mediaType.trim().toLowerCase(Locale.ROOT);
+		for (WireFormat f : values()) {
+			if (f.mediaType.equals(normalized)) {
+				return f;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,450 @@
+package com.example.frame;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ *
+ * {@link FrameWriter}で書き出したフレーム（varintの長さ + 内容）を1件ずつ読み込みます。
+ *
+ * 使用例:
+ * DataInputStream din = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+ * FrameReader frames = FrameReader.of(mapper, din);
+ * int age = din.readInt();
+ * PersonName name = frames.readValue(PersonName.class);
+ * char kanaCode = din.readChar();
+ *
+ * ObjectMapper#readValue(DataInput, ...)は1バイトずつDataInput#readByteで読み込み、
+ * またJSONの終わりが分からないため、続けて読み込む値との境目を自分で判定します。
+ * FrameReaderは長さを先に読み込み、内容をまとめて（readFully / チャネルのread）バイト配列に読み込んでから、
+ * その配列を直接パーサーに渡します。{@link #skip()}では内容を読み込まずに（チャネルがSeekableByteChannelの場合は位置を進めて）次に進みます。
+ *
+ * 長さが上限（{@link #DEFAULT_MAX_FRAME_LENGTH}、または指定した値）を超えるフレームは、バッファを割り当てる前にIOExceptionとします
+ * （壊れた・不正な長さで、最大2GBのバッファを割り当てないため）。その場合もフレームは読み込み前のままで、{@link #skip()}で読み飛ばせます。
+ * 内部のバッファ（64KB）より大きいフレームのために割り当てたバッファは、次のフレームまでに手放します。
+ *
+ * DataOutput#writeUTFで書き出したJSON（modified UTF-8）は、{@link #readUTFValue(DataInput, ObjectReader)}で読み込みます。
+ *
+ */
+public class FrameReader implements Closeable {
+
+	/**
+	 * 読み込むフレームの長さの上限（64MB）
+	 */
+	public static final int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+	private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * DataInputから読み込む場合に、使い回すバッファの大きさの上限。これより大きいフレームは、その都度割り当てます
+	 */
+	private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+	private final ObjectReader reader;
+
+	private final FrameSource source;
+
+	private final int maxFrameLength;
+
+	private final ConcurrentHashMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	/**
+	 * 読み込み済みの、次のフレームの長さ。まだ読み込んでいない場合は-1
+	 */
+	private int nextLength = -1;
+
+	private boolean eof;
+
+	private long frameCount;
+
+	protected FrameReader(ObjectReader reader, FrameSource source) {
+		this(reader, source, DEFAULT_MAX_FRAME_LENGTH);
+	}
+
+	protected FrameReader(ObjectReader reader, FrameSource source, int maxFrameLength) {
+		if (maxFrameLength < 0) {
+			throw new IllegalArgumentException("maxFrameLength must not be negative: " + maxFrameLength);
+		}
+		this.reader = reader;
+		this.source = source;
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	public static FrameReader of(ObjectMapper mapper, DataInput input) {
+		return new FrameReader(mapper.reader(), new DataInputSource(input));
+	}
+
+	public static FrameReader of(ObjectReader reader, DataInput input) {
+		return new FrameReader(reader, new DataInputSource(input));
+	}
+
+	/**
+	 * @param maxFrameLength 読み込むフレームの長さの上限（バイト数）
+	 */
+	public static FrameReader of(ObjectReader reader, DataInput input, int maxFrameLength) {
+		return new FrameReader(reader, new DataInputSource(input), maxFrameLength);
+	}
+
+	/**
+	 * @param channel closeした時に、一緒にcloseされます
+	 */
+	public static FrameReader of(ObjectMapper mapper, ReadableByteChannel channel) {
+		return new FrameReader(mapper.reader(), new ChannelSource(channel));
+	}
+
+	/**
+	 * @param channel closeした時に、一緒にcloseされます
+	 */
+	public static FrameReader of(ObjectReader reader, ReadableByteChannel channel) {
+		return new FrameReader(reader, new ChannelSource(channel));
+	}
+
+	/**
+	 * @param channel closeした時に、一緒にcloseされます
+	 * @param maxFrameLength 読み込むフレームの長さの上限（バイト数）
+	 */
+	public static FrameReader of(ObjectReader reader, ReadableByteChannel channel, int maxFrameLength) {
+		return new FrameReader(reader, new ChannelSource(channel), maxFrameLength);
+	}
+
+	/**
+	 * DataOutput#writeUTFで書き出したJSONを読み込みます。
+	 * ObjectMapper#readValue(DataInput, ...)では、先頭2バイトの長さや、modified UTF-8で書き出されたサロゲートペア（「𠮷」等）・NUL文字を
+	 * UTF-8として扱えないため、DataInput#readUTFで文字列にしてから読み込みます
+	 *
+	 * @param reader 読み込む型を指定したObjectReader（ObjectMapper#readerFor等）
+	 */
+	public static <T> T readUTFValue(DataInput input, ObjectReader reader) throws IOException {
+		return reader.readValue(input.readUTF());
+	}
+
+	/**
+	 * @return 次のフレームがある場合はtrue。フレームの境目で入力が終わっている場合はfalse
+	 */
+	public boolean hasNext() throws IOException {
+		if (nextLength < 0 && !eof) {
+			nextLength = source.readLength();
+			eof = nextLength < 0;
+		}
+		return !eof;
+	}
+
+	/**
+	 * @throws EOFException 次のフレームがない場合
+	 * @throws IOException フレームの長さが上限を超えている場合
+	 */
+	public <T> T readValue(Class<T> type) throws IOException {
+		int length = requireNext();
+		ByteBuffer payload = source.readPayload(length);
+		frameCount++;
+		return reader(type).readValue(payload.array(), payload.arrayOffset() + payload.position(), length);
+	}
+
+	/**
+	 * @param valueReader 読み込む型を指定したObjectReader
+	 * @throws EOFException 次のフレームがない場合
+	 * @throws IOException フレームの長さが上限を超えている場合
+	 */
+	public <T> T readValue(ObjectReader valueReader) throws IOException {
+		int length = requireNext();
+		ByteBuffer payload = source.readPayload(length);
+		frameCount++;
+		return valueReader.readValue(payload.array(), payload.arrayOffset() + payload.position(), length);
+	}
+
+	/**
+	 * 次のフレームの内容を、そのままバイト列として返します
+	 *
+	 * @throws EOFException 次のフレームがない場合
+	 * @throws IOException フレームの長さが上限を超えている場合
+	 */
+	public byte[] readFrame() throws IOException {
+		int length = requireNext();
+		ByteBuffer payload = source.readPayload(length);
+		frameCount++;
+		int from = payload.arrayOffset() + payload.position();
+		return Arrays.copyOfRange(payload.array(), from, from + length);
+	}
+
+	/**
+	 * 次のフレームを、内容を読み込まずに読み飛ばします
+	 *
+	 * @return 読み飛ばした場合はtrue、次のフレームがない場合はfalse
+	 */
+	public boolean skip() throws IOException {
+		if (!hasNext()) {
+			return false;
+		}
+		source.skip(nextLength);
+		nextLength = -1;
+		frameCount++;
+		return true;
+	}
+
+	/**
+	 * @return 読み飛ばしたフレームの数。途中で入力が終わった場合はnより少なくなります
+	 */
+	public long skip(long n) throws IOException {
+		long skipped = 0;
+		while (skipped < n && skip()) {
+			skipped++;
+		}
+		return skipped;
+	}
+
+	/**
+	 * @return これまでに読み込んだ（読み飛ばしたものを含む）フレームの数
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	public int getMaxFrameLength() {
+		return maxFrameLength;
+	}
+
+	@Override
+	public void close() throws IOException {
+		source.close();
+	}
+
+	private int requireNext() throws IOException {
+		if (!hasNext()) {
+			throw new EOFException("No more frames");
+		}
+		if (nextLength > maxFrameLength) {
+			throw new IOException("Frame length " + nextLength + " exceeds the maximum of " + maxFrameLength + " bytes");
+		}
+		int length = nextLength;
+		nextLength = -1;
+		return length;
+	}
+
+	private ObjectReader reader(Class<?> type) {
+		ObjectReader cached = readers.get(type);
+		return (cached != null) ? cached : readers.computeIfAbsent(type, reader::forType);
+	}
+
+	/**
+	 * フレームを読み込む元
+	 */
+	interface FrameSource extends Closeable {
+
+		/**
+		 * @return 次のフレームの長さ。入力が終わっている場合は-1
+		 */
+		int readLength() throws IOException;
+
+		/**
+		 * @return 内容を、position～position + lengthに持つバッファ。次の呼び出しまで有効です
+		 */
+		ByteBuffer readPayload(int length) throws IOException;
+
+		void skip(int length) throws IOException;
+	}
+
+	/**
+	 * varintの残り（2バイト目以降）を読み込みます
+	 */
+	private static int decodeVarint(int first, ByteSupplier next) throws IOException {
+		long value = first & 0x7F;
+		int b = first;
+		for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+			if (shift >= 7 * FrameWriter.MAX_HEADER_SIZE) {
+				throw new IOException("Malformed frame length: varint is longer than " + FrameWriter.MAX_HEADER_SIZE
+						+ " bytes");
+			}
+			b = next.get();
+			value |= (long) (b & 0x7F) << shift;
+		}
+		if (value > Integer.MAX_VALUE) {
+			throw new IOException("Malformed frame length: " + value);
+		}
+		return (int) value;
+	}
+
+	private interface ByteSupplier {
+
+		int get() throws IOException;
+	}
+
+	private static final class DataInputSource implements FrameSource {
+
+		private final DataInput input;
+
+		private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+		DataInputSource(DataInput input) {
+			this.input = input;
+		}
+
+		@Override
+		public int readLength() throws IOException {
+			int first;
+			try {
+				first = input.readUnsignedByte();
+			} catch (EOFException e) {
+				return -1;
+			}
+			return decodeVarint(first, input::readUnsignedByte);
+		}
+
+		@Override
+		public ByteBuffer readPayload(int length) throws IOException {
+			if (length > MAX_RETAINED_BUFFER_SIZE) {
+				byte[] payload = new byte[length];
+				input.readFully(payload);
+				return ByteBuffer.wrap(payload);
+			}
+			if (buffer.capacity() < length) {
+				buffer = ByteBuffer.allocate(
+						Math.min(Math.max(length, buffer.capacity() * 2), MAX_RETAINED_BUFFER_SIZE));
+			}
+			input.readFully(buffer.array(), 0, length);
+			buffer.clear();
+			return buffer;
+		}
+
+		@Override
+		public void skip(int length) throws IOException {
+			while (length > 0) {
+				int n = input.skipBytes(length);
+				if (n <= 0) {
+					input.readByte();
+					n = 1;
+				}
+				length -= n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (input instanceof Closeable) {
+				((Closeable) input).close();
+			}
+		}
+	}
+
+	private static final class ChannelSource implements FrameSource {
+
+		private final ReadableByteChannel channel;
+
+		/**
+		 * 読み込み済みで、まだ使用していない部分がposition～limitにあります
+		 */
+		private ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BUFFER_SIZE);
+
+		ChannelSource(ReadableByteChannel channel) {
+			this.channel = channel;
+			buffer.flip();
+		}
+
+		/**
+		 * バッファにminバイト以上が読み込まれるまで読み込みます
+		 *
+		 * @return 入力が終わり、minバイトに満たない場合はfalse
+		 */
+		private boolean fill(int min) throws IOException {
+			if (buffer.remaining() >= min) {
+				return true;
+			}
+			if (buffer.capacity() < min) {
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(min, buffer.capacity() * 2));
+				larger.put(buffer);
+				buffer = larger;
+			} else {
+				buffer.compact();
+			}
+			try {
+				while (buffer.position() < min) {
+					if (channel.read(buffer) < 0) {
+						return false;
+					}
+				}
+				return true;
+			} finally {
+				buffer.flip();
+			}
+		}
+
+		private int nextByte() throws IOException {
+			if (!fill(1)) {
+				throw new EOFException("Unexpected end of input in a frame length");
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		/**
+		 * 大きくしたバッファを、残りが収まる場合は元の大きさに戻します
+		 */
+		private void shrink() {
+			if (buffer.capacity() > CHANNEL_BUFFER_SIZE && buffer.remaining() <= CHANNEL_BUFFER_SIZE) {
+				ByteBuffer smaller = ByteBuffer.allocate(CHANNEL_BUFFER_SIZE);
+				smaller.put(buffer);
+				smaller.flip();
+				buffer = smaller;
+			}
+		}
+
+		@Override
+		public int readLength() throws IOException {
+			shrink();
+			if (!fill(1)) {
+				return -1;
+			}
+			return decodeVarint(buffer.get() & 0xFF, this::nextByte);
+		}
+
+		@Override
+		public ByteBuffer readPayload(int length) throws IOException {
+			if (!fill(length)) {
+				throw new EOFException("Unexpected end of input in a frame of " + length + " bytes");
+			}
+			ByteBuffer payload = buffer.duplicate();
+			buffer.position(buffer.position() + length);
+			return payload;
+		}
+
+		@Override
+		public void skip(int length) throws IOException {
+			int inBuffer = Math.min(length, buffer.remaining());
+			buffer.position(buffer.position() + inBuffer);
+			long rest = length - inBuffer;
+			if (rest == 0) {
+				return;
+			}
+			if (channel instanceof SeekableByteChannel) {
+				SeekableByteChannel seekable = (SeekableByteChannel) channel;
+				long target = seekable.position() + rest;
+				if (target > seekable.size()) {
+					throw new EOFException("Unexpected end of input in a frame of " + length + " bytes");
+				}
+				seekable.position(target);
+				return;
+			}
+			while (rest > 0) {
+				if (!fill(1)) {
+					throw new EOFException("Unexpected end of input in a frame of " + length + " bytes");
+				}
+				int n = (int) Math.min(rest, buffer.remaining());
+				buffer.position(buffer.position() + n);
+				rest -= n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.example.frame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ *
+ * 1件ずつ「長さ + 内容」の形式（フレーム）で書き出します。{@link FrameReader}で読み込みます。
+ *
+ * 使用例:
+ * DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+ * FrameWriter frames = FrameWriter.of(mapper, dout);
+ * dout.writeInt(person.getAge());
+ * frames.writeValue(person.getPersonName());
+ * dout.writeChar(person.getKanaCode());
+ *
+ * 長さは内容のバイト数を符号なしのvarint（7ビットずつ、下位から。最大5バイト）で書き出します。
+ * 内容はObjectMapperのJsonFactoryで書き出すため、new ObjectMapper()の場合はUTF-8のJSONで、
+ * LegacyCharsetJsonFactory等のObjectMapperの場合はそのエンコーディング・形式になります。
+ * {@link #writeFrame(byte[], int, int)}で、任意のバイト列をそのまま1件として書き出すこともできます。
+ *
+ * DataOutputに書き出す場合は、1件ごとにDataOutputへ書き出すため、前後にDataOutputのメソッドで書き出した値と混在できます
+ * （バッファリングが必要な場合は、DataOutputStreamの下にBufferedOutputStreamを使用します）。
+ * チャネルに書き出す場合は内部のバッファ（64KB）が一杯になるか、{@link #flush()}した時に書き出します。
+ *
+ */
+public class FrameWriter implements Flushable, Closeable {
+
+	/**
+	 * varintの最大のバイト数
+	 */
+	static final int MAX_HEADER_SIZE = 5;
+
+	private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+	private final ObjectWriter writer;
+
+	private final DataOutput output;
+
+	private final WritableByteChannel channel;
+
+	/**
+	 * チャネルに書き出す前に、フレームをまとめておくバッファ
+	 */
+	private final ByteBuffer channelBuffer;
+
+	/**
+	 * 内容を書き出すバッファ。先頭のMAX_HEADER_SIZEバイトは長さのために空けておき、使い回します
+	 */
+	private final FrameBuffer frameBuffer = new FrameBuffer();
+
+	private long frameCount;
+
+	protected FrameWriter(ObjectWriter writer, DataOutput output, WritableByteChannel channel) {
+		this.writer = writer;
+		this.output = output;
+		this.channel = channel;
+		this.channelBuffer = (channel == null) ? null : ByteBuffer.allocate(CHANNEL_BUFFER_SIZE);
+	}
+
+	public static FrameWriter of(ObjectMapper mapper, DataOutput output) {
+		return new FrameWriter(mapper.writer(), output, null);
+	}
+
+	public static FrameWriter of(ObjectWriter writer, DataOutput output) {
+		return new FrameWriter(writer, output, null);
+	}
+
+	/**
+	 * @param channel closeした時に、一緒にcloseされます
+	 */
+	public static FrameWriter of(ObjectMapper mapper, WritableByteChannel channel) {
+		return new FrameWriter(mapper.writer(), null, channel);
+	}
+
+	/**
+	 * @param channel closeした時に、一緒にcloseされます
+	 */
+	public static FrameWriter of(ObjectWriter writer, WritableByteChannel channel) {
+		return new FrameWriter(writer, null, channel);
+	}
+
+	/**
+	 * valueを1件のフレームとして書き出します
+	 */
+	public void writeValue(Object value) throws IOException {
+		frameBuffer.reset();
+		writer.writeValue(frameBuffer, value);
+		byte[] buf = frameBuffer.buffer();
+		int length = frameBuffer.size() - MAX_HEADER_SIZE;
+		int start = MAX_HEADER_SIZE - varintSize(length);
+		writeVarint(buf, start, length);
+		writeBytes(buf, start, MAX_HEADER_SIZE + length - start);
+		frameCount++;
+	}
+
+	/**
+	 * 任意のバイト列を1件のフレームとして書き出します
+	 */
+	public void writeFrame(byte[] payload, int offset, int length) throws IOException {
+		byte[] header = new byte[varintSize(length)];
+		writeVarint(header, 0, length);
+		if (channel == null) {
+			output.write(header);
+			output.write(payload, offset, length);
+		} else {
+			writeBytes(header, 0, header.length);
+			writeBytes(payload, offset, length);
+		}
+		frameCount++;
+	}
+
+	public void writeFrame(byte[] payload) throws IOException {
+		writeFrame(payload, 0, payload.length);
+	}
+
+	/**
+	 * @return これまでに書き出したフレームの数
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * チャネルの場合はバッファの内容を書き出します。DataOutputの場合、DataOutputがFlushableであればflushします
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (channel != null) {
+			channelBuffer.flip();
+			while (channelBuffer.hasRemaining()) {
+				channel.write(channelBuffer);
+			}
+			channelBuffer.clear();
+		} else if (output instanceof Flushable) {
+			((Flushable) output).flush();
+		}
+	}
+
+	/**
+	 * flushしてから、チャネルまたはDataOutput（Closeableの場合）をcloseします
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		if (channel != null) {
+			channel.close();
+		} else if (output instanceof Closeable) {
+			((Closeable) output).close();
+		}
+	}
+
+	private void writeBytes(byte[] b, int offset, int length) throws IOException {
+		if (channel == null) {
+			output.write(b, offset, length);
+			return;
+		}
+		if (length > channelBuffer.remaining()) {
+			flush();
+		}
+		if (length > channelBuffer.remaining()) {
+			ByteBuffer large = ByteBuffer.wrap(b, offset, length);
+			while (large.hasRemaining()) {
+				channel.write(large);
+			}
+		} else {
+			channelBuffer.put(b, offset, length);
+		}
+	}
+
+	static int varintSize(int value) {
+		int size = 1;
+		while ((value >>>= 7) != 0) {
+			size++;
+		}
+		return size;
+	}
+
+	static void writeVarint(byte[] b, int offset, int value) {
+		while ((value & ~0x7F) != 0) {
+			b[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		b[offset] = (byte) value;
+	}
+
+	/**
+	 * 先頭に長さの分を空けた、内部の配列を参照できるByteArrayOutputStream
+	 */
+	private static final class FrameBuffer extends ByteArrayOutputStream {
+
+		FrameBuffer() {
+			super(256);
+		}
+
+		@Override
+		public void reset() {
+			count = MAX_HEADER_SIZE;
+		}
+
+		byte[] buffer() {
+			return buf;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.example.metrics;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+
+/**
+ *
+ * 再利用できるバッファがなく、新しく割り当てた回数を数えるBufferRecyclerです。
+ * balloc / callocは、BufferRecyclerにバッファがない（または小さい）場合にだけ呼び出されます。
+ *
+ */
+final class CountingBufferRecycler extends BufferRecycler {
+
+	// 1つのスレッド（または1回の読み書き）だけが更新し、closeしたスレッドから参照します
+	private volatile long misses;
+
+	@Override
+	protected byte[] balloc(int size) {
+		misses++;
+		return super.balloc(size);
+	}
+
+	@Override
+	protected char[] calloc(int size) {
+		misses++;
+		return super.calloc(size);
+	}
+
+	long getMisses() {
+		return misses;
+	}
+}
@@ -0,0 +1,127 @@
+package com.example.metrics;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ *
+ * 読み込んだバイト数を{@link MeteredIOContext}に加算するDataInputです。
+ *
+ */
+final class CountingDataInput implements DataInput {
+
+	private final DataInput in;
+
+	private final MeteredIOContext meter;
+
+	CountingDataInput(DataInput in, MeteredIOContext meter) {
+		this.in = in;
+		this.meter = meter;
+	}
+
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		in.readFully(b);
+		meter.bytes += b.length;
+	}
+
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		in.readFully(b, off, len);
+		meter.bytes += len;
+	}
+
+	@Override
+	public int skipBytes(int n) throws IOException {
+		int skipped = in.skipBytes(n);
+		meter.bytes += skipped;
+		return skipped;
+	}
+
+	@Override
+	public boolean readBoolean() throws IOException {
+		boolean v = in.readBoolean();
+		meter.bytes++;
+		return v;
+	}
+
+	@Override
+	public byte readByte() throws IOException {
+		byte v = in.readByte();
+		meter.bytes++;
+		return v;
+	}
+
+	@Override
+	public int readUnsignedByte() throws IOException {
+		int v = in.readUnsignedByte();
+		meter.bytes++;
+		return v;
+	}
+
+	@Override
+	public short readShort() throws IOException {
+		short v = in.readShort();
+		meter.bytes += 2;
+		return v;
+	}
+
+	@Override
+	public int readUnsignedShort() throws IOException {
+		int v = in.readUnsignedShort();
+		meter.bytes += 2;
+		return v;
+	}
+
+	@Override
+	public char readChar() throws IOException {
+		char v = in.readChar();
+		meter.bytes += 2;
+		return v;
+	}
+
+	@Override
+	public int readInt() throws IOException {
+		int v = in.readInt();
+		meter.bytes += 4;
+		return v;
+	}
+
+	@Override
+	public long readLong() throws IOException {
+		long v = in.readLong();
+		meter.bytes += 8;
+		return v;
+	}
+
+	@Override
+	public float readFloat() throws IOException {
+		float v = in.readFloat();
+		meter.bytes += 4;
+		return v;
+	}
+
+	@Override
+	public double readDouble() throws IOException {
+		double v = in.readDouble();
+		meter.bytes += 8;
+		return v;
+	}
+
+	/**
+	 * 読み込んだバイト数が分からないため、数えません（JsonParserは使用しません）
+	 */
+	@Override
+	@Deprecated
+	public String readLine() throws IOException {
+		return in.readLine();
+	}
+
+	/**
+	 * 読み込んだバイト数が分からないため、数えません（JsonParserは使用しません）
+	 */
+	@Override
+	public String readUTF() throws IOException {
+		return in.readUTF();
+	}
+}
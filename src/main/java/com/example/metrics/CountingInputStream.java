@@ -0,0 +1,50 @@
+package com.example.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ *
+ * 読み込んだバイト数を{@link MeteredIOContext}に加算するInputStreamです。
+ *
+ */
+final class CountingInputStream extends FilterInputStream {
+
+	private final MeteredIOContext meter;
+
+	CountingInputStream(InputStream in, MeteredIOContext meter) {
+		super(in);
+		this.meter = meter;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if (b >= 0) {
+			meter.bytes++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = in.read(b, off, len);
+		if (n > 0) {
+			meter.bytes += n;
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(n);
+		meter.bytes += skipped;
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
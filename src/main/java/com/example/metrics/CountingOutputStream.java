@@ -0,0 +1,33 @@
+package com.example.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ *
+ * 書き出したバイト数を{@link MeteredIOContext}に加算するOutputStreamです。
+ *
+ */
+final class CountingOutputStream extends FilterOutputStream {
+
+	private final MeteredIOContext meter;
+
+	CountingOutputStream(OutputStream out, MeteredIOContext meter) {
+		super(out);
+		this.meter = meter;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		meter.bytes++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		// FilterOutputStreamの既定の実装は1バイトずつ書き出すため、そのまま渡します
+		out.write(b, off, len);
+		meter.bytes += len;
+	}
+}
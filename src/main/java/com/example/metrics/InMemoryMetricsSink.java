@@ -0,0 +1,78 @@
+package com.example.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * 計測値を、経路・エンコーディングごとにメモリ上で集計する{@link MetricsSink}です。
+ *
+ * 使用例:
+ * InMemoryMetricsSink sink = new InMemoryMetricsSink();
+ * ObjectMapper mapper = new InstrumentedObjectMapper(sink);
+ * ...
+ * RouteStats stats = sink.getStats(Route.READ_READER, "Shift_JIS");
+ * long p99 = stats.getLatency().getPercentileNanos(99);
+ *
+ * 記録は、既にある集計への加算だけです（経路・エンコーディングの組み合わせごとに、最初の1回だけ集計を作成します）。
+ * 定期的に{@link #getAll()}を外部へ送る場合や、テストでの確認に使用します。
+ *
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+
+	private final Map<Route, ConcurrentHashMap<String, RouteStats>> routes = new EnumMap<>(Route.class);
+
+	public InMemoryMetricsSink() {
+		for (Route route : Route.values()) {
+			routes.put(route, new ConcurrentHashMap<>());
+		}
+	}
+
+	@Override
+	public void record(SerializationSample sample) {
+		ConcurrentHashMap<String, RouteStats> charsets = routes.get(sample.getRoute());
+		RouteStats stats = charsets.get(sample.getCharset());
+		if (stats == null) {
+			stats = charsets.computeIfAbsent(sample.getCharset(), c -> new RouteStats(sample.getRoute(), c));
+		}
+		stats.add(sample);
+	}
+
+	/**
+	 * @return まだ記録がない場合はnull
+	 */
+	public RouteStats getStats(Route route, String charset) {
+		return routes.get(route).get(charset);
+	}
+
+	/**
+	 * @return エンコーディングごとの集計
+	 */
+	public Map<String, RouteStats> getStats(Route route) {
+		return Collections.unmodifiableMap(routes.get(route));
+	}
+
+	/**
+	 * @return 記録があるすべての集計（経路の順）
+	 */
+	public List<RouteStats> getAll() {
+		List<RouteStats> all = new ArrayList<>();
+		for (ConcurrentHashMap<String, RouteStats> charsets : routes.values()) {
+			all.addAll(charsets.values());
+		}
+		return all;
+	}
+
+	/**
+	 * 集計をすべて削除します
+	 */
+	public void clear() {
+		for (ConcurrentHashMap<String, RouteStats> charsets : routes.values()) {
+			charsets.clear();
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package com.example.metrics;
+
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.nio.charset.Charset;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.DataOutputAsStream;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+/**
+ *
+ * 作成したJsonParser / JsonGeneratorごとに、経路（{@link Route}）・エンコーディング別の経過時間、バイト数・文字数、
+ * トークン数、変換時間、BufferRecyclerのミスを計測し、{@link MetricsSink}に出力するJsonFactoryです。
+ *
+ * 使用例:
+ * InMemoryMetricsSink sink = new InMemoryMetricsSink();
+ * ObjectMapper mapper = new ObjectMapper(new InstrumentedJsonFactory(sink));
+ *
+ * ObjectMapper#readValue(JsonParser, ...) / writeTree(JsonGenerator, ...)等の呼び出しごとにも記録する場合は、
+ * {@link InstrumentedObjectMapper}を使用します。
+ *
+ * JsonFactoryのすべてのcreateParser / createGeneratorは、IOContextの作成（_createContext）と
+ * _createParser / _createGenerator等を経由するため、ここで計測の準備とReader / Stream等のラップを行います。
+ * 1件ごとの処理は、System.nanoTimeの2回の呼び出しとフィールドへの加算、トークンごとの委譲だけです
+ * （Reader / Writerの時間は、バッファ単位の読み書きごとに計測します）。
+ *
+ * BufferRecyclerは、JsonFactoryと同じくスレッドごとに（SoftReferenceで）保持し、再利用できなかった割り当てを数えます。
+ * JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLINGを無効にした場合は、毎回新しく作成します。
+ *
+ * 非同期パーサー（createNonBlockingByteArrayParser）は計測しません。
+ *
+ */
+public class InstrumentedJsonFactory extends JsonFactory {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final ThreadLocal<SoftReference<CountingBufferRecycler>> RECYCLERS = new ThreadLocal<>();
+
+	protected final transient MetricsSink _sink;
+
+	public InstrumentedJsonFactory(MetricsSink sink) {
+		this(sink, null);
+	}
+
+	public InstrumentedJsonFactory(MetricsSink sink, ObjectCodec codec) {
+		super(codec);
+		_sink = sink;
+	}
+
+	protected InstrumentedJsonFactory(InstrumentedJsonFactory src, ObjectCodec codec) {
+		super(src, codec);
+		_sink = src._sink;
+	}
+
+	public MetricsSink getSink() {
+		return _sink;
+	}
+
+	@Override
+	public JsonFactory copy() {
+		_checkInvalidCopy(InstrumentedJsonFactory.class);
+		return new InstrumentedJsonFactory(this, null);
+	}
+
+	/**
+	 * JsonFactoryは、サブクラスのフォーマット名がJSONでない場合、DataInput / DataOutputを扱わないため指定します
+	 */
+	@Override
+	public String getFormatName() {
+		return FORMAT_NAME_JSON;
+	}
+
+	@Override
+	public BufferRecycler _getBufferRecycler() {
+		if (!isEnabled(Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING)) {
+			return new CountingBufferRecycler();
+		}
+		SoftReference<CountingBufferRecycler> ref = RECYCLERS.get();
+		CountingBufferRecycler br = (ref == null) ? null : ref.get();
+		if (br == null) {
+			br = new CountingBufferRecycler();
+			RECYCLERS.set(new SoftReference<>(br));
+		}
+		return br;
+	}
+
+	@Override
+	protected IOContext _createContext(Object srcRef, boolean resourceManaged) {
+		return new MeteredIOContext(_getBufferRecycler(), srcRef, resourceManaged, _sink);
+	}
+
+	/*
+	 * 読み込み
+	 */
+
+	@Override
+	protected JsonParser _createParser(InputStream in, IOContext ctxt) throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createParser(in, ctxt);
+		}
+		MeteredIOContext meter = (MeteredIOContext) ctxt;
+		JsonParser p = super._createParser(new CountingInputStream(in, meter), ctxt);
+		Route route = (ctxt.getSourceReference() instanceof File) ? Route.READ_FILE : Route.READ_STREAM;
+		meter.start(route, encodingName(ctxt));
+		return new InstrumentedJsonParser(p, meter);
+	}
+
+	@Override
+	protected JsonParser _createParser(Reader r, IOContext ctxt) throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createParser(r, ctxt);
+		}
+		MeteredIOContext meter = (MeteredIOContext) ctxt;
+		JsonParser p = super._createParser(new TimingReader(r, meter), ctxt);
+		// 長いStringは、JsonFactoryがStringReaderにして渡します
+		if (r instanceof StringReader) {
+			meter.start(Route.READ_STRING, SerializationSample.CHARS);
+		} else {
+			meter.start(Route.READ_READER, (r instanceof InputStreamReader)
+					? charsetName(((InputStreamReader) r).getEncoding()) : SerializationSample.CHARS);
+		}
+		return new InstrumentedJsonParser(p, meter);
+	}
+
+	@Override
+	protected JsonParser _createParser(char[] data, int offset, int len, IOContext ctxt, boolean recyclable)
+			throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createParser(data, offset, len, ctxt, recyclable);
+		}
+		MeteredIOContext meter = (MeteredIOContext) ctxt;
+		JsonParser p = super._createParser(data, offset, len, ctxt, recyclable);
+		meter.chars += len;
+		meter.start(Route.READ_STRING, SerializationSample.CHARS);
+		return new InstrumentedJsonParser(p, meter);
+	}
+
+	@Override
+	protected JsonParser _createParser(byte[] data, int offset, int len, IOContext ctxt) throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createParser(data, offset, len, ctxt);
+		}
+		MeteredIOContext meter = (MeteredIOContext) ctxt;
+		JsonParser p = super._createParser(data, offset, len, ctxt);
+		meter.bytes += len;
+		// エンコーディングは、作成時にByteSourceJsonBootstrapperが判定します
+		meter.start(Route.READ_BYTES, encodingName(ctxt));
+		return new InstrumentedJsonParser(p, meter);
+	}
+
+	@Override
+	protected JsonParser _createParser(DataInput input, IOContext ctxt) throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createParser(input, ctxt);
+		}
+		MeteredIOContext meter = (MeteredIOContext) ctxt;
+		JsonParser p = super._createParser(new CountingDataInput(input, meter), ctxt);
+		meter.start(Route.READ_DATA_INPUT, JsonEncoding.UTF8.getJavaName());
+		return new InstrumentedJsonParser(p, meter);
+	}
+
+	/*
+	 * 書き出し
+	 */
+
+	@Override
+	protected JsonGenerator _createUTF8Generator(OutputStream out, IOContext ctxt) throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createUTF8Generator(out, ctxt);
+		}
+		MeteredIOContext meter = (MeteredIOContext) ctxt;
+		JsonGenerator g = super._createUTF8Generator(new CountingOutputStream(out, meter), ctxt);
+		meter.start(outputRoute(ctxt.getSourceReference()), JsonEncoding.UTF8.getJavaName());
+		return new InstrumentedJsonGenerator(g, meter);
+	}
+
+	/**
+	 * UTF-16 / UTF-32を指定したOutputStreamへの書き出しは、ここで作成したWriterを経由します
+	 */
+	@Override
+	protected Writer _createWriter(OutputStream out, JsonEncoding enc, IOContext ctxt) throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createWriter(out, enc, ctxt);
+		}
+		return super._createWriter(new CountingOutputStream(out, (MeteredIOContext) ctxt), enc, ctxt);
+	}
+
+	@Override
+	protected JsonGenerator _createGenerator(Writer out, IOContext ctxt) throws IOException {
+		if (!(ctxt instanceof MeteredIOContext)) {
+			return super._createGenerator(out, ctxt);
+		}
+		MeteredIOContext meter = (MeteredIOContext) ctxt;
+		JsonGenerator g = super._createGenerator(new TimingWriter(out, meter), ctxt);
+		Object target = ctxt.getSourceReference();
+		if (ctxt.getEncoding() != null) {
+			// OutputStream / FileにUTF-16等を指定した場合
+			meter.start(outputRoute(target), ctxt.getEncoding().getJavaName());
+		} else if (target instanceof SegmentedStringWriter) {
+			meter.start(Route.WRITE_STRING, SerializationSample.CHARS);
+		} else {
+			meter.start(Route.WRITE_WRITER, (out instanceof OutputStreamWriter)
+					? charsetName(((OutputStreamWriter) out).getEncoding()) : SerializationSample.CHARS);
+		}
+		return new InstrumentedJsonGenerator(g, meter);
+	}
+
+	private static Route outputRoute(Object target) {
+		if (target instanceof File) {
+			return Route.WRITE_FILE;
+		}
+		if (target instanceof ByteArrayBuilder) {
+			return Route.WRITE_BYTES;
+		}
+		if (target instanceof DataOutputAsStream) {
+			return Route.WRITE_DATA_OUTPUT;
+		}
+		return Route.WRITE_STREAM;
+	}
+
+	private static String encodingName(IOContext ctxt) {
+		JsonEncoding enc = ctxt.getEncoding();
+		return (enc == null) ? JsonEncoding.UTF8.getJavaName() : enc.getJavaName();
+	}
+
+	/**
+	 * InputStreamReader / OutputStreamWriterのエンコーディング名（SJIS等の歴史的な名前）を、Charset#nameにします
+	 */
+	private static String charsetName(String encoding) {
+		if (encoding == null) {
+			return SerializationSample.CHARS;
+		}
+		try {
+			return Charset.forName(encoding).name();
+		} catch (IllegalArgumentException e) {
+			return encoding;
+		}
+	}
+}
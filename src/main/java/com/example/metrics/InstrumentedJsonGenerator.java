@@ -0,0 +1,32 @@
+package com.example.metrics;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+
+/**
+ *
+ * close時に計測値を記録するJsonGeneratorです。{@link InstrumentedJsonFactory}が作成します。
+ *
+ * writeObject / writeTreeは、このインスタンスを渡してObjectCodec（ObjectMapper）を呼び出します。
+ *
+ */
+final class InstrumentedJsonGenerator extends JsonGeneratorDelegate {
+
+	final MeteredIOContext meter;
+
+	InstrumentedJsonGenerator(JsonGenerator d, MeteredIOContext meter) {
+		super(d, false);
+		this.meter = meter;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			delegate.close();
+		} finally {
+			meter.complete();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.metrics;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+/**
+ *
+ * 返したトークン数を数え、close時に計測値を記録するJsonParserです。{@link InstrumentedJsonFactory}が作成します。
+ *
+ * nextFieldName等は、元のパーサーの高速な実装をそのまま使用します。
+ *
+ */
+final class InstrumentedJsonParser extends JsonParserDelegate {
+
+	final MeteredIOContext meter;
+
+	InstrumentedJsonParser(JsonParser d, MeteredIOContext meter) {
+		super(d);
+		this.meter = meter;
+	}
+
+	@Override
+	public JsonToken nextToken() throws IOException {
+		JsonToken t = delegate.nextToken();
+		if (t != null) {
+			meter.tokens++;
+		}
+		return t;
+	}
+
+	@Override
+	public JsonToken nextValue() throws IOException {
+		// FIELD_NAMEを読み飛ばした場合も、1トークンとして数えます
+		JsonToken t = delegate.nextValue();
+		if (t != null) {
+			meter.tokens++;
+		}
+		return t;
+	}
+
+	@Override
+	public String nextFieldName() throws IOException {
+		String name = delegate.nextFieldName();
+		countCurrent();
+		return name;
+	}
+
+	@Override
+	public boolean nextFieldName(SerializableString str) throws IOException {
+		boolean matched = delegate.nextFieldName(str);
+		countCurrent();
+		return matched;
+	}
+
+	@Override
+	public String nextTextValue() throws IOException {
+		String text = delegate.nextTextValue();
+		countCurrent();
+		return text;
+	}
+
+	@Override
+	public int nextIntValue(int defaultValue) throws IOException {
+		int value = delegate.nextIntValue(defaultValue);
+		countCurrent();
+		return value;
+	}
+
+	@Override
+	public long nextLongValue(long defaultValue) throws IOException {
+		long value = delegate.nextLongValue(defaultValue);
+		countCurrent();
+		return value;
+	}
+
+	@Override
+	public Boolean nextBooleanValue() throws IOException {
+		Boolean value = delegate.nextBooleanValue();
+		countCurrent();
+		return value;
+	}
+
+	private void countCurrent() {
+		if (delegate.hasCurrentToken()) {
+			meter.tokens++;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			delegate.close();
+		} finally {
+			meter.complete();
+		}
+	}
+}
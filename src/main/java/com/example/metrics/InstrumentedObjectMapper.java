@@ -0,0 +1,148 @@
+package com.example.metrics;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * {@link InstrumentedJsonFactory}を使用するObjectMapperです。
+ *
+ * 使用例:
+ * InMemoryMetricsSink sink = new InMemoryMetricsSink();
+ * ObjectMapper mapper = new InstrumentedObjectMapper(sink);
+ *
+ * JsonGenerator jsonGenerator = mapper.getFactory().createGenerator(writer);
+ * mapper.writeTree(jsonGenerator, tree);
+ * RouteStats stats = sink.getStats(Route.WRITE_TREE, "Shift_JIS");
+ *
+ * ObjectMapperが作成するJsonParser / JsonGenerator（readValue(byte[], ...)、writeValue(OutputStream, ...)等）は、
+ * InstrumentedJsonFactoryで計測します。
+ * それに加えて、呼び出し元が作成したJsonParser / JsonGeneratorを渡す呼び出し
+ * （readValue(JsonParser, ...) / readTree(JsonParser) / writeValue(JsonGenerator, ...) / writeTree）を、
+ * 1回ごとに{@link Route#READ_PARSER} / {@link Route#WRITE_GENERATOR} / {@link Route#WRITE_TREE}として記録します。
+ * JsonParser#readValueAs / JsonGenerator#writeObject等、JsonParser / JsonGeneratorからの呼び出しも含みます。
+ *
+ */
+public class InstrumentedObjectMapper extends ObjectMapper {
+
+	private static final long serialVersionUID = 1L;
+
+	public InstrumentedObjectMapper(MetricsSink sink) {
+		this(new InstrumentedJsonFactory(sink));
+	}
+
+	public InstrumentedObjectMapper(InstrumentedJsonFactory factory) {
+		super(factory);
+	}
+
+	protected InstrumentedObjectMapper(InstrumentedObjectMapper src) {
+		super(src);
+	}
+
+	@Override
+	public ObjectMapper copy() {
+		_checkInvalidCopy(InstrumentedObjectMapper.class);
+		return new InstrumentedObjectMapper(this);
+	}
+
+	@Override
+	public <T> T readValue(JsonParser p, Class<T> valueType) throws IOException {
+		MeteredIOContext meter = meter(p);
+		MeteredIOContext.Mark mark = (meter == null) ? null : meter.beginCall();
+		try {
+			return super.readValue(p, valueType);
+		} finally {
+			endCall(meter, mark, Route.READ_PARSER);
+		}
+	}
+
+	@Override
+	public <T> T readValue(JsonParser p, TypeReference<?> valueTypeRef) throws IOException {
+		MeteredIOContext meter = meter(p);
+		MeteredIOContext.Mark mark = (meter == null) ? null : meter.beginCall();
+		try {
+			return super.readValue(p, valueTypeRef);
+		} finally {
+			endCall(meter, mark, Route.READ_PARSER);
+		}
+	}
+
+	/**
+	 * readValue(JsonParser, ResolvedType)も、ここを呼び出します
+	 */
+	@Override
+	public <T> T readValue(JsonParser p, JavaType valueType) throws IOException {
+		MeteredIOContext meter = meter(p);
+		MeteredIOContext.Mark mark = (meter == null) ? null : meter.beginCall();
+		try {
+			return super.readValue(p, valueType);
+		} finally {
+			endCall(meter, mark, Route.READ_PARSER);
+		}
+	}
+
+	@Override
+	public <T extends TreeNode> T readTree(JsonParser p) throws IOException {
+		MeteredIOContext meter = meter(p);
+		MeteredIOContext.Mark mark = (meter == null) ? null : meter.beginCall();
+		try {
+			return super.readTree(p);
+		} finally {
+			endCall(meter, mark, Route.READ_PARSER);
+		}
+	}
+
+	@Override
+	public void writeValue(JsonGenerator g, Object value) throws IOException {
+		MeteredIOContext meter = meter(g);
+		MeteredIOContext.Mark mark = (meter == null) ? null : meter.beginCall();
+		try {
+			super.writeValue(g, value);
+		} finally {
+			endCall(meter, mark, Route.WRITE_GENERATOR);
+		}
+	}
+
+	@Override
+	public void writeTree(JsonGenerator g, TreeNode rootNode) throws IOException {
+		MeteredIOContext meter = meter(g);
+		MeteredIOContext.Mark mark = (meter == null) ? null : meter.beginCall();
+		try {
+			super.writeTree(g, rootNode);
+		} finally {
+			endCall(meter, mark, Route.WRITE_TREE);
+		}
+	}
+
+	@Override
+	public void writeTree(JsonGenerator g, JsonNode rootNode) throws IOException {
+		MeteredIOContext meter = meter(g);
+		MeteredIOContext.Mark mark = (meter == null) ? null : meter.beginCall();
+		try {
+			super.writeTree(g, rootNode);
+		} finally {
+			endCall(meter, mark, Route.WRITE_TREE);
+		}
+	}
+
+	private static MeteredIOContext meter(JsonParser p) {
+		return (p instanceof InstrumentedJsonParser) ? ((InstrumentedJsonParser) p).meter : null;
+	}
+
+	private static MeteredIOContext meter(JsonGenerator g) {
+		return (g instanceof InstrumentedJsonGenerator) ? ((InstrumentedJsonGenerator) g).meter : null;
+	}
+
+	private static void endCall(MeteredIOContext meter, MeteredIOContext.Mark mark, Route route) {
+		if (meter != null) {
+			meter.endCall(mark, route);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * 経過時間（ナノ秒）のヒストグラムです。
+ *
+ * 2のべき乗ごとの範囲を、さらに4つに分けたバケットに数えます（誤差は最大25%）。
+ * 記録はロックを使用せず、固定長の配列への加算だけです。
+ *
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * 0〜3は値ごと、それ以降は2のべき乗ごとに4つ（long全体で248個）
+	 */
+	static final int BUCKETS = 248;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder total = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		buckets.incrementAndGet(bucket(value));
+		count.increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	static int bucket(long value) {
+		if (value < 4) {
+			return (int) value;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exp - 2)) & 3;
+		return ((exp - 1) << 2) | sub;
+	}
+
+	/**
+	 * @return バケットに含まれる最大の値
+	 */
+	static long upperBound(int bucket) {
+		if (bucket < 4) {
+			return bucket;
+		}
+		int exp = (bucket >> 2) + 1;
+		int sub = bucket & 3;
+		long lower = (4L + sub) << (exp - 2);
+		return lower + (1L << (exp - 2)) - 1;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotalNanos() {
+		return total.sum();
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	public double getMeanNanos() {
+		long n = getCount();
+		return (n == 0) ? 0 : (double) getTotalNanos() / n;
+	}
+
+	/**
+	 * @param percentile 0〜100（50, 99, 99.9等）
+	 * @return その割合の記録が収まる値（バケットの上限。記録がない場合は0）
+	 */
+	public long getPercentileNanos(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+		}
+		long[] counts = getBucketCounts();
+		long n = 0;
+		for (long c : counts) {
+			n += c;
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * @return バケットごとの記録数（取得した時点の値）
+	 */
+	public long[] getBucketCounts() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return counts;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram[count=" + getCount() + ", mean=" + (long) getMeanNanos() + ", p50="
+				+ getPercentileNanos(50) + ", p99=" + getPercentileNanos(99) + ", max=" + getMaxNanos() + "]";
+	}
+}
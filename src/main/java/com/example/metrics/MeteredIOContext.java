@@ -0,0 +1,109 @@
+package com.example.metrics;
+
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+
+/**
+ *
+ * 1つのJsonParser / JsonGeneratorの計測値を持つIOContextです。{@link InstrumentedJsonFactory}が作成します。
+ *
+ * JsonParser / JsonGeneratorと同じく1つのスレッドから使用されるため、計測値は同期しない通常のフィールドです。
+ *
+ */
+final class MeteredIOContext extends IOContext {
+
+	private final MetricsSink sink;
+
+	private final CountingBufferRecycler recycler;
+
+	private final long startNanos;
+
+	private final long startMisses;
+
+	private Route route;
+
+	private String charset;
+
+	long bytes;
+
+	long chars;
+
+	long transcodeNanos;
+
+	long tokens;
+
+	private int callDepth;
+
+	private boolean completed;
+
+	MeteredIOContext(BufferRecycler br, Object sourceRef, boolean managedResource, MetricsSink sink) {
+		super(br, sourceRef, managedResource);
+		this.sink = sink;
+		this.recycler = (br instanceof CountingBufferRecycler) ? (CountingBufferRecycler) br : null;
+		this.startMisses = misses();
+		// JsonParser / JsonGeneratorの作成（バッファの割り当て等）から計測します
+		this.startNanos = System.nanoTime();
+	}
+
+	void start(Route route, String charset) {
+		this.route = route;
+		this.charset = charset;
+	}
+
+	Route getRoute() {
+		return route;
+	}
+
+	private long misses() {
+		return (recycler == null) ? 0 : recycler.getMisses();
+	}
+
+	/**
+	 * JsonParser / JsonGeneratorのclose時に、作成からの計測値を記録します（2回目以降は何もしません）
+	 */
+	void complete() {
+		if (completed || route == null) {
+			return;
+		}
+		completed = true;
+		sink.record(new SerializationSample(route, charset, System.nanoTime() - startNanos, transcodeNanos, bytes,
+				chars, tokens, misses() - startMisses));
+	}
+
+	/**
+	 * ObjectMapperの呼び出し1回の計測を開始します
+	 *
+	 * @return 入れ子の呼び出し（デシリアライザー等からの呼び出し）の場合はnull
+	 */
+	Mark beginCall() {
+		return (callDepth++ == 0) ? new Mark() : null;
+	}
+
+	void endCall(Mark mark, Route callRoute) {
+		callDepth--;
+		if (mark == null) {
+			return;
+		}
+		sink.record(new SerializationSample(callRoute, charset, System.nanoTime() - mark.startNanos,
+				transcodeNanos - mark.transcodeNanos, bytes - mark.bytes, chars - mark.chars, tokens - mark.tokens,
+				misses() - mark.misses));
+	}
+
+	/**
+	 * 呼び出し開始時の計測値です
+	 */
+	final class Mark {
+
+		final long bytes = MeteredIOContext.this.bytes;
+
+		final long chars = MeteredIOContext.this.chars;
+
+		final long transcodeNanos = MeteredIOContext.this.transcodeNanos;
+
+		final long tokens = MeteredIOContext.this.tokens;
+
+		final long misses = misses();
+
+		final long startNanos = System.nanoTime();
+	}
+}
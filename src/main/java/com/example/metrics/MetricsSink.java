@@ -0,0 +1,21 @@
+package com.example.metrics;
+
+/**
+ *
+ * {@link InstrumentedJsonFactory}の計測値の出力先です。
+ *
+ * 使用例:
+ * // Micrometer等の既存の仕組みへ出力する
+ * MetricsSink sink = sample -> registry.timer("json." + sample.getRoute(), "charset", sample.getCharset())
+ *         .record(sample.getElapsedNanos(), TimeUnit.NANOSECONDS);
+ *
+ * 読み書きを行ったスレッド（JsonParser / JsonGeneratorをcloseしたスレッド）から、1件ごとに呼び出されます。
+ * 複数のスレッドから同時に呼び出されるため、スレッドセーフで、すぐに戻る実装にしてください。
+ * 集計だけでよい場合は、{@link InMemoryMetricsSink}を使用できます。
+ *
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+	void record(SerializationSample sample);
+}
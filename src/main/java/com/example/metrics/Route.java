@@ -0,0 +1,95 @@
+package com.example.metrics;
+
+/**
+ *
+ * 計測する読み書きの経路です（BinaryToJSONSampleTestで使用している、ObjectMapper / JsonFactoryへの渡し方の分類）。
+ *
+ * READ_〜 / WRITE_〜（READ_PARSER等を除く）は、JsonParser / JsonGeneratorを作成してからcloseするまでを1件として記録します。
+ * ObjectMapper#readValue(byte[], ...)等では、ObjectMapperがJsonParserを作成・closeするため、呼び出し1回が1件になります。
+ *
+ * READ_PARSER / WRITE_GENERATOR / WRITE_TREEは、呼び出し元が作成したJsonParser / JsonGeneratorを渡した
+ * ObjectMapperの呼び出し1回を1件として記録します（{@link InstrumentedObjectMapper}を使用した場合）。
+ * そのJsonParser / JsonGeneratorをcloseした時には、作成時の経路でも記録します（1回の読み書きが両方に含まれます）。
+ *
+ */
+public enum Route {
+
+	/**
+	 * createParser(byte[])。UTF-8 / UTF-16 / UTF-32は自動判定します
+	 */
+	READ_BYTES,
+
+	/**
+	 * createParser(InputStream / URL)
+	 */
+	READ_STREAM,
+
+	/**
+	 * createParser(File)
+	 */
+	READ_FILE,
+
+	/**
+	 * createParser(Reader)。InputStreamReaderの場合は、そのエンコーディングで記録します
+	 */
+	READ_READER,
+
+	/**
+	 * createParser(String / char[])
+	 */
+	READ_STRING,
+
+	/**
+	 * createParser(DataInput)
+	 */
+	READ_DATA_INPUT,
+
+	/**
+	 * ObjectMapper#readValue(JsonParser, ...) / readTree(JsonParser)
+	 */
+	READ_PARSER,
+
+	/**
+	 * ObjectMapper#writeValueAsBytes
+	 */
+	WRITE_BYTES,
+
+	/**
+	 * createGenerator(OutputStream)
+	 */
+	WRITE_STREAM,
+
+	/**
+	 * createGenerator(File)
+	 */
+	WRITE_FILE,
+
+	/**
+	 * createGenerator(Writer)。OutputStreamWriterの場合は、そのエンコーディングで記録します
+	 */
+	WRITE_WRITER,
+
+	/**
+	 * ObjectMapper#writeValueAsString
+	 */
+	WRITE_STRING,
+
+	/**
+	 * createGenerator(DataOutput)
+	 */
+	WRITE_DATA_OUTPUT,
+
+	/**
+	 * ObjectMapper#writeValue(JsonGenerator, ...)
+	 */
+	WRITE_GENERATOR,
+
+	/**
+	 * ObjectMapper#writeTree(JsonGenerator, ...)
+	 */
+	WRITE_TREE;
+
+	public boolean isRead() {
+		return name().startsWith("READ_");
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * 1つの経路・エンコーディングの集計です。{@link InMemoryMetricsSink}が作成します。
+ * 値は取得した時点のもので、記録と同時に取得した場合、項目の間でずれることがあります。
+ *
+ */
+public final class RouteStats {
+
+	private final Route route;
+
+	private final String charset;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	private final LongAdder transcodeNanos = new LongAdder();
+
+	private final LongAdder bindNanos = new LongAdder();
+
+	private final LongAdder bytes = new LongAdder();
+
+	private final LongAdder chars = new LongAdder();
+
+	private final LongAdder tokens = new LongAdder();
+
+	private final LongAdder recyclerMisses = new LongAdder();
+
+	RouteStats(Route route, String charset) {
+		this.route = route;
+		this.charset = charset;
+	}
+
+	void add(SerializationSample sample) {
+		latency.record(sample.getElapsedNanos());
+		transcodeNanos.add(sample.getTranscodeNanos());
+		bindNanos.add(sample.getBindNanos());
+		bytes.add(sample.getBytes());
+		chars.add(sample.getChars());
+		tokens.add(sample.getTokens());
+		recyclerMisses.add(sample.getRecyclerMisses());
+	}
+
+	public Route getRoute() {
+		return route;
+	}
+
+	public String getCharset() {
+		return charset;
+	}
+
+	public long getCount() {
+		return latency.getCount();
+	}
+
+	/**
+	 * @return 経過時間のヒストグラム
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	public long getTranscodeNanos() {
+		return transcodeNanos.sum();
+	}
+
+	public long getBindNanos() {
+		return bindNanos.sum();
+	}
+
+	public long getBytes() {
+		return bytes.sum();
+	}
+
+	public long getChars() {
+		return chars.sum();
+	}
+
+	public long getTokens() {
+		return tokens.sum();
+	}
+
+	public long getRecyclerMisses() {
+		return recyclerMisses.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "RouteStats[route=" + route + ", charset=" + charset + ", latency=" + latency + ", transcodeNanos="
+				+ getTranscodeNanos() + ", bindNanos=" + getBindNanos() + ", bytes=" + getBytes() + ", chars="
+				+ getChars() + ", tokens=" + getTokens() + ", recyclerMisses=" + getRecyclerMisses() + "]";
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.metrics;
+
+/**
+ *
+ * 1件の読み書きの計測値です。{@link MetricsSink}に渡されます。
+ *
+ * 時間はナノ秒です。変換時間（transcodeNanos）は、Reader / Writer（InputStreamReader / OutputStreamWriter等）の中で
+ * 経過した時間で、エンコーディングの変換とその先の入出力を含みます。
+ * バイト列を直接読み書きする経路（UTF-8等）では、変換はパーサー / ジェネレーターの中で行われるため0になり、
+ * すべてバインド時間（getBindNanos: JSONの解析・生成とJavaオブジェクトへの変換）に含まれます。
+ *
+ */
+public final class SerializationSample {
+
+	/**
+	 * エンコーディングがない（String / char[]、InputStreamReader / OutputStreamWriter以外のReader / Writer）場合のcharset
+	 */
+	public static final String CHARS = "chars";
+
+	private final Route route;
+
+	private final String charset;
+
+	private final long elapsedNanos;
+
+	private final long transcodeNanos;
+
+	private final long bytes;
+
+	private final long chars;
+
+	private final long tokens;
+
+	private final long recyclerMisses;
+
+	SerializationSample(Route route, String charset, long elapsedNanos, long transcodeNanos, long bytes, long chars,
+			long tokens, long recyclerMisses) {
+		this.route = route;
+		this.charset = charset;
+		this.elapsedNanos = elapsedNanos;
+		this.transcodeNanos = transcodeNanos;
+		this.bytes = bytes;
+		this.chars = chars;
+		this.tokens = tokens;
+		this.recyclerMisses = recyclerMisses;
+	}
+
+	public Route getRoute() {
+		return route;
+	}
+
+	/**
+	 * @return エンコーディング名（Charset#name。UTF-16等は自動判定したもの）、または{@link #CHARS}
+	 */
+	public String getCharset() {
+		return charset;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public long getTranscodeNanos() {
+		return transcodeNanos;
+	}
+
+	/**
+	 * @return 経過時間のうち、変換時間以外
+	 */
+	public long getBindNanos() {
+		return Math.max(0, elapsedNanos - transcodeNanos);
+	}
+
+	/**
+	 * @return 読み込んだ・書き出したバイト数。Reader / Writer、String / char[]の場合は0
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return Reader / Writer、String / char[]で読み込んだ・書き出した文字数
+	 */
+	public long getChars() {
+		return chars;
+	}
+
+	/**
+	 * @return JsonParserが返したトークン数（skipChildrenで読み飛ばしたものは含みません）。書き出しの場合は0
+	 */
+	public long getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * @return BufferRecyclerに再利用できるバッファがなく、新しく割り当てた回数
+	 */
+	public long getRecyclerMisses() {
+		return recyclerMisses;
+	}
+
+	@Override
+	public String toString() {
+		return "SerializationSample[route=" + route + ", charset=" + charset + ", elapsedNanos=" + elapsedNanos
+				+ ", transcodeNanos=" + transcodeNanos + ", bytes=" + bytes + ", chars=" + chars + ", tokens="
+				+ tokens + ", recyclerMisses=" + recyclerMisses + "]";
+	}
+}
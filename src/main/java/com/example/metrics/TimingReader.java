@@ -0,0 +1,48 @@
+package com.example.metrics;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ *
+ * 読み込んだ文字数と、読み込みにかかった時間（InputStreamReader等での変換時間）を{@link MeteredIOContext}に加算するReaderです。
+ * JsonParserはバッファ単位で読み込むため、時間の計測は数千文字に1回です。
+ *
+ */
+final class TimingReader extends FilterReader {
+
+	private final MeteredIOContext meter;
+
+	TimingReader(Reader in, MeteredIOContext meter) {
+		super(in);
+		this.meter = meter;
+	}
+
+	@Override
+	public int read() throws IOException {
+		long start = System.nanoTime();
+		int c = in.read();
+		meter.transcodeNanos += System.nanoTime() - start;
+		if (c >= 0) {
+			meter.chars++;
+		}
+		return c;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		long start = System.nanoTime();
+		int n = in.read(cbuf, off, len);
+		meter.transcodeNanos += System.nanoTime() - start;
+		if (n > 0) {
+			meter.chars += n;
+		}
+		return n;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.metrics;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ *
+ * 書き出した文字数と、書き出しにかかった時間（OutputStreamWriter等での変換時間）を{@link MeteredIOContext}に加算するWriterです。
+ * JsonGeneratorはバッファ単位で書き出すため、時間の計測は数千文字に1回です。
+ *
+ */
+final class TimingWriter extends FilterWriter {
+
+	private final MeteredIOContext meter;
+
+	TimingWriter(Writer out, MeteredIOContext meter) {
+		super(out);
+		this.meter = meter;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		long start = System.nanoTime();
+		out.write(c);
+		meter.transcodeNanos += System.nanoTime() - start;
+		meter.chars++;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		long start = System.nanoTime();
+		out.write(cbuf, off, len);
+		meter.transcodeNanos += System.nanoTime() - start;
+		meter.chars += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		long start = System.nanoTime();
+		out.write(str, off, len);
+		meter.transcodeNanos += System.nanoTime() - start;
+		meter.chars += len;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// OutputStreamWriterは、flushで残りの文字を変換します
+		long start = System.nanoTime();
+		out.flush();
+		meter.transcodeNanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void close() throws IOException {
+		long start = System.nanoTime();
+		out.close();
+		meter.transcodeNanos += System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,302 @@
+package com.example.parallel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.example.charset.LegacyCharset;
+import com.fasterxml.jackson.core.JsonParseException;
+
+/**
+ *
+ * トップレベルの配列（[{...},{...},...]）のバイト列を先頭から走査し、要素の区切り（深さ1の「,」）で
+ * chunkSize程度ずつに分けます。分けた部分は前後に「[」「]」を付け、それだけで1つのJSONの配列として読み込めるようにします。
+ *
+ * 文字列の中（エスケープを含む）の「,」「[」「]」等は区切りとして扱いません。
+ * UTF-16 / UTF-32は2 / 4バイトを1文字として判定し、Shift_JIS / EUC-JPは文字列の中の2バイト目以降（0x5C等）を読み飛ばします。
+ * 要素の中身の検証は行いません（分けた後のパーサーで行います）。
+ *
+ */
+final class ArrayChunkSplitter {
+
+	interface ChunkSink {
+
+		/**
+		 * @param chunk 「[」から「]」までの1つの配列。呼び出し後、splitterは同じ配列を使用しません
+		 */
+		void accept(byte[] chunk, int length) throws IOException;
+	}
+
+	private static final int BOM = 0xFEFF;
+
+	private static final byte CODE_QUOTE = -1;
+
+	private static final byte CODE_BACKSLASH = -2;
+
+	private final int unitSize;
+
+	private final boolean bigEndian;
+
+	/**
+	 * UTF-8 / UTF-16 / UTF-32の場合はnull
+	 */
+	private final LegacyCharset legacyCharset;
+
+	private final int chunkSize;
+
+	private final byte[] openBracket;
+
+	private final byte[] closeBracket;
+
+	/**
+	 * 文字列の中の1バイト目ごとの扱い。0は読み飛ばすバイト、{@link #CODE_QUOTE} / {@link #CODE_BACKSLASH}、
+	 * それ以外は2バイト以上の文字の先頭で、その文字のバイト数
+	 */
+	private final byte[] stringCodes;
+
+	private byte[] chunk;
+
+	private int chunkLength;
+
+	/**
+	 * 現在のバッファの、まだchunkにコピーしていない部分の先頭
+	 */
+	private int copyFrom;
+
+	private int depth;
+
+	private boolean inString;
+
+	private boolean escaped;
+
+	/**
+	 * Shift_JIS / EUC-JPの、読み飛ばす2バイト目以降の残り（バッファの境目をまたぐ場合）
+	 */
+	private int trailBytes;
+
+	ArrayChunkSplitter(int unitSize, boolean bigEndian, LegacyCharset legacyCharset, int chunkSize) {
+		this.unitSize = unitSize;
+		this.bigEndian = bigEndian;
+		this.legacyCharset = legacyCharset;
+		this.chunkSize = chunkSize;
+		this.openBracket = encode('[');
+		this.closeBracket = encode(']');
+		this.stringCodes = new byte[256];
+		stringCodes['"'] = CODE_QUOTE;
+		stringCodes['\\'] = CODE_BACKSLASH;
+		if (legacyCharset != null) {
+			for (int b = 0x80; b < 0x100; b++) {
+				int length = legacyCharset.sequenceLength(b);
+				stringCodes[b] = (byte) ((length > 1) ? length : 0);
+			}
+		}
+	}
+
+	private byte[] encode(char c) {
+		byte[] b = new byte[unitSize];
+		b[bigEndian ? unitSize - 1 : 0] = (byte) c;
+		return b;
+	}
+
+	/**
+	 * @param block 読み込み用のバッファ。先頭のfilledバイトは読み込み済みのデータ（エンコーディングの判定に使用した部分）です
+	 */
+	void split(InputStream in, byte[] block, int filled, ChunkSink sink) throws IOException {
+
+		long offset = 0;
+		int begin = hasUtf8Bom(block, filled) ? 3 : 0;
+		boolean started = false;
+
+		while (filled > 0) {
+			filled = alignToUnit(in, block, filled);
+			int i = begin;
+			if (!started) {
+				for (; i < filled; i += unitSize) {
+					int c = unit(block, i);
+					if (c == '[') {
+						started = true;
+						depth = 1;
+						startChunk();
+						i += unitSize;
+						break;
+					}
+					if (!isWhitespace(c) && !(c == BOM && offset + i == 0)) {
+						throw new JsonParseException(null, "Expected a top-level array but found '" + (char) c
+								+ "' at byte offset " + (offset + i));
+					}
+				}
+			}
+			if (started) {
+				copyFrom = i;
+				int closedAt = (unitSize == 1) ? scanBytes(block, i, filled, sink) : scanUnits(block, i, filled, sink);
+				if (closedAt >= 0) {
+					append(block, copyFrom, closedAt);
+					endChunk(sink);
+					return;
+				}
+				append(block, copyFrom, filled);
+			}
+			offset += filled;
+			begin = 0;
+			filled = in.read(block, 0, block.length);
+		}
+		throw new JsonParseException(null, started ? "Unexpected end of input: the top-level array is not closed"
+				: "Expected a top-level array but the input is empty");
+	}
+
+	/**
+	 * UTF-8 / Shift_JIS / EUC-JP（1バイト単位）の走査。文字列の中は表を引いて、「"」「\」と2バイト文字の先頭以外を読み飛ばします
+	 *
+	 * @return トップレベルの配列の「]」の位置。配列が終わっていない場合は-1
+	 */
+	private int scanBytes(byte[] b, int i, int end, ChunkSink sink) throws IOException {
+		final byte[] codes = stringCodes;
+		while (i < end) {
+			if (trailBytes > 0) {
+				int skip = Math.min(trailBytes, end - i);
+				trailBytes -= skip;
+				i += skip;
+				continue;
+			}
+			if (inString) {
+				if (escaped) {
+					escaped = false;
+					i++;
+					continue;
+				}
+				int code = 0;
+				while (i < end && (code = codes[b[i] & 0xFF]) == 0) {
+					i++;
+				}
+				if (i == end) {
+					break;
+				}
+				i++;
+				if (code == CODE_QUOTE) {
+					inString = false;
+				} else if (code == CODE_BACKSLASH) {
+					escaped = true;
+				} else {
+					trailBytes = code - 1;
+				}
+				continue;
+			}
+			int c = b[i];
+			if (c == '"') {
+				inString = true;
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				if (--depth == 0) {
+					return i;
+				}
+			} else if (c == ',' && depth == 1) {
+				cutIfFull(b, i, sink);
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	/**
+	 * UTF-16 / UTF-32の走査。サロゲートを含め、構造を表す文字（0x80未満）と一致する単位は他にないため、単位ごとに判定します
+	 *
+	 * @return トップレベルの配列の「]」の位置。配列が終わっていない場合は-1
+	 */
+	private int scanUnits(byte[] b, int i, int end, ChunkSink sink) throws IOException {
+		for (; i < end; i += unitSize) {
+			int c = unit(b, i);
+			if (inString) {
+				if (escaped) {
+					escaped = false;
+				} else if (c == '\\') {
+					escaped = true;
+				} else if (c == '"') {
+					inString = false;
+				}
+			} else if (c == '"') {
+				inString = true;
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				if (--depth == 0) {
+					return i;
+				}
+			} else if (c == ',' && depth == 1) {
+				cutIfFull(b, i, sink);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 深さ1の「,」（位置i）で、現在の部分がchunkSizeに達していれば分けます
+	 */
+	private void cutIfFull(byte[] b, int i, ChunkSink sink) throws IOException {
+		if (chunkLength + (i - copyFrom) >= chunkSize) {
+			append(b, copyFrom, i);
+			endChunk(sink);
+			startChunk();
+			copyFrom = i + unitSize;
+		}
+	}
+
+	/**
+	 * UTF-16 / UTF-32で1文字の途中でバッファが終わっている場合は、残りを読み込みます
+	 */
+	private int alignToUnit(InputStream in, byte[] block, int filled) throws IOException {
+		while (filled % unitSize != 0) {
+			int n = in.read(block, filled, unitSize - filled % unitSize);
+			if (n < 0) {
+				throw new JsonParseException(null, "Unexpected end of input in the middle of a " + unitSize
+						+ "-byte code unit");
+			}
+			filled += n;
+		}
+		return filled;
+	}
+
+	private int unit(byte[] b, int i) {
+		switch (unitSize) {
+		case 1:
+			return b[i] & 0xFF;
+		case 2:
+			return bigEndian ? ((b[i] & 0xFF) << 8) | (b[i + 1] & 0xFF)
+					: ((b[i + 1] & 0xFF) << 8) | (b[i] & 0xFF);
+		default:
+			return bigEndian ? (b[i] << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF)
+					: (b[i + 3] << 24) | ((b[i + 2] & 0xFF) << 16) | ((b[i + 1] & 0xFF) << 8) | (b[i] & 0xFF);
+		}
+	}
+
+	private boolean hasUtf8Bom(byte[] b, int filled) {
+		return unitSize == 1 && legacyCharset == null && filled >= 3
+				&& (b[0] & 0xFF) == 0xEF && (b[1] & 0xFF) == 0xBB && (b[2] & 0xFF) == 0xBF;
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	private void startChunk() {
+		chunk = new byte[chunkSize + (chunkSize >> 3) + 2 * unitSize];
+		chunkLength = 0;
+		append(openBracket, 0, unitSize);
+	}
+
+	private void endChunk(ChunkSink sink) throws IOException {
+		append(closeBracket, 0, unitSize);
+		byte[] completed = chunk;
+		chunk = null;
+		sink.accept(completed, chunkLength);
+	}
+
+	private void append(byte[] b, int from, int to) {
+		int len = to - from;
+		if (chunkLength + len > chunk.length) {
+			chunk = Arrays.copyOf(chunk, Math.max(chunk.length * 2, chunkLength + len + unitSize));
+		}
+		System.arraycopy(b, from, chunk, chunkLength, len);
+		chunkLength += len;
+	}
+}
@@ -0,0 +1,358 @@
+package com.example.parallel;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.example.charset.CharsetDetector;
+import com.example.charset.DetectedEncoding;
+import com.example.charset.JsonFactoryFeatures;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ *
+ * トップレベルの大きな配列（[{...},{...},...]）を、複数のスレッドで並列に読み込みます。
+ *
+ * 使用例:
+ * ForkJoinPool pool = new ForkJoinPool(4);
+ * List<Bean> beans = ParallelArrayReader.create(mapper, Bean.class, StandardCharsets.UTF_8, pool)
+ *         .readAll(new FileInputStream(file));
+ *
+ * 呼び出したスレッドで入力を先頭から走査して要素の区切りを探し、{@link #DEFAULT_CHUNK_SIZE}（または指定した大きさ）
+ * 程度ずつに分けます。分けた部分はForkJoinPoolでそれぞれ別のパーサーでjavaのオブジェクトに変換します。
+ * 区切りの走査は文字列・エスケープの判定のみのため、変換（パーサー + デシリアライズ）より十分に速く、
+ * 変換のスレッド数に応じて全体の時間が短くなります。
+ *
+ * 結果は分けた部分ごとのリストで、呼び出したスレッドのConsumerに渡します。
+ * ordered（デフォルト）の場合は入力の順に、unorderedの場合は変換の終わった順に渡します。
+ * 同時に変換する部分の数はスレッド数の2倍までのため、使用するメモリは入力の大きさによらず
+ * 「chunkSize × スレッド数 × 2」程度です（readAllで全体をリストにする場合を除きます）。
+ *
+ * エンコーディングはUTF-8 / UTF-16 / UTF-32 / Shift_JIS / EUC-JPに対応します。
+ * nullまたはバイト順を指定しない「UTF-16」「UTF-32」の場合は、先頭部分から{@link CharsetDetector}で判定します。
+ * ISO-2022-JPはエスケープシーケンスで文字集合を切り替えるため、途中から分けて読み込めず、対応していません。
+ *
+ */
+public class ParallelArrayReader<T> {
+
+	/**
+	 * 分ける大きさのデフォルト（1MB）
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	private final ObjectReader reader;
+
+	/**
+	 * Shift_JIS / EUC-JPの部分を読み込むObjectReader。readerのJsonFactoryのFeatureを引き継いだJsonFactoryを使用し、
+	 * withChunkSize等で作成したインスタンスとも共有します
+	 */
+	private final Map<LegacyCharset, ObjectReader> legacyReaders;
+
+	private final Charset charset;
+
+	private final ForkJoinPool pool;
+
+	private final int chunkSize;
+
+	private final boolean ordered;
+
+	/**
+	 * エンコーディングを判定する必要がない場合に、あらかじめ作成しておきます
+	 */
+	private final Layout fixedLayout;
+
+	protected ParallelArrayReader(ObjectReader reader, Charset charset, ForkJoinPool pool, int chunkSize,
+			boolean ordered) {
+		this(reader, createLegacyReaders(reader), charset, pool, chunkSize, ordered);
+	}
+
+	private ParallelArrayReader(ObjectReader reader, Map<LegacyCharset, ObjectReader> legacyReaders, Charset charset,
+			ForkJoinPool pool, int chunkSize, boolean ordered) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+		}
+		this.reader = reader;
+		this.legacyReaders = legacyReaders;
+		this.charset = charset;
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+		this.ordered = ordered;
+		this.fixedLayout = (charset == null || isUnicodeWithoutByteOrder(charset)) ? null
+				: layout(toDetectedEncoding(charset), LegacyCharset.forCharset(charset));
+	}
+
+	private static Map<LegacyCharset, ObjectReader> createLegacyReaders(ObjectReader reader) {
+		JsonFactory base = reader.getFactory();
+		Map<LegacyCharset, ObjectReader> readers = new EnumMap<>(LegacyCharset.class);
+		for (LegacyCharset legacyCharset : LegacyCharset.values()) {
+			readers.put(legacyCharset, reader.with(
+					JsonFactoryFeatures.copy(base, new LegacyCharsetJsonFactory(legacyCharset, base.getCodec()))));
+		}
+		return readers;
+	}
+
+	/**
+	 * @param charset nullの場合は先頭部分から判定します
+	 */
+	public static <T> ParallelArrayReader<T> create(ObjectMapper mapper, Class<T> type, Charset charset,
+			ForkJoinPool pool) {
+		return create(mapper.readerFor(type), charset, pool);
+	}
+
+	/**
+	 * @param reader 要素の型を指定したObjectReader（ObjectMapper#readerFor等）
+	 * @param charset nullの場合は先頭部分から判定します
+	 */
+	public static <T> ParallelArrayReader<T> create(ObjectReader reader, Charset charset, ForkJoinPool pool) {
+		return new ParallelArrayReader<>(reader, charset, pool, DEFAULT_CHUNK_SIZE, true);
+	}
+
+	/**
+	 * @param chunkSize 1つの部分の大きさ（バイト数）の目安。要素の途中では分けないため、実際は要素1つ分まで大きくなります
+	 */
+	public ParallelArrayReader<T> withChunkSize(int chunkSize) {
+		return new ParallelArrayReader<>(reader, legacyReaders, charset, pool, chunkSize, ordered);
+	}
+
+	/**
+	 * @param ordered falseの場合は、変換の終わった順に結果を渡します
+	 */
+	public ParallelArrayReader<T> withOrdered(boolean ordered) {
+		return new ParallelArrayReader<>(reader, legacyReaders, charset, pool, chunkSize, ordered);
+	}
+
+	public List<T> readAll(byte[] data) throws IOException {
+		return readAll(new ByteArrayInputStream(data));
+	}
+
+	/**
+	 * 全ての要素を1つのリストにして返します。unorderedの場合、要素の順番は入力の順と一致しません
+	 *
+	 * @param in 閉じません
+	 */
+	public List<T> readAll(InputStream in) throws IOException {
+		List<T> values = new ArrayList<>();
+		read(in, values::addAll);
+		return values;
+	}
+
+	/**
+	 * 分けた部分ごとに、変換した要素のリストをconsumerに渡します。consumerは呼び出したスレッドで実行されます
+	 *
+	 * @param in 閉じません
+	 * @return 読み込んだ要素の数
+	 */
+	public long read(InputStream in, Consumer<? super List<T>> consumer) throws IOException {
+		byte[] block = new byte[BLOCK_SIZE];
+		int filled = fill(in, block);
+		Layout layout = (fixedLayout != null) ? fixedLayout : detectLayout(block, filled);
+
+		Dispatcher dispatcher = new Dispatcher(layout, consumer);
+		try {
+			new ArrayChunkSplitter(layout.unitSize, layout.bigEndian, layout.legacyCharset, chunkSize)
+					.split(in, block, filled, dispatcher::submit);
+			dispatcher.drain();
+		} finally {
+			dispatcher.cancel();
+		}
+		return dispatcher.count;
+	}
+
+	/**
+	 * エンコーディングの判定のため、バッファが一杯になるか終わりまで読み込みます
+	 */
+	private static int fill(InputStream in, byte[] block) throws IOException {
+		int filled = 0;
+		int n;
+		while (filled < block.length && (n = in.read(block, filled, block.length - filled)) > 0) {
+			filled += n;
+		}
+		return filled;
+	}
+
+	private Layout detectLayout(byte[] block, int filled) {
+		DetectedEncoding detected = CharsetDetector.detect(block, 0, filled);
+		LegacyCharset legacyCharset = null;
+		if (detected == DetectedEncoding.SHIFT_JIS) {
+			legacyCharset = LegacyCharset.SHIFT_JIS;
+		} else if (detected == DetectedEncoding.EUC_JP) {
+			legacyCharset = LegacyCharset.EUC_JP;
+		}
+		return layout(detected, legacyCharset);
+	}
+
+	private Layout layout(DetectedEncoding encoding, LegacyCharset legacyCharset) {
+		return new Layout(encoding, legacyCharset, (legacyCharset == null) ? reader : legacyReaders.get(legacyCharset));
+	}
+
+	private static boolean isUnicodeWithoutByteOrder(Charset charset) {
+		return "UTF-16".equals(charset.name()) || "UTF-32".equals(charset.name());
+	}
+
+	private static DetectedEncoding toDetectedEncoding(Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset)) {
+			return DetectedEncoding.UTF8;
+		}
+		for (DetectedEncoding e : DetectedEncoding.values()) {
+			if (e.isUnicode() && e.jsonEncoding().getJavaName().equals(charset.name())) {
+				return e;
+			}
+		}
+		LegacyCharset legacyCharset = LegacyCharset.forCharset(charset);
+		if (legacyCharset == null) {
+			throw new IllegalArgumentException("Unsupported charset: " + charset);
+		}
+		return (legacyCharset == LegacyCharset.EUC_JP) ? DetectedEncoding.EUC_JP : DetectedEncoding.SHIFT_JIS;
+	}
+
+	/**
+	 * エンコーディングごとの、区切りの走査と部分の読み込みの設定
+	 */
+	private static final class Layout {
+
+		final int unitSize;
+
+		final boolean bigEndian;
+
+		final LegacyCharset legacyCharset;
+
+		final ObjectReader chunkReader;
+
+		Layout(DetectedEncoding encoding, LegacyCharset legacyCharset, ObjectReader chunkReader) {
+			switch (encoding) {
+			case UTF8:
+				unitSize = 1;
+				bigEndian = true;
+				break;
+			case UTF16_BE:
+			case UTF16_LE:
+				unitSize = 2;
+				bigEndian = encoding == DetectedEncoding.UTF16_BE;
+				break;
+			case UTF32_BE:
+			case UTF32_LE:
+				unitSize = 4;
+				bigEndian = encoding == DetectedEncoding.UTF32_BE;
+				break;
+			case SHIFT_JIS:
+			case EUC_JP:
+				unitSize = 1;
+				bigEndian = true;
+				break;
+			default:
+				throw new IllegalArgumentException(encoding + " cannot be split into chunks");
+			}
+			this.legacyCharset = legacyCharset;
+			this.chunkReader = chunkReader;
+		}
+	}
+
+	/**
+	 * 分けた部分をForkJoinPoolで変換し、結果を呼び出したスレッドでconsumerに渡します
+	 */
+	private final class Dispatcher {
+
+		private final Layout layout;
+
+		private final Consumer<? super List<T>> consumer;
+
+		private final int maxInFlight = pool.getParallelism() * 2;
+
+		/**
+		 * 変換中の部分。orderedの場合は入力の順に並んでいます
+		 */
+		private final Deque<Future<List<T>>> inFlight = new ArrayDeque<>();
+
+		private final CompletionService<List<T>> completion;
+
+		long count;
+
+		Dispatcher(Layout layout, Consumer<? super List<T>> consumer) {
+			this.layout = layout;
+			this.consumer = consumer;
+			this.completion = ordered ? null : new ExecutorCompletionService<>(pool);
+		}
+
+		void submit(byte[] chunk, int length) throws IOException {
+			Callable<List<T>> task = () -> {
+				try (MappingIterator<T> values = layout.chunkReader.readValues(chunk, 0, length)) {
+					return values.readAll();
+				}
+			};
+			inFlight.add(ordered ? pool.submit(task) : completion.submit(task));
+			while (inFlight.size() > maxInFlight) {
+				deliverNext();
+			}
+		}
+
+		void drain() throws IOException {
+			while (!inFlight.isEmpty()) {
+				deliverNext();
+			}
+		}
+
+		void cancel() {
+			for (Future<List<T>> f : inFlight) {
+				f.cancel(false);
+			}
+		}
+
+		private void deliverNext() throws IOException {
+			try {
+				Future<List<T>> next;
+				if (ordered) {
+					next = inFlight.peek();
+				} else {
+					next = completion.take();
+				}
+				List<T> values = next.get();
+				inFlight.remove(next);
+				count += values.size();
+				consumer.accept(values);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a chunk to be parsed");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				while (cause != null && cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+					// ForkJoinPool#submit(Callable)は検査例外をRuntimeExceptionで包み、
+					// 別のスレッドで取得した場合はさらにもう一度包みます
+					cause = cause.getCause();
+				}
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.pool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ *
+ * 再利用できるバイト列の出力先です。ByteArrayOutputStreamと異なり同期化しておらず、reset()で配列を使い回します。
+ *
+ */
+final class ByteBuilder extends OutputStream {
+
+	private byte[] buf;
+
+	private int count;
+
+	ByteBuilder(int initialCapacity) {
+		this.buf = new byte[initialCapacity];
+	}
+
+	@Override
+	public void write(int b) {
+		ensureCapacity(count + 1);
+		buf[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		ensureCapacity(count + len);
+		System.arraycopy(b, off, buf, count, len);
+		count += len;
+	}
+
+	/**
+	 * inの終わりまで読み込みます（inは閉じません）
+	 */
+	void readFrom(InputStream in) throws IOException {
+		for (;;) {
+			if (count == buf.length) {
+				ensureCapacity(count + 1);
+			}
+			int n = in.read(buf, count, buf.length - count);
+			if (n < 0) {
+				return;
+			}
+			count += n;
+		}
+	}
+
+	void ensureCapacity(int capacity) {
+		if (capacity > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+		}
+	}
+
+	byte[] array() {
+		return buf;
+	}
+
+	int size() {
+		return count;
+	}
+
+	void setSize(int size) {
+		this.count = size;
+	}
+
+	int capacity() {
+		return buf.length;
+	}
+
+	void reset() {
+		count = 0;
+	}
+
+	byte[] toByteArray() {
+		return Arrays.copyOf(buf, count);
+	}
+
+	void writeTo(OutputStream out) throws IOException {
+		out.write(buf, 0, count);
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.pool;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ *
+ * 再利用できる文字列の出力先です。CharArrayWriterと異なり同期化しておらず、reset()で配列を使い回します。
+ *
+ */
+final class CharBuilder extends Writer {
+
+	private char[] buf;
+
+	private int count;
+
+	CharBuilder(int initialCapacity) {
+		this.buf = new char[initialCapacity];
+	}
+
+	@Override
+	public void write(int c) {
+		ensureCapacity(count + 1);
+		buf[count++] = (char) c;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		ensureCapacity(count + len);
+		System.arraycopy(cbuf, off, buf, count, len);
+		count += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		ensureCapacity(count + len);
+		str.getChars(off, off + len, buf, count);
+		count += len;
+	}
+
+	void ensureCapacity(int capacity) {
+		if (capacity > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+		}
+	}
+
+	char[] array() {
+		return buf;
+	}
+
+	int size() {
+		return count;
+	}
+
+	void setSize(int size) {
+		this.count = size;
+	}
+
+	int capacity() {
+		return buf.length;
+	}
+
+	void reset() {
+		count = 0;
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	/**
+	 * JsonGeneratorを閉じた時に呼ばれますが、再利用するため何もしません
+	 */
+	@Override
+	public void close() {
+	}
+}
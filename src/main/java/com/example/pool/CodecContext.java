@@ -0,0 +1,191 @@
+package com.example.pool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import com.example.charset.JsonFactoryFeatures;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.charset.UnmappableCharacterEscapes;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ *
+ * 1回の書き出し・読み込みで使用するものをまとめたものです。{@link CodecContextPool}から1つのスレッドにだけ貸し出されます。
+ *
+ * JsonFactoryは、JsonParser / JsonGeneratorのバッファをこのコンテキストのBufferRecyclerから取得します
+ * （JsonFactoryの既定はThreadLocalのBufferRecyclerのため、スレッドが多い・入れ替わる場合は再利用されません）。
+ * JsonParser / JsonGeneratorはリセットできないため毎回作成しますが、バッファ・出力先・CharsetEncoder / CharsetDecoderは再利用します。
+ *
+ * UTF-8 / Shift_JIS / Windows-31J / EUC-JPはバイト列を直接読み書きし、
+ * それ以外のエンコーディングはchar[]を介してCharsetEncoder / CharsetDecoderで変換します。
+ *
+ */
+final class CodecContext {
+
+	static final int INITIAL_CAPACITY = 1024;
+
+	private final BufferRecycler recycler = new BufferRecycler();
+
+	private final JsonFactory factory;
+
+	private final ByteBuilder bytes = new ByteBuilder(INITIAL_CAPACITY);
+
+	/**
+	 * バイト列を直接読み書きする場合はnull
+	 */
+	private final CharBuilder chars;
+
+	private final CharsetEncoder encoder;
+
+	private final CharsetDecoder decoder;
+
+	CodecContext(ObjectMapper mapper, Charset charset) {
+		LegacyCharset legacyCharset = LegacyCharset.forCharset(charset);
+		if (legacyCharset != null) {
+			factory = new LegacyCharsetJsonFactory(legacyCharset, mapper) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public BufferRecycler _getBufferRecycler() {
+					return recycler;
+				}
+			};
+		} else {
+			factory = new JsonFactory(mapper) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public BufferRecycler _getBufferRecycler() {
+					return recycler;
+				}
+			};
+		}
+		JsonFactoryFeatures.copy(mapper.getFactory(), factory);
+		if (legacyCharset != null || StandardCharsets.UTF_8.equals(charset)) {
+			chars = null;
+			encoder = null;
+			decoder = null;
+		} else {
+			chars = new CharBuilder(INITIAL_CAPACITY);
+			encoder = charset.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			decoder = charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			if (!charset.name().startsWith("UTF-")) {
+				factory.setCharacterEscapes(new UnmappableCharacterEscapes(charset));
+			}
+		}
+	}
+
+	/**
+	 * valueを書き出します。結果は{@link #output()}の0から{@link #outputSize()}までです
+	 */
+	void write(ObjectWriter writer, Object value) throws IOException {
+		bytes.reset();
+		if (chars == null) {
+			try (JsonGenerator gen = factory.createGenerator(bytes)) {
+				writer.writeValue(gen, value);
+			}
+			return;
+		}
+		chars.reset();
+		try (JsonGenerator gen = factory.createGenerator(chars)) {
+			writer.writeValue(gen, value);
+		}
+		encode();
+	}
+
+	byte[] output() {
+		return bytes.array();
+	}
+
+	int outputSize() {
+		return bytes.size();
+	}
+
+	<T> T read(ObjectReader reader, byte[] data, int off, int len) throws IOException {
+		if (chars == null) {
+			try (JsonParser p = factory.createParser(data, off, len)) {
+				return reader.readValue(p);
+			}
+		}
+		decode(data, off, len);
+		try (JsonParser p = factory.createParser(chars.array(), 0, chars.size())) {
+			return reader.readValue(p);
+		}
+	}
+
+	/**
+	 * inの終わりまで読み込んでから変換します（inは閉じません）
+	 */
+	<T> T read(ObjectReader reader, InputStream in) throws IOException {
+		bytes.reset();
+		bytes.readFrom(in);
+		return read(reader, bytes.array(), 0, bytes.size());
+	}
+
+	/**
+	 * @return 保持しているバッファの合計（バイト）
+	 */
+	long retainedSize() {
+		return bytes.capacity() + ((chars == null) ? 0L : chars.capacity() * 2L);
+	}
+
+	private void encode() throws IOException {
+		encoder.reset();
+		CharBuffer in = CharBuffer.wrap(chars.array(), 0, chars.size());
+		bytes.ensureCapacity((int) (chars.size() * encoder.averageBytesPerChar()) + 16);
+		boolean flushing = false;
+		for (;;) {
+			ByteBuffer out = ByteBuffer.wrap(bytes.array(), bytes.size(), bytes.capacity() - bytes.size());
+			CoderResult result = flushing ? encoder.flush(out) : encoder.encode(in, out, true);
+			bytes.setSize(out.position());
+			if (result.isOverflow()) {
+				bytes.ensureCapacity(bytes.capacity() + 1);
+			} else if (flushing) {
+				return;
+			} else {
+				flushing = true;
+			}
+		}
+	}
+
+	private void decode(byte[] data, int off, int len) throws IOException {
+		decoder.reset();
+		chars.reset();
+		ByteBuffer in = ByteBuffer.wrap(data, off, len);
+		chars.ensureCapacity((int) (len * decoder.averageCharsPerByte()) + 16);
+		boolean flushing = false;
+		for (;;) {
+			CharBuffer out = CharBuffer.wrap(chars.array(), chars.size(), chars.capacity() - chars.size());
+			CoderResult result = flushing ? decoder.flush(out) : decoder.decode(in, out, true);
+			chars.setSize(out.position());
+			if (result.isOverflow()) {
+				chars.ensureCapacity(chars.capacity() + 1);
+			} else if (flushing) {
+				return;
+			} else {
+				flushing = true;
+			}
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package com.example.pool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ *
+ * 小さなJSON（1件のBean等）を大量に読み書きする場合に、1回ごとの準備
+ * （ByteArrayOutputStream・OutputStreamWriter・InputStreamReader・CharsetEncoder / CharsetDecoder・JsonParser / JsonGeneratorのバッファ）
+ * を再利用するためのプールです。
+ *
+ * 使用例:
+ * // アプリケーションで1つ（エンコーディングごと）
+ * CodecContextPool pool = new CodecContextPool(mapper, Charset.forName("Shift_JIS"));
+ *
+ * pool.writeValue(response.getOutputStream(), bean);
+ * Bean bean = pool.readValue(request.getInputStream(), Bean.class);
+ *
+ * ThreadLocalを使用せず、読み書きの間だけコンテキストを貸し出します。そのため、仮想スレッドのようにスレッドが多い・入れ替わる場合も再利用されます。
+ * プールはロックを使用しない固定長の配列で、maxIdleを超えて返却されたコンテキストは破棄します。
+ * 読み書きしたJSONが大きく、バッファが256KBを超えたコンテキストも、メモリを保持し続けないように破棄します。
+ * 使用状況は{@link #getStats()}で取得できます。
+ *
+ * readValue(InputStream, ...)は、終わりまで読み込んでから変換します（大きなJSONには{@link com.example.stream.RecordReader}等を使用します）。
+ *
+ */
+public class CodecContextPool {
+
+	public static final int DEFAULT_MAX_IDLE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	/**
+	 * これを超えるバッファを持つコンテキストは、返却時に破棄します
+	 */
+	static final long MAX_RETAINED_SIZE = 256 * 1024;
+
+	private final ObjectMapper mapper;
+
+	private final Charset charset;
+
+	private final AtomicReferenceArray<CodecContext> slots;
+
+	private final ConcurrentHashMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+	private final AtomicInteger inUse = new AtomicInteger();
+
+	private final AtomicInteger peakInUse = new AtomicInteger();
+
+	private final LongAdder acquired = new LongAdder();
+
+	private final LongAdder created = new LongAdder();
+
+	private final LongAdder discarded = new LongAdder();
+
+	public CodecContextPool(ObjectMapper mapper, Charset charset) {
+		this(mapper, charset, DEFAULT_MAX_IDLE);
+	}
+
+	/**
+	 * @param mapper 設定済みのObjectMapper。このインスタンスの設定は、以後変更しないでください
+	 * @param charset 読み書きするJSONのエンコーディング。javaで扱えるものはすべて使用できます
+	 * @param maxIdle プールに保持するコンテキストの上限
+	 */
+	public CodecContextPool(ObjectMapper mapper, Charset charset, int maxIdle) {
+		if (maxIdle < 1) {
+			throw new IllegalArgumentException("maxIdle must be positive: " + maxIdle);
+		}
+		this.mapper = mapper;
+		this.charset = charset;
+		this.slots = new AtomicReferenceArray<>(maxIdle);
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public byte[] writeValueAsBytes(Object value) throws IOException {
+		CodecContext context = acquire();
+		try {
+			context.write(writer(value.getClass()), value);
+			return Arrays.copyOf(context.output(), context.outputSize());
+		} finally {
+			release(context);
+		}
+	}
+
+	/**
+	 * 書き出した内容を、まとめてoutへ書き込みます（outは閉じません）
+	 */
+	public void writeValue(OutputStream out, Object value) throws IOException {
+		CodecContext context = acquire();
+		try {
+			context.write(writer(value.getClass()), value);
+			out.write(context.output(), 0, context.outputSize());
+		} finally {
+			release(context);
+		}
+	}
+
+	public <T> T readValue(byte[] data, Class<T> type) throws IOException {
+		return readValue(data, 0, data.length, type);
+	}
+
+	public <T> T readValue(byte[] data, int off, int len, Class<T> type) throws IOException {
+		CodecContext context = acquire();
+		try {
+			return context.read(reader(type), data, off, len);
+		} finally {
+			release(context);
+		}
+	}
+
+	/**
+	 * inの終わりまで読み込んでから変換します（inは閉じません）
+	 */
+	public <T> T readValue(InputStream in, Class<T> type) throws IOException {
+		CodecContext context = acquire();
+		try {
+			return context.read(reader(type), in);
+		} finally {
+			release(context);
+		}
+	}
+
+	public PoolStats getStats() {
+		int idle = 0;
+		for (int i = 0; i < slots.length(); i++) {
+			if (slots.get(i) != null) {
+				idle++;
+			}
+		}
+		return new PoolStats(slots.length(), idle, inUse.get(), peakInUse.get(), acquired.sum(), created.sum(),
+				discarded.sum());
+	}
+
+	private ObjectReader reader(Class<?> type) {
+		ObjectReader reader = readers.get(type);
+		return (reader != null) ? reader : readers.computeIfAbsent(type, mapper::readerFor);
+	}
+
+	private ObjectWriter writer(Class<?> type) {
+		ObjectWriter writer = writers.get(type);
+		return (writer != null) ? writer : writers.computeIfAbsent(type, mapper::writerFor);
+	}
+
+	CodecContext acquire() {
+		acquired.increment();
+		int n = slots.length();
+		int start = start(n);
+		for (int i = 0; i < n; i++) {
+			int index = (start + i) % n;
+			CodecContext context = slots.get(index);
+			if (context != null && slots.compareAndSet(index, context, null)) {
+				enter();
+				return context;
+			}
+		}
+		created.increment();
+		enter();
+		return new CodecContext(mapper, charset);
+	}
+
+	void release(CodecContext context) {
+		inUse.decrementAndGet();
+		if (context.retainedSize() <= MAX_RETAINED_SIZE) {
+			int n = slots.length();
+			int start = start(n);
+			for (int i = 0; i < n; i++) {
+				int index = (start + i) % n;
+				if (slots.get(index) == null && slots.compareAndSet(index, null, context)) {
+					return;
+				}
+			}
+		}
+		discarded.increment();
+	}
+
+	/**
+	 * スレッドごとに探し始める位置を分け、同時に貸し出す場合の競合を減らします
+	 */
+	private static int start(int n) {
+		return (int) (Thread.currentThread().getId() % n);
+	}
+
+	private void enter() {
+		int current = inUse.incrementAndGet();
+		int peak;
+		while (current > (peak = peakInUse.get()) && !peakInUse.compareAndSet(peak, current)) {
+			// 他のスレッドが更新した場合は、もう一度比較します
+		}
+	}
+}
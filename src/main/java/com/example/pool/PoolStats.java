@@ -0,0 +1,105 @@
+package com.example.pool;
+
+/**
+ *
+ * {@link CodecContextPool}の使用状況です（取得した時点の値）。
+ *
+ * 使用例:
+ * PoolStats stats = pool.getStats();
+ * metrics.gauge("codec.pool.idle", stats.getIdle());
+ * metrics.gauge("codec.pool.in_use", stats.getInUse());
+ * metrics.gauge("codec.pool.reuse_rate", stats.getReuseRate());
+ *
+ */
+public final class PoolStats {
+
+	private final int maxIdle;
+
+	private final int idle;
+
+	private final int inUse;
+
+	private final int peakInUse;
+
+	private final long acquired;
+
+	private final long created;
+
+	private final long discarded;
+
+	PoolStats(int maxIdle, int idle, int inUse, int peakInUse, long acquired, long created, long discarded) {
+		this.maxIdle = maxIdle;
+		this.idle = idle;
+		this.inUse = inUse;
+		this.peakInUse = peakInUse;
+		this.acquired = acquired;
+		this.created = created;
+		this.discarded = discarded;
+	}
+
+	/**
+	 * @return プールに保持するコンテキストの上限
+	 */
+	public int getMaxIdle() {
+		return maxIdle;
+	}
+
+	/**
+	 * @return プールに保持している（貸し出していない）コンテキストの数
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * @return 貸し出し中のコンテキストの数
+	 */
+	public int getInUse() {
+		return inUse;
+	}
+
+	/**
+	 * @return これまでの、同時に貸し出したコンテキストの最大数。maxIdleより大きい場合は、maxIdleを増やすと作成が減ります
+	 */
+	public int getPeakInUse() {
+		return peakInUse;
+	}
+
+	/**
+	 * @return 保持しているコンテキストの割合（idle / maxIdle）
+	 */
+	public double getOccupancy() {
+		return (maxIdle == 0) ? 0 : (double) idle / maxIdle;
+	}
+
+	public long getAcquiredCount() {
+		return acquired;
+	}
+
+	/**
+	 * @return プールが空だったため、新しく作成したコンテキストの数
+	 */
+	public long getCreatedCount() {
+		return created;
+	}
+
+	/**
+	 * @return 返却時に、プールが満杯・バッファが大きすぎるため破棄したコンテキストの数
+	 */
+	public long getDiscardedCount() {
+		return discarded;
+	}
+
+	/**
+	 * @return 貸し出しのうち、作成せずに再利用した割合
+	 */
+	public double getReuseRate() {
+		return (acquired == 0) ? 0 : (double) (acquired - created) / acquired;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolStats[maxIdle=" + maxIdle + ", idle=" + idle + ", inUse=" + inUse + ", peakInUse=" + peakInUse
+				+ ", acquired=" + acquired + ", created=" + created + ", discarded=" + discarded + "]";
+	}
+}
@@ -0,0 +1,241 @@
+package com.example.registry;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.charset.CharsetDetectingJsonFactory;
+import com.example.charset.CharsetDetector;
+import com.example.charset.JsonFactoryFeatures;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ *
+ * 型とエンコーディングの組み合わせごとに、ObjectReader / ObjectWriterを保持します。
+ * ObjectReader / ObjectWriterはイミュータブルでスレッドセーフなので、アプリケーション全体で共有できます。
+ *
+ * 使用例:
+ * CodecRegistry registry = new CodecRegistry(new ObjectMapper())
+ *         .register(Bean.class, StandardCharsets.UTF_8, Charset.forName("Shift_JIS"));
+ * registry.warmUp(); // 起動時
+ *
+ * Bean bean = registry.reader(Bean.class, Charset.forName("Shift_JIS")).readValue(request.getInputStream());
+ * registry.writer(Bean.class, Charset.forName("Shift_JIS")).writeValue(response.getOutputStream(), bean);
+ *
+ * Shift_JIS / Windows-31J / EUC-JPのReader / Writerは{@link LegacyCharsetJsonFactory}を使用するため、
+ * InputStreamReader / OutputStreamWriterを作成せずにバイト列を直接読み書きします。
+ * エンコーディングを先頭部分から判定して読み込む場合は、{@link #detectingReader(Class)}を使用します。
+ * 設定（DeserializationFeature・JsonParser.Feature等）は、コンストラクタに渡したObjectMapperのものを引き継ぎます。
+ *
+ */
+public class CodecRegistry {
+
+	private final ObjectMapper mapper;
+
+	private final Map<LegacyCharset, LegacyCharsetJsonFactory> legacyFactories = new EnumMap<>(LegacyCharset.class);
+
+	private final CharsetDetectingJsonFactory detectingFactory;
+
+	private final ConcurrentHashMap<Key, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<JavaType, ObjectReader> detectingReaders = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Key, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+	private final List<Key> registered = new ArrayList<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private volatile Duration warmUpTime = Duration.ZERO;
+
+	/**
+	 * @param mapper 設定済みのObjectMapper。このインスタンスの設定は、以後変更しないでください
+	 */
+	public CodecRegistry(ObjectMapper mapper) {
+		this.mapper = mapper;
+		for (LegacyCharset legacyCharset : LegacyCharset.values()) {
+			legacyFactories.put(legacyCharset, JsonFactoryFeatures.copy(mapper.getFactory(),
+					new LegacyCharsetJsonFactory(legacyCharset, mapper)));
+		}
+		this.detectingFactory = JsonFactoryFeatures.copy(mapper.getFactory(), new CharsetDetectingJsonFactory(
+				LegacyCharset.SHIFT_JIS, CharsetDetector.DEFAULT_SCAN_LIMIT, mapper));
+	}
+
+	/**
+	 * {@link #warmUp()}の対象に追加します
+	 *
+	 * @throws IllegalArgumentException 対応していないエンコーディングの場合
+	 */
+	public synchronized CodecRegistry register(Class<?> type, Charset... charsets) {
+		JavaType javaType = mapper.constructType(type);
+		for (Charset charset : charsets) {
+			registered.add(new Key(javaType, normalize(charset)));
+		}
+		return this;
+	}
+
+	/**
+	 * {@link #register(Class, Charset...)}で追加した組み合わせについて、
+	 * ObjectReader / ObjectWriterを作成してシリアライザ・デシリアライザを解決し、エンコーディングの変換表を作成します。
+	 * warmUpで作成した分は、ヒット・ミスの件数には含めません。
+	 *
+	 * @return かかった時間（{@link #getWarmUpTime()}でも取得できます）
+	 */
+	public synchronized Duration warmUp() {
+		final long start = System.nanoTime();
+		for (Key key : registered) {
+			readers.computeIfAbsent(key, this::createReader);
+			writers.computeIfAbsent(key, this::createWriter);
+			LegacyCharset legacyCharset = LegacyCharset.forCharset(key.charset);
+			if (legacyCharset != null) {
+				legacyCharset.preload();
+			}
+		}
+		warmUpTime = Duration.ofNanos(System.nanoTime() - start);
+		return warmUpTime;
+	}
+
+	/**
+	 * @throws IllegalArgumentException 対応していないエンコーディングの場合
+	 */
+	public ObjectReader reader(Class<?> type, Charset charset) {
+		return reader(mapper.constructType(type), charset);
+	}
+
+	/**
+	 * @throws IllegalArgumentException 対応していないエンコーディングの場合
+	 */
+	public ObjectReader reader(JavaType type, Charset charset) {
+		Key key = new Key(type, normalize(charset));
+		ObjectReader reader = readers.get(key);
+		if (reader != null) {
+			hits.increment();
+			return reader;
+		}
+		misses.increment();
+		return readers.computeIfAbsent(key, this::createReader);
+	}
+
+	/**
+	 * エンコーディングを先頭部分から判定して読み込むObjectReader（{@link CharsetDetectingJsonFactory}）を返します。
+	 * Shift_JIS系と判定した場合はShift_JISとして読み込みます
+	 */
+	public ObjectReader detectingReader(Class<?> type) {
+		return detectingReader(mapper.constructType(type));
+	}
+
+	public ObjectReader detectingReader(JavaType type) {
+		ObjectReader reader = detectingReaders.get(type);
+		if (reader != null) {
+			hits.increment();
+			return reader;
+		}
+		misses.increment();
+		return detectingReaders.computeIfAbsent(type, t -> mapper.readerFor(t).with(detectingFactory));
+	}
+
+	/**
+	 * @throws IllegalArgumentException 対応していないエンコーディングの場合
+	 */
+	public ObjectWriter writer(Class<?> type, Charset charset) {
+		return writer(mapper.constructType(type), charset);
+	}
+
+	/**
+	 * @throws IllegalArgumentException 対応していないエンコーディングの場合
+	 */
+	public ObjectWriter writer(JavaType type, Charset charset) {
+		Key key = new Key(type, normalize(charset));
+		ObjectWriter writer = writers.get(key);
+		if (writer != null) {
+			hits.increment();
+			return writer;
+		}
+		misses.increment();
+		return writers.computeIfAbsent(key, this::createWriter);
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return 最後に実行した{@link #warmUp()}にかかった時間。実行していない場合はDuration.ZERO
+	 */
+	public Duration getWarmUpTime() {
+		return warmUpTime;
+	}
+
+	private ObjectReader createReader(Key key) {
+		ObjectReader reader = mapper.readerFor(key.type);
+		LegacyCharset legacyCharset = LegacyCharset.forCharset(key.charset);
+		return (legacyCharset == null) ? reader : reader.with(legacyFactories.get(legacyCharset));
+	}
+
+	private ObjectWriter createWriter(Key key) {
+		ObjectWriter writer = mapper.writerFor(key.type);
+		LegacyCharset legacyCharset = LegacyCharset.forCharset(key.charset);
+		return (legacyCharset == null) ? writer : writer.with(legacyFactories.get(legacyCharset));
+	}
+
+	/**
+	 * UTF-8と、LegacyCharsetで扱えるエンコーディングだけを受け付けます
+	 * （ObjectWriter#writeValue(OutputStream, ...)はUTF-8以外のUnicodeで書き出せないため、UTF-16 / UTF-32は扱いません）
+	 */
+	private static Charset normalize(Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset)) {
+			return StandardCharsets.UTF_8;
+		}
+		LegacyCharset legacyCharset = LegacyCharset.forCharset(charset);
+		if (legacyCharset == null) {
+			throw new IllegalArgumentException("Unsupported charset: " + charset);
+		}
+		return legacyCharset.charset();
+	}
+
+	private static final class Key {
+
+		final JavaType type;
+
+		final Charset charset;
+
+		Key(JavaType type, Charset charset) {
+			this.type = type;
+			this.charset = charset;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return type.equals(other.type) && charset.equals(other.charset);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + charset.hashCode();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.example.stream;
+
+import java.time.Duration;
+
+/**
+ *
+ * {@link RecordWriter}が、バッファの内容をファイルに書き出す（flush）タイミングと、ディスクに同期する（fsync）タイミングです。
+ * イミュータブルなので、定数やフィールドで共有できます。
+ *
+ * 使用例:
+ * FlushPolicy policy = FlushPolicy.DEFAULT
+ *         .withEveryRecords(1000)
+ *         .withInterval(Duration.ofSeconds(1))
+ *         .withSync(FlushPolicy.Sync.ON_FLUSH);
+ *
+ * バッファが一杯になった時とcloseした時は、常に書き出します。
+ * 書き出したがfsyncしていない内容は、プロセスが異常終了しても失われませんが、OSの停止・電源断では失われることがあります。
+ *
+ */
+public final class FlushPolicy {
+
+	/**
+	 * fsync（FileChannel#force）のタイミング
+	 */
+	public enum Sync {
+
+		/**
+		 * fsyncしません（OSに任せます）
+		 */
+		NEVER,
+
+		/**
+		 * closeした時だけfsyncします
+		 */
+		ON_CLOSE,
+
+		/**
+		 * 書き出すたびにfsyncします（件数・間隔の指定がない場合は、バッファが一杯になるたびとcloseした時）
+		 */
+		ON_FLUSH
+	}
+
+	/**
+	 * バッファの大きさのデフォルト（1MB）
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * バッファが一杯になった時とcloseした時だけ書き出し、closeした時にfsyncします
+	 */
+	public static final FlushPolicy DEFAULT = new FlushPolicy(DEFAULT_BUFFER_SIZE, 0, null, Sync.ON_CLOSE);
+
+	private final int bufferSize;
+
+	private final int everyRecords;
+
+	private final Duration interval;
+
+	private final Sync sync;
+
+	private FlushPolicy(int bufferSize, int everyRecords, Duration interval, Sync sync) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+		}
+		if (everyRecords < 0) {
+			throw new IllegalArgumentException("everyRecords must not be negative: " + everyRecords);
+		}
+		if (interval != null && (interval.isNegative() || interval.isZero())) {
+			throw new IllegalArgumentException("interval must be positive: " + interval);
+		}
+		if (sync == null) {
+			throw new IllegalArgumentException("sync must not be null");
+		}
+		this.bufferSize = bufferSize;
+		this.everyRecords = everyRecords;
+		this.interval = interval;
+		this.sync = sync;
+	}
+
+	/**
+	 * @param bufferSize 書き出す前にまとめておく最大のバイト数（1件がこれより大きい場合は、その1件分まで大きくなります）
+	 */
+	public FlushPolicy withBufferSize(int bufferSize) {
+		return new FlushPolicy(bufferSize, everyRecords, interval, sync);
+	}
+
+	/**
+	 * @param everyRecords この件数ごとに書き出します。0の場合は件数では書き出しません
+	 */
+	public FlushPolicy withEveryRecords(int everyRecords) {
+		return new FlushPolicy(bufferSize, everyRecords, interval, sync);
+	}
+
+	/**
+	 * 前回書き出してからinterval以上経過していれば、次の1件を追加した時（または{@link RecordWriter#flushIfDue()}）に書き出します
+	 *
+	 * @param interval nullの場合は経過時間では書き出しません
+	 */
+	public FlushPolicy withInterval(Duration interval) {
+		return new FlushPolicy(bufferSize, everyRecords, interval, sync);
+	}
+
+	public FlushPolicy withSync(Sync sync) {
+		return new FlushPolicy(bufferSize, everyRecords, interval, sync);
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public int getEveryRecords() {
+		return everyRecords;
+	}
+
+	/**
+	 * @return 指定していない場合はnull
+	 */
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public Sync getSync() {
+		return sync;
+	}
+
+	@Override
+	public String toString() {
+		return "FlushPolicy[bufferSize=" + bufferSize + ", everyRecords=" + everyRecords + ", interval=" + interval
+				+ ", sync=" + sync + "]";
+	}
+}
@@ -0,0 +1,212 @@
+package com.example.stream;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.example.charset.CharsetDetectingJsonFactory;
+import com.example.charset.CharsetDetector;
+import com.example.charset.JsonFactoryFeatures;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.registry.CodecRegistry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ *
+ * JSONの配列（[{...},{...},...]）またはNDJSON（1行に1つのJSON）から、1件ずつjavaのオブジェクトを読み込みます。
+ * ファイル全体を読み込まずに、パーサーの読み込み用のバッファ分だけを保持しながら読み進めるため、
+ * 数GBのファイルでも使用するメモリは一定です。
+ *
+ * 使用例:
+ * try (RecordReader<Bean> records = RecordReader.open(mapper, file, Charset.forName("Shift_JIS"), Bean.class)) {
+ *     List<Bean> batch;
+ *     while (!(batch = records.nextBatch(1000)).isEmpty()) {
+ *         repository.saveAll(batch);
+ *     }
+ * }
+ *
+ * 配列とNDJSONのどちらであるかは、最初のトークンから判定します（MappingIteratorの動作です）。
+ * エンコーディングにnullを指定した場合は、{@link CharsetDetectingJsonFactory}で判定します。
+ * ObjectMapper・ObjectReaderを指定した場合、Shift_JIS / EUC-JP・判定に使用するJsonFactoryはopenごとに作成します
+ * （ObjectMapperのJsonFactoryのFeatureは引き継ぎます）。
+ * 複数のファイルを読み込む場合は{@link CodecRegistry}を指定すると、CodecRegistryのObjectReader・JsonFactoryを使い回すため、
+ * フィールド名のシンボルテーブルもファイルの間で共有されます。
+ *
+ */
+public class RecordReader<T> implements Iterator<T>, Closeable {
+
+	private final MappingIterator<T> iterator;
+
+	private long count;
+
+	protected RecordReader(MappingIterator<T> iterator) {
+		this.iterator = iterator;
+	}
+
+	/**
+	 * @param charset nullの場合は先頭部分から判定します
+	 */
+	public static <T> RecordReader<T> open(ObjectMapper mapper, File file, Charset charset, Class<T> type)
+			throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return open(mapper.readerFor(type), in, charset);
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param charset nullの場合は先頭部分から判定します
+	 */
+	public static <T> RecordReader<T> open(ObjectMapper mapper, InputStream in, Charset charset, Class<T> type)
+			throws IOException {
+		return open(mapper.readerFor(type), in, charset);
+	}
+
+	/**
+	 * @param reader 読み込む型を指定したObjectReader（ObjectMapper#readerFor等）
+	 * @param in closeした時に、一緒にcloseされます
+	 * @param charset nullの場合は先頭部分から判定します
+	 */
+	public static <T> RecordReader<T> open(ObjectReader reader, InputStream in, Charset charset) throws IOException {
+		JsonFactory base = reader.getFactory();
+		if (charset == null) {
+			return new RecordReader<>(reader.with(JsonFactoryFeatures.copy(base, new CharsetDetectingJsonFactory(
+					LegacyCharset.SHIFT_JIS, CharsetDetector.DEFAULT_SCAN_LIMIT, base.getCodec()))).readValues(in));
+		}
+		LegacyCharset legacyCharset = isDetectedByJackson(charset) ? null : LegacyCharset.forCharset(charset);
+		if (legacyCharset != null) {
+			return new RecordReader<>(reader.with(JsonFactoryFeatures.copy(base,
+					new LegacyCharsetJsonFactory(legacyCharset, base.getCodec()))).readValues(in));
+		}
+		return readValues(reader, in, charset);
+	}
+
+	/**
+	 * CodecRegistryのObjectReader（JsonFactory）を使用して読み込みます
+	 *
+	 * @param charset nullの場合は先頭部分から判定します
+	 */
+	public static <T> RecordReader<T> open(CodecRegistry registry, File file, Charset charset, Class<T> type)
+			throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return open(registry, in, charset, type);
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * CodecRegistryのObjectReader（JsonFactory）を使用して読み込みます
+	 *
+	 * @param in closeした時に、一緒にcloseされます
+	 * @param charset nullの場合は先頭部分から判定します
+	 */
+	public static <T> RecordReader<T> open(CodecRegistry registry, InputStream in, Charset charset, Class<T> type)
+			throws IOException {
+		if (charset == null) {
+			return new RecordReader<>(registry.detectingReader(type).readValues(in));
+		}
+		LegacyCharset legacyCharset = isDetectedByJackson(charset) ? null : LegacyCharset.forCharset(charset);
+		if (legacyCharset != null) {
+			return new RecordReader<>(registry.reader(type, charset).readValues(in));
+		}
+		return readValues(registry.reader(type, StandardCharsets.UTF_8), in, charset);
+	}
+
+	/**
+	 * UTF-8 / UTF-16 / UTF-32はバイト列のまま、それ以外はInputStreamReaderで読み込みます
+	 */
+	private static <T> RecordReader<T> readValues(ObjectReader reader, InputStream in, Charset charset)
+			throws IOException {
+		if (isDetectedByJackson(charset)) {
+			return new RecordReader<>(reader.readValues(in));
+		}
+		return new RecordReader<>(reader.readValues(new InputStreamReader(in, charset)));
+	}
+
+	/**
+	 * UTF-8 / UTF-16 / UTF-32は、Jacksonがバイト列から判定できます
+	 */
+	private static boolean isDetectedByJackson(Charset charset) {
+		String name = charset.name();
+		return StandardCharsets.UTF_8.equals(charset) || name.startsWith("UTF-16") || name.startsWith("UTF-32");
+	}
+
+	/**
+	 * @throws com.fasterxml.jackson.databind.RuntimeJsonMappingException JSONが不正な場合
+	 */
+	@Override
+	public boolean hasNext() {
+		return iterator.hasNext();
+	}
+
+	/**
+	 * @throws com.fasterxml.jackson.databind.RuntimeJsonMappingException JSONが不正な場合
+	 */
+	@Override
+	public T next() {
+		if (!iterator.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T value = iterator.next();
+		count++;
+		return value;
+	}
+
+	/**
+	 * 最大n件を読み込みます
+	 *
+	 * @return 読み込んだオブジェクト。残りがない場合は空のリスト
+	 */
+	public List<T> nextBatch(int n) throws IOException {
+		List<T> batch = new ArrayList<>(Math.min(n, 1024));
+		nextBatch(n, batch);
+		return batch;
+	}
+
+	/**
+	 * 最大n件を読み込み、intoに追加します。呼び出し側でコレクションを使い回す場合に使用します
+	 *
+	 * @return 追加した件数。残りがない場合は0
+	 */
+	public int nextBatch(int n, Collection<? super T> into) throws IOException {
+		int added = 0;
+		while (added < n && iterator.hasNextValue()) {
+			into.add(iterator.nextValue());
+			added++;
+		}
+		count += added;
+		return added;
+	}
+
+	/**
+	 * @return これまでに読み込んだ件数
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		iterator.close();
+	}
+}
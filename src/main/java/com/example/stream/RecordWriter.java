@@ -0,0 +1,380 @@
+package com.example.stream;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.example.buffer.ChunkedByteBufferOutputStream;
+import com.example.pool.CodecContextPool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *
+ * ファイルの末尾に、NDJSON（1行に1つのJSON）またはJSONの配列の要素として1件ずつ追加します。{@link RecordReader}で読み込めます。
+ *
+ * 使用例:
+ * try (RecordWriter<Bean> records = RecordWriter.open(mapper, Paths.get("access.ndjson"), StandardCharsets.UTF_8,
+ *         RecordWriter.Format.NDJSON, FlushPolicy.DEFAULT.withInterval(Duration.ofSeconds(1)))) {
+ *     records.append(bean);
+ * }
+ *
+ * ObjectMapper#writeValue(File, ...)のように1件ごとにファイルを開いて閉じるのではなく、
+ * 開いたFileChannelに、64KBずつのバッファ（使い回します）へまとめた複数件を、1回のギャザリング書き込みで書き出します。
+ * 書き出す・fsyncするタイミングは{@link FlushPolicy}で指定します。
+ * 1件ごとの変換は{@link CodecContextPool}で行うため、javaで扱えるすべてのエンコーディングで書き出せます
+ * （バイト順を指定しない「UTF-16」は、1件ごとにBOMが付かないようにBOMなしのUTF-16BEにします）。
+ *
+ * JSONの配列の場合、既存のファイルは末尾の「]」を取り除いてから追加し、closeした時に「]」を書き出します。
+ * そのため、closeするまではJSONとして完結しません。異常終了しても書き出した分を読み込めるようにする場合は、NDJSONを使用します。
+ *
+ * メソッドは同期化しているため、複数のスレッドから同じインスタンスに追加できます。
+ * 1つのファイルに書き出すインスタンスは1つだけにしてください。
+ *
+ */
+public class RecordWriter<T> implements Flushable, Closeable {
+
+	public enum Format {
+
+		/**
+		 * 1行に1つのJSON（改行はLF）
+		 */
+		NDJSON,
+
+		/**
+		 * JSONの配列（[{...},{...},...]）
+		 */
+		ARRAY
+	}
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * 配列の末尾を探すために読み込む最大のバイト数
+	 */
+	private static final int TAIL_SIZE = 4096;
+
+	private static final String WHITESPACE = " \t\r\n";
+
+	private final FileChannel channel;
+
+	private final CodecContextPool codec;
+
+	private final Format format;
+
+	private final FlushPolicy policy;
+
+	private final long intervalNanos;
+
+	private final ChunkedByteBufferOutputStream buffer = new ChunkedByteBufferOutputStream(CHUNK_SIZE, false);
+
+	private final RecordOutput output = new RecordOutput();
+
+	/**
+	 * NDJSONは改行、配列は「,」
+	 */
+	private final byte[] separator;
+
+	private final byte[] arrayEnd;
+
+	/**
+	 * 配列の場合に、次の1件の前に「,」が不要であればtrue
+	 */
+	private boolean first;
+
+	private long recordCount;
+
+	private long pendingRecords;
+
+	private long bytesWritten;
+
+	private long flushCount;
+
+	private long syncCount;
+
+	private long lastFlushNanos = System.nanoTime();
+
+	private boolean closed;
+
+	protected RecordWriter(FileChannel channel, CodecContextPool codec, Format format, FlushPolicy policy,
+			boolean first) {
+		Charset charset = codec.getCharset();
+		this.channel = channel;
+		this.codec = codec;
+		this.format = format;
+		this.policy = policy;
+		this.intervalNanos = (policy.getInterval() == null) ? 0 : policy.getInterval().toNanos();
+		this.separator = ((format == Format.NDJSON) ? "\n" : ",").getBytes(charset);
+		this.arrayEnd = "]".getBytes(charset);
+		this.first = first;
+	}
+
+	public static <T> RecordWriter<T> open(ObjectMapper mapper, Path file, Charset charset, Format format)
+			throws IOException {
+		return open(mapper, file, charset, format, FlushPolicy.DEFAULT);
+	}
+
+	/**
+	 * ファイルがない場合は作成し、ある場合は末尾に追加します
+	 *
+	 * @throws IOException 配列の場合に、既存のファイルの末尾が「]」でない場合
+	 */
+	public static <T> RecordWriter<T> open(ObjectMapper mapper, Path file, Charset charset, Format format,
+			FlushPolicy policy) throws IOException {
+		Charset normalized = "UTF-16".equals(charset.name()) ? StandardCharsets.UTF_16BE : charset;
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			long size = channel.size();
+			boolean first = true;
+			if (format == Format.ARRAY && size > 0) {
+				long[] end = findArrayEnd(channel, size, normalized);
+				if (end == null) {
+					throw new IOException("Not a JSON array: " + file);
+				}
+				channel.truncate(end[0]);
+				size = end[0];
+				first = (end[1] != 0);
+			}
+			channel.position(size);
+			RecordWriter<T> writer = new RecordWriter<>(channel, new CodecContextPool(mapper, normalized, 1), format,
+					policy, first);
+			if (format == Format.ARRAY && size == 0) {
+				writer.buffer.write("[".getBytes(normalized));
+			}
+			return writer;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 末尾の空白を除いた「]」の位置を探します
+	 *
+	 * @return 「]」の位置と、空の配列の場合は1（それ以外は0）。末尾が「]」でない場合はnull
+	 */
+	private static long[] findArrayEnd(FileChannel channel, long size, Charset charset) throws IOException {
+		int len = (int) Math.min(size, TAIL_SIZE);
+		ByteBuffer tail = ByteBuffer.allocate(len);
+		long start = size - len;
+		while (tail.hasRemaining()) {
+			if (channel.read(tail, start + tail.position()) < 0) {
+				break;
+			}
+		}
+		byte[] bytes = tail.array();
+		int end = skipWhitespace(bytes, len, charset);
+		byte[] close = "]".getBytes(charset);
+		if (!endsWith(bytes, end, close)) {
+			return null;
+		}
+		end -= close.length;
+		int before = skipWhitespace(bytes, end, charset);
+		boolean empty = endsWith(bytes, before, "[".getBytes(charset));
+		return new long[] { start + end, empty ? 1 : 0 };
+	}
+
+	private static int skipWhitespace(byte[] bytes, int end, Charset charset) {
+		boolean skipped = true;
+		while (skipped) {
+			skipped = false;
+			for (int i = 0; i < WHITESPACE.length(); i++) {
+				byte[] ws = WHITESPACE.substring(i, i + 1).getBytes(charset);
+				if (endsWith(bytes, end, ws)) {
+					end -= ws.length;
+					skipped = true;
+				}
+			}
+		}
+		return end;
+	}
+
+	private static boolean endsWith(byte[] bytes, int end, byte[] token) {
+		if (end < token.length) {
+			return false;
+		}
+		for (int i = 0; i < token.length; i++) {
+			if (bytes[end - token.length + i] != token[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 1件を追加します。FlushPolicyの条件を満たした場合は、ファイルに書き出します
+	 *
+	 * @throws IOException 変換できなかった場合（その1件は追加されません）、または書き出しに失敗した場合
+	 */
+	public synchronized void append(T value) throws IOException {
+		ensureOpen();
+		if (format == Format.NDJSON) {
+			output.prefix = null;
+			codec.writeValue(output, value);
+			buffer.write(separator, 0, separator.length);
+		} else {
+			output.prefix = first ? null : separator;
+			codec.writeValue(output, value);
+			first = false;
+		}
+		recordCount++;
+		pendingRecords++;
+		if (buffer.size() >= policy.getBufferSize()
+				|| (policy.getEveryRecords() > 0 && pendingRecords >= policy.getEveryRecords())
+				|| (intervalNanos > 0 && System.nanoTime() - lastFlushNanos >= intervalNanos)) {
+			flush();
+		}
+	}
+
+	public synchronized void appendAll(Iterable<? extends T> values) throws IOException {
+		for (T value : values) {
+			append(value);
+		}
+	}
+
+	/**
+	 * FlushPolicyの間隔を過ぎていれば書き出します。追加が途切れる場合に、ScheduledExecutorService等から定期的に呼び出します
+	 */
+	public synchronized void flushIfDue() throws IOException {
+		if (!closed && intervalNanos > 0 && pendingRecords > 0 && System.nanoTime() - lastFlushNanos >= intervalNanos) {
+			flush();
+		}
+	}
+
+	/**
+	 * バッファの内容をファイルに書き出します。FlushPolicy.Sync.ON_FLUSHの場合はfsyncします
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		ensureOpen();
+		writeBuffer();
+		if (policy.getSync() == FlushPolicy.Sync.ON_FLUSH) {
+			sync();
+		}
+	}
+
+	/**
+	 * 書き出したかどうかに関係なく、その時点の内容をfsyncします
+	 */
+	public synchronized void sync() throws IOException {
+		ensureOpen();
+		// 追加でファイルの大きさが変わるため、メタデータも含めます
+		channel.force(true);
+		syncCount++;
+	}
+
+	private void writeBuffer() throws IOException {
+		lastFlushNanos = System.nanoTime();
+		if (buffer.size() == 0) {
+			return;
+		}
+		ByteBuffer[] buffers = buffer.toBuffers();
+		long remaining = buffer.size();
+		long position = channel.position();
+		try {
+			while (remaining > 0) {
+				remaining -= channel.write(buffers);
+			}
+		} catch (IOException | RuntimeException e) {
+			// 途中まで書き出した分を取り除き、次のflush / closeでバッファの内容を最初から書き出せるようにします
+			try {
+				channel.truncate(position);
+				channel.position(position);
+			} catch (IOException | RuntimeException truncateFailure) {
+				e.addSuppressed(truncateFailure);
+			}
+			throw e;
+		}
+		bytesWritten += buffer.size();
+		buffer.reset();
+		pendingRecords = 0;
+		flushCount++;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("RecordWriter is closed");
+		}
+	}
+
+	/**
+	 * @return これまでに追加した件数（既存のファイルの件数は含みません）
+	 */
+	public synchronized long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * @return ファイルに書き出したバイト数
+	 */
+	public synchronized long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * @return ファイルに書き出した回数（ギャザリング書き込みの呼び出しごとではなく、バッファの内容ごと）
+	 */
+	public synchronized long getFlushCount() {
+		return flushCount;
+	}
+
+	public synchronized long getSyncCount() {
+		return syncCount;
+	}
+
+	public FlushPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * 配列の場合は「]」を追加して書き出し、FlushPolicy.Sync.NEVER以外の場合はfsyncしてから閉じます
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			if (format == Format.ARRAY) {
+				buffer.write(arrayEnd, 0, arrayEnd.length);
+			}
+			writeBuffer();
+			if (policy.getSync() != FlushPolicy.Sync.NEVER) {
+				sync();
+			}
+		} finally {
+			closed = true;
+			channel.close();
+		}
+	}
+
+	/**
+	 * 1件分の内容の前に区切り（prefix）を書き込みます。
+	 * CodecContextPoolは変換が終わってから1回で書き込むため、変換に失敗した場合は区切りも書き込まれません
+	 */
+	private final class RecordOutput extends OutputStream {
+
+		byte[] prefix;
+
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			if (prefix != null) {
+				buffer.write(prefix, 0, prefix.length);
+				prefix = null;
+			}
+			buffer.write(b, off, len);
+		}
+	}
+}
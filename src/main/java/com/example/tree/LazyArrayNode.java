@@ -0,0 +1,105 @@
+package com.example.tree;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ *
+ * 最初にアクセスされた時に要素を読み込むArrayNodeです。{@link LazyTreeReader}が作成します。
+ *
+ * ArrayNodeのすべての操作は要素のListを介して行われるため、通常のArrayNodeと同じ結果になります
+ * （要素のListへの最初のアクセスで、この階層だけを読み込みます）。
+ *
+ */
+// 継承したArrayNode#deepCopy()が、JsonNodeの<T extends JsonNode> T deepCopy()を実装していることによる警告です
+@SuppressWarnings("unchecked")
+public class LazyArrayNode extends ArrayNode {
+
+	private final Elements elements;
+
+	LazyArrayNode(JsonNodeFactory nc, Subtree subtree) {
+		this(nc, new Elements(subtree));
+	}
+
+	private LazyArrayNode(JsonNodeFactory nc, Elements elements) {
+		super(nc, elements);
+		this.elements = elements;
+	}
+
+	/**
+	 * @return 要素を読み込み済みの場合はtrue
+	 */
+	public boolean isMaterialized() {
+		return elements.isMaterialized();
+	}
+
+	/**
+	 * 最初のアクセスでSubtreeから読み込み、以後はArrayListに委譲します
+	 */
+	private static final class Elements extends AbstractList<JsonNode> {
+
+		private Subtree subtree;
+
+		private volatile List<JsonNode> list;
+
+		Elements(Subtree subtree) {
+			this.subtree = subtree;
+		}
+
+		boolean isMaterialized() {
+			return list != null;
+		}
+
+		private List<JsonNode> list() {
+			List<JsonNode> l = list;
+			if (l != null) {
+				return l;
+			}
+			synchronized (this) {
+				if (list == null) {
+					List<JsonNode> children = new ArrayList<>();
+					subtree.readElements(children);
+					list = children;
+					// 読み込んだ後は、元のバイト列を参照しないようにします
+					subtree = null;
+				}
+				return list;
+			}
+		}
+
+		@Override
+		public JsonNode get(int index) {
+			return list().get(index);
+		}
+
+		@Override
+		public int size() {
+			return list().size();
+		}
+
+		@Override
+		public JsonNode set(int index, JsonNode element) {
+			return list().set(index, element);
+		}
+
+		@Override
+		public void add(int index, JsonNode element) {
+			list().add(index, element);
+		}
+
+		@Override
+		public JsonNode remove(int index) {
+			return list().remove(index);
+		}
+
+		@Override
+		public void clear() {
+			list().clear();
+		}
+	}
+}
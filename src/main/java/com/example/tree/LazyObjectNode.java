@@ -0,0 +1,109 @@
+package com.example.tree;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ *
+ * 最初にアクセスされた時に子を読み込むObjectNodeです。{@link LazyTreeReader}が作成します。
+ *
+ * ObjectNodeのすべての操作は子のMapを介して行われるため、get / path / fields / equals / toString / 書き出し・変更等は、
+ * 通常のObjectNodeと同じ結果になります（子のMapへの最初のアクセスで、この階層だけを読み込みます）。
+ *
+ */
+// 継承したObjectNode#deepCopy()が、JsonNodeの<T extends JsonNode> T deepCopy()を実装していることによる警告です
+@SuppressWarnings("unchecked")
+public class LazyObjectNode extends ObjectNode {
+
+	LazyObjectNode(JsonNodeFactory nc, Subtree subtree) {
+		super(nc, new Children(subtree));
+	}
+
+	/**
+	 * @return 子を読み込み済みの場合はtrue
+	 */
+	public boolean isMaterialized() {
+		return ((Children) _children).isMaterialized();
+	}
+
+	/**
+	 * 最初のアクセスでSubtreeから読み込み、以後はLinkedHashMapに委譲します
+	 */
+	private static final class Children extends AbstractMap<String, JsonNode> {
+
+		private Subtree subtree;
+
+		private volatile Map<String, JsonNode> map;
+
+		Children(Subtree subtree) {
+			this.subtree = subtree;
+		}
+
+		boolean isMaterialized() {
+			return map != null;
+		}
+
+		private Map<String, JsonNode> map() {
+			Map<String, JsonNode> m = map;
+			if (m != null) {
+				return m;
+			}
+			synchronized (this) {
+				if (map == null) {
+					Map<String, JsonNode> children = new LinkedHashMap<>();
+					subtree.readFields(children);
+					map = children;
+					// 読み込んだ後は、元のバイト列を参照しないようにします
+					subtree = null;
+				}
+				return map;
+			}
+		}
+
+		@Override
+		public Set<Entry<String, JsonNode>> entrySet() {
+			return map().entrySet();
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return map().keySet();
+		}
+
+		@Override
+		public int size() {
+			return map().size();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return map().containsKey(key);
+		}
+
+		@Override
+		public JsonNode get(Object key) {
+			return map().get(key);
+		}
+
+		@Override
+		public JsonNode put(String key, JsonNode value) {
+			return map().put(key, value);
+		}
+
+		@Override
+		public JsonNode remove(Object key) {
+			return map().remove(key);
+		}
+
+		@Override
+		public void clear() {
+			map().clear();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package com.example.tree;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.example.charset.JsonFactoryFeatures;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.example.charset.LegacyCharsetJsonParser;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.UTF8StreamJsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ *
+ * ObjectMapper#readTreeと同じJsonNodeを、必要になった部分だけ読み込んで作成します。
+ * 大きなJSONから、一部のノードだけを参照する場合に使用します。
+ *
+ * 使用例:
+ * LazyTreeReader trees = new LazyTreeReader(mapper);
+ * JsonNode jsonNode = trees.readTree(body);
+ * String message = jsonNode.get("message").asText();
+ *
+ * オブジェクト・配列は、バイト列上の位置だけを持つ{@link LazyObjectNode} / {@link LazyArrayNode}として作成します。
+ * get / path / fields / size等で最初に子へアクセスした時に、その階層だけを読み込みます。
+ * 子のオブジェクト・配列は、読み飛ばして（JsonParser#skipChildren）さらに位置だけを持つノードにします。
+ * 読み込んだ後のノードは、通常のObjectNode / ArrayNodeと同じ動作です（変更もできます）。
+ *
+ * 対象はバイト位置を扱えるパーサーで読み込めるもので、UTF-8と、ObjectMapperがLegacyCharsetJsonFactory等を使用する場合の
+ * Shift_JIS / Windows-31J / EUC-JPです。それ以外（UTF-16 / UTF-32、ISO-2022-JP等）はObjectMapper#readTreeで全体を読み込みます。
+ *
+ * 読み込みが終わるまで、渡したbyte[]を参照し続けます（変更しないでください）。
+ * 不正なJSONのエラーは、その部分を読み込んだ時にUncheckedIOExceptionとしてスローされます。
+ *
+ */
+public class LazyTreeReader {
+
+	private final ObjectMapper mapper;
+
+	private final JsonFactory utf8Factory;
+
+	private final Map<LegacyCharset, LegacyCharsetJsonFactory> legacyFactories = new EnumMap<>(LegacyCharset.class);
+
+	private final JsonNodeFactory nodeFactory;
+
+	private final boolean bigDecimalForFloats;
+
+	private final boolean bigIntegerForInts;
+
+	private final boolean longForInts;
+
+	/**
+	 * @param mapper 設定済みのObjectMapper。このインスタンスの設定は、以後変更しないでください
+	 */
+	public LazyTreeReader(ObjectMapper mapper) {
+		this.mapper = mapper;
+		JsonFactory base = mapper.getFactory();
+		this.utf8Factory = JsonFactoryFeatures.copy(base, new JsonFactory());
+		for (LegacyCharset legacyCharset : LegacyCharset.values()) {
+			legacyFactories.put(legacyCharset, JsonFactoryFeatures.copy(base, new LegacyCharsetJsonFactory(legacyCharset)));
+		}
+		this.nodeFactory = mapper.getNodeFactory();
+		this.bigDecimalForFloats = mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+		this.bigIntegerForInts = mapper.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+		this.longForInts = mapper.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+	}
+
+	public JsonNode readTree(byte[] data) throws IOException {
+		return readTree(data, 0, data.length);
+	}
+
+	/**
+	 * @return ObjectMapper#readTreeと同様に、内容がない場合はnull
+	 */
+	public JsonNode readTree(byte[] data, int off, int len) throws IOException {
+		try (JsonParser p = mapper.getFactory().createParser(data, off, len)) {
+			JsonToken t = p.nextToken();
+			JsonFactory subtreeFactory = subtreeFactory(p);
+			if ((t != JsonToken.START_OBJECT && t != JsonToken.START_ARRAY) || subtreeFactory == null) {
+				return mapper.readTree(p);
+			}
+			Source source = new Source(subtreeFactory, data, off + len);
+			return source.lazyNode(t, rootStart(data, off, off + len));
+		}
+	}
+
+	/**
+	 * @return 先頭のBOM（UTF-8）と空白を除いた位置（ルートの「{」「[」の位置）。
+	 *         BOMがある場合、JsonParserのバイト位置はBOMの後からの位置になるため、ここで求めます
+	 */
+	private static int rootStart(byte[] data, int off, int end) {
+		int ptr = off;
+		if (end - ptr >= 3 && (data[ptr] & 0xFF) == 0xEF && (data[ptr + 1] & 0xFF) == 0xBB
+				&& (data[ptr + 2] & 0xFF) == 0xBF) {
+			ptr += 3;
+		}
+		while (ptr < end && data[ptr] != '{' && data[ptr] != '[') {
+			ptr++;
+		}
+		return ptr;
+	}
+
+	/**
+	 * @return 途中から読み込むためのJsonFactory。バイト位置を扱えないパーサーの場合はnull
+	 */
+	private JsonFactory subtreeFactory(JsonParser p) {
+		if (p instanceof LegacyCharsetJsonParser) {
+			return legacyFactories.get(((LegacyCharsetJsonParser) p).getLegacyCharset());
+		}
+		if (p instanceof UTF8StreamJsonParser) {
+			return utf8Factory;
+		}
+		return null;
+	}
+
+	/**
+	 * 1つのreadTreeで読み込むバイト列です。そのツリーのすべてのSubtreeで共有します
+	 */
+	final class Source {
+
+		private final JsonFactory factory;
+
+		private final byte[] data;
+
+		private final int end;
+
+		Source(JsonFactory factory, byte[] data, int end) {
+			this.factory = factory;
+			this.data = data;
+			this.end = end;
+		}
+
+		JsonParser createParser(int start) throws IOException {
+			return factory.createParser(data, start, end - start);
+		}
+
+		JsonNode lazyNode(JsonToken t, int start) {
+			Subtree subtree = new Subtree(this, start);
+			return (t == JsonToken.START_OBJECT) ? new LazyObjectNode(nodeFactory, subtree)
+					: new LazyArrayNode(nodeFactory, subtree);
+		}
+
+		/**
+		 * 現在のトークンの値を読み込みます。オブジェクト・配列は読み飛ばして、位置だけを持つノードにします
+		 *
+		 * @param base pを作成した時の開始位置（pのバイト位置はここからの相対位置です）
+		 */
+		JsonNode readChild(JsonParser p, int base) throws IOException {
+			JsonToken t = p.currentToken();
+			if (t == null) {
+				throw new JsonParseException(p, "Unexpected end-of-input");
+			}
+			switch (t) {
+			case START_OBJECT:
+			case START_ARRAY: {
+				JsonNode node = lazyNode(t, base + (int) p.getTokenLocation().getByteOffset());
+				p.skipChildren();
+				return node;
+			}
+			case VALUE_STRING:
+				return nodeFactory.textNode(p.getText());
+			case VALUE_NUMBER_INT:
+				return intNode(p);
+			case VALUE_NUMBER_FLOAT:
+				return floatNode(p);
+			case VALUE_TRUE:
+				return nodeFactory.booleanNode(true);
+			case VALUE_FALSE:
+				return nodeFactory.booleanNode(false);
+			case VALUE_NULL:
+				return nodeFactory.nullNode();
+			case VALUE_EMBEDDED_OBJECT: {
+				Object value = p.getEmbeddedObject();
+				if (value == null) {
+					return nodeFactory.nullNode();
+				}
+				return (value instanceof byte[]) ? nodeFactory.binaryNode((byte[]) value) : nodeFactory.pojoNode(value);
+			}
+			default:
+				throw new JsonParseException(p, "Unexpected token (" + t + ")");
+			}
+		}
+
+		/**
+		 * JsonNodeDeserializerと同じ規則で、整数のノードを作成します
+		 */
+		private JsonNode intNode(JsonParser p) throws IOException {
+			JsonParser.NumberType nt;
+			if (bigIntegerForInts) {
+				nt = JsonParser.NumberType.BIG_INTEGER;
+			} else if (longForInts) {
+				nt = JsonParser.NumberType.LONG;
+			} else {
+				nt = p.getNumberType();
+			}
+			if (nt == JsonParser.NumberType.INT) {
+				return nodeFactory.numberNode(p.getIntValue());
+			}
+			if (nt == JsonParser.NumberType.LONG) {
+				return nodeFactory.numberNode(p.getLongValue());
+			}
+			return nodeFactory.numberNode(p.getBigIntegerValue());
+		}
+
+		/**
+		 * JsonNodeDeserializerと同じ規則で、小数のノードを作成します
+		 */
+		private JsonNode floatNode(JsonParser p) throws IOException {
+			JsonParser.NumberType nt = p.getNumberType();
+			if (nt == JsonParser.NumberType.BIG_DECIMAL) {
+				return nodeFactory.numberNode(p.getDecimalValue());
+			}
+			if (bigDecimalForFloats) {
+				return p.isNaN() ? nodeFactory.numberNode(p.getDoubleValue())
+						: nodeFactory.numberNode(p.getDecimalValue());
+			}
+			if (nt == JsonParser.NumberType.FLOAT) {
+				return nodeFactory.numberNode(p.getFloatValue());
+			}
+			return nodeFactory.numberNode(p.getDoubleValue());
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.example.tree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ *
+ * まだ読み込んでいないオブジェクト・配列の、バイト列上の位置（「{」「[」の位置）です。
+ * 最初にアクセスされた時に1階層だけ読み込み、子のオブジェクト・配列はさらにSubtreeとして残します。
+ *
+ */
+final class Subtree {
+
+	private final LazyTreeReader.Source source;
+
+	private final int start;
+
+	Subtree(LazyTreeReader.Source source, int start) {
+		this.source = source;
+		this.start = start;
+	}
+
+	void readFields(Map<String, JsonNode> children) {
+		try (JsonParser p = source.createParser(start)) {
+			p.nextToken();
+			String name;
+			while ((name = p.nextFieldName()) != null) {
+				p.nextToken();
+				children.put(name, source.readChild(p, start));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void readElements(List<JsonNode> children) {
+		try (JsonParser p = source.createParser(start)) {
+			p.nextToken();
+			while (p.nextToken() != JsonToken.END_ARRAY) {
+				children.add(source.readChild(p, start));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.example.async;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AsyncJsonReaderTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	static class Bean {
+
+		private String message;
+
+		private int value;
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+	}
+
+	/*
+	 * 1バイトずつ渡しても、区切りで分かれたマルチバイト文字が正しく変換され、要素が完成したところで返されること
+	 */
+	@Test
+	public void bodyFedOneByteAtATimeShouldBeDecoded() throws Exception {
+
+		String json = "[{\"message\":\"１あいうえお表ソ\",\"value\":1},\n {\"message\":\"𠮷野家\",\"value\":2}]";
+		String escaped = json.replace("𠮷", "\\uD842\\uDFB7");
+
+		for (String charset : new String[] { "UTF-8", "UTF-16", "UTF-16LE", "UTF-32BE", "Shift_JIS", "windows-31j",
+				"EUC-JP", "ISO-2022-JP" }) {
+			Charset cs = Charset.forName(charset);
+			String text = cs.newEncoder().canEncode("𠮷") ? json : escaped;
+			byte[] body = text.getBytes(cs);
+			byte[] firstElement = text.substring(0, text.indexOf('}') + 1).getBytes(cs);
+			AsyncJsonReader<Bean> reader = AsyncJsonReader.forArrayElements(mapper, Bean.class, cs);
+
+			List<Bean> beans = new ArrayList<>();
+			int firstCompletedAt = -1;
+			for (int i = 0; i < body.length; i++) {
+				List<Bean> values = reader.feed(body, i, 1);
+				if (!values.isEmpty() && firstCompletedAt < 0) {
+					firstCompletedAt = i;
+				}
+				beans.addAll(values);
+			}
+			beans.addAll(reader.endOfInput());
+
+			assertThat(charset, beans.size(), equalTo(2));
+			assertThat(charset, beans.get(0).getMessage(), equalTo("１あいうえお表ソ"));
+			assertThat(charset, beans.get(0).getValue(), equalTo(1));
+			assertThat(charset, beans.get(1).getMessage(), equalTo("𠮷野家"));
+			assertThat(charset, beans.get(1).getValue(), equalTo(2));
+			assertThat(charset, reader.getCount(), equalTo(2L));
+			// 1件目は、配列の終わりを待たずに「}」を渡したところで返されること
+			assertThat(charset, firstCompletedAt, equalTo(firstElement.length - 1));
+		}
+	}
+
+	/*
+	 * トップレベルの値（NDJSON、数値）が1件ずつ変換され、ByteBufferでも渡せること
+	 */
+	@Test
+	public void topLevelValuesShouldBeReadOneByOne() throws Exception {
+
+		byte[] ndjson = "{\"message\":\"あ\",\"value\":1}\n{\"message\":\"い\",\"value\":2}\n"
+				.getBytes(Charset.forName("EUC-JP"));
+		AsyncJsonReader<Bean> reader = AsyncJsonReader.forValues(mapper, Bean.class, Charset.forName("EUC-JP"));
+		List<Bean> first = reader.feed(ByteBuffer.wrap(ndjson, 0, 20));
+		List<Bean> rest = reader.feed(ByteBuffer.allocateDirect(ndjson.length - 20).put(ndjson, 20, ndjson.length - 20)
+				.flip());
+		assertThat(first.size(), equalTo(0));
+		assertThat(rest.size(), equalTo(2));
+		assertThat(rest.get(1).getMessage(), equalTo("い"));
+		assertThat(reader.endOfInput().size(), equalTo(0));
+
+		// 数値は、終わりが分かってから変換されること
+		AsyncJsonReader<Integer> numbers = AsyncJsonReader.forValues(mapper, Integer.class, StandardCharsets.UTF_8);
+		assertThat(numbers.feed("1 2 3".getBytes(StandardCharsets.US_ASCII)), contains(1, 2));
+		assertThat(numbers.endOfInput(), contains(3));
+
+		// 配列を展開しない場合は、配列全体で1件
+		AsyncJsonReader<int[]> arrays = AsyncJsonReader.forValues(mapper, int[].class, StandardCharsets.UTF_16BE);
+		assertThat(arrays.feed("[1,2,3]".getBytes(StandardCharsets.UTF_16BE)).get(0), equalTo(new int[] { 1, 2, 3 }));
+	}
+
+	/*
+	 * 値の途中で終わっている場合、不正なJSONの場合は、JsonParseExceptionとなること
+	 */
+	@Test
+	public void truncatedBodyShouldFail() throws Exception {
+
+		AsyncJsonReader<Bean> truncated = AsyncJsonReader.forArrayElements(mapper, Bean.class,
+				Charset.forName("Shift_JIS"));
+		assertThat(truncated.feed("[{\"message\":\"あ\",\"value\":1},{\"mess".getBytes("Shift_JIS")).size(),
+				equalTo(1));
+		assertThrows(JsonParseException.class, () -> truncated.endOfInput());
+
+		AsyncJsonReader<Bean> malformed = AsyncJsonReader.forValues(mapper, Bean.class, StandardCharsets.UTF_8);
+		assertThrows(JsonParseException.class, () -> malformed.feed("{\"message\" 1}".getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,181 @@
+package com.example.batch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.format.MediaFormat;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+public class BatchConverterTest {
+
+	Charset sjis = Charset.forName("Shift_JIS");
+
+	Path dir;
+
+	@BeforeEach
+	public void createDirectory() throws Exception {
+		dir = Files.createTempDirectory("batch");
+	}
+
+	@AfterEach
+	public void deleteDirectory() throws Exception {
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path p : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(p);
+			}
+		}
+	}
+
+	static String document(int i) {
+		return "{\"id\":" + i + ",\"price\":1.10,\"message\":\"あいうえお No." + i + "\",\"tags\":[\"か\",null,true]}";
+	}
+
+	/**
+	 * in/（サブディレクトリを含む）に、Shift_JISのJSONをfiles個作成します
+	 */
+	List<String> createSources(int files) throws Exception {
+		List<String> documents = new ArrayList<>();
+		for (int i = 0; i < files; i++) {
+			Path file = dir.resolve("in").resolve("d" + (i % 4)).resolve("f" + i + ".json");
+			Files.createDirectories(file.getParent());
+			String document = document(i);
+			Files.write(file, document.getBytes(sjis));
+			documents.add(document);
+		}
+		return documents;
+	}
+
+	/*
+	 * Shift_JISのディレクトリをUTF-8に変換し、スレッド数によらず同じ結果になること（数値の表記・NDJSONの改行を含む）
+	 */
+	@Test
+	public void directoryShouldBeConvertedForAnyParallelism() throws Exception {
+
+		List<String> documents = createSources(60);
+		Files.write(dir.resolve("in").resolve("lines.json"), (document(100) + "\n" + document(101)).getBytes(sjis));
+		Files.write(dir.resolve("in").resolve("skipped.txt"), "{}".getBytes(sjis));
+
+		for (int threads : new int[] { 1, 2, 8 }) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				Path out = dir.resolve("out" + threads);
+				BatchProgress progress = new BatchProgress();
+				BatchResult result = BatchConverter.create(MediaFormat.json(sjis), MediaFormat.JSON_UTF8, pool)
+						.convertDirectory(dir.resolve("in"), "*.json", out, progress);
+
+				assertThat(result.getFiles(), equalTo(61L));
+				assertThat(result.isAllSucceeded(), equalTo(true));
+				assertThat(progress.getCompletedFiles(), equalTo(61L));
+				assertThat(result.getBytesRead(), greaterThan(0L));
+				assertThat(result.getFilesPerSecond() > 0, equalTo(true));
+				for (int i = 0; i < documents.size(); i++) {
+					Path file = out.resolve("d" + (i % 4)).resolve("f" + i + ".json");
+					assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), equalTo(documents.get(i)));
+				}
+				assertThat(new String(Files.readAllBytes(out.resolve("lines.json")), StandardCharsets.UTF_8),
+						equalTo(document(100) + "\n" + document(101)));
+				assertThat(Files.exists(out.resolve("skipped.txt")), equalTo(false));
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/*
+	 * 構文の誤り・存在しないファイルがあっても他のファイルは変換し、失敗を変換元の順に返すこと（変換先・一時ファイルは残らない）
+	 */
+	@Test
+	public void failuresShouldBeReportedWithoutAbortingBatch() throws Exception {
+
+		createSources(10);
+		Path broken = dir.resolve("in").resolve("broken.json");
+		Files.write(broken, "{\"message\":\"あ\",".getBytes(sjis));
+		Path missing = dir.resolve("in").resolve("missing.json");
+		List<Path> sources = new ArrayList<>();
+		sources.add(missing);
+		try (Stream<Path> files = Files.walk(dir.resolve("in"))) {
+			files.filter(Files::isRegularFile).sorted().forEach(sources::add);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			Path out = dir.resolve("out");
+			List<FileResult> reported = new ArrayList<>();
+			BatchResult result = BatchConverter.create(MediaFormat.json(sjis), MediaFormat.JSON_UTF8, pool)
+					.withMaxInFlight(3)
+					.convert(sources, p -> out.resolve(dir.resolve("in").relativize(p)), new BatchProgress(reported::add));
+
+			assertThat(result.getFiles(), equalTo(12L));
+			assertThat(result.getSucceededFiles(), equalTo(10L));
+			assertThat(reported.size(), equalTo(12));
+			List<FileResult> failures = result.getFailures();
+			assertThat(failures.get(0).getSource(), equalTo(missing));
+			assertThat(failures.get(1).getSource(), equalTo(broken));
+			assertThat(failures.get(1).getFailure(), instanceOf(JsonParseException.class));
+			try (Stream<Path> files = Files.list(out)) {
+				assertThat(files.map(p -> p.getFileName().toString()).sorted().collect(Collectors.toList()),
+						equalTo(Arrays.asList("d0", "d1", "d2", "d3")));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * Smile / CBORに変換し、変換したものをShift_JISのJSONに戻せること
+	 */
+	@Test
+	public void binaryFormatsShouldRoundTrip() throws Exception {
+
+		ObjectMapper json = new ObjectMapper();
+		String document = document(1);
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			for (MediaFormat binary : new MediaFormat[] { MediaFormat.SMILE, MediaFormat.CBOR }) {
+				ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+				long tokens = BatchConverter.create(MediaFormat.json(null), binary, pool)
+						.convert(new ByteArrayInputStream(document.getBytes(sjis)), encoded);
+				assertThat(tokens, equalTo(14L));
+				ObjectMapper binaryMapper = new ObjectMapper(
+						(binary == MediaFormat.SMILE) ? new SmileFactory() : new CBORFactory());
+				assertThat(binaryMapper.readTree(encoded.toByteArray()), equalTo(json.readTree(document)));
+
+				ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+				BatchConverter.create(binary, MediaFormat.json(sjis), pool)
+						.convert(new ByteArrayInputStream(encoded.toByteArray()), decoded);
+				assertThat(json.readTree(new String(decoded.toByteArray(), sjis)), equalTo(json.readTree(document)));
+			}
+
+			createSources(5);
+			BatchResult result = BatchConverter.create(MediaFormat.json(sjis), MediaFormat.SMILE, pool)
+					.convertDirectory(dir.resolve("in"), "*.json", dir.resolve("smile"), new BatchProgress());
+			assertThat(result.isAllSucceeded(), equalTo(true));
+			assertThat(Files.exists(dir.resolve("smile").resolve("d1").resolve("f1.smile")), equalTo(true));
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.example.buffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.format.FormatNegotiator;
+import com.example.format.MediaFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ByteBufferCodecTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	FormatNegotiator formats = new FormatNegotiator(mapper);
+
+	static class Bean {
+
+		private String message;
+
+		public Bean() {
+		}
+
+		public Bean(String message) {
+			this.message = message;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	private static List<MediaFormat> mediaFormats() {
+		List<MediaFormat> mediaFormats = new ArrayList<>(Arrays.asList(MediaFormat.SMILE, MediaFormat.CBOR));
+		for (String charset : new String[] { "UTF-8", "UTF-16LE", "UTF-32BE", "Shift_JIS", "EUC-JP", "ISO-2022-JP" }) {
+			mediaFormats.add(MediaFormat.json(Charset.forName(charset)));
+		}
+		return mediaFormats;
+	}
+
+	private static ByteBuffer direct(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+		return buffer;
+	}
+
+	private static byte[] toBytes(ByteBuffer... buffers) {
+		ByteBuffer all = ByteBuffer.allocate(Arrays.stream(buffers).mapToInt(ByteBuffer::remaining).sum());
+		for (ByteBuffer buffer : buffers) {
+			all.put(buffer.duplicate());
+		}
+		return all.array();
+	}
+
+	/*
+	 * 各形式・エンコーディングで、writeValueAsBytesと同じ内容をByteBufferへ書き出せること
+	 */
+	@Test
+	public void writeShouldProduceSameBytesAsWriteValueAsBytes() throws Exception {
+
+		Bean bean = new Bean("𠮷野家のあいうえお");
+		ByteBufferCodec codec = new ByteBufferCodec(formats, 16, true);
+		for (MediaFormat format : mediaFormats()) {
+			byte[] expected = formats.writeValueAsBytes(format, bean);
+
+			// 小さなチャンクに分けて書き出す
+			ByteBuffer[] buffers = codec.writeValueAsBuffers(format, bean);
+			assertThat(format.toString(), buffers[0].isDirect(), equalTo(true));
+			assertThat(format.toString(), toBytes(buffers), equalTo(expected));
+
+			// 指定したByteBufferの途中から書き出す
+			ByteBuffer dst = ByteBuffer.allocateDirect(1024);
+			dst.position(10);
+			int written = codec.writeValue(dst, format, bean);
+			assertThat(format.toString(), written, equalTo(expected.length));
+			assertThat(format.toString(), dst.position(), equalTo(10 + expected.length));
+			dst.flip().position(10);
+			assertThat(format.toString(), toBytes(dst), equalTo(expected));
+		}
+	}
+
+	/*
+	 * ダイレクトバッファ・配列を持つByteBuffer・複数に分かれたByteBufferから読み込めること
+	 */
+	@Test
+	public void readShouldAcceptHeapDirectAndSplitBuffers() throws Exception {
+
+		Bean bean = new Bean("𠮷野家のあいうえお");
+		ByteBufferCodec codec = new ByteBufferCodec(mapper);
+		for (MediaFormat format : mediaFormats()) {
+			byte[] bytes = formats.writeValueAsBytes(format, bean);
+
+			ByteBuffer direct = direct(bytes);
+			assertThat(format.toString(), codec.readValue(direct, format, Bean.class).getMessage(),
+					equalTo(bean.getMessage()));
+			assertThat(format.toString(), direct.remaining(), equalTo(bytes.length));
+
+			// 配列の途中をsliceしたもの
+			byte[] padded = new byte[bytes.length + 8];
+			System.arraycopy(bytes, 0, padded, 4, bytes.length);
+			ByteBuffer heap = ByteBuffer.wrap(padded, 2, bytes.length + 2);
+			heap.position(4);
+			heap = heap.slice();
+			heap.limit(bytes.length);
+			assertThat(format.toString(), codec.readValue(heap, format, Bean.class).getMessage(),
+					equalTo(bean.getMessage()));
+
+			// マルチバイト文字の途中で分かれているもの
+			for (int split = 1; split < bytes.length; split += 3) {
+				ByteBuffer[] buffers = { direct(Arrays.copyOfRange(bytes, 0, split)),
+						direct(Arrays.copyOfRange(bytes, split, bytes.length)) };
+				assertThat(format + " " + split, codec.readValue(buffers, format, Bean.class).getMessage(),
+						equalTo(bean.getMessage()));
+			}
+		}
+	}
+
+	/*
+	 * 書き出し先の残りが足りない場合はBufferOverflowExceptionとなり、positionが元に戻ること
+	 */
+	@Test
+	public void writeShouldRestorePositionOnOverflow() throws Exception {
+
+		ByteBufferCodec codec = new ByteBufferCodec(mapper);
+		for (MediaFormat format : mediaFormats()) {
+			ByteBuffer dst = ByteBuffer.allocateDirect(16);
+			dst.position(3);
+			assertThrows(BufferOverflowException.class,
+					() -> codec.writeValue(dst, format, new Bean("あいうえおかきくけこ")), format.toString());
+			assertThat(format.toString(), dst.position(), equalTo(3));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.charset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CharsetDetectingJsonFactoryTest {
+
+	ObjectMapper mapper = new ObjectMapper(new CharsetDetectingJsonFactory());
+
+	String json = "{\"message\":\"あいうえお\"}";
+
+	static class Bean {
+
+		private String message;
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	private static final List<String> CHARSETS = Arrays.asList("UTF-8", "UTF-16BE", "UTF-16LE", "UTF-32BE",
+			"UTF-32LE", "Shift_JIS", "EUC-JP", "ISO-2022-JP");
+
+	private static final List<DetectedEncoding> EXPECTED = Arrays.asList(DetectedEncoding.UTF8,
+			DetectedEncoding.UTF16_BE, DetectedEncoding.UTF16_LE, DetectedEncoding.UTF32_BE, DetectedEncoding.UTF32_LE,
+			DetectedEncoding.SHIFT_JIS, DetectedEncoding.EUC_JP, DetectedEncoding.ISO_2022_JP);
+
+	/*
+	 * 先頭部分からエンコーディングが判定されること
+	 */
+	@Test
+	public void detectShouldClassifyEncodingFromPrefix() throws Exception {
+
+		String[] sources = { json, "{\"表\":\"表示・ソフト・能力\"}", "[\"漢字のみ\",\"ｱｲｳ\"]", "\"カタカナ\"" };
+		for (String source : sources) {
+			for (int i = 0; i < CHARSETS.size(); i++) {
+				byte[] bytes = source.getBytes(CHARSETS.get(i));
+				assertThat(source + " " + CHARSETS.get(i), CharsetDetector.detect(bytes), equalTo(EXPECTED.get(i)));
+			}
+		}
+		assertThat(CharsetDetector.detect("{\"a\":1}".getBytes("US-ASCII")), equalTo(DetectedEncoding.UTF8));
+		assertThat(CharsetDetector.detect(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '{', '}' }),
+				equalTo(DetectedEncoding.UTF8));
+	}
+
+	/*
+	 * 判定した結果に従って、byte[] / InputStreamからreadできること
+	 */
+	@Test
+	public void readValueShouldReadBytesOfDetectedEncoding() throws Exception {
+
+		for (String charset : CHARSETS) {
+			byte[] bytes = json.getBytes(charset);
+
+			assertThat(charset, mapper.readValue(bytes, Bean.class).getMessage(), equalTo("あいうえお"));
+			assertThat(charset, mapper.readValue(new ByteArrayInputStream(bytes), Bean.class).getMessage(),
+					equalTo("あいうえお"));
+			assertThat(charset,
+					mapper.readValue(new LegacyCharsetJsonParserTest.OneByteInputStream(new ByteArrayInputStream(bytes)),
+							Bean.class).getMessage(),
+					equalTo("あいうえお"));
+		}
+	}
+
+	/*
+	 * BOM付きのUTF-8 / UTF-16をInputStreamからreadできること
+	 */
+	@Test
+	public void readValueShouldSkipByteOrderMark() throws Exception {
+
+		for (String charset : Arrays.asList("UTF-8", "UTF-16BE", "UTF-16LE")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			out.write("\uFEFF".getBytes(charset));
+			out.write(json.getBytes(charset));
+
+			assertThat(charset, mapper.readValue(new ByteArrayInputStream(out.toByteArray()), Bean.class).getMessage(),
+					equalTo("あいうえお"));
+		}
+	}
+
+	/*
+	 * 判定に使用する範囲を超えた大きなJSONも、InputStreamから続けてreadできること
+	 */
+	@Test
+	public void bodyLongerThanScanLimitShouldBeReadToTheEnd() throws Exception {
+
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < 2000; i++) {
+			sb.append(i == 0 ? "" : ",").append("{\"message\":\"かきくけこ No.").append(i).append("\"}");
+		}
+		String source = sb.append(']').toString();
+
+		for (String charset : CHARSETS) {
+			Bean[] beans = mapper.readValue(new ByteArrayInputStream(source.getBytes(charset)), Bean[].class);
+			assertThat(charset, beans.length, equalTo(2000));
+			assertThat(charset, beans[1999].getMessage(), equalTo("かきくけこ No.1999"));
+		}
+	}
+}
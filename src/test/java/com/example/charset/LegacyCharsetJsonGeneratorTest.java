@@ -0,0 +1,177 @@
+package com.example.charset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+public class LegacyCharsetJsonGeneratorTest {
+
+	ObjectMapper plainMapper = new ObjectMapper();
+
+	static class Bean {
+
+		private String message;
+
+		public Bean() {
+		}
+
+		public Bean(String message) {
+			this.message = message;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	private byte[] writeWithWriter(ObjectMapper mapper, Object value, LegacyCharset charset) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(out, charset.charset())) {
+			mapper.writeValue(writer, value);
+		}
+		return out.toByteArray();
+	}
+
+	/*
+	 * Writerを使わずに書き出したバイト列が、OutputStreamWriterを使った場合と一致すること
+	 */
+	@Test
+	public void writeValueShouldWriteSameBytesAsOutputStreamWriter() throws Exception {
+
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("表示", "表示・ソフト・能力 ｱｲｳ\\\"\t\u0001");
+		map.put("数値", Arrays.asList(1, -20L, 3.5, 1e100, null, true, false));
+		map.put("bean", new Bean("あいうえお"));
+		map.put("binary", new byte[] { 1, 2, 3, (byte) 0xFF });
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset));
+			byte[] expected = writeWithWriter(plainMapper, map, charset);
+
+			assertThat(mapper.writeValueAsBytes(map), equalTo(expected));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			mapper.writeValue(out, map);
+			assertThat(out.toByteArray(), equalTo(expected));
+
+			// FieldNameCacheに登録された後も同じ結果になること
+			assertThat(mapper.writeValueAsBytes(map), equalTo(expected));
+			assertThat(mapper.writeValueAsBytes(plainMapper.valueToTree(map)), equalTo(expected));
+		}
+	}
+
+	/*
+	 * インデントした場合も、OutputStreamWriterを使った場合と一致すること
+	 */
+	@Test
+	public void prettyPrintedOutputShouldBeSameAsOutputStreamWriter() throws Exception {
+
+		List<Bean> beans = Arrays.asList(new Bean("あいうえお"), new Bean("かきくけこ"));
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset))
+					.enable(SerializationFeature.INDENT_OUTPUT);
+			ObjectMapper indentMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+			assertThat(mapper.writeValueAsBytes(beans), equalTo(writeWithWriter(indentMapper, beans, charset)));
+		}
+	}
+
+	/*
+	 * 出力バッファの大きさを超える文字列でも、マルチバイト文字が正しく書き出されること
+	 */
+	@Test
+	public void longStringShouldBeWrittenAcrossBufferBoundary() throws Exception {
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			sb.append("あa").append(i % 10).append("ｱ\n");
+		}
+		Bean bean = new Bean(sb.toString());
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset));
+			byte[] bytes = mapper.writeValueAsBytes(bean);
+
+			assertThat(bytes, equalTo(writeWithWriter(plainMapper, bean, charset)));
+			assertThat(mapper.readValue(bytes, Bean.class).getMessage(), equalTo(bean.getMessage()));
+		}
+	}
+
+	/*
+	 * エンコーディングで表現できない文字は、「?」ではなく「\\uXXXX」で書き出され、readすると元の文字に戻ること
+	 */
+	@Test
+	public void unmappableCharacterShouldBeEscaped() throws Exception {
+
+		Bean bean = new Bean("𠮷野家の①");
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset));
+			byte[] bytes = mapper.writeValueAsBytes(bean);
+
+			assertThat(new String(bytes, charset.charset()).startsWith("{\"message\":\"\\uD842\\uDFB7野家の"),
+					equalTo(true));
+			assertThat(mapper.readValue(bytes, Bean.class).getMessage(), equalTo(bean.getMessage()));
+		}
+	}
+
+	/*
+	 * 出力バッファに収まらない長さのPreEncodedNameも、繰り返し書き出せること（2回目以降もStringの名前と同じバイト列）
+	 */
+	@Test
+	public void longPreEncodedNameShouldBeWrittenRepeatedly() throws Exception {
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append('あ');
+		}
+		String longName = sb.toString();
+		PreEncodedName name = new PreEncodedName(longName);
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			LegacyCharsetJsonFactory factory = new LegacyCharsetJsonFactory(charset);
+			byte[] expected = writeField(factory, longName);
+			for (int n = 0; n < 2; n++) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				try (JsonGenerator g = factory.createGenerator(out)) {
+					g.writeStartObject();
+					g.writeFieldName(name);
+					g.writeNumber(1);
+					g.writeEndObject();
+				}
+				assertThat(out.toByteArray(), equalTo(expected));
+			}
+			Map<?, ?> map = new ObjectMapper(factory).readValue(expected, Map.class);
+			assertThat(map.get(longName), equalTo(1));
+		}
+	}
+
+	private static byte[] writeField(LegacyCharsetJsonFactory factory, String name) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator g = factory.createGenerator(out)) {
+			g.writeStartObject();
+			g.writeFieldName(name);
+			g.writeNumber(1);
+			g.writeEndObject();
+		}
+		return out.toByteArray();
+	}
+}
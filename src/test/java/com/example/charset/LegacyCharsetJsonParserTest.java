@@ -0,0 +1,229 @@
+package com.example.charset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class LegacyCharsetJsonParserTest {
+
+	ObjectMapper plainMapper = new ObjectMapper();
+
+	String json = "{\"message\":\"あいうえお\"}";
+
+	static class Bean {
+
+		private String message;
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	/*
+	 * Readerを使わずに、byte[] / InputStreamから直接readできること
+	 */
+	@Test
+	public void readValueShouldReadBytesOfLegacyCharsetWithoutReader() throws Exception {
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset));
+			byte[] bytes = json.getBytes(charset.charset());
+
+			assertThat(mapper.readValue(bytes, Bean.class).getMessage(), equalTo("あいうえお"));
+			assertThat(mapper.readValue(new ByteArrayInputStream(bytes), Bean.class).getMessage(),
+					equalTo("あいうえお"));
+			assertThat(mapper.readTree(bytes).get("message").asText(), equalTo("あいうえお"));
+		}
+	}
+
+	/*
+	 * Shift_JISでは2バイト目に「\」(0x5C)が現れる文字（「表」「ソ」「能」等）があるが、
+	 * エスケープとして扱われないこと
+	 */
+	@Test
+	public void trailByteOfBackslashShouldNotBeTreatedAsEscape() throws Exception {
+
+		ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS));
+		String text = "表示・ソフト・能力 ｱｲｳ\\\"\t";
+		String source = "{\"表\":" + plainMapper.writeValueAsString(text) + "}";
+
+		JsonNode node = mapper.readTree(source.getBytes("Shift_JIS"));
+		assertThat(node.get("表").asText(), equalTo(text));
+	}
+
+	/*
+	 * InputStreamから1バイトずつしか読めない場合でも、マルチバイト文字が正しくデコードされること
+	 */
+	@Test
+	public void multiByteCharacterSplitAcrossBuffersShouldBeDecoded() throws Exception {
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset));
+			String source = "[{\"名前\":\"山田 太郎\",\"年齢\":25,\"比率\":-1.5e3,\"有効\":true,\"備考\":null}]";
+			InputStream in = new OneByteInputStream(new ByteArrayInputStream(source.getBytes(charset.charset())));
+
+			List<Map<String, Object>> list = mapper.readValue(in, new TypeReference<List<Map<String, Object>>>() {
+			});
+			assertThat(list.get(0).get("名前"), equalTo("山田 太郎"));
+			assertThat(list.get(0).get("年齢"), equalTo(25));
+			assertThat(list.get(0).get("比率"), equalTo(-1500.0));
+			assertThat(list.get(0).get("有効"), equalTo(true));
+			assertThat(list.get(0).get("備考"), nullValue());
+		}
+	}
+
+	/*
+	 * 不正なバイト列は、InputStreamReaderを使った場合と同じく置換文字になること
+	 */
+	@Test
+	public void malformedBytesShouldBeReplacedLikeInputStreamReader() throws Exception {
+
+		byte[] bytes = new byte[] { '[', '"', (byte) 0x82, '"', ',', '"', (byte) 0x82, (byte) 0xA0, 'a', '"', ']' };
+		ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS));
+
+		JsonNode expected = plainMapper.readTree(new InputStreamReader(new ByteArrayInputStream(bytes), "Shift_JIS"));
+		assertThat(mapper.readTree(bytes), equalTo(expected));
+	}
+
+	/*
+	 * JsonParserを直接使用した場合も、Reader経由と同じトークン列になること
+	 */
+	@Test
+	public void tokensShouldBeSameAsReaderBasedParser() throws Exception {
+
+		String source = "{\"a\":[1,2.5,\"い\",{\"b\":false}],\"c\":{}, \"d\" : [ ] }";
+		byte[] bytes = source.getBytes("EUC-JP");
+		JsonParser expected = plainMapper.getFactory()
+				.createParser(new InputStreamReader(new ByteArrayInputStream(bytes), "EUC-JP"));
+		JsonParser actual = new LegacyCharsetJsonFactory(LegacyCharset.EUC_JP).createParser(bytes);
+
+		JsonToken t;
+		while ((t = expected.nextToken()) != null) {
+			assertThat(actual.nextToken(), equalTo(t));
+			assertThat(actual.getText(), equalTo(expected.getText()));
+		}
+		assertThat(actual.nextToken(), nullValue());
+	}
+
+	/*
+	 * 日本語のフィールド名はバイト列のままキャッシュされ、2回目以降はデコードせずに同じStringが返されること
+	 * （「表」のように2バイト目が「\」の名前、エスケープを含む名前、バッファの境界をまたぐ名前も正しく読み込めること）
+	 */
+	@Test
+	public void repeatedFieldNamesShouldBeResolvedFromRawBytes() throws Exception {
+
+		String source = "[{\"氏名\":1,\"表示\":2,\"id\":3,\"\\u6C0F名\":4},{\"氏名\":5,\"表示\":6,\"id\":7}]";
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			LegacyCharsetJsonFactory factory = new LegacyCharsetJsonFactory(charset);
+			ObjectMapper mapper = new ObjectMapper(factory);
+			byte[] bytes = source.getBytes(charset.charset());
+			JsonNode expected = plainMapper.readTree(source);
+
+			assertThat(charset.name(), mapper.readTree(bytes), equalTo(expected));
+			assertThat(charset.name(), mapper.readTree(new OneByteInputStream(new ByteArrayInputStream(bytes))),
+					equalTo(expected));
+			assertThat(charset.name(), mapper.readTree(bytes), equalTo(expected));
+
+			FieldNameCanonicalizer names = factory.getFieldNameCanonicalizer();
+			// 「氏名」「表示」だけが登録される（ASCIIのみ・エスケープを含む名前は対象外）
+			assertThat(charset.name(), names.size(), equalTo(2));
+			// 1回目のbyte[]で2件ミス・2件ヒット、2回目のbyte[]で4件ヒット（1バイトずつのInputStreamは境界をまたぐため対象外）
+			assertThat(charset.name(), names.getMissCount(), equalTo(2L));
+			assertThat(charset.name(), names.getHitCount(), equalTo(6L));
+
+			JsonParser p = factory.createParser(bytes);
+			p.nextToken();
+			p.nextToken();
+			assertThat(p.nextToken(), equalTo(JsonToken.FIELD_NAME));
+			String first = p.getCurrentName();
+			p.skipChildren();
+			while (p.nextToken() != JsonToken.FIELD_NAME || !"氏名".equals(p.getCurrentName())) {
+				// 2つ目のオブジェクトの「氏名」まで読み進めます
+			}
+			assertThat(p.getCurrentName() == first, equalTo(true));
+		}
+	}
+
+	/*
+	 * 上限を超えて登録されないこと
+	 */
+	@Test
+	public void fieldNameCanonicalizerShouldBeBounded() throws Exception {
+
+		FieldNameCanonicalizer names = new FieldNameCanonicalizer(2);
+		for (int i = 0; i < 10; i++) {
+			byte[] name = ("名前" + i).getBytes("EUC-JP");
+			int hash = FieldNameCanonicalizer.hash(name, 0, name.length);
+			assertThat(names.find(name, 0, name.length, hash), nullValue());
+			names.put(name, 0, name.length, hash, "名前" + i);
+		}
+		assertThat(names.size(), equalTo(2));
+		byte[] name = "名前0".getBytes("EUC-JP");
+		assertThat(names.find(name, 0, name.length, FieldNameCanonicalizer.hash(name, 0, name.length)),
+				equalTo("名前0"));
+		assertThat(names.getHitRate(), equalTo(1.0 / 11));
+	}
+
+	/*
+	 * DataOutputで前後の値と一緒に書き出したJSONを、DataInputから同じエンコーディングで読み込めること
+	 */
+	@Test
+	public void dataOutputShouldBeReadBackFromDataInput() throws Exception {
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			ObjectMapper mapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset));
+			Bean bean = new Bean();
+			bean.setMessage("あいうえお");
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutput dout = new DataOutputStream(bytes);
+			dout.writeInt(55);
+			mapper.writeValue(dout, bean);
+			mapper.writeValue(dout, new int[] { 1, 2 });
+			dout.writeChar('あ');
+
+			DataInput din = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+			assertThat(din.readInt(), equalTo(55));
+			assertThat(mapper.readValue(din, Bean.class).getMessage(), equalTo("あいうえお"));
+			assertThat(mapper.readValue(din, int[].class), equalTo(new int[] { 1, 2 }));
+			assertThat(din.readChar(), equalTo('あ'));
+		}
+	}
+
+	static class OneByteInputStream extends FilterInputStream {
+
+		OneByteInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, 1));
+		}
+	}
+}
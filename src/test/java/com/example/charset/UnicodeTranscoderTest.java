@@ -0,0 +1,191 @@
+package com.example.charset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharConversionException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.json.UTF8StreamJsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class UnicodeTranscoderTest {
+
+	static class Person {
+
+		private int age;
+		private String name;
+		private char kanaCode;
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public char getKanaCode() {
+			return kanaCode;
+		}
+
+		public void setKanaCode(char kanaCode) {
+			this.kanaCode = kanaCode;
+		}
+	}
+
+	private static final List<JsonEncoding> ENCODINGS = Arrays.asList(JsonEncoding.UTF16_BE, JsonEncoding.UTF16_LE,
+			JsonEncoding.UTF32_BE, JsonEncoding.UTF32_LE);
+
+	String json = "{\"age\":20,\"name\":\"𠮷太郎\",\"kanaCode\":\"ﾀ\"}";
+
+	/**
+	 * ASCIIの連続の長さ・位置を変えて、まとめて変換する部分と1文字ずつ変換する部分の境目を確認します
+	 */
+	private static String sample(int asciiRun) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < asciiRun; j++) {
+				sb.append((char) ('a' + (i + j) % 26));
+			}
+			sb.append("𠮷é表\u007f\u0080߿ࠀ￿😀");
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * JDKのエンコード結果と同じUTF-8になること（サロゲートペアは4バイト）
+	 */
+	@Test
+	public void toUtf8ShouldMatchJdkEncoding() throws Exception {
+
+		for (JsonEncoding encoding : ENCODINGS) {
+			for (int run = 0; run <= 20; run++) {
+				String source = sample(run);
+				byte[] bytes = source.getBytes(encoding.getJavaName());
+				for (int offset : new int[] { 0, 1, 3 }) {
+					byte[] shifted = new byte[bytes.length + offset];
+					System.arraycopy(bytes, 0, shifted, offset, bytes.length);
+					assertThat(encoding + " " + run + " " + offset,
+							UnicodeTranscoder.toUtf8(encoding, shifted, offset, bytes.length),
+							equalTo(source.getBytes(StandardCharsets.UTF_8)));
+				}
+			}
+		}
+		assertThat(new String(UnicodeTranscoder.toUtf8(JsonEncoding.UTF16_LE, "𠮷".getBytes("UTF-16LE"), 0, 4),
+				StandardCharsets.UTF_8), equalTo("𠮷"));
+	}
+
+	/*
+	 * 小さなブロック・1バイトずつの読み込みで、サロゲートペア・UTF-32の文字が分割されても同じ結果になること
+	 */
+	@Test
+	public void streamShouldJoinCharactersSplitAcrossBlocks() throws Exception {
+
+		String source = sample(13);
+		byte[] expected = source.getBytes(StandardCharsets.UTF_8);
+		for (JsonEncoding encoding : ENCODINGS) {
+			byte[] bytes = source.getBytes(encoding.getJavaName());
+			for (int blockSize : new int[] { 1, 2, 3, 5, 7, 16, 4096 }) {
+				InputStream in = new Utf8TranscodingInputStream(encoding,
+						new LegacyCharsetJsonParserTest.OneByteInputStream(new ByteArrayInputStream(bytes)), null, 0, 0,
+						blockSize);
+				assertThat(encoding + " " + blockSize, readAll(in, 5), equalTo(expected));
+			}
+			InputStream single = new Utf8TranscodingInputStream(encoding, bytes, 0, bytes.length);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			for (int b; (b = single.read()) >= 0;) {
+				out.write(b);
+			}
+			assertThat(encoding.toString(), out.toByteArray(), equalTo(expected));
+		}
+	}
+
+	/*
+	 * 不正なUTF-16はInputStreamReaderと同じくU+FFFDに、不正なUTF-32はCharConversionExceptionになること
+	 */
+	@Test
+	public void malformedInputShouldBeHandledLikeJackson() throws Exception {
+
+		byte[][] utf16 = { { 0x00, 'a', (byte) 0xD8, 0x42 }, { (byte) 0xDF, (byte) 0xB7, 0x00, 'a' },
+				{ (byte) 0xD8, 0x42, (byte) 0xD8, 0x42, (byte) 0xDF, (byte) 0xB7 }, { (byte) 0xD8, 0x42, 0x00, 'a' },
+				{ 0x00, 'a', 0x00 } };
+		for (byte[] bytes : utf16) {
+			byte[] expected = new String(bytes, StandardCharsets.UTF_16BE).getBytes(StandardCharsets.UTF_8);
+			assertThat(Arrays.toString(bytes), UnicodeTranscoder.toUtf8(JsonEncoding.UTF16_BE, bytes, 0, bytes.length),
+					equalTo(expected));
+		}
+
+		byte[] tooLarge = { 0x00, 0x11, 0x00, 0x00 };
+		assertThrows(CharConversionException.class,
+				() -> UnicodeTranscoder.toUtf8(JsonEncoding.UTF32_BE, tooLarge, 0, tooLarge.length));
+		byte[] truncated = { 'a', 0x00, 0x00, 0x00, 'b', 0x00 };
+		assertThrows(CharConversionException.class,
+				() -> UnicodeTranscoder.toUtf8(JsonEncoding.UTF32_LE, truncated, 0, truncated.length));
+	}
+
+	/*
+	 * UTF-16 / UTF-32のJSONを、UTF8StreamJsonParserで読み込めること（BOMの有無、byte[] / InputStream）
+	 */
+	@Test
+	public void factoryShouldReadUnicodeWithByteBasedParser() throws Exception {
+
+		ObjectMapper mapper = new ObjectMapper(new Utf8TranscodingJsonFactory());
+		for (JsonEncoding encoding : ENCODINGS) {
+			for (String source : Arrays.asList(json, "﻿" + json)) {
+				byte[] bytes = source.getBytes(encoding.getJavaName());
+				try (JsonParser p = mapper.getFactory().createParser(bytes)) {
+					assertThat(p, instanceOf(UTF8StreamJsonParser.class));
+				}
+
+				Person fromBytes = mapper.readValue(bytes, Person.class);
+				assertThat(encoding.toString(), fromBytes.getName(), equalTo("𠮷太郎"));
+				assertThat(fromBytes.getAge(), equalTo(20));
+				assertThat(fromBytes.getKanaCode(), equalTo('ﾀ'));
+
+				Person fromStream = mapper.readValue(
+						new LegacyCharsetJsonParserTest.OneByteInputStream(new ByteArrayInputStream(bytes)),
+						Person.class);
+				assertThat(encoding.toString(), fromStream.getName(), equalTo("𠮷太郎"));
+			}
+		}
+		// UTF-8は標準の処理と同じ
+		byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+		assertThat(mapper.readValue(new ByteArrayInputStream(utf8), Person.class).getName(), equalTo("𠮷太郎"));
+
+		byte[] utf16 = json.getBytes("UTF-16LE");
+
+		// CANONICALIZE_FIELD_NAMESを無効にした場合は、Jackson標準のパーサー
+		JsonFactory plain = new Utf8TranscodingJsonFactory().disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES);
+		assertThat(new ObjectMapper(plain).readValue(utf16, Person.class).getName(), equalTo("𠮷太郎"));
+	}
+
+	private static byte[] readAll(InputStream in, int chunk) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[chunk];
+		for (int n; (n = in.read(buf, 0, chunk)) >= 0;) {
+			out.write(buf, 0, n);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,265 @@
+package com.example.codec;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+
+public class CompiledCodecModuleTest {
+
+	static class Person2 {
+
+		private int age;
+		private PersonName personName;
+		private char kanaCode;
+
+		public int getAge() {
+			return age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public PersonName getPersonName() {
+			return personName;
+		}
+
+		public void setPersonName(PersonName personName) {
+			this.personName = personName;
+		}
+
+		public char getKanaCode() {
+			return kanaCode;
+		}
+
+		public void setKanaCode(char kanaCode) {
+			this.kanaCode = kanaCode;
+		}
+
+		@Override
+		public String toString() {
+			return "Person2 [age=" + age + ", personName=" + personName + ", kanaCode=" + kanaCode + "]";
+		}
+	}
+
+	static class PersonName {
+
+		private String firstname;
+		private String lastname;
+
+		public String getFirstname() {
+			return firstname;
+		}
+
+		public void setFirstname(String firstname) {
+			this.firstname = firstname;
+		}
+
+		public String getLastname() {
+			return lastname;
+		}
+
+		public void setLastname(String lastname) {
+			this.lastname = lastname;
+		}
+
+		@Override
+		public String toString() {
+			return "PersonName [firstname=" + firstname + ", lastname=" + lastname + "]";
+		}
+	}
+
+	static class Scores {
+
+		private long id;
+		private double average;
+		private boolean passed;
+		private Integer rank;
+		private List<String> tags;
+
+		public long getId() {
+			return id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public double getAverage() {
+			return average;
+		}
+
+		public void setAverage(double average) {
+			this.average = average;
+		}
+
+		public boolean isPassed() {
+			return passed;
+		}
+
+		public void setPassed(boolean passed) {
+			this.passed = passed;
+		}
+
+		public Integer getRank() {
+			return rank;
+		}
+
+		public void setRank(Integer rank) {
+			this.rank = rank;
+		}
+
+		public List<String> getTags() {
+			return tags;
+		}
+
+		public void setTags(List<String> tags) {
+			this.tags = tags;
+		}
+
+		@Override
+		public String toString() {
+			return "Scores [id=" + id + ", average=" + average + ", passed=" + passed + ", rank=" + rank + ", tags="
+					+ tags + "]";
+		}
+	}
+
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	static class NonNullName {
+
+		private String firstname;
+
+		public String getFirstname() {
+			return firstname;
+		}
+
+		public void setFirstname(String firstname) {
+			this.firstname = firstname;
+		}
+	}
+
+	static Person2 person() {
+		PersonName personName = new PersonName();
+		personName.setFirstname("𠮷太郎");
+		personName.setLastname("山田");
+		Person2 person = new Person2();
+		person.setAge(55);
+		person.setPersonName(personName);
+		person.setKanaCode('あ');
+		return person;
+	}
+
+	static ObjectMapper compiled(ObjectMapper mapper) {
+		return mapper.registerModule(new CompiledCodecModule(Person2.class, PersonName.class, Scores.class,
+				NonNullName.class));
+	}
+
+	/*
+	 * UTF-8 / Shift_JIS / EUC-JPで、標準のBeanSerializerと同じバイト列を書き出し、読み込めること（ネストしたBean・null・整形を含む）
+	 */
+	@Test
+	public void outputShouldMatchStandardBinding() throws Exception {
+
+		Person2 noName = person();
+		noName.setPersonName(null);
+		Scores scores = new Scores();
+		scores.setId(1L << 40);
+		scores.setAverage(72.5);
+		scores.setPassed(true);
+		scores.setTags(Arrays.asList("あ", "𠮷"));
+
+		ObjectMapper[] standards = { new ObjectMapper(),
+				new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS)),
+				new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.EUC_JP)) };
+		ObjectMapper[] compileds = { compiled(new ObjectMapper()),
+				compiled(new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS))),
+				compiled(new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.EUC_JP))) };
+		for (int i = 0; i < standards.length; i++) {
+			ObjectMapper standard = standards[i];
+			ObjectMapper mapper = compileds[i];
+			assertThat(mapper.getSerializerProviderInstance().findValueSerializer(Person2.class),
+					instanceOf(CompiledBeanSerializer.class));
+
+			for (Object value : new Object[] { person(), noName, scores, new Scores() }) {
+				byte[] expected = standard.writeValueAsBytes(value);
+				// 2回目はPreEncodedNameのエンコード済みのバイト列を使用します
+				for (int n = 0; n < 2; n++) {
+					assertThat(Arrays.equals(mapper.writeValueAsBytes(value), expected), equalTo(true));
+				}
+				assertThat(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(value),
+						equalTo(standard.writerWithDefaultPrettyPrinter().writeValueAsString(value)));
+				assertThat(mapper.readValue(expected, value.getClass()).toString(), equalTo(value.toString()));
+			}
+		}
+	}
+
+	/*
+	 * 順序の異なるフィールド・型の異なる値・未知のプロパティを、標準のBeanDeserializerと同じように扱うこと
+	 */
+	@Test
+	public void readingShouldBehaveLikeStandardBinding() throws Exception {
+
+		ObjectMapper standard = new ObjectMapper();
+		ObjectMapper mapper = compiled(new ObjectMapper());
+		DefaultDeserializationContext ctxt = ((DefaultDeserializationContext) mapper.getDeserializationContext())
+				.createInstance(mapper.getDeserializationConfig(), null, null);
+		assertThat(ctxt.findRootValueDeserializer(mapper.constructType(Person2.class)),
+				instanceOf(CompiledBeanDeserializer.class));
+
+		String json = "{\"kanaCode\":\"あ\",\"personName\":{\"lastname\":\"山田\",\"firstname\":null},\"age\":\"55\"}";
+		assertThat(mapper.readValue(json, Person2.class).toString(),
+				equalTo(standard.readValue(json, Person2.class).toString()));
+		String scores = "{\"id\":\"12\",\"average\":3,\"passed\":\"true\",\"rank\":null,\"tags\":null}";
+		assertThat(mapper.readValue(scores, Scores.class).toString(),
+				equalTo(standard.readValue(scores, Scores.class).toString()));
+		String wrapped = "[{\"age\":1}]";
+		ObjectMapper unwrapping = compiled(new ObjectMapper()).enable(DeserializationFeature.UNWRAP_SINGLE_VALUE_ARRAYS);
+		assertThat(unwrapping.readValue(wrapped, Person2.class).getAge(), equalTo(1));
+
+		String unknown = "{\"age\":1,\"nickname\":{\"a\":[1,2]},\"kanaCode\":\"い\"}";
+		UnrecognizedPropertyException e = assertThrows(UnrecognizedPropertyException.class,
+				() -> mapper.readValue(unknown, Person2.class));
+		assertThat(e.getPropertyName(), equalTo("nickname"));
+		assertThat(e.getKnownPropertyIds().size(), equalTo(3));
+		ObjectMapper lenient = compiled(new ObjectMapper())
+				.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		assertThat(lenient.readValue(unknown, Person2.class).getKanaCode(), equalTo('い'));
+
+		Person2 update = person();
+		mapper.readerForUpdating(update).readValue("{\"age\":56}");
+		assertThat(update.getAge(), equalTo(56));
+		assertThat(update.getPersonName().getLastname(), equalTo("山田"));
+	}
+
+	/*
+	 * アノテーションで書き出し方を変えたクラスは、登録しても標準のBeanSerializerを使用すること
+	 */
+	@Test
+	public void annotatedClassShouldFallBackToStandardBinding() throws Exception {
+
+		ObjectMapper mapper = compiled(new ObjectMapper());
+		assertThat(mapper.getSerializerProviderInstance().findValueSerializer(NonNullName.class),
+				not(instanceOf(CompiledBeanSerializer.class)));
+		assertThat(mapper.writeValueAsString(new NonNullName()), equalTo("{}"));
+
+		ObjectMapper nonNull = compiled(new ObjectMapper()).setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		assertThat(nonNull.getSerializerProviderInstance().findValueSerializer(PersonName.class),
+				not(instanceOf(CompiledBeanSerializer.class)));
+		assertThat(nonNull.writeValueAsString(new PersonName()), equalTo("{}"));
+	}
+}
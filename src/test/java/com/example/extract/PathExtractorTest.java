@@ -0,0 +1,142 @@
+package com.example.extract;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+public class PathExtractorTest {
+
+	JsonFactory factory = new JsonFactory();
+
+	String json = "{\"payload\":[{\"message\":\"読み飛ばす\"},{\"message\":\"読み飛ばす\"}],"
+			+ "\"personName\":{\"lastname\":\"山田\",\"firstname\":\"太郎\"},"
+			+ "\"age\":42,\"rate\":1.5,\"active\":true,\"note\":null,\"tags\":[\"a\",\"b/c\",{\"x\":1}],"
+			+ "\"a/b\":\"スラッシュ\",\"message\":\"あいうえお\"}";
+
+	/*
+	 * 指定したパスの値（文字列・数値・真偽値・null・配列の要素）が取り出されること
+	 */
+	@Test
+	public void valuesShouldBeExtractedByPath() throws Exception {
+
+		PathExtractor extractor = PathExtractor.compile("/message", "/personName/firstname", "/age", "/rate",
+				"/active", "/note", "/tags/1", "/a~1b", "/missing", "/tags/2");
+		FieldSlots slots = extractor.newSlots();
+
+		int found = extractor.extract(factory, json.getBytes(StandardCharsets.UTF_8), slots);
+
+		assertThat(found, equalTo(9));
+		assertThat(slots.getText(0).toString(), equalTo("あいうえお"));
+		assertThat(slots.textEquals(0, "あいうえお"), equalTo(true));
+		assertThat(slots.getText(1).toString(), equalTo("太郎"));
+		assertThat(slots.getInt(2), equalTo(42));
+		assertThat(slots.getDouble(3), equalTo(1.5));
+		assertThat(slots.getBoolean(4), equalTo(true));
+		assertThat(slots.isNull(5), equalTo(true));
+		assertThat(slots.getText(6).toString(), equalTo("b/c"));
+		assertThat(slots.getText(7).toString(), equalTo("スラッシュ"));
+		assertThat(slots.isPresent(8), equalTo(false));
+		assertThat(slots.getToken(9), equalTo(JsonToken.START_OBJECT));
+		assertThat(extractor.indexOf("/age"), equalTo(2));
+
+		char[] dst = new char[10];
+		assertThat(slots.getChars(1, dst, 3), equalTo(2));
+		assertThat(new String(dst, 3, 2), equalTo("太郎"));
+		assertThrows(IllegalStateException.class, () -> slots.getLong(0));
+
+		// 64文字を超える値、Shift_JIS（LegacyCharsetJsonParser）
+		StringBuilder longText = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			longText.append("か");
+		}
+		String sjis = "{\"message\":\"" + longText + "\"}";
+		PathExtractor message = PathExtractor.compile("/message");
+		FieldSlots messageSlots = message.newSlots();
+		message.extract(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS), sjis.getBytes("Shift_JIS"), messageSlots);
+		assertThat(messageSlots.getText(0).toString(), equalTo(longText.toString()));
+	}
+
+	/*
+	 * すべてのパスが見つかった時点で読み込みを終了し、重複・不正なパスはIllegalArgumentExceptionとなること
+	 */
+	@Test
+	public void extractionShouldStopWhenAllPathsAreFound() throws Exception {
+
+		PathExtractor extractor = PathExtractor.compile("/personName/lastname", "/age");
+		FieldSlots slots = extractor.newSlots();
+		try (JsonParser parser = factory.createParser(json.getBytes(StandardCharsets.UTF_8))) {
+			assertThat(extractor.extract(parser, slots), equalTo(2));
+			assertThat(parser.currentToken(), equalTo(JsonToken.VALUE_NUMBER_INT));
+			assertThat(parser.nextToken(), equalTo(JsonToken.FIELD_NAME));
+			assertThat(parser.getCurrentName(), equalTo("rate"));
+		}
+		assertThat(slots.getText(0).toString(), equalTo("山田"));
+
+		assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("message"));
+		assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("/age", "/age"));
+		assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("/personName", "/personName/firstname"));
+		assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("/personName/firstname", "/personName"));
+		assertThrows(IllegalArgumentException.class, () -> extractor.extract(factory, new byte[0], new FieldSlots(3, 8)));
+	}
+
+	/*
+	 * 同じフィールドが複数ある場合は最初の値を取り出し、それ以降のパスも取り出されること
+	 */
+	@Test
+	public void firstValueShouldBeExtractedForDuplicateFields() throws Exception {
+
+		PathExtractor extractor = PathExtractor.compile("/a", "/b", "/c/d");
+		FieldSlots slots = extractor.newSlots();
+		String duplicate = "{\"a\":1,\"a\":2,\"c\":{\"d\":\"最初\",\"d\":\"次\"},\"a\":{\"x\":[3]},\"b\":4}";
+
+		assertThat(extractor.extract(factory, duplicate.getBytes(StandardCharsets.UTF_8), slots), equalTo(3));
+		assertThat(slots.getInt(0), equalTo(1));
+		assertThat(slots.getInt(1), equalTo(4));
+		assertThat(slots.getText(2).toString(), equalTo("最初"));
+	}
+
+	/*
+	 * 繰り返し取り出す場合、取り出しで割り当てが行われないこと
+	 * （JsonParserの作成時・最初の読み込み時の割り当てを除くため、1つのJsonParserで連続した値から取り出します）
+	 */
+	@Test
+	public void extractionShouldNotAllocateInSteadyState() throws Exception {
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		// 見つからないパスを含めて、値の最後まで読み込みます
+		PathExtractor extractor = PathExtractor.compile("/message", "/personName/firstname", "/age", "/tags/2/x",
+				"/missing");
+		FieldSlots slots = extractor.newSlots();
+		StringBuilder documents = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			documents.append(json).append('\n');
+		}
+
+		long allocated = 0;
+		try (JsonParser parser = factory.createParser(documents.toString().getBytes(StandardCharsets.UTF_8))) {
+			for (int i = 0; parser.nextToken() != null; i++) {
+				long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+				extractor.extract(parser, slots);
+				if (i >= 1000) {
+					allocated += threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+				}
+			}
+		}
+		assertThat(slots.getFoundCount(), equalTo(4));
+		assertThat(slots.getInt(2), equalTo(42));
+		// 計測の誤差（JITコンパイル時等）を除き、1件あたりオブジェクト1つ（16バイト）未満であること
+		assertThat(allocated, lessThan(1000L * 16));
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.file;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MappedJsonFileTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	File file;
+
+	static class Bean {
+
+		private String message;
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	private static String array(int records) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < records; i++) {
+			sb.append(i == 0 ? "" : ",").append("{\"message\":\"あいうえお").append(i).append("\"}");
+		}
+		return sb.append("]").toString();
+	}
+
+	@BeforeEach
+	public void createFile() throws Exception {
+		file = File.createTempFile("mapped", ".json");
+	}
+
+	@AfterEach
+	public void deleteFile() {
+		file.delete();
+	}
+
+	/*
+	 * UTF-8/16/32のファイルを、エンコーディングを自動判定して読み込めること
+	 */
+	@Test
+	public void readValueShouldDetectUnicodeEncoding() throws Exception {
+
+		for (String charset : new String[] { "UTF-8", "UTF-16BE", "UTF-16LE", "UTF-32BE", "UTF-32LE" }) {
+			Files.write(file.toPath(), array(1000).getBytes(charset));
+			try (MappedJsonFile mapped = MappedJsonFile.open(file.toPath())) {
+				assertThat(mapped.getWindowCount(), equalTo(1));
+				Bean[] beans = mapped.readValue(mapper, Bean[].class);
+				assertThat(charset, beans.length, equalTo(1000));
+				assertThat(charset, beans[999].getMessage(), equalTo("あいうえお999"));
+
+				// 同じマップから繰り返し読み込めること
+				assertThat(mapped.readTree(mapper), equalTo(mapper.readTree(file)));
+			}
+		}
+	}
+
+	/*
+	 * 複数のマップに分けた場合も、マップの境界をまたぐ文字を含めて同じ結果になること
+	 */
+	@Test
+	public void windowedMappingShouldReadSameContent() throws Exception {
+
+		Files.write(file.toPath(), array(1000).getBytes("UTF-8"));
+		JsonNode expected = mapper.readTree(file);
+
+		for (int windowSize : new int[] { 1, 7, 4096 }) {
+			try (MappedJsonFile mapped = MappedJsonFile.open(file.toPath(), windowSize)) {
+				assertThat(mapped.getWindowCount(), equalTo((int) ((file.length() + windowSize - 1) / windowSize)));
+				assertThat(mapped.readTree(mapper), equalTo(expected));
+			}
+		}
+	}
+
+	/*
+	 * LegacyCharsetJsonFactoryを使用したObjectMapperでも読み込めること
+	 */
+	@Test
+	public void legacyCharsetFileShouldBeReadByLegacyCharsetMapper() throws Exception {
+
+		Files.write(file.toPath(), array(10).getBytes("Shift_JIS"));
+		ObjectMapper sjisMapper = new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS));
+		try (MappedJsonFile mapped = MappedJsonFile.open(file.toPath(), 5)) {
+			Bean[] beans = mapped.readValue(sjisMapper.readerFor(Bean[].class));
+			assertThat(beans[9].getMessage(), equalTo("あいうえお9"));
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.example.format;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class FormatNegotiatorTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	FormatNegotiator formats = new FormatNegotiator(mapper);
+
+	static class Bean {
+
+		private String message;
+
+		private List<Integer> values;
+
+		public Bean() {
+		}
+
+		public Bean(String message, List<Integer> values) {
+			this.message = message;
+			this.values = values;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+
+		public List<Integer> getValues() {
+			return values;
+		}
+
+		public void setValues(List<Integer> values) {
+			this.values = values;
+		}
+	}
+
+	/*
+	 * JSON（各エンコーディング）/ Smile / CBORで、同じクラスのまま書き出し・読み込みができること
+	 */
+	@Test
+	public void sameBeanShouldRoundTripInEveryFormat() throws Exception {
+
+		Bean bean = new Bean("𠮷野家のあいうえお", Arrays.asList(1, 2, 3));
+		List<MediaFormat> mediaFormats = new ArrayList<>(Arrays.asList(MediaFormat.SMILE, MediaFormat.CBOR));
+		for (String charset : new String[] { "UTF-8", "UTF-16LE", "UTF-32BE", "Shift_JIS", "EUC-JP", "ISO-2022-JP" }) {
+			mediaFormats.add(MediaFormat.json(Charset.forName(charset)));
+		}
+
+		for (MediaFormat format : mediaFormats) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			formats.write(out, format, bean);
+			byte[] bytes = formats.writeValueAsBytes(format, bean);
+			assertThat(format.toString(), bytes, equalTo(out.toByteArray()));
+
+			Bean read = formats.read(new ByteArrayInputStream(bytes), format, Bean.class);
+			assertThat(format.toString(), read.getMessage(), equalTo(bean.getMessage()));
+			assertThat(format.toString(), read.getValues(), equalTo(bean.getValues()));
+			assertThat(format.toString(), formats.read(bytes, format, Bean.class).getMessage(),
+					equalTo(bean.getMessage()));
+		}
+
+		byte[] sjis = formats.writeValueAsBytes(MediaFormat.json(Charset.forName("Shift_JIS")), bean);
+		assertThat(new String(sjis, "Shift_JIS"), equalTo("{\"message\":\"\\uD842\\uDFB7野家のあいうえお\",\"values\":[1,2,3]}"));
+		assertThat(formats.read(sjis, MediaFormat.json(null), Bean.class).getMessage(), equalTo(bean.getMessage()));
+		byte[] iso2022jp = formats.writeValueAsBytes(MediaFormat.json(Charset.forName("ISO-2022-JP")), bean);
+		assertThat(new String(iso2022jp, "ISO-2022-JP"),
+				equalTo("{\"message\":\"\\uD842\\uDFB7野家のあいうえお\",\"values\":[1,2,3]}"));
+	}
+
+	/*
+	 * Smile / CBORは、JSONより小さく、それぞれの形式で書き出されること
+	 */
+	@Test
+	public void binaryFormatsShouldBeSmallerThanJson() throws Exception {
+
+		List<Bean> beans = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			beans.add(new Bean("あいうえお" + i, Arrays.asList(i, i * 1000, i * 1000000)));
+		}
+		byte[] json = formats.writeValueAsBytes(MediaFormat.JSON_UTF8, beans);
+		byte[] smile = formats.writeValueAsBytes(MediaFormat.SMILE, beans);
+		byte[] cbor = formats.writeValueAsBytes(MediaFormat.CBOR, beans);
+
+		assertThat(new String(smile, 0, 3, StandardCharsets.US_ASCII), equalTo(":)\n"));
+		assertThat(cbor[0] & 0xE0, equalTo(0x80)); // CBORの配列（major type 4）
+		assertThat(smile.length, lessThan(json.length));
+		assertThat(cbor.length, lessThan(json.length));
+	}
+
+	/*
+	 * Acceptヘッダのqとcharsetから形式が選択され、Content-Typeと相互に変換できること
+	 */
+	@Test
+	public void acceptHeaderShouldBeNegotiated() throws Exception {
+
+		assertThat(formats.negotiate(null), equalTo(MediaFormat.JSON_UTF8));
+		assertThat(formats.negotiate("application/cbor, application/json;q=0.5"), equalTo(MediaFormat.CBOR));
+		assertThat(formats.negotiate("application/json;q=0.9, application/x-jackson-smile"), equalTo(MediaFormat.SMILE));
+		assertThat(formats.negotiate("text/html, */*;q=0.1"), equalTo(MediaFormat.JSON_UTF8));
+		assertThat(formats.negotiate("application/json; charset=\"Shift_JIS\""),
+				equalTo(MediaFormat.json(Charset.forName("Shift_JIS"))));
+		assertThat(formats.negotiate("application/json; charset=unknown-charset, application/cbor;q=0.2"),
+				equalTo(MediaFormat.CBOR));
+		assertThat(formats.negotiate("text/html, application/cbor;q=0"), nullValue());
+
+		assertThat(MediaFormat.parse("Application/JSON; charset=euc-jp").toContentType(),
+				equalTo("application/json; charset=EUC-JP"));
+		assertThat(MediaFormat.parse("application/x-jackson-smile"), equalTo(MediaFormat.SMILE));
+		assertThat(MediaFormat.parse("text/plain"), nullValue());
+		assertThrows(IllegalArgumentException.class, () -> MediaFormat.parse("application/json; charset=unknown-charset"));
+	}
+
+	/*
+	 * charsetの指定がない（エンコーディングを判定する）読み込みでも、ObjectMapperの設定が使用され、ObjectReaderが再利用されること
+	 */
+	@Test
+	public void detectingReaderShouldUseMapperFeatures() throws Exception {
+
+		ObjectMapper lenient = new ObjectMapper().enable(JsonParser.Feature.ALLOW_TRAILING_COMMA);
+		FormatNegotiator lenientFormats = new FormatNegotiator(lenient);
+		byte[] sjis = "{\"message\":\"あいうえお\",\"values\":[1,2,],}".getBytes("Shift_JIS");
+
+		assertThat(lenientFormats.read(sjis, MediaFormat.json(null), Bean.class).getMessage(), equalTo("あいうえお"));
+		assertThat(lenientFormats.read(new ByteArrayInputStream(sjis), MediaFormat.json(null), Bean.class).getValues(),
+				equalTo(Arrays.asList(1, 2)));
+		assertThat(lenientFormats.reader(Bean.class, MediaFormat.json(null)),
+				sameInstance(lenientFormats.reader(Bean.class, MediaFormat.json(null))));
+		assertThrows(JsonProcessingException.class, () -> formats.read(sjis, MediaFormat.json(null), Bean.class));
+	}
+}
@@ -0,0 +1,219 @@
+package com.example.frame;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class FrameReaderTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	static class PersonName {
+
+		private String firstname;
+
+		private String lastname;
+
+		public PersonName() {
+		}
+
+		public PersonName(String firstname, String lastname) {
+			this.firstname = firstname;
+			this.lastname = lastname;
+		}
+
+		public String getFirstname() {
+			return firstname;
+		}
+
+		public void setFirstname(String firstname) {
+			this.firstname = firstname;
+		}
+
+		public String getLastname() {
+			return lastname;
+		}
+
+		public void setLastname(String lastname) {
+			this.lastname = lastname;
+		}
+	}
+
+	/*
+	 * DataOutputのメソッドで書き出した値とフレームを混在させても、DataInputで順に読み込めること
+	 */
+	@Test
+	public void framesShouldBeInterleavedWithDataOutputValues() throws Exception {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream dout = new DataOutputStream(bytes);
+		FrameWriter frames = FrameWriter.of(mapper, dout);
+		dout.writeInt(25);
+		frames.writeValue(new PersonName("𠮷太郎", "山田"));
+		dout.writeChar('あ');
+		frames.writeValue(new PersonName("花子", "佐藤\u0000"));
+		frames.flush();
+
+		DataInputStream din = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		FrameReader reader = FrameReader.of(mapper, din);
+		assertThat(din.readInt(), equalTo(25));
+		PersonName name = reader.readValue(PersonName.class);
+		assertThat(name.getFirstname(), equalTo("𠮷太郎"));
+		assertThat(name.getLastname(), equalTo("山田"));
+		assertThat(din.readChar(), equalTo('あ'));
+		assertThat(reader.readValue(PersonName.class).getLastname(), equalTo("佐藤\u0000"));
+		assertThat(reader.hasNext(), equalTo(false));
+		assertThrows(EOFException.class, () -> reader.readValue(PersonName.class));
+		assertThat(reader.getFrameCount(), equalTo(2L));
+	}
+
+	/*
+	 * writeUTFで書き出したJSON（modified UTF-8）を、readUTFValueで正しく読み込めること
+	 */
+	@Test
+	public void modifiedUTF8JsonShouldBeReadByReadUTFValue() throws Exception {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream dout = new DataOutputStream(bytes);
+		dout.writeInt(55);
+		dout.writeUTF("{\"firstname\":\"𠮷太郎\", \"lastname\":\"山田\"}");
+		dout.writeChar('あ');
+
+		DataInputStream din = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertThat(din.readInt(), equalTo(55));
+		PersonName name = FrameReader.readUTFValue(din, mapper.readerFor(PersonName.class));
+		assertThat(name.getFirstname(), equalTo("𠮷太郎"));
+		assertThat(name.getLastname(), equalTo("山田"));
+		assertThat(din.readChar(), equalTo('あ'));
+	}
+
+	/*
+	 * チャネルへの書き出し・読み込みで、読み込み用のバッファより大きなフレームを含めて読み込め、
+	 * 内容を読み込まずに読み飛ばせること（FileChannel / SeekableByteChannelでないチャネルの両方）
+	 */
+	@Test
+	public void framesShouldBeReadAndSkippedThroughChannels() throws Exception {
+
+		Path file = Files.createTempFile("frames", ".bin");
+		try {
+			StringBuilder large = new StringBuilder();
+			for (int i = 0; i < 100000; i++) {
+				large.append("あ");
+			}
+			try (FrameWriter writer = FrameWriter.of(mapper,
+					FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+				for (int i = 0; i < 1000; i++) {
+					writer.writeValue(new PersonName("太郎" + i, (i == 500) ? large.toString() : "山田"));
+				}
+				writer.writeFrame(new byte[0]);
+				assertThat(writer.getFrameCount(), equalTo(1001L));
+			}
+
+			try (FrameReader reader = FrameReader.of(mapper, FileChannel.open(file))) {
+				assertThat(reader.skip(10), equalTo(10L));
+				assertThat(reader.readValue(PersonName.class).getFirstname(), equalTo("太郎10"));
+				assertThat(reader.skip(489), equalTo(489L));
+				assertThat(reader.readValue(PersonName.class).getLastname(), equalTo(large.toString()));
+				assertThat(reader.skip(499), equalTo(499L));
+				assertThat(reader.readFrame().length, equalTo(0));
+				assertThat(reader.skip(), equalTo(false));
+			}
+
+			try (FrameReader reader = FrameReader.of(mapper, Channels.newChannel(Files.newInputStream(file)))) {
+				assertThat(reader.skip(500), equalTo(500L));
+				assertThat(reader.readValue(PersonName.class).getLastname(), equalTo(large.toString()));
+				assertThat(reader.skip(1000), equalTo(500L));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/*
+	 * ObjectMapperのJsonFactoryの形式（Shift_JIS）で書き出され、同じ形式で読み込めること
+	 */
+	@Test
+	public void payloadShouldUseFactoryOfObjectMapper() throws Exception {
+
+		ObjectMapper sjisMapper = new ObjectMapper(new LegacyCharsetJsonFactory(LegacyCharset.SHIFT_JIS));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		FrameWriter.of(sjisMapper, new DataOutputStream(bytes)).writeValue(new PersonName("太郎", "山田"));
+
+		byte[] expected = "{\"firstname\":\"太郎\",\"lastname\":\"山田\"}".getBytes(Charset.forName("Shift_JIS"));
+		byte[] actual = FrameReader.of(sjisMapper, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+				.readFrame();
+		assertThat(actual, equalTo(expected));
+		assertThat(bytes.toByteArray()[0], equalTo((byte) expected.length));
+
+		PersonName name = FrameReader
+				.of(sjisMapper, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+				.readValue(PersonName.class);
+		assertThat(name.getFirstname(), equalTo("太郎"));
+	}
+
+	/*
+	 * 上限を超える長さのフレームは、バッファを割り当てる前にIOExceptionとなり、そのフレームを読み飛ばして続きを読み込めること
+	 */
+	@Test
+	public void framesLongerThanMaximumShouldBeRejected() throws Exception {
+
+		// 長さ（Integer.MAX_VALUE）だけで、内容のない不正なフレーム
+		byte[] corrupt = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+		IOException e = assertThrows(IOException.class,
+				() -> FrameReader.of(mapper, new DataInputStream(new ByteArrayInputStream(corrupt))).readFrame());
+		assertThat(e.getMessage(), startsWith("Frame length 2147483647 exceeds"));
+		e = assertThrows(IOException.class,
+				() -> FrameReader.of(mapper, Channels.newChannel(new ByteArrayInputStream(corrupt))).readFrame());
+		assertThat(e.getMessage(), startsWith("Frame length 2147483647 exceeds"));
+
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			large.append("あ");
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		FrameWriter writer = FrameWriter.of(mapper, new DataOutputStream(bytes));
+		writer.writeValue(new PersonName("太郎", large.toString()));
+		writer.writeValue(new PersonName("次郎", "山田"));
+		writer.writeValue(new PersonName("三郎", large.toString()));
+		writer.writeValue(new PersonName("四郎", "山田"));
+
+		FrameReader limited = FrameReader.of(mapper.reader(),
+				new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 1024);
+		assertThat(limited.getMaxFrameLength(), equalTo(1024));
+		assertThrows(IOException.class, () -> limited.readValue(PersonName.class));
+		assertThrows(IOException.class, () -> limited.readFrame());
+		assertThat(limited.skip(), equalTo(true));
+		assertThat(limited.readValue(PersonName.class).getFirstname(), equalTo("次郎"));
+		assertThat(limited.skip(), equalTo(true));
+		assertThat(limited.readValue(PersonName.class).getFirstname(), equalTo("四郎"));
+		assertThat(limited.getFrameCount(), equalTo(4L));
+
+		// 上限以内であれば、内部のバッファより大きいフレームの後も続けて読み込めること
+		FrameReader reader = FrameReader.of(mapper, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		for (String firstname : new String[] { "太郎", "次郎", "三郎", "四郎" }) {
+			assertThat(reader.readValue(PersonName.class).getFirstname(), equalTo(firstname));
+		}
+		assertThrows(IllegalArgumentException.class,
+				() -> FrameReader.of(mapper.reader(), Channels.newChannel(new ByteArrayInputStream(corrupt)), -1));
+	}
+}
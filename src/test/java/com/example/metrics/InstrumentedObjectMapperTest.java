@@ -0,0 +1,217 @@
+package com.example.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class InstrumentedObjectMapperTest {
+
+	static class Bean {
+
+		private String message;
+
+		public Bean() {
+		}
+
+		public Bean(String message) {
+			this.message = message;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	String json = "{\"message\":\"あいうえお\"}";
+
+	/*
+	 * BinaryToJSONSampleTestの各経路が、経路・エンコーディングごとに記録されること
+	 */
+	@Test
+	public void everyRouteShouldBeRecordedByCharset() throws Exception {
+
+		InMemoryMetricsSink sink = new InMemoryMetricsSink();
+		ObjectMapper mapper = new InstrumentedObjectMapper(sink);
+
+		// byte[]（自動判定）
+		byte[] utf8 = json.getBytes("UTF-8");
+		assertThat(mapper.readValue(utf8, Bean.class).getMessage(), equalTo("あいうえお"));
+		byte[] utf16 = json.getBytes("UTF-16LE");
+		assertThat(mapper.readValue(utf16, Bean.class).getMessage(), equalTo("あいうえお"));
+		RouteStats bytes = sink.getStats(Route.READ_BYTES, "UTF-8");
+		assertThat(bytes.getCount(), equalTo(1L));
+		assertThat(bytes.getBytes(), equalTo((long) utf8.length));
+		// START_OBJECT, FIELD_NAME, VALUE_STRING, END_OBJECT
+		assertThat(bytes.getTokens(), equalTo(4L));
+		assertThat(bytes.getTranscodeNanos(), equalTo(0L));
+		assertThat(sink.getStats(Route.READ_BYTES, "UTF-16LE").getBytes(), equalTo((long) utf16.length));
+
+		// InputStreamReader（Shift_JIS）
+		byte[] sjis = json.getBytes("Shift_JIS");
+		mapper.readValue(new InputStreamReader(new ByteArrayInputStream(sjis), "Shift_JIS"), Bean.class);
+		RouteStats reader = sink.getStats(Route.READ_READER, "Shift_JIS");
+		assertThat(reader.getChars(), equalTo((long) json.length()));
+		assertThat(reader.getTokens(), equalTo(4L));
+		assertThat(reader.getTranscodeNanos(), greaterThan(0L));
+		assertThat(reader.getTranscodeNanos() + reader.getBindNanos(),
+				equalTo(reader.getLatency().getTotalNanos()));
+
+		// OutputStreamWriter（Shift_JIS）+ writeTree。closeしていないJsonGeneratorは、writeTreeだけが記録されること
+		ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(outputBytes, "Shift_JIS");
+		JsonGenerator jsonGenerator = mapper.getFactory().createGenerator(writer);
+		mapper.writeTree(jsonGenerator, mapper.readTree(json));
+		assertThat(new String(outputBytes.toByteArray(), "Shift_JIS"), equalTo(json));
+		RouteStats tree = sink.getStats(Route.WRITE_TREE, "Shift_JIS");
+		assertThat(tree.getCount(), equalTo(1L));
+		assertThat(tree.getChars(), equalTo((long) json.length()));
+		assertThat(sink.getStats(Route.WRITE_WRITER, "Shift_JIS"), nullValue());
+		jsonGenerator.close();
+		assertThat(sink.getStats(Route.WRITE_WRITER, "Shift_JIS").getCount(), equalTo(1L));
+		assertThat(sink.getStats(Route.READ_STRING, SerializationSample.CHARS).getCount(), equalTo(1L));
+
+		// DataOutput / DataInput
+		ByteArrayOutputStream dataBytes = new ByteArrayOutputStream();
+		mapper.writeValue((DataOutput) new DataOutputStream(dataBytes), new Bean("abc"));
+		mapper.readValue((DataInput) new DataInputStream(new ByteArrayInputStream(dataBytes.toByteArray())),
+				Bean.class);
+		assertThat(sink.getStats(Route.WRITE_DATA_OUTPUT, "UTF-8").getBytes(), equalTo((long) dataBytes.size()));
+		assertThat(sink.getStats(Route.READ_DATA_INPUT, "UTF-8").getBytes(), greaterThanOrEqualTo(1L));
+
+		// writeValueAsBytes / writeValueAsString / JsonEncodingを指定したOutputStream
+		byte[] written = mapper.writeValueAsBytes(new Bean("abc"));
+		assertThat(sink.getStats(Route.WRITE_BYTES, "UTF-8").getBytes(), equalTo((long) written.length));
+		String text = mapper.writeValueAsString(new Bean("abc"));
+		assertThat(sink.getStats(Route.WRITE_STRING, SerializationSample.CHARS).getChars(),
+				equalTo((long) text.length()));
+		ByteArrayOutputStream utf32 = new ByteArrayOutputStream();
+		try (JsonGenerator g = mapper.getFactory().createGenerator(utf32, JsonEncoding.UTF32_BE)) {
+			mapper.writeValue(g, new Bean("abc"));
+		}
+		assertThat(sink.getStats(Route.WRITE_GENERATOR, "UTF-32BE").getCount(), equalTo(1L));
+		assertThat(sink.getStats(Route.WRITE_STREAM, "UTF-32BE").getBytes(), equalTo((long) utf32.size()));
+
+		// 呼び出し元が作成したJsonParser
+		try (JsonParser p = mapper.getFactory().createParser(utf8)) {
+			JsonNode node = mapper.readTree(p);
+			assertThat(node.get("message").asText(), equalTo("あいうえお"));
+		}
+		assertThat(sink.getStats(Route.READ_PARSER, "UTF-8").getTokens(), equalTo(4L));
+		assertThat(sink.getStats(Route.READ_BYTES, "UTF-8").getCount(), equalTo(2L));
+
+		// copyしたObjectMapperも計測すること
+		ObjectMapper copy = mapper.copy();
+		copy.readValue(utf8, Bean.class);
+		assertThat(sink.getStats(Route.READ_BYTES, "UTF-8").getCount(), equalTo(3L));
+	}
+
+	/*
+	 * BufferRecyclerのミスが数えられること（スレッドごとに再利用する場合は、同じスレッドの2回目以降は0）
+	 */
+	@Test
+	public void bufferRecyclerMissesShouldBeCounted() throws Exception {
+
+		byte[] utf8 = json.getBytes("UTF-8");
+
+		List<SerializationSample> samples = new CopyOnWriteArrayList<>();
+		ObjectMapper mapper = new InstrumentedObjectMapper(samples::add);
+		Thread thread = new Thread(() -> {
+			try {
+				mapper.readValue(utf8, Bean.class);
+				mapper.readValue(utf8, Bean.class);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		thread.start();
+		thread.join();
+		assertThat(samples.size(), equalTo(2));
+		long firstMisses = samples.get(0).getRecyclerMisses();
+		assertThat(firstMisses, greaterThan(0L));
+		assertThat(samples.get(1).getRecyclerMisses(), equalTo(0L));
+
+		// 再利用しない場合は、毎回ミスになること
+		samples.clear();
+		InstrumentedJsonFactory factory = new InstrumentedJsonFactory(samples::add);
+		factory.configure(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING, false);
+		ObjectMapper freshMapper = new InstrumentedObjectMapper(factory);
+		freshMapper.readValue(utf8, Bean.class);
+		freshMapper.readValue(utf8, Bean.class);
+		assertThat(samples.get(0).getRecyclerMisses(), equalTo(firstMisses));
+		assertThat(samples.get(1).getRecyclerMisses(), equalTo(firstMisses));
+	}
+
+	/*
+	 * ヒストグラムのバケット・パーセンタイル
+	 */
+	@Test
+	public void latencyHistogramShouldBoundPercentiles() throws Exception {
+
+		for (long v : new long[] { 0, 1, 3, 4, 7, 8, 15, 1000, 123456789, Long.MAX_VALUE }) {
+			int bucket = LatencyHistogram.bucket(v);
+			assertThat(String.valueOf(v), LatencyHistogram.upperBound(bucket), greaterThanOrEqualTo(v));
+			if (bucket > 0) {
+				assertThat(String.valueOf(v), LatencyHistogram.upperBound(bucket - 1), lessThanOrEqualTo(v - 1));
+			}
+		}
+		assertThat(LatencyHistogram.bucket(Long.MAX_VALUE), equalTo(LatencyHistogram.BUCKETS - 1));
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertThat(histogram.getPercentileNanos(99), equalTo(0L));
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000);
+		}
+		assertThat(histogram.getCount(), equalTo(100L));
+		assertThat(histogram.getMaxNanos(), equalTo(100000L));
+		long p50 = histogram.getPercentileNanos(50);
+		assertThat(p50, greaterThanOrEqualTo(50000L));
+		assertThat(p50, lessThanOrEqualTo(50000L * 5 / 4));
+		assertThat(histogram.getPercentileNanos(100), equalTo(100000L));
+		assertThat(histogram.toString(), notNullValue());
+	}
+
+	/*
+	 * SinkにはCharset#nameで記録されること
+	 */
+	@Test
+	public void historicalEncodingNamesShouldBeNormalized() throws Exception {
+
+		InMemoryMetricsSink sink = new InMemoryMetricsSink();
+		ObjectMapper mapper = new InstrumentedObjectMapper(sink);
+		byte[] eucjp = json.getBytes("EUC-JP");
+		// InputStreamReader#getEncodingは「EUC_JP」を返す
+		mapper.readValue(new InputStreamReader(new ByteArrayInputStream(eucjp), Charset.forName("EUC-JP")),
+				Bean.class);
+		assertThat(sink.getStats(Route.READ_READER, "EUC-JP").getCount(), equalTo(1L));
+	}
+}
@@ -0,0 +1,213 @@
+package com.example.parallel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ParallelArrayReaderTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	ForkJoinPool pool = new ForkJoinPool(4);
+
+	@AfterEach
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	static class Bean {
+
+		private int id;
+
+		private String message;
+
+		private List<String> tags;
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+
+		public List<String> getTags() {
+			return tags;
+		}
+
+		public void setTags(List<String> tags) {
+			this.tags = tags;
+		}
+	}
+
+	/**
+	 * 文字列の中に「,」「]」「"」「\」や、Shift_JISの2バイト目が0x5C / 0x5B / 0x7Dになる文字（ソ / ー / ＼ 等）を含む配列
+	 */
+	private static String array(int records) {
+		StringBuilder sb = new StringBuilder(" \n[");
+		for (int i = 0; i < records; i++) {
+			sb.append(i == 0 ? "" : ",\n  ")
+					.append("{\"id\":").append(i)
+					.append(",\"message\":\"ソース表示ー能力,],[}{ \\\"").append(i).append("\\\\\"")
+					.append(",\"tags\":[\"a,b\",\"]\",\"＼\"]}");
+		}
+		return sb.append("]\n").toString();
+	}
+
+	private static void assertBeans(String message, List<Bean> beans, int records) {
+		assertThat(message, beans.size(), equalTo(records));
+		for (int i = 0; i < records; i++) {
+			Bean bean = beans.get(i);
+			assertThat(message, bean.getId(), equalTo(i));
+			assertThat(message, bean.getMessage(), equalTo("ソース表示ー能力,],[}{ \"" + i + "\\"));
+			assertThat(message, bean.getTags(), equalTo(Arrays.asList("a,b", "]", "＼")));
+		}
+	}
+
+	/*
+	 * 小さな大きさで分けても、文字列の中の区切り文字に影響されず、1つのパーサーで読み込んだ場合と同じ順番・内容になること
+	 */
+	@Test
+	public void orderedReadShouldMatchSequentialRead() throws Exception {
+
+		byte[] bytes = array(10000).getBytes(StandardCharsets.UTF_8);
+		List<Bean> expected = Arrays.asList(mapper.readValue(bytes, Bean[].class));
+		assertBeans("sequential", expected, 10000);
+
+		for (int chunkSize : new int[] { 1, 100, 4096, ParallelArrayReader.DEFAULT_CHUNK_SIZE }) {
+			List<Bean> beans = ParallelArrayReader.create(mapper, Bean.class, StandardCharsets.UTF_8, pool)
+					.withChunkSize(chunkSize)
+					.readAll(bytes);
+			assertBeans("chunkSize=" + chunkSize, beans, 10000);
+		}
+	}
+
+	/*
+	 * UTF-16 / UTF-32 / Shift_JIS / EUC-JPでも要素の区切りで分けられること。
+	 * エンコーディングを指定しない場合は判定し、1バイトずつ届く入力でも読み込めること
+	 */
+	@Test
+	public void multiByteEncodingsShouldBeSplitAtElementBoundaries() throws Exception {
+
+		String source = array(2000);
+		String[] charsets = { "UTF-8", "UTF-16BE", "UTF-16LE", "UTF-32BE", "UTF-32LE", "Shift_JIS", "windows-31j",
+				"EUC-JP" };
+		for (String charset : charsets) {
+			byte[] bytes = source.getBytes(charset);
+			for (Charset specified : new Charset[] { Charset.forName(charset), null }) {
+				ParallelArrayReader<Bean> reader = ParallelArrayReader.create(mapper, Bean.class, specified, pool)
+						.withChunkSize(1000);
+				assertBeans(charset + " / " + specified, reader.readAll(bytes), 2000);
+				assertBeans(charset + " / " + specified + " / 1 byte",
+						reader.readAll(new OneByteInputStream(new ByteArrayInputStream(bytes))), 2000);
+			}
+		}
+
+		byte[] withBom = ("\uFEFF" + source).getBytes("UTF-16LE");
+		assertBeans("UTF-16 with BOM", ParallelArrayReader.create(mapper, Bean.class, Charset.forName("UTF-16"), pool)
+				.withChunkSize(1000).readAll(withBom), 2000);
+	}
+
+	/*
+	 * unorderedの場合も全ての要素が読み込まれ、consumerが呼び出したスレッドで実行されること
+	 */
+	@Test
+	public void unorderedReadShouldDeliverAllElements() throws Exception {
+
+		byte[] bytes = array(10000).getBytes(StandardCharsets.UTF_8);
+		Thread caller = Thread.currentThread();
+		List<Bean> beans = new ArrayList<>();
+		long count = ParallelArrayReader.create(mapper, Bean.class, StandardCharsets.UTF_8, pool)
+				.withChunkSize(100)
+				.withOrdered(false)
+				.read(new ByteArrayInputStream(bytes), chunk -> {
+					assertThat(Thread.currentThread(), equalTo(caller));
+					beans.addAll(chunk);
+				});
+
+		assertThat(count, equalTo(10000L));
+		beans.sort(Comparator.comparingInt(Bean::getId));
+		assertBeans("unordered", beans, 10000);
+	}
+
+	/*
+	 * Shift_JIS / EUC-JP（指定・判定）でも、ObjectMapperのJsonFactoryのFeature（ALLOW_NUMERIC_LEADING_ZEROS）を引き継ぐこと
+	 */
+	@Test
+	public void mapperFeaturesShouldBeUsedForLegacyCharsets() throws Exception {
+
+		ObjectMapper leadingZeros = new ObjectMapper().enable(JsonParser.Feature.ALLOW_NUMERIC_LEADING_ZEROS);
+		String source = array(20).replace("{\"id\":", "{\"id\":00");
+		for (String charset : new String[] { "Shift_JIS", "EUC-JP" }) {
+			byte[] bytes = source.getBytes(charset);
+			ParallelArrayReader<Bean> reader = ParallelArrayReader.create(leadingZeros, Bean.class, null, pool)
+					.withChunkSize(64);
+			for (int n = 0; n < 2; n++) {
+				assertBeans(charset, reader.readAll(bytes), 20);
+			}
+			assertBeans(charset, ParallelArrayReader.create(leadingZeros, Bean.class, Charset.forName(charset), pool)
+					.readAll(bytes), 20);
+			assertThrows(JsonParseException.class,
+					() -> ParallelArrayReader.create(mapper, Bean.class, Charset.forName(charset), pool).readAll(bytes));
+		}
+	}
+
+	/*
+	 * 配列でない入力、閉じていない配列、不正な要素は例外になること
+	 */
+	@Test
+	public void malformedInputShouldBeReported() throws Exception {
+
+		ParallelArrayReader<Bean> reader = ParallelArrayReader.create(mapper, Bean.class, StandardCharsets.UTF_8, pool)
+				.withChunkSize(10);
+
+		assertThat(reader.readAll("[]".getBytes(StandardCharsets.UTF_8)).size(), equalTo(0));
+		assertThrows(JsonParseException.class, () -> reader.readAll("{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(JsonParseException.class, () -> reader.readAll("[{\"id\":1},".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(JsonParseException.class, () -> reader.readAll("".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(JsonMappingException.class,
+				() -> reader.readAll("[{\"id\":1},{\"id\":\"x\"}]".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(IllegalArgumentException.class,
+				() -> ParallelArrayReader.create(mapper, Bean.class, Charset.forName("ISO-2022-JP"), pool));
+	}
+
+	static class OneByteInputStream extends FilterInputStream {
+
+		OneByteInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, 1));
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.example.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CodecContextPoolTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	static class Bean {
+
+		private String message;
+
+		public Bean() {
+		}
+
+		public Bean(String message) {
+			this.message = message;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	/*
+	 * 各エンコーディングで、OutputStreamWriter / InputStreamReaderを使用した場合と同じ内容を読み書きできること
+	 * （表現できない文字は「?」ではなく\\uXXXXでエスケープされること）
+	 */
+	@Test
+	public void pooledCodecShouldRoundTripInEveryCharset() throws Exception {
+
+		Bean bean = new Bean("𠮷野家のあいうえお");
+		for (String charset : new String[] { "UTF-8", "Shift_JIS", "EUC-JP", "ISO-2022-JP", "UTF-16LE" }) {
+			Charset cs = Charset.forName(charset);
+			CodecContextPool pool = new CodecContextPool(mapper, cs);
+
+			byte[] bytes = pool.writeValueAsBytes(bean);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			pool.writeValue(out, bean);
+			assertThat(charset, out.toByteArray(), equalTo(bytes));
+			// UTF-8はObjectMapper#writeValueAsBytesと同様に、サロゲートペアをエスケープします
+			String expected = charset.startsWith("UTF-16") ? "{\"message\":\"𠮷野家のあいうえお\"}"
+					: "{\"message\":\"\\uD842\\uDFB7野家のあいうえお\"}";
+			assertThat(charset, new String(bytes, cs), equalTo(expected));
+
+			// 2回目以降は、同じコンテキストを再利用して同じ結果になること
+			assertThat(charset, pool.readValue(bytes, Bean.class).getMessage(), equalTo(bean.getMessage()));
+			assertThat(charset, pool.readValue(new ByteArrayInputStream(bytes), Bean.class).getMessage(),
+					equalTo(bean.getMessage()));
+			assertThat(charset, pool.writeValueAsBytes(bean), equalTo(bytes));
+			assertThat(charset, pool.getStats().getCreatedCount(), equalTo(1L));
+		}
+
+		// BinaryToJSONSampleTestのOutputStreamWriterの方法と同じ内容であること
+		Bean sjis = new Bean("あいうえお");
+		ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(outputBytes, "Shift_JIS")) {
+			mapper.writeValue(writer, sjis);
+		}
+		assertThat(new CodecContextPool(mapper, Charset.forName("Shift_JIS")).writeValueAsBytes(sjis),
+				equalTo(outputBytes.toByteArray()));
+	}
+
+	/*
+	 * 同時に使用した場合、プールの上限を超えたコンテキストは破棄され、使用状況が取得できること
+	 */
+	@Test
+	public void poolShouldReportOccupancy() throws Exception {
+
+		CodecContextPool pool = new CodecContextPool(mapper, Charset.forName("EUC-JP"), 2);
+		for (int i = 0; i < 100; i++) {
+			pool.readValue(pool.writeValueAsBytes(new Bean("あ" + i)), Bean.class);
+		}
+		PoolStats stats = pool.getStats();
+		assertThat(stats.getAcquiredCount(), equalTo(200L));
+		assertThat(stats.getCreatedCount(), equalTo(1L));
+		assertThat(stats.getIdle(), equalTo(1));
+		assertThat(stats.getOccupancy(), equalTo(0.5));
+		assertThat(stats.getReuseRate(), equalTo(199.0 / 200));
+
+		// 3つ同時に貸し出すと、1つは返却時に破棄される
+		CodecContext a = pool.acquire();
+		CodecContext b = pool.acquire();
+		CodecContext c = pool.acquire();
+		assertThat(pool.getStats().getInUse(), equalTo(3));
+		assertThat(pool.getStats().getIdle(), equalTo(0));
+		pool.release(a);
+		pool.release(b);
+		pool.release(c);
+		stats = pool.getStats();
+		assertThat(stats.getInUse(), equalTo(0));
+		assertThat(stats.getPeakInUse(), equalTo(3));
+		assertThat(stats.getIdle(), equalTo(2));
+		assertThat(stats.getCreatedCount(), equalTo(3L));
+		assertThat(stats.getDiscardedCount(), equalTo(1L));
+
+		// 大きなJSONを書き出したコンテキストは、保持しない
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 300_000; i++) {
+			large.append('a');
+		}
+		pool.writeValueAsBytes(new Bean(large.toString()));
+		assertThat(pool.getStats().getDiscardedCount(), equalTo(2L));
+		assertThat(pool.getStats().getIdle(), equalTo(1));
+	}
+
+	/*
+	 * 多数のスレッドから同時に使用しても、正しく読み書きされること
+	 */
+	@Test
+	public void poolShouldBeSharedAcrossThreads() throws Exception {
+
+		CodecContextPool pool = new CodecContextPool(mapper, Charset.forName("Shift_JIS"), 4);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 64; t++) {
+				final int id = t;
+				results.add(executor.submit(() -> {
+					for (int i = 0; i < 200; i++) {
+						String message = "かきくけこ" + id + "-" + i;
+						byte[] bytes = pool.writeValueAsBytes(new Bean(message));
+						if (!message.equals(pool.readValue(bytes, Bean.class).getMessage())) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertThat(result.get(), equalTo(true));
+			}
+		} finally {
+			executor.shutdown();
+		}
+		PoolStats stats = pool.getStats();
+		assertThat(stats.getAcquiredCount(), equalTo(64L * 200 * 2));
+		assertThat(stats.getInUse(), equalTo(0));
+		assertThat(stats.getIdle(), lessThanOrEqualTo(4));
+		assertThat(stats.getCreatedCount() - stats.getDiscardedCount(), equalTo((long) stats.getIdle()));
+		assertThat(stats.getReuseRate(), greaterThanOrEqualTo(0.5));
+	}
+}
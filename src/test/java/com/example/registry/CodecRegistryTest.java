@@ -0,0 +1,129 @@
+package com.example.registry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+public class CodecRegistryTest {
+
+	Charset sjis = Charset.forName("Shift_JIS");
+
+	static class Bean {
+
+		private String message;
+
+		public Bean() {
+		}
+
+		public Bean(String message) {
+			this.message = message;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	/*
+	 * 同じ型・エンコーディングには同じインスタンスが返され、ヒット・ミスが数えられること
+	 */
+	@Test
+	public void sameInstanceShouldBeReturnedForSameKey() throws Exception {
+
+		CodecRegistry registry = new CodecRegistry(new ObjectMapper());
+
+		ObjectReader reader = registry.reader(Bean.class, sjis);
+		assertThat(registry.reader(Bean.class, Charset.forName("SJIS")), sameInstance(reader));
+		ObjectWriter writer = registry.writer(Bean.class, StandardCharsets.UTF_8);
+		assertThat(registry.writer(Bean.class, StandardCharsets.UTF_8), sameInstance(writer));
+
+		assertThat(registry.getMissCount(), equalTo(2L));
+		assertThat(registry.getHitCount(), equalTo(2L));
+		assertThrows(IllegalArgumentException.class, () -> registry.reader(Bean.class, StandardCharsets.UTF_16));
+	}
+
+	/*
+	 * warmUpで作成した分はミスにならず、最初の取得からヒットになること
+	 */
+	@Test
+	public void warmUpShouldCreateRegisteredReadersAndWriters() throws Exception {
+
+		CodecRegistry registry = new CodecRegistry(new ObjectMapper())
+				.register(Bean.class, StandardCharsets.UTF_8, sjis, Charset.forName("EUC-JP"));
+
+		Duration warmUpTime = registry.warmUp();
+		assertThat(warmUpTime.toNanos(), greaterThan(0L));
+		assertThat(registry.getWarmUpTime(), equalTo(warmUpTime));
+
+		registry.reader(Bean.class, sjis);
+		registry.writer(Bean.class, Charset.forName("EUC-JP"));
+		assertThat(registry.getHitCount(), equalTo(2L));
+		assertThat(registry.getMissCount(), equalTo(0L));
+	}
+
+	/*
+	 * Shift_JISのReader / Writerが、InputStreamReader / OutputStreamWriterを使った場合と同じ結果になること。
+	 * ObjectMapperの設定を引き継ぐこと
+	 */
+	@Test
+	public void readerAndWriterShouldBeBoundToCharset() throws Exception {
+
+		ObjectMapper mapper = new ObjectMapper().enable(DeserializationFeature.UNWRAP_SINGLE_VALUE_ARRAYS);
+		CodecRegistry registry = new CodecRegistry(mapper);
+
+		Bean bean = registry.reader(Bean.class, sjis)
+				.readValue(new ByteArrayInputStream("[{\"message\":\"あいうえお\"}]".getBytes(sjis)));
+		assertThat(bean.getMessage(), equalTo("あいうえお"));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		registry.writer(Bean.class, sjis).writeValue(out, bean);
+		assertThat(out.toByteArray(), equalTo("{\"message\":\"あいうえお\"}".getBytes(sjis)));
+	}
+
+	/*
+	 * 複数のスレッドから同時に取得しても、同じインスタンスが返されること
+	 */
+	@Test
+	public void concurrentLookupShouldReturnSameInstance() throws Exception {
+
+		CodecRegistry registry = new CodecRegistry(new ObjectMapper());
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ObjectReader>> futures = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				futures.add(executor.submit(() -> registry.reader(Bean.class, sjis)));
+			}
+			ObjectReader first = futures.get(0).get();
+			for (Future<ObjectReader> f : futures) {
+				assertThat(f.get(), sameInstance(first));
+			}
+			assertThat(registry.getHitCount() + registry.getMissCount(), equalTo(100L));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
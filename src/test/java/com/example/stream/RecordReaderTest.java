@@ -0,0 +1,200 @@
+package com.example.stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.registry.CodecRegistry;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RecordReaderTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	static class Bean {
+
+		private String message;
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	private static String ndjson(int records) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < records; i++) {
+			sb.append("{\"message\":\"あいうえお").append(i).append("\"}\n");
+		}
+		return sb.toString();
+	}
+
+	private static String array(int records) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < records; i++) {
+			sb.append(i == 0 ? "" : ",\n").append("{\"message\":\"あいうえお").append(i).append("\"}");
+		}
+		return sb.append("]").toString();
+	}
+
+	/*
+	 * 配列とNDJSONのどちらも、指定したエンコーディング（または判定したエンコーディング）で1件ずつ読み込めること
+	 */
+	@Test
+	public void recordsShouldBeReadFromArrayAndNdjsonInAnyCharset() throws Exception {
+
+		String[] charsets = { "UTF-8", "UTF-16LE", "Shift_JIS", "EUC-JP", "ISO-2022-JP" };
+		for (String charset : charsets) {
+			for (String source : new String[] { ndjson(100), array(100) }) {
+				byte[] bytes = source.getBytes(charset);
+				for (Charset specified : new Charset[] { Charset.forName(charset), null }) {
+					try (RecordReader<Bean> records = RecordReader.open(mapper, new ByteArrayInputStream(bytes),
+							specified, Bean.class)) {
+						int i = 0;
+						while (records.hasNext()) {
+							assertThat(charset, records.next().getMessage(), equalTo("あいうえお" + i++));
+						}
+						assertThat(charset, i, equalTo(100));
+						assertThat(records.getCount(), equalTo(100L));
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Shift_JIS / EUC-JP・判定する場合も、ObjectMapperのJsonFactoryのFeature（ALLOW_TRAILING_COMMA）を引き継ぐこと。
+	 * CodecRegistryを指定した場合は、ObjectReaderを使い回すこと
+	 */
+	@Test
+	public void mapperFeaturesShouldBeUsedForLegacyCharsets() throws Exception {
+
+		ObjectMapper trailingCommaMapper = new ObjectMapper().enable(JsonParser.Feature.ALLOW_TRAILING_COMMA);
+		CodecRegistry registry = new CodecRegistry(trailingCommaMapper);
+		String source = array(3).replace("]", ",]");
+		for (String charset : new String[] { "Shift_JIS", "EUC-JP" }) {
+			byte[] bytes = source.getBytes(charset);
+			for (Charset specified : new Charset[] { Charset.forName(charset), null }) {
+				try (RecordReader<Bean> records = RecordReader.open(trailingCommaMapper,
+						new ByteArrayInputStream(bytes), specified, Bean.class)) {
+					assertThat(charset, records.nextBatch(10).size(), equalTo(3));
+				}
+				for (int n = 0; n < 2; n++) {
+					try (RecordReader<Bean> records = RecordReader.open(registry, new ByteArrayInputStream(bytes),
+							specified, Bean.class)) {
+						assertThat(charset, records.nextBatch(10).size(), equalTo(3));
+					}
+				}
+			}
+		}
+		assertThat(registry.getMissCount(), equalTo(3L));
+		assertThat(registry.getHitCount(), equalTo(5L));
+
+		byte[] bytes = source.getBytes("Shift_JIS");
+		trailingCommaMapper.disable(JsonParser.Feature.ALLOW_TRAILING_COMMA);
+		assertThrows(JsonParseException.class, () -> RecordReader
+				.open(trailingCommaMapper, new ByteArrayInputStream(bytes), null, Bean.class).nextBatch(10));
+	}
+
+	/*
+	 * 先頭が不正なファイルは、openで例外となること（ファイルは閉じられます）
+	 */
+	@Test
+	public void invalidHeaderShouldFailOnOpen() throws Exception {
+
+		File file = File.createTempFile("records", ".json");
+		try {
+			Files.write(file.toPath(), "]{\"message\":\"あ\"}".getBytes("Shift_JIS"));
+			assertThrows(JsonParseException.class,
+					() -> RecordReader.open(mapper, file, Charset.forName("Shift_JIS"), Bean.class));
+		} finally {
+			file.delete();
+		}
+	}
+
+	/*
+	 * nextBatchで、指定した件数ずつ読み込めること
+	 */
+	@Test
+	public void nextBatchShouldReturnAtMostNRecords() throws Exception {
+
+		File file = File.createTempFile("records", ".json");
+		try {
+			Files.write(file.toPath(), array(25).getBytes("Shift_JIS"));
+			try (RecordReader<Bean> records = RecordReader.open(mapper, file, Charset.forName("Shift_JIS"),
+					Bean.class)) {
+				assertThat(records.nextBatch(10).size(), equalTo(10));
+				List<Bean> batch = new ArrayList<>();
+				assertThat(records.nextBatch(10, batch), equalTo(10));
+				assertThat(batch.get(0).getMessage(), equalTo("あいうえお10"));
+				batch.clear();
+				assertThat(records.nextBatch(10, batch), equalTo(5));
+				assertThat(batch.get(4).getMessage(), equalTo("あいうえお24"));
+				assertThat(records.nextBatch(10).size(), equalTo(0));
+				assertThat(records.getCount(), equalTo(25L));
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/*
+	 * 全体を保持できない大きさのストリームでも、1件ずつ読み進められること
+	 * （1件分のJSONを繰り返し返すInputStreamを使用し、約100万件を読み込みます）
+	 */
+	@Test
+	public void largeStreamShouldBeReadWithoutMaterializing() throws Exception {
+
+		byte[] record = "{\"message\":\"かきくけこ\"}\n".getBytes("Shift_JIS");
+		long total = 1_000_000;
+		InputStream in = new InputStream() {
+
+			long position;
+
+			@Override
+			public int read() {
+				if (position >= total * record.length) {
+					return -1;
+				}
+				return record[(int) (position++ % record.length)] & 0xFF;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				int n = 0;
+				while (n < len) {
+					int c = read();
+					if (c < 0) {
+						break;
+					}
+					b[off + n++] = (byte) c;
+				}
+				return (n == 0) ? -1 : n;
+			}
+		};
+
+		try (RecordReader<Bean> records = RecordReader.open(mapper, in, Charset.forName("Shift_JIS"), Bean.class)) {
+			List<Bean> batch = new ArrayList<>();
+			while (records.nextBatch(10_000, batch) > 0) {
+				assertThat(batch.get(batch.size() - 1).getMessage(), equalTo("かきくけこ"));
+				batch.clear();
+			}
+			assertThat(records.getCount(), equalTo(total));
+		}
+	}
+}
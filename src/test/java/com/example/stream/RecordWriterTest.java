@@ -0,0 +1,312 @@
+package com.example.stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.pool.CodecContextPool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RecordWriterTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	static class Bean {
+
+		private String message;
+
+		public Bean() {
+		}
+
+		public Bean(String message) {
+			this.message = message;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+	static class Broken {
+
+		public String getMessage() {
+			throw new IllegalStateException("broken");
+		}
+	}
+
+	/*
+	 * NDJSON / 配列を、既存のファイルに続けて追加し、RecordReaderで読み込めること（エンコーディングごと）
+	 */
+	@Test
+	public void recordsShouldBeAppendedInAnyCharset() throws Exception {
+
+		String[] charsets = { "UTF-8", "UTF-16", "UTF-16LE", "UTF-32BE", "Shift_JIS", "EUC-JP", "ISO-2022-JP" };
+		for (String name : charsets) {
+			Charset charset = Charset.forName(name);
+			for (RecordWriter.Format format : RecordWriter.Format.values()) {
+				Path file = Files.createTempFile("records", ".json");
+				try {
+					// 小さなバッファで、途中の書き出しとチャンクの使い回しを行う
+					FlushPolicy policy = FlushPolicy.DEFAULT.withBufferSize(100);
+					try (RecordWriter<Bean> writer = RecordWriter.open(mapper, file, charset, format, policy)) {
+						for (int i = 0; i < 50; i++) {
+							writer.append(new Bean("𠮷あいうえお" + i));
+						}
+						assertThat(writer.getFlushCount() > 1, equalTo(true));
+					}
+					try (RecordWriter<Bean> writer = RecordWriter.open(mapper, file, charset, format)) {
+						writer.append(new Bean("追加"));
+						assertThat(writer.getFlushCount(), equalTo(0L));
+					}
+
+					try (RecordReader<Bean> reader = RecordReader.open(mapper, file.toFile(), charset, Bean.class)) {
+						List<Bean> beans = reader.nextBatch(100);
+						assertThat(name + " " + format, beans.size(), equalTo(51));
+						assertThat(beans.get(49).getMessage(), equalTo("𠮷あいうえお49"));
+						assertThat(beans.get(50).getMessage(), equalTo("追加"));
+					}
+				} finally {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	/*
+	 * 配列は、空の配列・末尾に空白のあるファイルにも追加でき、配列でないファイルはエラーになること
+	 */
+	@Test
+	public void arrayShouldBeReopenedAtClosingBracket() throws Exception {
+
+		Path file = Files.createTempFile("records", ".json");
+		try {
+			// 何も追加しない
+			RecordWriter.open(mapper, file, StandardCharsets.UTF_8, RecordWriter.Format.ARRAY).close();
+			assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), equalTo("[]"));
+
+			Files.write(file, "[ ]\r\n".getBytes(StandardCharsets.UTF_8));
+			try (RecordWriter<Bean> writer = RecordWriter.open(mapper, file, StandardCharsets.UTF_8,
+					RecordWriter.Format.ARRAY)) {
+				writer.append(new Bean("a"));
+			}
+			try (RecordWriter<Bean> writer = RecordWriter.open(mapper, file, StandardCharsets.UTF_8,
+					RecordWriter.Format.ARRAY)) {
+				writer.append(new Bean("b"));
+			}
+			assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+					equalTo("[ {\"message\":\"a\"},{\"message\":\"b\"}]"));
+
+			Files.write(file, "{\"message\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+			assertThrows(IOException.class,
+					() -> RecordWriter.open(mapper, file, StandardCharsets.UTF_8, RecordWriter.Format.ARRAY));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/*
+	 * 件数・間隔・closeの指定どおりに書き出し・fsyncし、変換できなかった1件は追加されないこと
+	 */
+	@Test
+	public void flushPolicyShouldControlWritesAndSyncs() throws Exception {
+
+		Path file = Files.createTempFile("records", ".ndjson");
+		try {
+			FlushPolicy everyTen = FlushPolicy.DEFAULT.withEveryRecords(10).withSync(FlushPolicy.Sync.ON_FLUSH);
+			RecordWriter<Object> writer = RecordWriter.open(mapper, file, StandardCharsets.UTF_8,
+					RecordWriter.Format.NDJSON, everyTen);
+			for (int i = 0; i < 25; i++) {
+				writer.append(new Bean("m" + i));
+			}
+			assertThat(writer.getFlushCount(), equalTo(2L));
+			assertThat(writer.getSyncCount(), equalTo(2L));
+			assertThat(Files.readAllLines(file).size(), equalTo(20));
+
+			assertThrows(IOException.class, () -> writer.append(new Broken()));
+			writer.close();
+			assertThat(writer.getRecordCount(), equalTo(25L));
+			assertThat(writer.getSyncCount(), equalTo(3L));
+			assertThat(writer.getBytesWritten(), equalTo(Files.size(file)));
+			assertThat(Files.readAllLines(file).size(), equalTo(25));
+			assertThrows(IOException.class, () -> writer.append(new Bean("closed")));
+
+			FlushPolicy interval = FlushPolicy.DEFAULT.withInterval(Duration.ofMillis(20))
+					.withSync(FlushPolicy.Sync.NEVER);
+			try (RecordWriter<Bean> timed = RecordWriter.open(mapper, file, StandardCharsets.UTF_8,
+					RecordWriter.Format.NDJSON, interval)) {
+				timed.flushIfDue();
+				assertThat(timed.getFlushCount(), equalTo(0L));
+				timed.append(new Bean("late"));
+				Thread.sleep(30);
+				timed.flushIfDue();
+				assertThat(timed.getFlushCount(), equalTo(1L));
+				assertThat(Files.readAllLines(file).size(), equalTo(26));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/*
+	 * 書き出しが途中で失敗した場合、途中まで書き出した分は取り除かれ、次のflush / closeで最初から書き出されること
+	 */
+	@Test
+	public void failedWriteShouldBeRetriedFromTheStart() throws Exception {
+
+		Path file = Files.createTempFile("records", ".json");
+		try {
+			Files.write(file, "[".getBytes(StandardCharsets.UTF_8));
+			FailingChannel channel = new FailingChannel(
+					FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+			channel.position(1);
+			RecordWriter<Bean> writer = new RecordWriter<>(channel,
+					new CodecContextPool(mapper, StandardCharsets.UTF_8, 1), RecordWriter.Format.ARRAY,
+					FlushPolicy.DEFAULT.withSync(FlushPolicy.Sync.NEVER), true);
+			writer.append(new Bean("a"));
+			writer.append(new Bean("b"));
+
+			channel.failing = true;
+			assertThrows(IOException.class, writer::flush);
+			assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), equalTo("["));
+			assertThat(writer.getBytesWritten(), equalTo(0L));
+
+			channel.failing = false;
+			writer.append(new Bean("c"));
+			writer.close();
+			assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+					equalTo("[{\"message\":\"a\"},{\"message\":\"b\"},{\"message\":\"c\"}]"));
+			assertThat(writer.getBytesWritten(), equalTo(Files.size(file) - 1));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * failingの間は、ギャザリング書き込みで数バイトだけ書き出してから失敗するFileChannel
+	 */
+	static class FailingChannel extends FileChannel {
+
+		private final FileChannel delegate;
+
+		volatile boolean failing;
+
+		FailingChannel(FileChannel delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			if (!failing) {
+				return delegate.write(srcs, offset, length);
+			}
+			ByteBuffer part = srcs[offset].duplicate();
+			part.limit(Math.min(part.limit(), part.position() + 5));
+			delegate.write(part);
+			srcs[offset].position(part.position());
+			throw new IOException("No space left on device");
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			return (int) write(new ByteBuffer[] { src }, 0, 1);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			return delegate.read(dst);
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			return delegate.read(dsts, offset, length);
+		}
+
+		@Override
+		public long position() throws IOException {
+			return delegate.position();
+		}
+
+		@Override
+		public FileChannel position(long newPosition) throws IOException {
+			delegate.position(newPosition);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return delegate.size();
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			delegate.truncate(size);
+			return this;
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			delegate.force(metaData);
+		}
+
+		@Override
+		public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			return delegate.transferTo(position, count, target);
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			return delegate.transferFrom(src, position, count);
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			return delegate.read(dst, position);
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			return delegate.write(src, position);
+		}
+
+		@Override
+		public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+			return delegate.map(mode, position, size);
+		}
+
+		@Override
+		public FileLock lock(long position, long size, boolean shared) throws IOException {
+			return delegate.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+			return delegate.tryLock(position, size, shared);
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			delegate.close();
+		}
+	}
+}
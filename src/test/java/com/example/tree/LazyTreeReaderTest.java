@@ -0,0 +1,109 @@
+package com.example.tree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.charset.CharsetDetectingJsonFactory;
+import com.example.charset.LegacyCharset;
+import com.example.charset.LegacyCharsetJsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class LazyTreeReaderTest {
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	String json = "{\"message\":\"あいうえお\",\"person\":{\"name\":\"𠮷田\",\"tags\":[\"表\",{\"a\":[]},null]},"
+			+ "\"values\":[1,-2,3000000000,12345678901234567890,1.5,-0.25e3,true,false],\"empty\":{}}";
+
+	/*
+	 * readTreeと同じJsonNode（equals / toString / 各値）になること
+	 */
+	@Test
+	public void lazyTreeShouldEqualEagerTree() throws Exception {
+
+		JsonNode expected = mapper.readTree(json);
+
+		LazyTreeReader trees = new LazyTreeReader(mapper);
+		assertThat(trees.readTree(json.getBytes("UTF-8")), equalTo(expected));
+		assertThat(trees.readTree(json.getBytes("UTF-8")).toString(), equalTo(expected.toString()));
+
+		for (LegacyCharset charset : LegacyCharset.values()) {
+			byte[] bytes = json.replace("𠮷", "吉").getBytes(charset.charset());
+			JsonNode legacyExpected = mapper.readTree(json.replace("𠮷", "吉"));
+			ObjectMapper legacyMapper = new ObjectMapper(new LegacyCharsetJsonFactory(charset));
+			assertThat(charset.name(), new LazyTreeReader(legacyMapper).readTree(bytes), equalTo(legacyExpected));
+			ObjectMapper detectingMapper = new ObjectMapper(new CharsetDetectingJsonFactory());
+			assertThat(charset.name(), new LazyTreeReader(detectingMapper).readTree(bytes),
+					equalTo(legacyExpected));
+		}
+
+		// DeserializationFeatureの数値の扱いも同じであること
+		ObjectMapper decimalMapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS,
+				DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+		JsonNode decimal = new LazyTreeReader(decimalMapper).readTree(json.getBytes("UTF-8"));
+		assertThat(decimal, equalTo(decimalMapper.readTree(json)));
+		assertThat(decimal.get("values").get(4).isBigDecimal(), equalTo(true));
+		assertThat(decimal.get("values").get(0).isBigInteger(), equalTo(true));
+	}
+
+	/*
+	 * 参照した部分だけが読み込まれること
+	 */
+	@Test
+	public void onlyVisitedSubtreesShouldBeMaterialized() throws Exception {
+
+		// バイト列の途中から読み込む
+		byte[] body = ("[1," + json + "]").getBytes("UTF-8");
+		JsonNode jsonNode = new LazyTreeReader(mapper).readTree(body, 3, body.length - 4);
+		assertThat(jsonNode, instanceOf(LazyObjectNode.class));
+		assertThat(((LazyObjectNode) jsonNode).isMaterialized(), equalTo(false));
+
+		assertThat(jsonNode.get("message").asText(), equalTo("あいうえお"));
+		assertThat(((LazyObjectNode) jsonNode).isMaterialized(), equalTo(true));
+		LazyObjectNode person = (LazyObjectNode) jsonNode.get("person");
+		LazyArrayNode values = (LazyArrayNode) jsonNode.get("values");
+		assertThat(person.isMaterialized(), equalTo(false));
+		assertThat(values.isMaterialized(), equalTo(false));
+
+		assertThat(jsonNode.at("/person/tags/0").asText(), equalTo("表"));
+		assertThat(person.isMaterialized(), equalTo(true));
+		assertThat(((LazyArrayNode) person.get("tags")).isMaterialized(), equalTo(true));
+		assertThat(((LazyObjectNode) person.get("tags").get(1)).isMaterialized(), equalTo(false));
+		assertThat(values.isMaterialized(), equalTo(false));
+		assertThat(jsonNode.path("values").path(3).bigIntegerValue().toString(), equalTo("12345678901234567890"));
+		assertThat(jsonNode.path("missing").isMissingNode(), equalTo(true));
+
+		// BOMのあるもの
+		JsonNode bom = new LazyTreeReader(mapper).readTree(("\uFEFF" + json).getBytes("UTF-8"));
+		assertThat(bom.at("/person/name").asText(), equalTo("𠮷田"));
+	}
+
+	/*
+	 * バイト位置を扱えないエンコーディングは、readTreeと同じく全体を読み込むこと。
+	 * 不正なJSONは、その部分を参照した時にエラーになること
+	 */
+	@Test
+	public void unsupportedEncodingAndMalformedInputShouldBeHandled() throws Exception {
+
+		LazyTreeReader trees = new LazyTreeReader(mapper);
+		JsonNode utf16 = trees.readTree(json.getBytes(Charset.forName("UTF-16LE")));
+		assertThat(utf16, not(instanceOf(LazyObjectNode.class)));
+		assertThat(utf16, equalTo(mapper.readTree(json)));
+
+		assertThat(trees.readTree("\"text\"".getBytes("UTF-8")).asText(), equalTo("text"));
+		assertThat(trees.readTree(new byte[0]), equalTo(null));
+
+		JsonNode malformed = trees.readTree("{\"a\":1,\"b\":[1,}".getBytes("UTF-8"));
+		assertThrows(UncheckedIOException.class, () -> malformed.get("a"));
+	}
+}